@@ -4,7 +4,6 @@ import android.app.Activity
 import android.content.Context
 import android.graphics.Bitmap
 import android.graphics.ImageFormat
-import android.graphics.Matrix
 import android.graphics.PointF
 import android.graphics.Rect
 import android.hardware.camera2.CameraCaptureSession
@@ -15,7 +14,6 @@ import android.hardware.camera2.CaptureResult
 import android.hardware.camera2.TotalCaptureResult
 import android.os.Build
 import android.os.Handler
-import android.renderscript.RenderScript
 import android.util.DisplayMetrics
 import android.util.Log
 import android.util.Size
@@ -37,8 +35,8 @@ import androidx.camera.view.PreviewView
 import androidx.core.content.ContextCompat
 import androidx.lifecycle.LifecycleOwner
 import com.stripe.android.camera.framework.exception.ImageTypeNotSupportedException
+import com.stripe.android.camera.framework.image.NV21Converter
 import com.stripe.android.camera.framework.image.NV21Image
-import com.stripe.android.camera.framework.image.getRenderScript
 import com.stripe.android.camera.framework.util.NANOS_PER_MILLI
 import com.stripe.android.camera.framework.util.mapArray
 import com.stripe.android.camera.framework.util.mapToIntArray
@@ -145,12 +143,13 @@ private fun yuvPlanesToNV21Fast(
 }
 
 /**
- * Convert an ImageProxy to a bitmap.
+ * Convert an ImageProxy to a bitmap, rotating it by [rotationDegrees] in the same pass.
  */
 @CheckResult
-private fun ImageProxy.toBitmap(renderScript: RenderScript) = when (format) {
+private fun ImageProxy.toBitmap(converter: NV21Converter, rotationDegrees: Int) = when (format) {
     ImageFormat.NV21 -> NV21Image(width, height, planes[0].buffer.toByteArray()).toBitmap(
-        renderScript
+        converter = converter,
+        rotationDegrees = rotationDegrees
     )
     ImageFormat.YUV_420_888 -> NV21Image(
         width,
@@ -162,22 +161,10 @@ private fun ImageProxy.toBitmap(renderScript: RenderScript) = when (format) {
             planes.mapToIntArray { it.rowStride },
             planes.mapToIntArray { it.pixelStride },
         ),
-    ).toBitmap(renderScript)
+    ).toBitmap(converter = converter, rotationDegrees = rotationDegrees)
     else -> throw ImageTypeNotSupportedException(format)
 }
 
-/**
- * Rotate a [Bitmap] by the given [rotationDegrees].
- */
-@CheckResult
-private fun Bitmap.rotate(rotationDegrees: Float): Bitmap = if (rotationDegrees != 0F) {
-    val matrix = Matrix()
-    matrix.postRotate(rotationDegrees)
-    Bitmap.createBitmap(this, 0, 0, this.width, this.height, matrix, true)
-} else {
-    this
-}
-
 /**
  * CameraAdaptor implementation with CameraX.
  */
@@ -212,6 +199,11 @@ class CameraXAdapter(
     /** Blocking camera operations are performed using this executor */
     private lateinit var cameraExecutor: ExecutorService
 
+    /**
+     * Only used from the single threaded [cameraExecutor], so its buffer is reused across frames.
+     */
+    private val nv21Converter = NV21Converter()
+
     private val display by lazy {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
             activity.display
@@ -437,8 +429,10 @@ class CameraXAdapter(
                 analysis.setAnalyzer(
                     cameraExecutor
                 ) { image ->
-                    val bitmap = image.toBitmap(getRenderScript(activity))
-                        .rotate(image.imageInfo.rotationDegrees.toFloat())
+                    val bitmap = image.toBitmap(
+                        converter = nv21Converter,
+                        rotationDegrees = image.imageInfo.rotationDegrees
+                    )
                     image.close()
                     sendImageToStream(
                         CameraPreviewImage(
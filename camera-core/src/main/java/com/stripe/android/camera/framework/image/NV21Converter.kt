@@ -0,0 +1,215 @@
+package com.stripe.android.camera.framework.image
+
+import android.graphics.Bitmap
+import android.graphics.Rect
+import androidx.annotation.CheckResult
+import androidx.annotation.RestrictTo
+
+/**
+ * Converts NV21 data to ARGB pixels on the CPU, replacing the deprecated RenderScript
+ * `ScriptIntrinsicYuvToRGB`.
+ *
+ * Cropping and rotation are fused into the conversion: source pixels are read once, in order,
+ * and written straight to their rotated position in a reusable ARGB buffer. The color conversion
+ * uses the same fixed point BT.601 coefficients as the RenderScript intrinsic, so the output is
+ * pixel identical.
+ *
+ * Instances are not thread safe. Use one converter per analysis thread so that the buffer is
+ * reused across frames.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+class NV21Converter {
+
+    private var argb = IntArray(0)
+
+    /**
+     * Convert a region of an NV21 frame to a [Bitmap], rotating it by [rotationDegrees] clockwise.
+     */
+    @CheckResult
+    fun toBitmap(
+        image: NV21Image,
+        crop: Rect = Rect(0, 0, image.width, image.height),
+        rotationDegrees: Int = 0
+    ): Bitmap {
+        val pixels = convert(
+            nv21 = image.nv21Data,
+            width = image.width,
+            height = image.height,
+            cropLeft = crop.left,
+            cropTop = crop.top,
+            cropRight = crop.right,
+            cropBottom = crop.bottom,
+            rotationDegrees = rotationDegrees
+        )
+        return Bitmap.createBitmap(
+            pixels.argb,
+            0,
+            pixels.width,
+            pixels.width,
+            pixels.height,
+            Bitmap.Config.ARGB_8888
+        )
+    }
+
+    /**
+     * Convert a region of an NV21 frame to ARGB pixels, rotating it by [rotationDegrees]
+     * clockwise.
+     *
+     * The returned [ArgbPixels] share this converter's buffer, and are only valid until the next
+     * call to [convert].
+     */
+    @Suppress("LongParameterList")
+    fun convert(
+        nv21: ByteArray,
+        width: Int,
+        height: Int,
+        cropLeft: Int = 0,
+        cropTop: Int = 0,
+        cropRight: Int = width,
+        cropBottom: Int = height,
+        rotationDegrees: Int = 0
+    ): ArgbPixels {
+        require(rotationDegrees % 90 == 0) { "Can only rotate increments of 90 degrees" }
+        require(cropLeft in 0 until cropRight && cropTop in 0 until cropBottom) {
+            "Cannot use negative crop"
+        }
+        require(cropRight <= width && cropBottom <= height) { "Crop must be within the image" }
+        require(nv21.size >= width * height * 3 / 2) { "Not enough NV21 data for image size" }
+
+        val rotation = (rotationDegrees % 360 + 360) % 360
+        val cropWidth = cropRight - cropLeft
+        val cropHeight = cropBottom - cropTop
+        val outWidth = if (rotation % 180 == 0) cropWidth else cropHeight
+        val outHeight = if (rotation % 180 == 0) cropHeight else cropWidth
+
+        val pixelCount = cropWidth * cropHeight
+        if (argb.size < pixelCount) {
+            argb = IntArray(pixelCount)
+        }
+
+        // Where the first source pixel of the crop lands in the output, and how the output index
+        // moves for each step to the right (xStep) and down (yStep) in the source.
+        val origin: Int
+        val xStep: Int
+        val yStep: Int
+        when (rotation) {
+            90 -> {
+                origin = outWidth - 1
+                xStep = outWidth
+                yStep = -1
+            }
+            180 -> {
+                origin = outWidth * outHeight - 1
+                xStep = -1
+                yStep = -outWidth
+            }
+            270 -> {
+                origin = (outHeight - 1) * outWidth
+                xStep = -outWidth
+                yStep = 1
+            }
+            else -> {
+                origin = 0
+                xStep = 1
+                yStep = outWidth
+            }
+        }
+
+        convertRows(
+            nv21 = nv21,
+            width = width,
+            height = height,
+            cropLeft = cropLeft,
+            cropTop = cropTop,
+            cropRight = cropRight,
+            cropBottom = cropBottom,
+            output = argb,
+            origin = origin,
+            xStep = xStep,
+            yStep = yStep
+        )
+
+        return ArgbPixels(argb, outWidth, outHeight)
+    }
+
+    @Suppress("LongParameterList")
+    private fun convertRows(
+        nv21: ByteArray,
+        width: Int,
+        height: Int,
+        cropLeft: Int,
+        cropTop: Int,
+        cropRight: Int,
+        cropBottom: Int,
+        output: IntArray,
+        origin: Int,
+        xStep: Int,
+        yStep: Int
+    ) {
+        val frameSize = width * height
+        var rowStart = origin
+        for (sy in cropTop until cropBottom) {
+            val yRow = sy * width
+            val vuRow = frameSize + (sy shr 1) * width
+            var out = rowStart
+            var sx = cropLeft
+
+            // A crop starting on an odd column begins in the middle of a chroma pair.
+            if (sx and 1 == 1) {
+                val vuIndex = vuRow + sx - 1
+                output[out] = yuvToArgb(nv21[yRow + sx], nv21[vuIndex + 1], nv21[vuIndex])
+                out += xStep
+                sx++
+            }
+
+            // Both pixels of a pair share the same chroma sample.
+            while (sx + 1 < cropRight) {
+                val vuIndex = vuRow + sx
+                val v = nv21[vuIndex]
+                val u = nv21[vuIndex + 1]
+                output[out] = yuvToArgb(nv21[yRow + sx], u, v)
+                out += xStep
+                output[out] = yuvToArgb(nv21[yRow + sx + 1], u, v)
+                out += xStep
+                sx += 2
+            }
+
+            if (sx < cropRight) {
+                val vuIndex = vuRow + sx
+                output[out] = yuvToArgb(nv21[yRow + sx], nv21[vuIndex + 1], nv21[vuIndex])
+            }
+
+            rowStart += yStep
+        }
+    }
+
+    /**
+     * ARGB pixels in row major order. Only the first [width] * [height] entries of [argb] are
+     * part of the image.
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    class ArgbPixels(val argb: IntArray, val width: Int, val height: Int)
+
+    internal companion object {
+
+        /**
+         * Convert one pixel using the fixed point BT.601 coefficients of the RenderScript
+         * `ScriptIntrinsicYuvToRGB` intrinsic.
+         */
+        @Suppress("MagicNumber")
+        fun yuvToArgb(y: Byte, u: Byte, v: Byte): Int {
+            val yy = (y.toInt() and 0xFF) - 16
+            val uu = (u.toInt() and 0xFF) - 128
+            val vv = (v.toInt() and 0xFF) - 128
+
+            val r = (yy * 298 + vv * 409 + 128) shr 8
+            val g = (yy * 298 - uu * 100 - vv * 208 + 128) shr 8
+            val b = (yy * 298 + uu * 516 + 128) shr 8
+
+            return -0x1000000 or (clamp(r) shl 16) or (clamp(g) shl 8) or clamp(b)
+        }
+
+        @Suppress("MagicNumber")
+        private fun clamp(value: Int) = if (value < 0) 0 else if (value > 255) 255 else value
+    }
+}
@@ -16,7 +16,6 @@
  */
 package com.stripe.android.camera.framework.image
 
-import android.content.Context
 import android.graphics.Bitmap
 import android.graphics.BitmapFactory
 import android.graphics.ImageFormat
@@ -33,7 +32,6 @@ import android.util.Size
 import androidx.annotation.CheckResult
 import androidx.annotation.RestrictTo
 import com.stripe.android.camera.framework.exception.ImageTypeNotSupportedException
-import com.stripe.android.camera.framework.util.cacheFirstResult
 import com.stripe.android.camera.framework.util.mapArray
 import com.stripe.android.camera.framework.util.mapToIntArray
 import com.stripe.android.camera.framework.util.toByteArray
@@ -43,11 +41,6 @@ import java.nio.ByteBuffer
 import java.nio.ReadOnlyBufferException
 import kotlin.experimental.inv
 
-/**
- * Get the RenderScript instance.
- */
-internal val getRenderScript = cacheFirstResult { context: Context -> RenderScript.create(context) }
-
 private val logTag: String = NV21Image::class.java.simpleName
 
 /**
@@ -241,12 +234,27 @@ class NV21Image(val width: Int, val height: Int, val nv21Data: ByteArray) {
         null
     )
 
+    /**
+     * Convert to a [Bitmap] on the CPU, cropping to [crop] and rotating by [rotationDegrees]
+     * clockwise in the same pass.
+     */
+    @CheckResult
+    fun toBitmap(
+        converter: NV21Converter,
+        crop: Rect = Rect(0, 0, width, height),
+        rotationDegrees: Int = 0
+    ): Bitmap = converter.toBitmap(this, crop, rotationDegrees)
+
     /**
      * https://github.com/silvaren/easyrs/blob/c8eed0f0b713bbb1eb375aca23d615677e8adb3c/easyrs/src/main/java/io/github/silvaren/easyrs/tools/YuvToRgb.java
      *
      * TODO: once the renderscript toolkit is available in maven central, replace this method with
      * the yuvToRgbBitmap from that https://github.com/android/renderscript-intrinsics-replacement-toolkit/blob/main/renderscript-toolkit/src/main/java/com/google/android/renderscript/Toolkit.kt#L1079
      */
+    @Deprecated(
+        message = "RenderScript is deprecated. Convert on the CPU with an NV21Converter instead.",
+        replaceWith = ReplaceWith("toBitmap(NV21Converter())")
+    )
     fun toBitmap(renderScript: RenderScript): Bitmap {
         var yuvType: Type? = null
         var yuvAllocation: Allocation? = null
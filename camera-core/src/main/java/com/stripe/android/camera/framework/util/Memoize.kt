@@ -3,8 +3,12 @@
 package com.stripe.android.camera.framework.util
 
 import androidx.annotation.RestrictTo
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.ensureActive
 import kotlinx.coroutines.sync.Mutex
 import kotlinx.coroutines.sync.withLock
+import kotlin.math.min
 import kotlin.time.ComparableTimeMark
 import kotlin.time.Duration
 import kotlin.time.TimeSource
@@ -606,6 +610,168 @@ private class CachedFirstResult3<in Input1, in Input2, in Input3, out Result>(
     }
 }
 
+/**
+ * A memoized result, along with when it expires. A null [expiration] never expires.
+ */
+private class MemoizedEntry<out Result>(val result: Result, val expiration: ComparableTimeMark?)
+
+/**
+ * A bounded store of memoized results. This class is threadsafe.
+ *
+ * Keys are spread over up to 16 lock stripes of at least eight results each, whose
+ * capacities add up to [maxSize]. Each stripe keeps its results in least-recently-used order, so
+ * eviction is LRU per stripe, which approximates a global LRU without a single shared lock. Small
+ * stores use a single stripe and are exactly LRU. Results older than [validFor] are recomputed on
+ * their next access.
+ *
+ * [getOrCompute] runs the backing function while holding its stripe's lock, so only one thread
+ * ever computes a given key at a time. [getOrComputeSuspend] runs it outside of the lock, and
+ * callers asking for a key that is being computed wait for that result instead.
+ */
+internal class BoundedMemoizeStore<Key, Result>(
+    maxSize: Int,
+    private val validFor: Duration,
+    private val timeSource: TimeSource.WithComparableMarks = TimeSource.Monotonic
+) {
+    init {
+        require(maxSize > 0) { "maxSize must be positive" }
+    }
+
+    private val stripes: Array<Stripe<Key, Result>> =
+        Integer.highestOneBit(min(maxSize / MIN_STRIPE_CAPACITY, MAX_STRIPES).coerceAtLeast(1))
+            .let { stripeCount ->
+                // Spread the remainder so that the capacities add up to maxSize.
+                Array(stripeCount) { index ->
+                    Stripe(maxSize / stripeCount + if (index < maxSize % stripeCount) 1 else 0)
+                }
+            }
+
+    /**
+     * The number of results currently held.
+     */
+    val size: Int
+        get() = stripes.sumOf { stripe -> synchronized(stripe.lock) { stripe.entries.size } }
+
+    fun getOrCompute(key: Key, compute: (Key) -> Result): Result {
+        val stripe = stripeFor(key)
+        return synchronized(stripe.lock) {
+            stripe.lookup(key, compute)
+        }
+    }
+
+    @Suppress("SwallowedException")
+    suspend fun getOrComputeSuspend(key: Key, compute: suspend (Key) -> Result): Result {
+        val stripe = stripeFor(key)
+        while (true) {
+            val computation = CompletableDeferred<Result>()
+            val pending = synchronized(stripe.lock) {
+                stripe.cached(key)?.let { return it.result }
+                stripe.computing.getOrPut(key) { computation }
+            }
+
+            if (pending !== computation) {
+                try {
+                    return pending.await()
+                } catch (t: Throwable) {
+                    // The computing caller failed or was cancelled, try again unless this one was too.
+                    currentCoroutineContext().ensureActive()
+                    continue
+                }
+            }
+
+            try {
+                val result = compute(key)
+                synchronized(stripe.lock) {
+                    stripe.store(key, result)
+                    stripe.computing.remove(key)
+                }
+                computation.complete(result)
+                return result
+            } catch (t: Throwable) {
+                synchronized(stripe.lock) { stripe.computing.remove(key) }
+                computation.completeExceptionally(t)
+                throw t
+            }
+        }
+    }
+
+    private fun stripeFor(key: Key): Stripe<Key, Result> {
+        val hash = key.hashCode()
+        return stripes[(hash xor (hash ushr 16)) and (stripes.size - 1)]
+    }
+
+    private inline fun Stripe<Key, Result>.lookup(key: Key, compute: (Key) -> Result): Result {
+        cached(key)?.let { return it.result }
+
+        val result = compute(key)
+        store(key, result)
+        return result
+    }
+
+    private fun Stripe<Key, Result>.cached(key: Key): MemoizedEntry<Result>? {
+        return entries[key]?.takeIf { entry -> entry.expiration?.hasPassedNow() != true }
+    }
+
+    private fun Stripe<Key, Result>.store(key: Key, result: Result) {
+        entries[key] = MemoizedEntry(
+            result = result,
+            expiration = if (validFor.isInfinite()) null else timeSource.markNow() + validFor
+        )
+    }
+
+    /**
+     * All access to a stripe is guarded by [lock]. [computing] holds the results that suspending
+     * callers are computing, which aren't in [entries] yet.
+     */
+    @Suppress("MagicNumber")
+    private class Stripe<Key, Result>(private val capacity: Int) {
+        val lock = Any()
+        val computing = HashMap<Key, CompletableDeferred<Result>>()
+        val entries = object : LinkedHashMap<Key, MemoizedEntry<Result>>(16, 0.75F, true) {
+            override fun removeEldestEntry(
+                eldest: MutableMap.MutableEntry<Key, MemoizedEntry<Result>>?
+            ): Boolean = size > capacity
+        }
+    }
+
+    private companion object {
+        const val MAX_STRIPES = 16
+        const val MIN_STRIPE_CAPACITY = 8
+    }
+}
+
+/**
+ * A class that memoizes the result of a function in a [BoundedMemoizeStore]. This method is
+ * threadsafe. At most [maxSize] results are kept, evicting the least recently used ones, and
+ * results expire after [validFor].
+ */
+private class BoundedMemoize1<in Input, out Result>(
+    maxSize: Int,
+    validFor: Duration,
+    private val function: (Input) -> Result
+) : (Input) -> Result {
+    private val store = BoundedMemoizeStore<Input, Result>(maxSize, validFor)
+
+    override fun invoke(input: Input): Result = store.getOrCompute(input, function)
+}
+
+/**
+ * A class that memoizes the result of a suspend function in a [BoundedMemoizeStore]. At most
+ * [maxSize] results are kept, evicting the least recently used ones, and results expire after
+ * [validFor].
+ */
+private class BoundedMemoizeSuspend1<in Input, out Result>(
+    maxSize: Int,
+    validFor: Duration,
+    private val f: suspend (Input) -> Result
+) {
+    private val store = BoundedMemoizeStore<Input, Result>(maxSize, validFor)
+
+    fun memoize(): suspend (Input) -> Result = { input ->
+        store.getOrComputeSuspend(input, f)
+    }
+}
+
 /* mark: memoized function extensions */
 fun <Result> (() -> Result).memoized(): () -> Result = Memoize0(this)
 fun <Input, Result> ((Input) -> Result).memoized(): (Input) -> Result = Memoize1(this)
@@ -784,3 +950,73 @@ fun <Input1, Input2, Result> cacheFirstResultSuspend(
 fun <Input1, Input2, Input3, Result> cacheFirstResultSuspend(
     f: suspend (Input1, Input2, Input3) -> Result
 ) = CachedFirstResultSuspend3(f).cacheFirstResult()
+
+/* mark: bounded memoize methods */
+fun <Input, Result> memoize(
+    maxSize: Int,
+    validFor: Duration = Duration.INFINITE,
+    f: (Input) -> Result
+): (Input) -> Result = BoundedMemoize1(maxSize, validFor, f)
+
+fun <Input1, Input2, Result> memoize(
+    maxSize: Int,
+    validFor: Duration = Duration.INFINITE,
+    f: (Input1, Input2) -> Result
+): (Input1, Input2) -> Result {
+    val memoized = BoundedMemoize1<Pair<Input1, Input2>, Result>(maxSize, validFor) {
+        f(it.first, it.second)
+    }
+    return { input1, input2 -> memoized(input1 to input2) }
+}
+
+fun <Input1, Input2, Input3, Result> memoize(
+    maxSize: Int,
+    validFor: Duration = Duration.INFINITE,
+    f: (Input1, Input2, Input3) -> Result
+): (Input1, Input2, Input3) -> Result {
+    val memoized = BoundedMemoize1<Triple<Input1, Input2, Input3>, Result>(maxSize, validFor) {
+        f(it.first, it.second, it.third)
+    }
+    return { input1, input2, input3 -> memoized(Triple(input1, input2, input3)) }
+}
+
+/* mark: bounded memoizeSuspend methods */
+fun <Input, Result> memoizeSuspend(
+    maxSize: Int,
+    validFor: Duration = Duration.INFINITE,
+    f: suspend (Input) -> Result
+): suspend (Input) -> Result = BoundedMemoizeSuspend1(maxSize, validFor, f).memoize()
+
+fun <Input1, Input2, Result> memoizeSuspend(
+    maxSize: Int,
+    validFor: Duration = Duration.INFINITE,
+    f: suspend (Input1, Input2) -> Result
+): suspend (Input1, Input2) -> Result {
+    val memoized = BoundedMemoizeSuspend1<Pair<Input1, Input2>, Result>(maxSize, validFor) {
+        f(it.first, it.second)
+    }.memoize()
+    return { input1, input2 -> memoized(input1 to input2) }
+}
+
+fun <Input1, Input2, Input3, Result> memoizeSuspend(
+    maxSize: Int,
+    validFor: Duration = Duration.INFINITE,
+    f: suspend (Input1, Input2, Input3) -> Result
+): suspend (Input1, Input2, Input3) -> Result {
+    val memoized =
+        BoundedMemoizeSuspend1<Triple<Input1, Input2, Input3>, Result>(maxSize, validFor) {
+            f(it.first, it.second, it.third)
+        }.memoize()
+    return { input1, input2, input3 -> memoized(Triple(input1, input2, input3)) }
+}
+
+/* mark: bounded memoized function extensions */
+fun <Input, Result> ((Input) -> Result).memoized(
+    maxSize: Int,
+    validFor: Duration = Duration.INFINITE
+): (Input) -> Result = memoize(maxSize, validFor, this)
+
+fun <Input, Result> (suspend (Input) -> Result).memoizedSuspend(
+    maxSize: Int,
+    validFor: Duration = Duration.INFINITE
+): suspend (Input) -> Result = memoizeSuspend(maxSize, validFor, this)
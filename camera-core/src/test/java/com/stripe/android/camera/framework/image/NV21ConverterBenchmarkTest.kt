@@ -0,0 +1,118 @@
+package com.stripe.android.camera.framework.image
+
+import org.json.JSONArray
+import org.json.JSONObject
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import java.io.File
+import java.lang.management.ManagementFactory
+import kotlin.random.Random
+import kotlin.time.Duration
+import kotlin.time.measureTime
+
+/**
+ * Reports the cost of converting camera frames with [NV21Converter] at common analysis
+ * resolutions.
+ *
+ * Timings and allocations depend on the machine and JVM running the test, so they are only
+ * reported. The report is written as JSON to [REPORT_FILE_NAME] in the build's benchmark reports
+ * directory, so that it can be compared between builds.
+ *
+ * The benchmark is left out of the unit tests and only runs with
+ * `./gradlew :camera-core:testDebugUnitTest -PrunBenchmarks --tests '*BenchmarkTest'`.
+ */
+@RunWith(RobolectricTestRunner::class)
+class NV21ConverterBenchmarkTest {
+
+    @Test
+    fun `conversion benchmark`() {
+        val resolutions = listOf(
+            benchmark(name = "720p", width = 1280, height = 720),
+            benchmark(name = "1080p", width = 1920, height = 1080),
+        )
+
+        val report = JSONObject()
+            .put("benchmark", "NV21Converter.convert")
+            .put("measured_iterations", MEASURED_ITERATIONS)
+            .put("resolutions", JSONArray(resolutions))
+            .toString(2)
+
+        val reportsDir = System.getProperty(REPORTS_DIR_PROPERTY)
+            ?: error("$REPORTS_DIR_PROPERTY is set by the build when run with -PrunBenchmarks.")
+        File(reportsDir, REPORT_FILE_NAME).apply { parentFile?.mkdirs() }.writeText(report)
+    }
+
+    private fun benchmark(name: String, width: Int, height: Int): JSONObject {
+        val nv21 = Random(width).nextBytes(width * height * 3 / 2)
+        val converter = NV21Converter()
+
+        val full = measure { converter.convert(nv21, width, height) }
+        val rotated = measure { converter.convert(nv21, width, height, rotationDegrees = 90) }
+        val croppedAndRotated = measure {
+            converter.convert(
+                nv21 = nv21,
+                width = width,
+                height = height,
+                cropLeft = width / 4,
+                cropTop = height / 4,
+                cropRight = width * 3 / 4,
+                cropBottom = height * 3 / 4,
+                rotationDegrees = 90
+            )
+        }
+
+        return JSONObject()
+            .put("name", name)
+            .put("width", width)
+            .put("height", height)
+            .put("full_frame", full.toJson())
+            .put("rotated", rotated.toJson())
+            .put("cropped_and_rotated", croppedAndRotated.toJson())
+    }
+
+    private fun measure(block: () -> Unit): Result {
+        repeat(WARMUP_ITERATIONS) { block() }
+
+        val allocatedBefore = allocatedBytes()
+        val duration = measureTime {
+            repeat(MEASURED_ITERATIONS) { block() }
+        }
+        val allocatedAfter = allocatedBytes()
+
+        return Result(
+            timePerFrame = duration / MEASURED_ITERATIONS,
+            allocatedBytesPerFrame = if (allocatedBefore != null && allocatedAfter != null) {
+                (allocatedAfter - allocatedBefore) / MEASURED_ITERATIONS
+            } else {
+                null
+            }
+        )
+    }
+
+    /**
+     * The bytes allocated by the current thread, when the JVM running the test counts them.
+     */
+    private fun allocatedBytes(): Long? {
+        val threads = ManagementFactory.getThreadMXBean() as? com.sun.management.ThreadMXBean
+        return threads
+            ?.takeIf { it.isThreadAllocatedMemorySupported && it.isThreadAllocatedMemoryEnabled }
+            ?.getThreadAllocatedBytes(Thread.currentThread().id)
+    }
+
+    private data class Result(
+        val timePerFrame: Duration,
+        val allocatedBytesPerFrame: Long?
+    ) {
+        fun toJson(): JSONObject = JSONObject()
+            .put("time_per_frame_ns", timePerFrame.inWholeNanoseconds)
+            .putOpt("allocated_bytes_per_frame", allocatedBytesPerFrame)
+    }
+
+    private companion object {
+        const val REPORTS_DIR_PROPERTY = "stripe.benchmarkReportsDir"
+        const val REPORT_FILE_NAME = "nv21-converter.json"
+        const val WARMUP_ITERATIONS = 10
+        const val MEASURED_ITERATIONS = 30
+    }
+}
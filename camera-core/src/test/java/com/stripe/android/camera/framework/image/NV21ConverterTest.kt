@@ -0,0 +1,182 @@
+package com.stripe.android.camera.framework.image
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.Test
+import kotlin.random.Random
+import kotlin.test.assertFailsWith
+
+class NV21ConverterTest {
+
+    @Test
+    fun `converts reference colors like the RenderScript intrinsic`() {
+        // BT.601 video range colors, as converted by ScriptIntrinsicYuvToRGB.
+        assertThat(convertPixel(y = 16, u = 128, v = 128)).isEqualTo(0xFF000000.toInt())
+        assertThat(convertPixel(y = 235, u = 128, v = 128)).isEqualTo(0xFFFFFFFF.toInt())
+        assertThat(convertPixel(y = 126, u = 128, v = 128)).isEqualTo(0xFF808080.toInt())
+        assertThat(convertPixel(y = 81, u = 90, v = 240)).isEqualTo(0xFFFF0000.toInt())
+        assertThat(convertPixel(y = 141, u = 50, v = 30)).isEqualTo(0xFF00FF00.toInt())
+        assertThat(convertPixel(y = 41, u = 240, v = 110)).isEqualTo(0xFF0000FF.toInt())
+    }
+
+    @Test
+    fun `converts every YUV combination within range`() {
+        for (y in 0..255 step 5) {
+            for (u in 0..255 step 5) {
+                for (v in 0..255 step 5) {
+                    assertThat(convertPixel(y, u, v)).isEqualTo(referenceArgb(y, u, v))
+                }
+            }
+        }
+    }
+
+    @Test
+    fun `full frame conversion matches the reference`() {
+        val image = randomImage(width = 64, height = 48)
+
+        val pixels = NV21Converter().convert(image.nv21Data, image.width, image.height)
+
+        assertThat(pixels.width).isEqualTo(64)
+        assertThat(pixels.height).isEqualTo(48)
+        assertThat(pixels.argb.copyOf(64 * 48)).isEqualTo(referenceConvert(image))
+    }
+
+    @Test
+    fun `fused crop and rotate matches converting then cropping and rotating`() {
+        val image = randomImage(width = 40, height = 30)
+        val converter = NV21Converter()
+        val crops = listOf(
+            intArrayOf(0, 0, 40, 30),
+            intArrayOf(4, 6, 20, 18),
+            // odd offsets and sizes start and end in the middle of chroma pairs.
+            intArrayOf(3, 5, 26, 28),
+            intArrayOf(1, 1, 2, 2),
+            intArrayOf(39, 0, 40, 30)
+        )
+
+        for (crop in crops) {
+            for (rotation in listOf(0, 90, 180, 270, -90, 450)) {
+                val (left, top, right, bottom) = crop.toList()
+                val pixels = converter.convert(
+                    nv21 = image.nv21Data,
+                    width = image.width,
+                    height = image.height,
+                    cropLeft = left,
+                    cropTop = top,
+                    cropRight = right,
+                    cropBottom = bottom,
+                    rotationDegrees = rotation
+                )
+                val expected = referenceCropAndRotate(
+                    argb = referenceConvert(image),
+                    width = image.width,
+                    crop = crop,
+                    rotationDegrees = rotation
+                )
+
+                assertThat(pixels.width).isEqualTo(expected.width)
+                assertThat(pixels.height).isEqualTo(expected.height)
+                assertThat(pixels.argb.copyOf(expected.width * expected.height))
+                    .isEqualTo(expected.argb)
+            }
+        }
+    }
+
+    @Test
+    fun `reuses its buffer across frames`() {
+        val converter = NV21Converter()
+        val large = randomImage(width = 32, height = 32)
+        val small = randomImage(width = 16, height = 8)
+
+        val first = converter.convert(large.nv21Data, large.width, large.height).argb
+        val second = converter.convert(small.nv21Data, small.width, small.height).argb
+        val third = converter.convert(large.nv21Data, large.width, large.height).argb
+
+        assertThat(second).isSameInstanceAs(first)
+        assertThat(third).isSameInstanceAs(first)
+    }
+
+    @Test
+    fun `rejects invalid arguments`() {
+        val image = randomImage(width = 8, height = 8)
+        val converter = NV21Converter()
+
+        assertFailsWith<IllegalArgumentException> {
+            converter.convert(image.nv21Data, 8, 8, rotationDegrees = 45)
+        }
+        assertFailsWith<IllegalArgumentException> {
+            converter.convert(image.nv21Data, 8, 8, cropLeft = 4, cropRight = 4)
+        }
+        assertFailsWith<IllegalArgumentException> {
+            converter.convert(image.nv21Data, 8, 8, cropRight = 9)
+        }
+        assertFailsWith<IllegalArgumentException> {
+            converter.convert(ByteArray(10), 8, 8)
+        }
+    }
+
+    private fun convertPixel(y: Int, u: Int, v: Int): Int =
+        NV21Converter.yuvToArgb(y.toByte(), u.toByte(), v.toByte())
+
+    private fun randomImage(width: Int, height: Int): Frame {
+        val random = Random(width * height)
+        return Frame(width, height, random.nextBytes(width * height * 3 / 2))
+    }
+
+    private class Frame(val width: Int, val height: Int, val nv21Data: ByteArray)
+
+    private class Argb(val argb: IntArray, val width: Int, val height: Int)
+
+    /**
+     * Straightforward implementation of the RenderScript YuvToRGB intrinsic.
+     */
+    private fun referenceArgb(y: Int, u: Int, v: Int): Int {
+        val r = ((y - 16) * 298 + (v - 128) * 409 + 128) / 256.0
+        val g = ((y - 16) * 298 - (u - 128) * 100 - (v - 128) * 208 + 128) / 256.0
+        val b = ((y - 16) * 298 + (u - 128) * 516 + 128) / 256.0
+        fun channel(value: Double) = kotlin.math.floor(value).toInt().coerceIn(0, 255)
+        return (0xFF shl 24) or (channel(r) shl 16) or (channel(g) shl 8) or channel(b)
+    }
+
+    private fun referenceConvert(image: Frame): IntArray {
+        val data = image.nv21Data
+        val frameSize = image.width * image.height
+        return IntArray(frameSize) { index ->
+            val x = index % image.width
+            val y = index / image.width
+            val vu = frameSize + (y / 2) * image.width + (x / 2) * 2
+            referenceArgb(
+                y = data[index].toInt() and 0xFF,
+                u = data[vu + 1].toInt() and 0xFF,
+                v = data[vu].toInt() and 0xFF
+            )
+        }
+    }
+
+    /**
+     * Crop, then rotate clockwise one pixel at a time, as Bitmap rotation with a Matrix would.
+     */
+    private fun referenceCropAndRotate(
+        argb: IntArray,
+        width: Int,
+        crop: IntArray,
+        rotationDegrees: Int
+    ): Argb {
+        val (left, top, right, bottom) = crop.toList()
+        var w = right - left
+        var h = bottom - top
+        var pixels = IntArray(w * h) { argb[(top + it / w) * width + left + it % w] }
+
+        repeat(((rotationDegrees % 360 + 360) % 360) / 90) {
+            val rotated = IntArray(w * h)
+            for (y in 0 until h) {
+                for (x in 0 until w) {
+                    // (x, y) moves to (h - 1 - y, x) in an h-wide image.
+                    rotated[x * h + (h - 1 - y)] = pixels[y * w + x]
+                }
+            }
+            pixels = rotated
+            w = h.also { h = w }
+        }
+        return Argb(pixels, w, h)
+    }
+}
@@ -0,0 +1,364 @@
+package com.stripe.android.camera.framework.util
+
+import androidx.test.filters.LargeTest
+import androidx.test.filters.SmallTest
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.awaitCancellation
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.test.runCurrent
+import kotlinx.coroutines.test.runTest
+import kotlinx.coroutines.withContext
+import org.junit.Test
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertTrue
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.milliseconds
+import kotlin.time.TestTimeSource
+
+class BoundedMemoizeTest {
+
+    @Test
+    @SmallTest
+    fun boundedMemoize1_onlyRunsOncePerInput() {
+        val functionRunCount = AtomicInteger()
+        val testFunction = memoize(maxSize = 10) { input: Int ->
+            functionRunCount.incrementAndGet()
+            input * 2
+        }
+
+        assertEquals(2, testFunction(1))
+        assertEquals(2, testFunction(1))
+        assertEquals(4, testFunction(2))
+        assertEquals(4, testFunction(2))
+
+        assertEquals(2, functionRunCount.get())
+    }
+
+    @Test
+    @SmallTest
+    fun boundedMemoize2_onlyRunsOncePerInput() {
+        val functionRunCount = AtomicInteger()
+        val testFunction = memoize(maxSize = 10) { input1: Int, input2: String ->
+            functionRunCount.incrementAndGet()
+            "$input1$input2"
+        }
+
+        assertEquals("1a", testFunction(1, "a"))
+        assertEquals("1a", testFunction(1, "a"))
+        assertEquals("1b", testFunction(1, "b"))
+
+        assertEquals(2, functionRunCount.get())
+    }
+
+    @Test
+    @SmallTest
+    fun boundedMemoize3_onlyRunsOncePerInput() {
+        val functionRunCount = AtomicInteger()
+        val testFunction = memoize(maxSize = 10) { input1: Int, input2: Int, input3: Int ->
+            functionRunCount.incrementAndGet()
+            input1 + input2 + input3
+        }
+
+        assertEquals(6, testFunction(1, 2, 3))
+        assertEquals(6, testFunction(1, 2, 3))
+        assertEquals(6, testFunction(3, 2, 1))
+
+        assertEquals(2, functionRunCount.get())
+    }
+
+    @Test
+    @SmallTest
+    fun boundedMemoizeWrapper_onlyRunsOncePerInput() {
+        val functionRunCount = AtomicInteger()
+        val testFunction = { input: Int ->
+            functionRunCount.incrementAndGet()
+            input
+        }.memoized(maxSize = 10)
+
+        testFunction(1)
+        testFunction(1)
+
+        assertEquals(1, functionRunCount.get())
+    }
+
+    @Test
+    @SmallTest
+    fun boundedMemoizeSuspend_onlyRunsOncePerInput() = runTest {
+        var functionRunCount = 0
+        val testFunction = memoizeSuspend(maxSize = 10) { input1: Int, input2: Int ->
+            functionRunCount++
+            input1 + input2
+        }
+
+        assertEquals(3, testFunction(1, 2))
+        assertEquals(3, testFunction(1, 2))
+        assertEquals(4, testFunction(2, 2))
+
+        assertEquals(2, functionRunCount)
+    }
+
+    @Test
+    @SmallTest
+    fun boundedMemoize_evictsLeastRecentlyUsed() {
+        val computed = mutableListOf<Int>()
+        val testFunction = memoize(maxSize = 1) { input: Int ->
+            computed.add(input)
+            input
+        }
+
+        testFunction(1)
+        testFunction(1)
+        testFunction(2)
+        testFunction(1)
+
+        assertEquals(listOf(1, 2, 1), computed)
+    }
+
+    @Test
+    @SmallTest
+    fun boundedMemoizeStore_keepsRecentlyUsedEntries() {
+        val store = BoundedMemoizeStore<Int, Int>(maxSize = 2, validFor = Duration.INFINITE)
+        val computed = mutableListOf<Int>()
+        // Small stores use a single stripe, so eviction is exactly LRU.
+        val compute = { input: Int ->
+            computed.add(input)
+            input
+        }
+
+        store.getOrCompute(0, compute)
+        store.getOrCompute(1, compute)
+        store.getOrCompute(0, compute)
+        store.getOrCompute(1, compute)
+        store.getOrCompute(2, compute)
+        store.getOrCompute(1, compute)
+        store.getOrCompute(0, compute)
+
+        assertEquals(listOf(0, 1, 2, 0), computed)
+        assertEquals(2, store.size)
+    }
+
+    @Test
+    @SmallTest
+    fun boundedMemoizeStore_holdsMaxSizeResults() {
+        listOf(1, 10, 31, 100, 1_000).forEach { maxSize ->
+            val store = BoundedMemoizeStore<Int, Int>(maxSize, validFor = Duration.INFINITE)
+            val functionRunCount = AtomicInteger()
+            val compute = { input: Int ->
+                functionRunCount.incrementAndGet()
+                input
+            }
+
+            repeat(maxSize) { store.getOrCompute(it, compute) }
+            repeat(maxSize) { store.getOrCompute(it, compute) }
+
+            assertEquals(maxSize, store.size)
+            assertEquals(maxSize, functionRunCount.get())
+        }
+    }
+
+    @Test
+    @SmallTest
+    fun boundedMemoizeStore_suspendComputationDoesNotBlockOtherKeys() = runTest {
+        val store = BoundedMemoizeStore<Int, Int>(maxSize = 10, validFor = Duration.INFINITE)
+        val gate = CompletableDeferred<Unit>()
+        val functionRunCount = AtomicInteger()
+        val compute: suspend (Int) -> Int = { input ->
+            functionRunCount.incrementAndGet()
+            if (input == 1) gate.await()
+            input * 2
+        }
+
+        val first = async { store.getOrComputeSuspend(1, compute) }
+        val second = async { store.getOrComputeSuspend(1, compute) }
+        runCurrent()
+
+        assertEquals(4, store.getOrComputeSuspend(2, compute))
+        assertTrue(first.isActive && second.isActive)
+
+        gate.complete(Unit)
+        assertEquals(2, first.await())
+        assertEquals(2, second.await())
+        assertEquals(2, functionRunCount.get())
+    }
+
+    @Test
+    @SmallTest
+    fun boundedMemoizeStore_suspendComputationCanUseOtherKeys() = runTest {
+        val store = BoundedMemoizeStore<Int, Long>(maxSize = 100, validFor = Duration.INFINITE)
+        lateinit var fibonacci: suspend (Int) -> Long
+        fibonacci = { n ->
+            if (n < 2) {
+                n.toLong()
+            } else {
+                store.getOrComputeSuspend(n - 1, fibonacci) + store.getOrComputeSuspend(n - 2, fibonacci)
+            }
+        }
+
+        assertEquals(12_586_269_025L, store.getOrComputeSuspend(50, fibonacci))
+    }
+
+    @Test
+    @SmallTest
+    fun boundedMemoizeStore_suspendWaiterComputesWhenTheComputingCallerIsCancelled() = runTest {
+        val store = BoundedMemoizeStore<Int, Int>(maxSize = 10, validFor = Duration.INFINITE)
+        val functionRunCount = AtomicInteger()
+        val compute: suspend (Int) -> Int = { input ->
+            if (functionRunCount.incrementAndGet() == 1) awaitCancellation()
+            input * 2
+        }
+
+        val cancelled = async { store.getOrComputeSuspend(1, compute) }
+        runCurrent()
+        val waiting = async { store.getOrComputeSuspend(1, compute) }
+        runCurrent()
+        cancelled.cancel()
+
+        assertEquals(2, waiting.await())
+        assertEquals(2, functionRunCount.get())
+    }
+
+    @Test
+    @SmallTest
+    fun boundedMemoizeStore_expiresEntries() {
+        val timeSource = TestTimeSource()
+        val store = BoundedMemoizeStore<Int, Int>(
+            maxSize = 10,
+            validFor = 50.milliseconds,
+            timeSource = timeSource
+        )
+        val functionRunCount = AtomicInteger()
+        val compute = { input: Int ->
+            functionRunCount.incrementAndGet()
+            input
+        }
+
+        store.getOrCompute(1, compute)
+        timeSource += 49.milliseconds
+        store.getOrCompute(1, compute)
+        assertEquals(1, functionRunCount.get())
+
+        timeSource += 1.milliseconds
+        store.getOrCompute(1, compute)
+        assertEquals(2, functionRunCount.get())
+
+        timeSource += 49.milliseconds
+        store.getOrCompute(1, compute)
+        assertEquals(2, functionRunCount.get())
+    }
+
+    @Test
+    @SmallTest
+    fun boundedMemoize_rejectsNonPositiveSize() {
+        assertFailsWith<IllegalArgumentException> {
+            memoize(maxSize = 0) { input: Int -> input }
+        }
+    }
+
+    @Test
+    @LargeTest
+    fun boundedMemoize_concurrentCallersComputeEachInputOnce() {
+        val runCounts = ConcurrentHashMap<Int, AtomicInteger>()
+        val testFunction = memoize(maxSize = 1_000) { input: Int ->
+            runCounts.getOrPut(input) { AtomicInteger() }.incrementAndGet()
+            Thread.yield()
+            input * 2
+        }
+        val threads = 16
+        val executor = Executors.newFixedThreadPool(threads)
+        val start = CountDownLatch(1)
+        val errors = AtomicInteger()
+
+        repeat(threads) { thread ->
+            executor.execute {
+                start.await()
+                repeat(10_000) { call ->
+                    val input = (call * 31 + thread) % 500
+                    if (testFunction(input) != input * 2) errors.incrementAndGet()
+                }
+            }
+        }
+        start.countDown()
+        executor.shutdown()
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES))
+
+        assertEquals(0, errors.get())
+        assertEquals(500, runCounts.size)
+        assertTrue(runCounts.values.all { it.get() == 1 })
+    }
+
+    @Test
+    @LargeTest
+    fun boundedMemoizeSuspend_concurrentCallersComputeEachInputOnce() = runBlocking {
+        val runCounts = ConcurrentHashMap<Int, AtomicInteger>()
+        val testFunction = memoizeSuspend(maxSize = 1_000) { input: Int ->
+            runCounts.getOrPut(input) { AtomicInteger() }.incrementAndGet()
+            input * 2
+        }
+
+        val results = withContext(Dispatchers.Default) {
+            (0 until 10_000).map { call ->
+                async { testFunction(call % 500) == (call % 500) * 2 }
+            }.awaitAll()
+        }
+
+        assertTrue(results.all { it })
+        assertEquals(500, runCounts.size)
+        assertTrue(runCounts.values.all { it.get() == 1 })
+    }
+
+    @Test
+    @LargeTest
+    fun boundedMemoize_concurrentCallersStayWithinBoundsUnderEviction() {
+        val store = BoundedMemoizeStore<Int, Int>(maxSize = 64, validFor = Duration.INFINITE)
+        val threads = 8
+        val executor = Executors.newFixedThreadPool(threads)
+        val errors = AtomicInteger()
+
+        repeat(threads) { thread ->
+            executor.execute {
+                repeat(50_000) { call ->
+                    val input = call * threads + thread
+                    if (store.getOrCompute(input) { it + 1 } != input + 1) errors.incrementAndGet()
+                }
+            }
+        }
+        executor.shutdown()
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES))
+
+        assertEquals(0, errors.get())
+        assertTrue(store.size <= 64)
+    }
+
+    @Test
+    @LargeTest
+    fun boundedMemoize_memoryDoesNotGrowWithDistinctInputs() {
+        val maxSize = 1_000
+        val store = BoundedMemoizeStore<Long, LongArray>(maxSize, Duration.INFINITE)
+        val runtime = Runtime.getRuntime()
+
+        fun usedMemory(): Long {
+            System.gc()
+            return runtime.totalMemory() - runtime.freeMemory()
+        }
+
+        repeat(100_000) { store.getOrCompute(it.toLong()) { LongArray(16) } }
+        val baseline = usedMemory()
+
+        for (key in 100_000L until 3_000_000L) {
+            store.getOrCompute(key) { LongArray(16) }
+        }
+
+        assertTrue(store.size <= maxSize)
+        // 2.9 million unbounded entries would hold several hundred MB.
+        assertTrue(usedMemory() - baseline < 32L * 1024 * 1024)
+    }
+}
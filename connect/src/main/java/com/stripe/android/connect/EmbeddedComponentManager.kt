@@ -27,6 +27,12 @@ class EmbeddedComponentManager @JvmOverloads constructor(
             )
             .coordinator
 
+    init {
+        // The client secret is fetched while the integrator creates a component's view, rather than
+        // once its WebView asks for it.
+        coordinator.prefetchClientSecret()
+    }
+
     /**
      * Returns a controller for presenting the Account Onboarding component full screen.
      *
@@ -118,6 +124,17 @@ class EmbeddedComponentManager @JvmOverloads constructor(
         coordinator.update(appearance)
     }
 
+    /**
+     * Optionally starts the WebView ahead of showing an embedded component, so that the first one
+     * shown after the app starts doesn't wait for the WebView to start. No component is loaded, so
+     * each component still loads its own content when shown. Call it on the main thread.
+     *
+     * @param context The [Context] to use for starting the WebView.
+     */
+    fun prewarm(context: Context) {
+        coordinator.prewarm(context)
+    }
+
     companion object {
         /**
          * Hooks the [EmbeddedComponentManager] into this activity's lifecycle.
@@ -0,0 +1,116 @@
+package com.stripe.android.connect.manager
+
+import com.stripe.android.connect.FetchClientSecret
+import com.stripe.android.connect.util.AndroidClock
+import com.stripe.android.connect.util.Clock
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.async
+import javax.inject.Inject
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.minutes
+
+/**
+ * The client secret last fetched from the integrator's [FetchClientSecret], shared by every embedded
+ * component of an [com.stripe.android.connect.EmbeddedComponentManager] so that showing several
+ * components, or re-creating one, doesn't wait for the integrator's server each time.
+ *
+ * A client secret is reused for [validity] after it was requested, and concurrent requests share a
+ * single fetch. Null client secrets and failures aren't kept.
+ *
+ * @param scope the scope client secrets are fetched in, so that a fetch outlives the component that
+ * started it when another component waits for it
+ */
+@EmbeddedComponentManagerScope
+internal class ClientSecretCache(
+    private val fetchClientSecret: FetchClientSecret,
+    private val validity: Duration,
+    private val scope: CoroutineScope,
+    private val clock: Clock,
+) {
+    @Inject
+    constructor(fetchClientSecret: FetchClientSecret) : this(
+        fetchClientSecret = fetchClientSecret,
+        validity = DEFAULT_VALIDITY,
+        scope = CoroutineScope(SupervisorJob() + Dispatchers.IO),
+        clock = AndroidClock(),
+    )
+
+    private var clientSecret: String? = null
+    private var requestedAtMillis: Long = 0
+    private var inFlight: Deferred<String?>? = null
+
+    /**
+     * Returns the cached client secret, or fetches one if it is no longer valid.
+     */
+    suspend fun get(): String? {
+        val fetch = synchronized(this) {
+            validClientSecret()?.let { return it }
+            fetchLocked()
+        }
+        // Started outside the lock, as the fetch takes the lock when it completes.
+        fetch.start()
+        return fetch.await()
+    }
+
+    /**
+     * Starts fetching a client secret, unless a valid one is cached or being fetched.
+     */
+    fun prefetch() {
+        synchronized(this) {
+            if (validClientSecret() != null) {
+                return
+            }
+            fetchLocked()
+        }.start()
+    }
+
+    /**
+     * Drops the cached client secret, which was rejected, and starts fetching a new one.
+     */
+    fun refresh() {
+        synchronized(this) {
+            clientSecret = null
+        }
+        prefetch()
+    }
+
+    private fun validClientSecret(): String? {
+        return clientSecret?.takeIf {
+            clock.millis() - requestedAtMillis < validity.inWholeMilliseconds
+        }
+    }
+
+    private fun fetchLocked(): Deferred<String?> {
+        inFlight?.let { return it }
+
+        val requestedAtMillis = clock.millis()
+        val fetch = scope.async(start = CoroutineStart.LAZY) {
+            try {
+                fetchClientSecret()?.also { fetched ->
+                    synchronized(this@ClientSecretCache) {
+                        clientSecret = fetched
+                        this@ClientSecretCache.requestedAtMillis = requestedAtMillis
+                    }
+                }
+            } finally {
+                synchronized(this@ClientSecretCache) {
+                    inFlight = null
+                }
+            }
+        }
+        inFlight = fetch
+        return fetch
+    }
+
+    internal companion object {
+        /**
+         * Comfortably within the lifetime of an account session, which the integrator's server
+         * creates for every client secret.
+         */
+        val DEFAULT_VALIDITY = 5.minutes
+    }
+}
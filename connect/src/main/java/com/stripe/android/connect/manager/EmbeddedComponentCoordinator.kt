@@ -11,10 +11,10 @@ import android.os.Bundle
 import androidx.activity.ComponentActivity
 import androidx.activity.result.ActivityResultLauncher
 import androidx.activity.result.contract.ActivityResultContracts
+import androidx.annotation.MainThread
 import androidx.annotation.VisibleForTesting
 import androidx.core.content.ContextCompat.checkSelfPermission
 import com.stripe.android.connect.BuildConfig
-import com.stripe.android.connect.FetchClientSecret
 import com.stripe.android.connect.StripeEmbeddedComponent
 import com.stripe.android.connect.analytics.ComponentAnalyticsService
 import com.stripe.android.connect.analytics.ConnectAnalyticsService
@@ -23,6 +23,8 @@ import com.stripe.android.connect.appearance.fonts.CustomFontSource
 import com.stripe.android.connect.di.StripeConnectComponent
 import com.stripe.android.connect.util.findActivity
 import com.stripe.android.connect.webview.ChooseFileActivityResultContract
+import com.stripe.android.connect.webview.ConnectAssetCache
+import com.stripe.android.connect.webview.ConnectWebViewPrewarmer
 import com.stripe.android.connect.webview.serialization.ConnectInstanceJs
 import com.stripe.android.connect.webview.serialization.toJs
 import com.stripe.android.core.Logger
@@ -40,7 +42,7 @@ import javax.inject.Inject
 @EmbeddedComponentManagerScope
 internal class EmbeddedComponentCoordinator @Inject constructor(
     @PublishableKey private val publishableKey: String,
-    val fetchClientSecret: FetchClientSecret,
+    private val clientSecretCache: ClientSecretCache,
     private val logger: Logger,
     appearance: Appearance,
     internal val customFonts: List<CustomFontSource>,
@@ -55,6 +57,28 @@ internal class EmbeddedComponentCoordinator @Inject constructor(
         _appearanceFlow.value = appearance
     }
 
+    /**
+     * Returns the client secret, only calling the integrator's
+     * [com.stripe.android.connect.FetchClientSecret] if the last one fetched is no longer valid.
+     */
+    internal suspend fun fetchClientSecret(): String? {
+        return clientSecretCache.get()
+    }
+
+    /**
+     * Starts fetching the client secret, so that it is ready by the time a component requests it.
+     */
+    internal fun prefetchClientSecret() {
+        clientSecretCache.prefetch()
+    }
+
+    /**
+     * Fetches a new client secret, after the web layer rejected the current one.
+     */
+    internal fun refreshClientSecret() {
+        clientSecretCache.refresh()
+    }
+
     internal fun getInitialParams(context: Context): ConnectInstanceJs {
         return ConnectInstanceJs(
             appearance = _appearanceFlow.value.toJs(),
@@ -67,12 +91,25 @@ internal class EmbeddedComponentCoordinator @Inject constructor(
      */
     internal fun getStripeURL(component: StripeEmbeddedComponent): String {
         return buildString {
-            append("https://connect-js.stripe.com/v1.0/android_webview.html")
+            append(CONNECT_JS_URL)
             append("#component=${component.componentName}")
             append("&publicKey=$publishableKey")
         }
     }
 
+    /**
+     * Starts the WebView by loading the Connect page off screen. The page has no component and no
+     * JavaScript bridge, so it only warms the WebView's process, not any component.
+     */
+    @MainThread
+    internal fun prewarm(context: Context) {
+        ConnectWebViewPrewarmer.Shared.prewarm(
+            context = context,
+            url = "$CONNECT_JS_URL#publicKey=$publishableKey",
+            assetCache = ConnectAssetCache.getInstance(context),
+        )
+    }
+
     /**
      * Requests camera permissions for the EmbeddedComponents. Returns true if the user grants permission, false if the
      * user denies permission, and null if the request cannot be completed.
@@ -152,6 +189,8 @@ internal class EmbeddedComponentCoordinator @Inject constructor(
     }
 
     companion object {
+        private const val CONNECT_JS_URL = "https://connect-js.stripe.com/v1.0/android_webview.html"
+
         private var connectAnalyticsService: ConnectAnalyticsService? = null
         private var userFacingLogger: UserFacingLogger? = null
 
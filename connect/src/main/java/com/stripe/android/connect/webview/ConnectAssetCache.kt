@@ -0,0 +1,286 @@
+package com.stripe.android.connect.webview
+
+import android.content.Context
+import android.net.Uri
+import android.webkit.WebResourceRequest
+import android.webkit.WebResourceResponse
+import androidx.annotation.VisibleForTesting
+import androidx.annotation.WorkerThread
+import com.stripe.android.connect.webview.serialization.ConnectJson
+import com.stripe.android.core.version.StripeSdkVersion
+import kotlinx.serialization.Serializable
+import kotlinx.serialization.SerializationException
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.io.IOException
+import java.io.InputStream
+import java.net.HttpURLConnection
+import java.net.URL
+import java.security.MessageDigest
+
+/**
+ * An app-local cache of the static assets of Connect embedded components, served to their WebViews
+ * through [android.webkit.WebViewClient.shouldInterceptRequest], so that rendering the first component
+ * after a cold start doesn't download Connect.js's assets again.
+ *
+ * Only assets with a content hash in their file name are cached, as their URLs always name the same
+ * content. Files under an API version directory such as `/v1.0/`, Connect.js itself included, are
+ * updated in place, so they are left to the WebView and its HTTP cache.
+ *
+ * Every asset is stored with the SHA-256 digest of the downloaded content, which is checked whenever
+ * it is served. As the digest is computed from the same bytes that are stored, it only detects files
+ * that were corrupted or truncated on disk, not content the server didn't send. The whole cache is
+ * dropped when [version] changes. Assets larger than [maxAssetBytes] aren't cached, and the least
+ * recently served assets are dropped once the cache holds more than [maxCacheBytes].
+ *
+ * @param isImmutableAsset whether the asset at a URL never changes, and so can be cached
+ */
+internal class ConnectAssetCache(
+    private val directory: File,
+    private val version: String = StripeSdkVersion.VERSION_NAME,
+    private val maxAssetBytes: Int = DEFAULT_MAX_ASSET_BYTES,
+    private val maxCacheBytes: Long = DEFAULT_MAX_CACHE_BYTES,
+    private val isImmutableAsset: (Uri) -> Boolean = { isContentHashedConnectAsset(it) },
+) {
+    private var isVersionChecked = false
+
+    /**
+     * Returns the cached response to [request], downloading and caching it first if needed, or null
+     * if the WebView should load it itself.
+     */
+    @WorkerThread
+    fun intercept(request: WebResourceRequest): WebResourceResponse? {
+        if (!request.method.equals("GET", ignoreCase = true) || !isImmutableAsset(request.url)) {
+            return null
+        }
+        val url = request.url.toString()
+        val asset = get(url)
+            ?: download(url)?.also { put(it) }
+            ?: return null
+        return asset.toResponse()
+    }
+
+    @VisibleForTesting
+    @Synchronized
+    internal fun get(url: String): Asset? {
+        checkVersion()
+        val key = keyOf(url)
+        val contentFile = contentFile(key)
+        val metadataFile = metadataFile(key)
+        if (!contentFile.exists() || !metadataFile.exists()) {
+            return null
+        }
+
+        val asset = try {
+            val metadata = ConnectJson.decodeFromString<Metadata>(metadataFile.readText())
+            Asset(metadata, contentFile.readBytes())
+        } catch (e: IOException) {
+            null
+        } catch (e: SerializationException) {
+            null
+        }
+
+        if (asset == null || asset.metadata.url != url || asset.metadata.sha256 != sha256(asset.content)) {
+            // The file was corrupted on disk, so the asset is downloaded again.
+            remove(key)
+            return null
+        }
+
+        contentFile.setLastModified(System.currentTimeMillis())
+        return asset
+    }
+
+    @Synchronized
+    private fun put(asset: Asset) {
+        checkVersion()
+        val key = keyOf(asset.metadata.url)
+        try {
+            // The metadata is written last, so that an interrupted write is never served.
+            contentFile(key).writeBytes(asset.content)
+            metadataFile(key).writeText(ConnectJson.encodeToString(Metadata.serializer(), asset.metadata))
+        } catch (e: IOException) {
+            remove(key)
+            return
+        }
+        trim()
+    }
+
+    private fun download(url: String): Asset? {
+        val connection = try {
+            URL(url).openConnection() as HttpURLConnection
+        } catch (e: IOException) {
+            return null
+        }
+        return try {
+            connection.connectTimeout = TIMEOUT_MILLIS
+            connection.readTimeout = TIMEOUT_MILLIS
+            val isCacheable = connection.responseCode == HttpURLConnection.HTTP_OK &&
+                connection.contentLength <= maxAssetBytes &&
+                connection.getHeaderField(HEADER_CACHE_CONTROL)?.contains("no-store") != true
+            if (!isCacheable) {
+                return null
+            }
+
+            val content = connection.inputStream.use { it.readAtMost(maxAssetBytes) }
+                ?: return null
+            val contentType = connection.contentType?.split(";")?.map { it.trim() }
+            Asset(
+                metadata = Metadata(
+                    url = url,
+                    mimeType = contentType?.firstOrNull() ?: DEFAULT_MIME_TYPE,
+                    encoding = contentType?.firstNotNullOfOrNull { param ->
+                        param.takeIf { it.startsWith("charset=", ignoreCase = true) }?.substringAfter("=")
+                    },
+                    headers = PASSED_THROUGH_HEADERS.mapNotNull { name ->
+                        connection.getHeaderField(name)?.let { name to it }
+                    }.toMap(),
+                    sha256 = sha256(content),
+                ),
+                content = content,
+            )
+        } catch (e: IOException) {
+            null
+        } finally {
+            connection.disconnect()
+        }
+    }
+
+    /**
+     * Drops the cache when it was written for another version.
+     */
+    private fun checkVersion() {
+        if (isVersionChecked) {
+            return
+        }
+        val versionFile = File(directory, VERSION_FILE_NAME)
+        val cachedVersion = runCatching { versionFile.readText() }.getOrNull()
+        if (cachedVersion != version) {
+            directory.deleteRecursively()
+            directory.mkdirs()
+            runCatching { versionFile.writeText(version) }
+        }
+        isVersionChecked = true
+    }
+
+    /**
+     * Drops the least recently served assets until the cache fits in [maxCacheBytes].
+     */
+    private fun trim() {
+        val contentFiles = directory.listFiles { file -> file.name.endsWith(CONTENT_EXTENSION) }
+            ?.sortedBy { it.lastModified() }
+            ?: return
+        var size = contentFiles.sumOf { it.length() }
+        for (contentFile in contentFiles) {
+            if (size <= maxCacheBytes) {
+                break
+            }
+            size -= contentFile.length()
+            remove(contentFile.name.removeSuffix(CONTENT_EXTENSION))
+        }
+    }
+
+    private fun remove(key: String) {
+        metadataFile(key).delete()
+        contentFile(key).delete()
+    }
+
+    private fun contentFile(key: String) = File(directory, key + CONTENT_EXTENSION)
+
+    private fun metadataFile(key: String) = File(directory, key + METADATA_EXTENSION)
+
+    private fun keyOf(url: String): String = sha256(url.toByteArray())
+
+    private fun InputStream.readAtMost(maxBytes: Int): ByteArray? {
+        val output = ByteArrayOutputStream()
+        val buffer = ByteArray(BUFFER_SIZE)
+        while (true) {
+            val read = read(buffer)
+            if (read < 0) {
+                return output.toByteArray()
+            }
+            if (output.size() + read > maxBytes) {
+                return null
+            }
+            output.write(buffer, 0, read)
+        }
+    }
+
+    @Serializable
+    internal data class Metadata(
+        val url: String,
+        val mimeType: String,
+        val encoding: String?,
+        val headers: Map<String, String>,
+        val sha256: String,
+    )
+
+    internal class Asset(
+        val metadata: Metadata,
+        val content: ByteArray,
+    ) {
+        fun toResponse(): WebResourceResponse {
+            return WebResourceResponse(
+                metadata.mimeType,
+                metadata.encoding,
+                HttpURLConnection.HTTP_OK,
+                "OK",
+                metadata.headers,
+                ByteArrayInputStream(content),
+            )
+        }
+    }
+
+    internal companion object {
+        const val DEFAULT_MAX_ASSET_BYTES = 4 * 1024 * 1024
+        const val DEFAULT_MAX_CACHE_BYTES = 16L * 1024 * 1024
+
+        private const val DIRECTORY_NAME = "stripe_connect_assets"
+        private const val VERSION_FILE_NAME = "version"
+        private const val CONTENT_EXTENSION = ".content"
+        private const val METADATA_EXTENSION = ".json"
+        private const val TIMEOUT_MILLIS = 10_000
+        private const val BUFFER_SIZE = 8 * 1024
+        private const val DEFAULT_MIME_TYPE = "application/octet-stream"
+        private const val HEADER_CACHE_CONTROL = "Cache-Control"
+
+        /**
+         * Headers a WebView needs to use assets loaded from another origin.
+         */
+        private val PASSED_THROUGH_HEADERS = listOf("Access-Control-Allow-Origin", "Timing-Allow-Origin")
+
+        private val ASSET_HOSTS = setOf("connect-js.stripe.com", "b.stripecdn.com")
+        private val ASSET_EXTENSIONS = setOf("js", "css", "woff", "woff2", "svg", "png")
+
+        /**
+         * A file name with a content hash, such as `main-3f2a9c1b.js`.
+         */
+        private val CONTENT_HASHED_FILE_NAME = Regex("""[.-][0-9a-f]{8,}\.[a-z0-9]+$""")
+
+        @Volatile
+        private var instance: ConnectAssetCache? = null
+
+        fun getInstance(context: Context): ConnectAssetCache {
+            return instance ?: synchronized(this) {
+                instance ?: ConnectAssetCache(
+                    directory = File(context.applicationContext.cacheDir, DIRECTORY_NAME)
+                ).also { instance = it }
+            }
+        }
+
+        @VisibleForTesting
+        internal fun isContentHashedConnectAsset(url: Uri): Boolean {
+            val path = url.path ?: return false
+            return url.scheme == "https" &&
+                url.host in ASSET_HOSTS &&
+                path.substringAfterLast('.', "").lowercase() in ASSET_EXTENSIONS &&
+                CONTENT_HASHED_FILE_NAME.containsMatchIn(path.substringAfterLast('/'))
+        }
+
+        private fun sha256(bytes: ByteArray): String {
+            return MessageDigest.getInstance("SHA-256")
+                .digest(bytes)
+                .joinToString("") { "%02x".format(it) }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.stripe.android.connect.webview
+
+import android.annotation.SuppressLint
+import android.content.Context
+import android.os.Handler
+import android.os.Looper
+import android.webkit.WebResourceRequest
+import android.webkit.WebResourceResponse
+import android.webkit.WebView
+import android.webkit.WebViewClient
+import androidx.annotation.MainThread
+
+/**
+ * Starts a WebView off screen before any embedded component is shown, so that the first component
+ * doesn't wait for the WebView's process to start.
+ *
+ * The page it loads has no component and no JavaScript bridge, so no component is rendered or
+ * primed; only the WebView's process is warmed. The WebView is destroyed once its page has loaded,
+ * or after [timeoutMillis]. The process outlives it, so an app only needs to be warmed once.
+ */
+internal class ConnectWebViewPrewarmer(
+    private val createWebView: (Context) -> WebView = ::WebView,
+    private val timeoutMillis: Long = DEFAULT_TIMEOUT_MILLIS,
+) {
+    private val handler = Handler(Looper.getMainLooper())
+    private val timeout = Runnable { finish() }
+
+    private var webView: WebView? = null
+
+    /**
+     * Whether the WebView is starting.
+     */
+    val isWarming: Boolean get() = webView != null
+
+    /**
+     * Whether the WebView was started, or given up on after [timeoutMillis].
+     */
+    var isWarm: Boolean = false
+        private set
+
+    /**
+     * Starts a WebView loading [url] off screen, unless one is already being or was started.
+     */
+    @MainThread
+    @SuppressLint("SetJavaScriptEnabled")
+    fun prewarm(context: Context, url: String, assetCache: ConnectAssetCache) {
+        if (isWarm || isWarming) {
+            return
+        }
+
+        val webView = createWebView(context.applicationContext)
+        webView.settings.javaScriptEnabled = true
+        webView.settings.domStorageEnabled = true
+        webView.webViewClient = object : WebViewClient() {
+            override fun shouldInterceptRequest(view: WebView, request: WebResourceRequest): WebResourceResponse? {
+                return assetCache.intercept(request)
+            }
+
+            override fun onPageFinished(view: WebView, url: String) {
+                finish()
+            }
+        }
+        this.webView = webView
+
+        handler.postDelayed(timeout, timeoutMillis)
+        webView.loadUrl(url)
+    }
+
+    private fun finish() {
+        handler.removeCallbacks(timeout)
+        val webView = webView ?: return
+        this.webView = null
+        isWarm = true
+
+        webView.stopLoading()
+        webView.destroy()
+    }
+
+    internal companion object {
+        const val DEFAULT_TIMEOUT_MILLIS = 15_000L
+
+        /**
+         * Shared by every [com.stripe.android.connect.EmbeddedComponentManager], as a WebView's process
+         * is shared by the whole app.
+         */
+        val Shared: ConnectWebViewPrewarmer by lazy { ConnectWebViewPrewarmer() }
+    }
+}
@@ -254,6 +254,12 @@ internal class StripeConnectWebView private constructor(
          */
         fun getInitialParams(context: Context): ConnectInstanceJs
 
+        /**
+         * Returns the response to [request] from the cache of static Connect assets, or null to load it
+         * from the network. Called on a background thread.
+         */
+        fun interceptRequest(request: WebResourceRequest): WebResourceResponse?
+
         /**
          * Callback to invoke when the page started loading.
          */
@@ -382,6 +388,10 @@ internal class StripeConnectWebView private constructor(
                 ?: return false
             return delegate.shouldOverrideUrlLoading(activity, request.url)
         }
+
+        override fun shouldInterceptRequest(view: WebView, request: WebResourceRequest): WebResourceResponse? {
+            return delegate.interceptRequest(request)
+        }
     }
 
     /**
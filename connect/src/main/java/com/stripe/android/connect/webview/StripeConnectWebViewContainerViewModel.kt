@@ -8,6 +8,8 @@ import android.content.Intent
 import android.net.Uri
 import android.webkit.PermissionRequest
 import android.webkit.ValueCallback
+import android.webkit.WebResourceRequest
+import android.webkit.WebResourceResponse
 import androidx.annotation.VisibleForTesting
 import androidx.core.net.toUri
 import androidx.lifecycle.DefaultLifecycleObserver
@@ -34,6 +36,7 @@ import com.stripe.android.connect.webview.StripeConnectWebView.Delegate
 import com.stripe.android.connect.webview.serialization.ConnectInstanceJs
 import com.stripe.android.connect.webview.serialization.OpenAuthenticatedWebViewMessage
 import com.stripe.android.connect.webview.serialization.OpenFinancialConnectionsMessage
+import com.stripe.android.connect.webview.serialization.SetOnLoadError
 import com.stripe.android.connect.webview.serialization.SetOnLoaderStart
 import com.stripe.android.connect.webview.serialization.SetterFunctionCalledMessage
 import com.stripe.android.connect.webview.serialization.SetterFunctionCalledMessage.UnknownValue
@@ -80,6 +83,7 @@ internal class StripeConnectWebViewContainerViewModel(
     private val analyticsService: ComponentAnalyticsService,
     private val logger: Logger,
     private val stripeIntentLauncher: StripeIntentLauncher = StripeIntentLauncherImpl(),
+    private val assetCache: ConnectAssetCache = ConnectAssetCache.getInstance(application),
     createWebView: CreateWebView = CreateWebView(::StripeConnectWebView),
 ) : ViewModel(),
     DefaultLifecycleObserver {
@@ -269,6 +273,10 @@ internal class StripeConnectWebViewContainerViewModel(
             }
         }
 
+        override fun interceptRequest(request: WebResourceRequest): WebResourceResponse? {
+            return assetCache.intercept(request)
+        }
+
         override suspend fun fetchClientSecret(): String? {
             return componentCoordinator.fetchClientSecret()
         }
@@ -384,6 +392,12 @@ internal class StripeConnectWebViewContainerViewModel(
                         )
                     }
                 }
+                is SetOnLoadError -> {
+                    if (message.value.error.type == EmbeddedComponentError.ErrorType.AUTHENTICATION_ERROR) {
+                        // The client secret was rejected, so don't reuse it for the next load.
+                        componentCoordinator.refreshClientSecret()
+                    }
+                }
                 is UnknownValue -> {
                     analyticsService.track(
                         ConnectAnalyticsEvent.WebWarnUnrecognizedSetter(
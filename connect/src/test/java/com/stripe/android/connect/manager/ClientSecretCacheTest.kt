@@ -0,0 +1,155 @@
+package com.stripe.android.connect.manager
+
+import com.google.common.truth.Truth.assertThat
+import com.stripe.android.connect.FetchClientSecret
+import com.stripe.android.connect.util.Clock
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.test.StandardTestDispatcher
+import kotlinx.coroutines.test.TestScope
+import kotlinx.coroutines.test.advanceTimeBy
+import kotlinx.coroutines.test.advanceUntilIdle
+import kotlinx.coroutines.test.currentTime
+import kotlinx.coroutines.test.runTest
+import org.junit.Test
+import kotlin.test.assertFailsWith
+import kotlin.time.Duration.Companion.minutes
+
+@OptIn(ExperimentalCoroutinesApi::class)
+class ClientSecretCacheTest {
+
+    private val fetchClientSecret = FakeFetchClientSecret()
+
+    @Test
+    fun `prefetching shortens the time to the first client secret`() = runTest {
+        val cache = createCache()
+
+        cache.prefetch()
+        // The component's WebView asks for the client secret once its page has loaded.
+        delay(PAGE_LOAD_MILLIS)
+        val clientSecret = cache.get()
+
+        assertThat(clientSecret).isEqualTo("secret_1")
+        assertThat(currentTime).isEqualTo(FETCH_MILLIS)
+        assertThat(fetchClientSecret.calls).isEqualTo(1)
+    }
+
+    @Test
+    fun `without prefetching the first client secret waits for the page and the fetch`() = runTest {
+        val cache = createCache()
+
+        delay(PAGE_LOAD_MILLIS)
+        cache.get()
+
+        assertThat(currentTime).isEqualTo(PAGE_LOAD_MILLIS + FETCH_MILLIS)
+    }
+
+    @Test
+    fun `components share a single fetch`() = runTest {
+        val cache = createCache()
+
+        cache.prefetch()
+        val clientSecrets = List(3) {
+            async { cache.get() }
+        }.awaitAll()
+        val later = cache.get()
+
+        assertThat(clientSecrets).containsExactly("secret_1", "secret_1", "secret_1")
+        assertThat(later).isEqualTo("secret_1")
+        assertThat(fetchClientSecret.calls).isEqualTo(1)
+    }
+
+    @Test
+    fun `client secrets are fetched again once no longer valid`() = runTest {
+        val cache = createCache()
+
+        cache.get()
+        advanceTimeBy(4.minutes)
+        assertThat(cache.get()).isEqualTo("secret_1")
+
+        advanceTimeBy(2.minutes)
+        assertThat(cache.get()).isEqualTo("secret_2")
+        assertThat(fetchClientSecret.calls).isEqualTo(2)
+    }
+
+    @Test
+    fun `prefetch does nothing when the client secret is valid`() = runTest {
+        val cache = createCache()
+
+        cache.get()
+        cache.prefetch()
+        advanceUntilIdle()
+
+        assertThat(fetchClientSecret.calls).isEqualTo(1)
+    }
+
+    @Test
+    fun `refresh fetches a new client secret`() = runTest {
+        val cache = createCache()
+
+        cache.get()
+        cache.refresh()
+        val clientSecret = cache.get()
+
+        assertThat(clientSecret).isEqualTo("secret_2")
+        assertThat(fetchClientSecret.calls).isEqualTo(2)
+    }
+
+    @Test
+    fun `null client secrets are not cached`() = runTest {
+        val cache = createCache()
+        fetchClientSecret.returnsNull = true
+
+        assertThat(cache.get()).isNull()
+
+        fetchClientSecret.returnsNull = false
+        assertThat(cache.get()).isEqualTo("secret_2")
+    }
+
+    @Test
+    fun `failures are not cached`() = runTest {
+        val cache = createCache()
+        fetchClientSecret.fails = true
+
+        assertFailsWith<IllegalStateException> { cache.get() }
+
+        fetchClientSecret.fails = false
+        assertThat(cache.get()).isEqualTo("secret_2")
+    }
+
+    private fun TestScope.createCache() = ClientSecretCache(
+        fetchClientSecret = fetchClientSecret,
+        validity = ClientSecretCache.DEFAULT_VALIDITY,
+        // A failed fetch would fail the test if it ran in the background scope.
+        scope = CoroutineScope(SupervisorJob() + StandardTestDispatcher(testScheduler)),
+        clock = object : Clock {
+            override fun millis(): Long = testScheduler.currentTime
+        },
+    )
+
+    /**
+     * Fetches numbered client secrets from a server with a fixed latency.
+     */
+    private class FakeFetchClientSecret : FetchClientSecret {
+        var calls = 0
+        var returnsNull = false
+        var fails = false
+
+        override suspend fun invoke(): String? {
+            calls++
+            val call = calls
+            delay(FETCH_MILLIS)
+            check(!fails) { "Failed to fetch client secret" }
+            return if (returnsNull) null else "secret_$call"
+        }
+    }
+
+    private companion object {
+        const val FETCH_MILLIS = 500L
+        const val PAGE_LOAD_MILLIS = 300L
+    }
+}
@@ -47,7 +47,7 @@ class EmbeddedComponentCoordinatorTest {
         coordinator =
             EmbeddedComponentCoordinator(
                 publishableKey = publishableKey,
-                fetchClientSecret = mockFetchClientSecret,
+                clientSecretCache = ClientSecretCache(mockFetchClientSecret),
                 logger = Logger.noop(),
                 appearance = Appearance.default(),
                 customFonts = emptyList(),
@@ -0,0 +1,184 @@
+package com.stripe.android.connect.webview
+
+import android.net.Uri
+import android.webkit.WebResourceRequest
+import com.google.common.truth.Truth.assertThat
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.junit.runner.RunWith
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.mock
+import org.robolectric.RobolectricTestRunner
+import java.io.File
+
+@RunWith(RobolectricTestRunner::class)
+class ConnectAssetCacheTest {
+
+    @get:Rule
+    val temporaryFolder = TemporaryFolder()
+
+    private val mockWebServer = MockWebServer()
+    private lateinit var directory: File
+
+    @Before
+    fun setup() {
+        mockWebServer.start()
+        directory = temporaryFolder.newFolder("assets")
+    }
+
+    @After
+    fun tearDown() {
+        mockWebServer.shutdown()
+    }
+
+    @Test
+    fun `cached assets are served without downloading them again`() {
+        enqueueAsset()
+        val cache = createCache()
+
+        val first = cache.intercept(request(ASSET_PATH))
+        val second = createCache().intercept(request(ASSET_PATH))
+
+        assertThat(mockWebServer.requestCount).isEqualTo(1)
+        assertThat(second?.data?.readBytes()?.decodeToString()).isEqualTo(ASSET_CONTENT)
+        assertThat(first?.data?.readBytes()?.decodeToString()).isEqualTo(ASSET_CONTENT)
+        assertThat(second?.mimeType).isEqualTo("application/javascript")
+        assertThat(second?.encoding).isEqualTo("utf-8")
+        assertThat(second?.statusCode).isEqualTo(200)
+        assertThat(second?.responseHeaders).containsExactly("Access-Control-Allow-Origin", "*")
+    }
+
+    @Test
+    fun `assets are downloaded again when the version changes`() {
+        enqueueAsset()
+        enqueueAsset()
+
+        createCache(version = "1.0.0").intercept(request(ASSET_PATH))
+        createCache(version = "1.0.0").intercept(request(ASSET_PATH))
+        assertThat(mockWebServer.requestCount).isEqualTo(1)
+
+        createCache(version = "1.1.0").intercept(request(ASSET_PATH))
+        createCache(version = "1.1.0").intercept(request(ASSET_PATH))
+        assertThat(mockWebServer.requestCount).isEqualTo(2)
+    }
+
+    @Test
+    fun `assets corrupted on disk are downloaded again`() {
+        enqueueAsset()
+        enqueueAsset()
+        createCache().intercept(request(ASSET_PATH))
+
+        directory.listFiles { file -> file.name.endsWith(".content") }!!
+            .single()
+            .writeText("console.log('conn")
+        val response = createCache().intercept(request(ASSET_PATH))
+
+        assertThat(mockWebServer.requestCount).isEqualTo(2)
+        assertThat(response?.data?.readBytes()?.decodeToString()).isEqualTo(ASSET_CONTENT)
+    }
+
+    @Test
+    fun `assets larger than the limit are left to the WebView`() {
+        enqueueAsset()
+        enqueueAsset()
+        val cache = createCache(maxAssetBytes = ASSET_CONTENT.length - 1)
+
+        assertThat(cache.intercept(request(ASSET_PATH))).isNull()
+        assertThat(cache.intercept(request(ASSET_PATH))).isNull()
+        assertThat(mockWebServer.requestCount).isEqualTo(2)
+    }
+
+    @Test
+    fun `assets are dropped once the cache is over its limit`() {
+        enqueueAsset()
+        enqueueAsset()
+        enqueueAsset()
+        val cache = createCache(maxCacheBytes = ASSET_CONTENT.length.toLong())
+
+        cache.intercept(request("/assets/first-0a1b2c3d.js"))
+        cache.intercept(request("/assets/second-4e5f6a7b.js"))
+
+        assertThat(directory.listFiles { file -> file.name.endsWith(".content") }).hasLength(1)
+    }
+
+    @Test
+    fun `assets that must not be stored are not cached`() {
+        enqueueAsset(MockResponse().setBody(ASSET_CONTENT).setHeader("Cache-Control", "no-store"))
+        enqueueAsset()
+
+        assertThat(createCache().intercept(request(ASSET_PATH))).isNull()
+        createCache().intercept(request(ASSET_PATH))
+
+        assertThat(mockWebServer.requestCount).isEqualTo(2)
+    }
+
+    @Test
+    fun `failed downloads are left to the WebView`() {
+        enqueueAsset(MockResponse().setResponseCode(500))
+
+        assertThat(createCache().intercept(request(ASSET_PATH))).isNull()
+    }
+
+    @Test
+    fun `only GET requests of immutable assets are intercepted`() {
+        val cache = createCache(isImmutableAsset = { it.path == ASSET_PATH })
+
+        assertThat(cache.intercept(request(ASSET_PATH, method = "POST"))).isNull()
+        assertThat(cache.intercept(request("/v1.0/connect.js"))).isNull()
+        assertThat(mockWebServer.requestCount).isEqualTo(0)
+    }
+
+    @Test
+    fun `content hashed Connect assets are recognized`() {
+        fun isContentHashed(url: String) = ConnectAssetCache.isContentHashedConnectAsset(Uri.parse(url))
+
+        assertThat(isContentHashed("https://b.stripecdn.com/connect-js/assets/main-3f2a9c1b.js")).isTrue()
+        assertThat(isContentHashed("https://connect-js.stripe.com/v1.0/chunk.5e6f7a8b9c.css")).isTrue()
+        // Files under an API version directory are updated in place.
+        assertThat(isContentHashed("https://connect-js.stripe.com/v1.0/connect.js")).isFalse()
+        assertThat(isContentHashed("https://connect-js.stripe.com/v1.0/android_webview.html")).isFalse()
+        assertThat(isContentHashed("https://connect-js.stripe.com/connect.js")).isFalse()
+        assertThat(isContentHashed("http://b.stripecdn.com/connect-js/assets/main-3f2a9c1b.js")).isFalse()
+        assertThat(isContentHashed("https://example.com/assets/main-3f2a9c1b.js")).isFalse()
+    }
+
+    private fun createCache(
+        version: String = "1.0.0",
+        maxAssetBytes: Int = ConnectAssetCache.DEFAULT_MAX_ASSET_BYTES,
+        maxCacheBytes: Long = ConnectAssetCache.DEFAULT_MAX_CACHE_BYTES,
+        isImmutableAsset: (Uri) -> Boolean = { true },
+    ) = ConnectAssetCache(
+        directory = directory,
+        version = version,
+        maxAssetBytes = maxAssetBytes,
+        maxCacheBytes = maxCacheBytes,
+        isImmutableAsset = isImmutableAsset,
+    )
+
+    private fun enqueueAsset(
+        response: MockResponse = MockResponse()
+            .setBody(ASSET_CONTENT)
+            .setHeader("Content-Type", "application/javascript; charset=utf-8")
+            .setHeader("Access-Control-Allow-Origin", "*")
+    ) {
+        mockWebServer.enqueue(response)
+    }
+
+    private fun request(path: String, method: String = "GET"): WebResourceRequest {
+        val url = Uri.parse(mockWebServer.url(path).toString())
+        return mock {
+            on { this.method } doReturn method
+            on { this.url } doReturn url
+        }
+    }
+
+    private companion object {
+        const val ASSET_PATH = "/assets/connect-3f2a9c1b.js"
+        const val ASSET_CONTENT = "console.log('connect')"
+    }
+}
@@ -0,0 +1,81 @@
+package com.stripe.android.connect.webview
+
+import android.content.Context
+import android.os.Looper
+import android.webkit.WebView
+import com.google.common.truth.Truth.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.Shadows.shadowOf
+import java.io.File
+import java.time.Duration
+
+@RunWith(RobolectricTestRunner::class)
+class ConnectWebViewPrewarmerTest {
+
+    private val context: Context = RuntimeEnvironment.getApplication()
+    private val assetCache = ConnectAssetCache(File(context.cacheDir, "prewarmer_test_assets"))
+    private val createdWebViews = mutableListOf<WebView>()
+
+    private val prewarmer = ConnectWebViewPrewarmer(
+        createWebView = { context -> WebView(context).also { createdWebViews += it } },
+        timeoutMillis = TIMEOUT_MILLIS,
+    )
+
+    @Test
+    fun `prewarm loads the page off screen`() {
+        prewarmer.prewarm(context, URL, assetCache)
+
+        val webView = createdWebViews.single()
+        assertThat(prewarmer.isWarming).isTrue()
+        assertThat(prewarmer.isWarm).isFalse()
+        assertThat(shadowOf(webView).lastLoadedUrl).isEqualTo(URL)
+        assertThat(webView.settings.javaScriptEnabled).isTrue()
+        assertThat(webView.parent).isNull()
+    }
+
+    @Test
+    fun `the WebView is destroyed once the page has loaded`() {
+        prewarmer.prewarm(context, URL, assetCache)
+        val webView = createdWebViews.single()
+
+        shadowOf(webView).webViewClient.onPageFinished(webView, URL)
+
+        assertThat(shadowOf(webView).wasDestroyCalled()).isTrue()
+        assertThat(prewarmer.isWarming).isFalse()
+        assertThat(prewarmer.isWarm).isTrue()
+    }
+
+    @Test
+    fun `the WebView is destroyed when the page takes too long to load`() {
+        prewarmer.prewarm(context, URL, assetCache)
+        val webView = createdWebViews.single()
+
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(TIMEOUT_MILLIS - 1))
+        assertThat(shadowOf(webView).wasDestroyCalled()).isFalse()
+
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(1))
+        assertThat(shadowOf(webView).wasDestroyCalled()).isTrue()
+        assertThat(prewarmer.isWarm).isTrue()
+    }
+
+    @Test
+    fun `prewarm does nothing while warming or once warm`() {
+        prewarmer.prewarm(context, URL, assetCache)
+        prewarmer.prewarm(context, URL, assetCache)
+        assertThat(createdWebViews).hasSize(1)
+
+        val webView = createdWebViews.single()
+        shadowOf(webView).webViewClient.onPageFinished(webView, URL)
+        prewarmer.prewarm(context, URL, assetCache)
+
+        assertThat(createdWebViews).hasSize(1)
+    }
+
+    private companion object {
+        const val URL = "https://connect-js.stripe.com/v1.0/android_webview.html#publicKey=pk_test_123"
+        const val TIMEOUT_MILLIS = 1_000L
+    }
+}
@@ -217,6 +217,30 @@ class StripeConnectWebViewContainerViewModelTest {
         assertThat(receivedComponentEvents).contains(ComponentEvent.Message(message))
     }
 
+    @Test
+    fun `SetOnLoadError with an authentication error refreshes the client secret`() = runTest(testDispatcher) {
+        val message = SetterFunctionCalledMessage(
+            SetOnLoadError(
+                LoadError(EmbeddedComponentError.ErrorType.AUTHENTICATION_ERROR, null)
+            )
+        )
+        viewModel.delegate.onReceivedSetterFunctionCalled(message)
+
+        verify(componentCoordinator).refreshClientSecret()
+    }
+
+    @Test
+    fun `SetOnLoadError with other errors does not refresh the client secret`() = runTest(testDispatcher) {
+        val message = SetterFunctionCalledMessage(
+            SetOnLoadError(
+                LoadError(EmbeddedComponentError.ErrorType.API_ERROR, null)
+            )
+        )
+        viewModel.delegate.onReceivedSetterFunctionCalled(message)
+
+        verify(componentCoordinator, never()).refreshClientSecret()
+    }
+
     @Test
     fun `should handle all ErrorType values`() = runTest(testDispatcher) {
         collectComponentEvents()
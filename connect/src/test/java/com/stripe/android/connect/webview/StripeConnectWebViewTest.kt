@@ -8,6 +8,8 @@ import android.content.Intent
 import android.net.Uri
 import android.webkit.JsResult
 import android.webkit.ValueCallback
+import android.webkit.WebResourceRequest
+import android.webkit.WebResourceResponse
 import android.webkit.WebChromeClient
 import android.widget.FrameLayout
 import androidx.activity.ComponentActivity
@@ -87,6 +89,15 @@ class StripeConnectWebViewTest {
         verify(mockDelegate).onPageFinished(testUrl)
     }
 
+    @Test
+    fun `WebViewClient shouldInterceptRequest is handled`() {
+        val request: WebResourceRequest = mock()
+        val response = WebResourceResponse("application/javascript", "utf-8", null)
+        whenever(mockDelegate.interceptRequest(request)).doReturn(response)
+
+        assertThat(webView.stripeWebViewClient.shouldInterceptRequest(webView, request)).isEqualTo(response)
+    }
+
     @Test
     fun `WebChromeClient onPermissionRequest is handled`() {
         containerView.addView(webView)
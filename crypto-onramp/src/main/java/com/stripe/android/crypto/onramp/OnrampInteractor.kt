@@ -616,6 +616,7 @@ internal class OnrampInteractor @Inject constructor(
     suspend fun logOut(): OnrampLogOutResult {
         return when (val result = linkController.logOut()) {
             is LinkController.LogOutResult.Success -> {
+                cryptoApiRepository.clearCache()
                 analyticsService?.track(OnrampAnalyticsEvent.LinkLogout)
                 OnrampLogOutResult.Completed()
             }
@@ -669,18 +670,22 @@ internal class OnrampInteractor @Inject constructor(
 
     fun handleIdentityVerificationResult(
         result: IdentityVerificationSheet.VerificationFlowResult
-    ): OnrampVerifyIdentityResult = when (result) {
-        is IdentityVerificationSheet.VerificationFlowResult.Completed -> {
-            analyticsService?.track(OnrampAnalyticsEvent.IdentityVerificationCompleted)
-            OnrampVerifyIdentityResult.Completed()
-        }
-        is IdentityVerificationSheet.VerificationFlowResult.Failed -> {
-            val error = mapError(Operation.VerifyIdentity, result.throwable)
-            trackError(Operation.VerifyIdentity, error)
-            OnrampVerifyIdentityResult.Failed(error)
+    ): OnrampVerifyIdentityResult {
+        // Even a failed or canceled verification may have submitted some of the user's data.
+        cryptoApiRepository.invalidateVerificationData()
+        return when (result) {
+            is IdentityVerificationSheet.VerificationFlowResult.Completed -> {
+                analyticsService?.track(OnrampAnalyticsEvent.IdentityVerificationCompleted)
+                OnrampVerifyIdentityResult.Completed()
+            }
+            is IdentityVerificationSheet.VerificationFlowResult.Failed -> {
+                val error = mapError(Operation.VerifyIdentity, result.throwable)
+                trackError(Operation.VerifyIdentity, error)
+                OnrampVerifyIdentityResult.Failed(error)
+            }
+            is IdentityVerificationSheet.VerificationFlowResult.Canceled ->
+                OnrampVerifyIdentityResult.Cancelled()
         }
-        is IdentityVerificationSheet.VerificationFlowResult.Canceled ->
-            OnrampVerifyIdentityResult.Cancelled()
     }
 
     fun handlePresentPaymentMethodsResult(
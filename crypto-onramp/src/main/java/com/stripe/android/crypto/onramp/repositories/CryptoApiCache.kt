@@ -0,0 +1,90 @@
+package com.stripe.android.crypto.onramp.repositories
+
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.minutes
+import kotlin.time.TimeMark
+import kotlin.time.TimeSource
+
+/**
+ * The responses of [CryptoApiRepository]'s read-only endpoints for the current session, so that
+ * moving back and forth through the onramp flow doesn't request them again every time.
+ *
+ * Responses are kept by [Key], which includes the credentials they were requested with, so a new
+ * consumer session never gets a response of a previous one. Concurrent requests for the
+ * same key share a single request, and failures aren't kept.
+ *
+ * Mutating endpoints [invalidate] the endpoints whose responses they may change. A request that is
+ * in flight when its endpoint is invalidated isn't kept either, as it may predate the change.
+ * Responses of endpoints that can also change outside of the SDK's requests are only kept for the
+ * [Endpoint.timeToLive].
+ */
+internal class CryptoApiCache(
+    private val timeSource: TimeSource = TimeSource.Monotonic,
+) {
+    private val entries = HashMap<Key, Entry>()
+    private var generation = 0
+
+    suspend fun <T : Any> getOrFetch(key: Key, fetch: suspend () -> Result<T>): Result<T> {
+        val entry = synchronized(this) { entries.getOrPut(key) { Entry() } }
+
+        // Callers for the same key wait for the first one's request, then find its response. If
+        // that caller is cancelled or its request fails, the next caller makes the request instead.
+        return entry.mutex.withLock {
+            @Suppress("UNCHECKED_CAST")
+            val cached = entry.response.takeUnless { entry.expiresAt?.hasPassedNow() == true } as T?
+            if (cached != null) {
+                return@withLock Result.success(cached)
+            }
+
+            val requestedInGeneration = synchronized(this) { generation }
+            fetch().onSuccess { response ->
+                synchronized(this) {
+                    if (generation == requestedInGeneration && entries[key] === entry) {
+                        entry.response = response
+                        entry.expiresAt = key.endpoint.timeToLive?.let { timeSource.markNow() + it }
+                    }
+                }
+            }
+        }
+    }
+
+    @Synchronized
+    fun invalidate(vararg endpoints: Endpoint) {
+        generation++
+        entries.keys.removeAll { it.endpoint in endpoints }
+    }
+
+    @Synchronized
+    fun clear() {
+        generation++
+        entries.clear()
+    }
+
+    /**
+     * @param timeToLive how long a response is kept, or null to keep it until it is invalidated
+     */
+    enum class Endpoint(val timeToLive: Duration?) {
+        PlatformSettings(timeToLive = null),
+
+        // Identity verification completes on Stripe's servers, and may update both.
+        KycInfo(timeToLive = VERIFICATION_DATA_TIME_TO_LIVE),
+        MissingIdentifiers(timeToLive = VERIFICATION_DATA_TIME_TO_LIVE),
+    }
+
+    data class Key(
+        val endpoint: Endpoint,
+        val params: List<String?>,
+    )
+
+    private class Entry {
+        val mutex = Mutex()
+        var response: Any? = null
+        var expiresAt: TimeMark? = null
+    }
+
+    private companion object {
+        val VERIFICATION_DATA_TIME_TO_LIVE = 2.minutes
+    }
+}
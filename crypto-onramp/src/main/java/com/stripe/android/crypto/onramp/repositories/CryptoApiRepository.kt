@@ -46,6 +46,7 @@ import com.stripe.android.crypto.onramp.model.compliance.ComplianceIdentifierReq
 import com.stripe.android.crypto.onramp.model.compliance.SubmitIdentifiersResponse
 import com.stripe.android.crypto.onramp.model.compliance.SubmitIdentifiersResult
 import com.stripe.android.crypto.onramp.model.compliance.toRequest
+import com.stripe.android.crypto.onramp.repositories.CryptoApiCache.Endpoint
 import com.stripe.android.link.LinkController
 import com.stripe.android.link.utils.isLinkAuthorizationError
 import com.stripe.android.model.PaymentIntent
@@ -91,6 +92,23 @@ internal class CryptoApiRepository @Inject constructor(
         encodeDefaults = true
     }
 
+    private val cache = CryptoApiCache()
+
+    /**
+     * Drops every cached response, for when the user logs out.
+     */
+    fun clearCache() {
+        cache.clear()
+    }
+
+    /**
+     * Drops the cached KYC info and missing identifiers, for when an identity verification ends
+     * and may have updated them.
+     */
+    fun invalidateVerificationData() {
+        cache.invalidate(Endpoint.KycInfo, Endpoint.MissingIdentifiers)
+    }
+
     /**
      * Grants the provided session merchant permissions.
      *
@@ -105,7 +123,9 @@ internal class CryptoApiRepository @Inject constructor(
             customersUrl,
             Json.encodeToJsonElement(params).jsonObject,
             CryptoCustomerResponse.serializer()
-        )
+        ).also {
+            cache.invalidate(Endpoint.PlatformSettings)
+        }
     }
 
     /**
@@ -126,7 +146,9 @@ internal class CryptoApiRepository @Inject constructor(
             collectKycDataUrl,
             Json.encodeToJsonElement(apiRequest).jsonObject,
             Unit.serializer()
-        )
+        ).also {
+            cache.invalidate(Endpoint.KycInfo, Endpoint.MissingIdentifiers)
+        }
     }
 
     suspend fun retrieveKycInfo(
@@ -134,26 +156,32 @@ internal class CryptoApiRepository @Inject constructor(
     ): Result<KycRetrieveResponse> {
         val params = CryptoCustomerRequestParams(CryptoCustomerRequestParams.Credentials(consumerSessionClientSecret))
 
-        return executePost(
-            retrieveKycInfoUrl,
-            Json.encodeToJsonElement(params).jsonObject,
-            KycRetrieveResponse.serializer()
-        )
+        return cache.getOrFetch(CryptoApiCache.Key(Endpoint.KycInfo, listOf(consumerSessionClientSecret))) {
+            executePost(
+                retrieveKycInfoUrl,
+                Json.encodeToJsonElement(params).jsonObject,
+                KycRetrieveResponse.serializer()
+            )
+        }
     }
 
     suspend fun retrieveMissingIdentifiers(
         consumerSessionClientSecret: String
     ): Result<ComplianceIdentifierRequirements> {
-        val request = apiRequestFactory.createGet(
-            url = identifierRequirementsUrl,
-            options = buildRequestOptions(),
-            params = credentialsParams(consumerSessionClientSecret).toMap(),
-        )
+        val key = CryptoApiCache.Key(Endpoint.MissingIdentifiers, listOf(consumerSessionClientSecret))
 
-        return execute(
-            request = request,
-            responseSerializer = ComplianceIdentifierRequirementsResponse.serializer()
-        ).mapCatching { it.toComplianceIdentifierRequirements() }
+        return cache.getOrFetch(key) {
+            val request = apiRequestFactory.createGet(
+                url = identifierRequirementsUrl,
+                options = buildRequestOptions(),
+                params = credentialsParams(consumerSessionClientSecret).toMap(),
+            )
+
+            execute(
+                request = request,
+                responseSerializer = ComplianceIdentifierRequirementsResponse.serializer()
+            ).mapCatching { it.toComplianceIdentifierRequirements() }
+        }
     }
 
     suspend fun submitIdentifiers(
@@ -168,7 +196,9 @@ internal class CryptoApiRepository @Inject constructor(
                 )
             ).jsonObject,
             SubmitIdentifiersResponse.serializer()
-        ).mapCatching { it.toSubmitIdentifiersResult() }
+        ).mapCatching { it.toSubmitIdentifiersResult() }.also {
+            cache.invalidate(Endpoint.MissingIdentifiers, Endpoint.KycInfo)
+        }
     }
 
     suspend fun retrieveUserAttestation(
@@ -193,7 +223,9 @@ internal class CryptoApiRepository @Inject constructor(
             userAttestationUrl,
             credentialsParams(consumerSessionClientSecret),
             Unit.serializer()
-        )
+        ).also {
+            cache.invalidate(Endpoint.KycInfo, Endpoint.MissingIdentifiers)
+        }
     }
 
     suspend fun refreshKycData(
@@ -209,7 +241,9 @@ internal class CryptoApiRepository @Inject constructor(
             refreshConsumerPersonUrl,
             Json.encodeToJsonElement(apiRequest).jsonObject,
             Unit.serializer()
-        )
+        ).also {
+            cache.invalidate(Endpoint.KycInfo)
+        }
     }
 
     /**
@@ -322,27 +356,33 @@ internal class CryptoApiRepository @Inject constructor(
             startIdentityVerificationUrl,
             json.encodeToJsonElement(request).jsonObject,
             StartIdentityVerificationResponse.serializer()
-        )
+        ).also {
+            cache.invalidate(Endpoint.KycInfo, Endpoint.MissingIdentifiers)
+        }
     }
 
     suspend fun getPlatformSettings(
         cryptoCustomerId: String,
         countryHint: String?
     ): Result<GetPlatformSettingsResponse> {
-        val request = apiRequestFactory.createGet(
-            url = platformSettings,
-            options = buildRequestOptions(),
-            params = mapOf(
-                "crypto_customer_id" to cryptoCustomerId,
-                "country_hint" to countryHint,
-                "ui_mode" to "headless"
-            ).filterNotNullValues()
-        )
+        val key = CryptoApiCache.Key(Endpoint.PlatformSettings, listOf(cryptoCustomerId, countryHint))
+
+        return cache.getOrFetch(key) {
+            val request = apiRequestFactory.createGet(
+                url = platformSettings,
+                options = buildRequestOptions(),
+                params = mapOf(
+                    "crypto_customer_id" to cryptoCustomerId,
+                    "country_hint" to countryHint,
+                    "ui_mode" to "headless"
+                ).filterNotNullValues()
+            )
 
-        return execute(
-            request = request,
-            responseSerializer = GetPlatformSettingsResponse.serializer()
-        )
+            execute(
+                request = request,
+                responseSerializer = GetPlatformSettingsResponse.serializer()
+            )
+        }
     }
 
     suspend fun createPaymentToken(
@@ -390,7 +430,8 @@ internal class CryptoApiRepository @Inject constructor(
     }
 
     /**
-     * Retrieves an onramp session.
+     * Retrieves an onramp session. Its response isn't cached, as the merchant's backend may update
+     * the session, e.g. with a new PaymentIntent, right before each checkout reads it.
      *
      * @param sessionId The onramp session identifier.
      * @param sessionClientSecret The onramp session client secret.
@@ -522,6 +563,7 @@ internal class CryptoApiRepository @Inject constructor(
             // If we get an authorization error, clear the Link account to force a re-authentication
             if (it.exceptionOrNull()?.isLinkAuthorizationError() == true) {
                 linkController.clearLinkAccount()
+                cache.clear()
             }
         }
     }
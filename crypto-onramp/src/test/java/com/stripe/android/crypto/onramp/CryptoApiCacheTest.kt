@@ -0,0 +1,272 @@
+package com.stripe.android.crypto.onramp
+
+import com.google.common.truth.Truth.assertThat
+import com.stripe.android.core.networking.ApiRequest
+import com.stripe.android.core.networking.StripeNetworkClient
+import com.stripe.android.core.networking.StripeRequest
+import com.stripe.android.core.networking.StripeResponse
+import com.stripe.android.core.version.StripeSdkVersion
+import com.stripe.android.crypto.onramp.model.CryptoNetwork
+import com.stripe.android.crypto.onramp.model.KycInfo
+import com.stripe.android.crypto.onramp.model.RefreshKycInfo
+import com.stripe.android.crypto.onramp.model.compliance.ComplianceIdentifier
+import com.stripe.android.crypto.onramp.model.compliance.ComplianceIdentifierType
+import com.stripe.android.crypto.onramp.repositories.CryptoApiCache
+import com.stripe.android.crypto.onramp.repositories.CryptoApiRepository
+import com.stripe.android.crypto.onramp.repositories.CryptoApiRepository.Companion.CRYPTO_ONRAMP_API_VERSION
+import com.stripe.android.model.DateOfBirth
+import com.stripe.android.paymentsheet.PaymentSheet
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.test.runTest
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.mockito.kotlin.mock
+import org.robolectric.RobolectricTestRunner
+import java.io.File
+import kotlin.time.Duration.Companion.minutes
+import kotlin.time.TestTimeSource
+
+@RunWith(RobolectricTestRunner::class)
+class CryptoApiCacheTest {
+    private val server = FakeOnrampServer()
+
+    private val cryptoApiRepository = CryptoApiRepository(
+        stripeNetworkClient = server,
+        stripeRepository = mock(),
+        publishableKeyProvider = { "pk_test_123" },
+        stripeAccountIdProvider = { null },
+        apiVersion = CRYPTO_ONRAMP_API_VERSION,
+        sdkVersion = StripeSdkVersion.VERSION,
+        appInfo = null,
+        linkController = mock()
+    )
+
+    @Test
+    fun `an onramp journey requests each read-only endpoint only when its data may have changed`() = runTest {
+        cryptoApiRepository.createCryptoCustomer(SECRET).getOrThrow()
+
+        // The Samsung Pay platform key and the checkout ask for the platform settings together.
+        List(2) { async { cryptoApiRepository.getPlatformSettings(CUSTOMER_ID, countryHint = null) } }
+            .awaitAll()
+            .forEach { it.getOrThrow() }
+
+        cryptoApiRepository.retrieveMissingIdentifiers(SECRET).getOrThrow()
+        cryptoApiRepository.retrieveMissingIdentifiers(SECRET).getOrThrow()
+        cryptoApiRepository.submitIdentifiers(IDENTIFIERS, SECRET).getOrThrow()
+        cryptoApiRepository.retrieveMissingIdentifiers(SECRET).getOrThrow()
+
+        cryptoApiRepository.collectKycData(KYC_INFO, SECRET).getOrThrow()
+        cryptoApiRepository.retrieveKycInfo(SECRET).getOrThrow()
+        // The user edits their address, and comes back to the KYC verification screen.
+        cryptoApiRepository.retrieveKycInfo(SECRET).getOrThrow()
+        cryptoApiRepository.refreshKycData(REFRESH_KYC_INFO, SECRET).getOrThrow()
+        cryptoApiRepository.retrieveKycInfo(SECRET).getOrThrow()
+
+        cryptoApiRepository.setWalletAddress(WALLET_ADDRESS, CryptoNetwork.Ethereum, SECRET).getOrThrow()
+
+        // Checkout, then continue checkout after the next action.
+        repeat(2) {
+            cryptoApiRepository.getPlatformSettings(CUSTOMER_ID, countryHint = null).getOrThrow()
+            cryptoApiRepository.getOnrampSession(SESSION_ID, SESSION_CLIENT_SECRET).getOrThrow()
+        }
+
+        assertThat(server.requests(CryptoApiRepository.platformSettings)).isEqualTo(1)
+        assertThat(server.requests(CryptoApiRepository.identifierRequirementsUrl)).isEqualTo(2)
+        assertThat(server.requests(CryptoApiRepository.retrieveKycInfoUrl)).isEqualTo(2)
+        // The merchant may update the onramp session before each checkout, so it's never cached.
+        assertThat(server.requests(CryptoApiRepository.getOnrampSessionUrl)).isEqualTo(2)
+        // 7 of the journey's 12 reads made a request, next to its 5 mutations.
+        assertThat(server.totalRequests).isEqualTo(7 + 5)
+    }
+
+    @Test
+    fun `failures are not cached`() = runTest {
+        server.failures += CryptoApiRepository.platformSettings
+
+        val first = cryptoApiRepository.getPlatformSettings(CUSTOMER_ID, countryHint = null)
+        val second = cryptoApiRepository.getPlatformSettings(CUSTOMER_ID, countryHint = null)
+
+        assertThat(first.isFailure).isTrue()
+        assertThat(second.getOrThrow().publishableKey).isEqualTo(PLATFORM_KEY)
+        assertThat(server.requests(CryptoApiRepository.platformSettings)).isEqualTo(2)
+    }
+
+    @Test
+    fun `responses are not shared between sessions`() = runTest {
+        cryptoApiRepository.retrieveKycInfo(SECRET).getOrThrow()
+        cryptoApiRepository.retrieveKycInfo("other_secret").getOrThrow()
+
+        assertThat(server.requests(CryptoApiRepository.retrieveKycInfoUrl)).isEqualTo(2)
+    }
+
+    @Test
+    fun `a response requested while a mutation is in flight is not cached`() = runTest {
+        val mutation = async { cryptoApiRepository.collectKycData(KYC_INFO, SECRET) }
+        testScheduler.runCurrent()
+        cryptoApiRepository.retrieveKycInfo(SECRET).getOrThrow()
+        mutation.await().getOrThrow()
+
+        cryptoApiRepository.retrieveKycInfo(SECRET).getOrThrow()
+
+        assertThat(server.requests(CryptoApiRepository.retrieveKycInfoUrl)).isEqualTo(2)
+    }
+
+    @Test
+    fun `onramp sessions are not cached`() = runTest {
+        cryptoApiRepository.getOnrampSession(SESSION_ID, SESSION_CLIENT_SECRET).getOrThrow()
+        cryptoApiRepository.getOnrampSession(SESSION_ID, SESSION_CLIENT_SECRET).getOrThrow()
+
+        assertThat(server.requests(CryptoApiRepository.getOnrampSessionUrl)).isEqualTo(2)
+    }
+
+    @Test
+    fun `clearing the cache drops every response`() = runTest {
+        cryptoApiRepository.getPlatformSettings(CUSTOMER_ID, countryHint = null).getOrThrow()
+        cryptoApiRepository.retrieveKycInfo(SECRET).getOrThrow()
+
+        cryptoApiRepository.clearCache()
+        cryptoApiRepository.getPlatformSettings(CUSTOMER_ID, countryHint = null).getOrThrow()
+        cryptoApiRepository.retrieveKycInfo(SECRET).getOrThrow()
+
+        assertThat(server.totalRequests).isEqualTo(4)
+    }
+
+    @Test
+    fun `confirming the user attestation drops the KYC info and missing identifiers`() = runTest {
+        cryptoApiRepository.retrieveKycInfo(SECRET).getOrThrow()
+        cryptoApiRepository.retrieveMissingIdentifiers(SECRET).getOrThrow()
+
+        cryptoApiRepository.confirmUserAttestation(SECRET).getOrThrow()
+        cryptoApiRepository.retrieveKycInfo(SECRET).getOrThrow()
+        cryptoApiRepository.retrieveMissingIdentifiers(SECRET).getOrThrow()
+
+        assertThat(server.requests(CryptoApiRepository.retrieveKycInfoUrl)).isEqualTo(2)
+        assertThat(server.requests(CryptoApiRepository.identifierRequirementsUrl)).isEqualTo(2)
+    }
+
+    @Test
+    fun `an identity verification drops the KYC info and missing identifiers`() = runTest {
+        cryptoApiRepository.getPlatformSettings(CUSTOMER_ID, countryHint = null).getOrThrow()
+        cryptoApiRepository.retrieveKycInfo(SECRET).getOrThrow()
+        cryptoApiRepository.retrieveMissingIdentifiers(SECRET).getOrThrow()
+
+        cryptoApiRepository.startIdentityVerification(SECRET)
+        cryptoApiRepository.retrieveKycInfo(SECRET).getOrThrow()
+        cryptoApiRepository.retrieveMissingIdentifiers(SECRET).getOrThrow()
+        // The user completes the verification sheet.
+        cryptoApiRepository.invalidateVerificationData()
+        cryptoApiRepository.retrieveKycInfo(SECRET).getOrThrow()
+        cryptoApiRepository.retrieveMissingIdentifiers(SECRET).getOrThrow()
+        cryptoApiRepository.getPlatformSettings(CUSTOMER_ID, countryHint = null).getOrThrow()
+
+        assertThat(server.requests(CryptoApiRepository.retrieveKycInfoUrl)).isEqualTo(3)
+        assertThat(server.requests(CryptoApiRepository.identifierRequirementsUrl)).isEqualTo(3)
+        assertThat(server.requests(CryptoApiRepository.platformSettings)).isEqualTo(1)
+    }
+
+    @Test
+    fun `verification data expires while platform settings are kept`() = runTest {
+        val timeSource = TestTimeSource()
+        val cache = CryptoApiCache(timeSource)
+        var fetches = 0
+        val fetch: suspend () -> Result<String> = { Result.success("response ${++fetches}") }
+        val kycInfo = CryptoApiCache.Key(CryptoApiCache.Endpoint.KycInfo, listOf(SECRET))
+        val platformSettings = CryptoApiCache.Key(CryptoApiCache.Endpoint.PlatformSettings, listOf(CUSTOMER_ID))
+
+        assertThat(cache.getOrFetch(kycInfo, fetch).getOrThrow()).isEqualTo("response 1")
+        assertThat(cache.getOrFetch(platformSettings, fetch).getOrThrow()).isEqualTo("response 2")
+
+        timeSource += 1.minutes
+        assertThat(cache.getOrFetch(kycInfo, fetch).getOrThrow()).isEqualTo("response 1")
+
+        timeSource += 1.minutes
+        assertThat(cache.getOrFetch(kycInfo, fetch).getOrThrow()).isEqualTo("response 3")
+        assertThat(cache.getOrFetch(platformSettings, fetch).getOrThrow()).isEqualTo("response 2")
+    }
+
+    /**
+     * Answers the onramp endpoints after [LATENCY_MILLIS], and counts the requests made to each.
+     */
+    private class FakeOnrampServer : StripeNetworkClient {
+        private val requestCounts = mutableMapOf<String, Int>()
+        val failures = mutableSetOf<String>()
+
+        val totalRequests: Int
+            get() = requestCounts.values.sum()
+
+        fun requests(url: String): Int = requestCounts[url] ?: 0
+
+        override suspend fun executeRequest(request: StripeRequest): StripeResponse<String> {
+            val url = (request as ApiRequest).baseUrl
+            requestCounts[url] = requests(url) + 1
+            delay(LATENCY_MILLIS)
+
+            if (failures.remove(url)) {
+                return StripeResponse(500, """{"error": {"message": "Internal error"}}""", emptyMap())
+            }
+            return StripeResponse(200, responseBody(url), emptyMap())
+        }
+
+        override suspend fun executeRequestForFile(
+            request: StripeRequest,
+            outputFile: File
+        ): StripeResponse<File> = error("Not supported")
+
+        private fun responseBody(url: String): String = when (url) {
+            CryptoApiRepository.customersUrl -> """{"id": "$CUSTOMER_ID"}"""
+            CryptoApiRepository.platformSettings -> """{"publishable_key": "$PLATFORM_KEY"}"""
+            CryptoApiRepository.getOnrampSessionUrl -> """
+                {
+                    "id": "$SESSION_ID",
+                    "client_secret": "$SESSION_CLIENT_SECRET",
+                    "payment_intent_client_secret": "pi_123_secret_456"
+                }
+            """
+            CryptoApiRepository.retrieveKycInfoUrl -> """
+                {
+                    "first_name": "Test",
+                    "last_name": "User",
+                    "id_number_last4": "7777",
+                    "id_type": "social_security_number",
+                    "dob": {"day": 1, "month": 3, "year": 1975},
+                    "address": {"city": "Orlando", "state": "FL", "country": "US"}
+                }
+            """
+            CryptoApiRepository.identifierRequirementsUrl -> """{"identifiers": [], "alternatives": []}"""
+            CryptoApiRepository.submitIdentifiersUrl -> """{"completed": true}"""
+            CryptoApiRepository.paymentToken -> """{"id": "cpt_123"}"""
+            else -> "{}"
+        }
+    }
+
+    private companion object {
+        const val LATENCY_MILLIS = 100L
+        const val SECRET = "test-secret"
+        const val CUSTOMER_ID = "crc_123"
+        const val PLATFORM_KEY = "pk_platform_123"
+        const val SESSION_ID = "cos_123"
+        const val SESSION_CLIENT_SECRET = "cos_123_secret_456"
+        const val WALLET_ADDRESS = "0x742d35Cc6634C0532925a3b844Bc454e4438f44e"
+
+        val IDENTIFIERS = listOf(ComplianceIdentifier().type(ComplianceIdentifierType.MT_NIC).value("mica_123"))
+
+        val KYC_INFO = KycInfo(
+            firstName = "Test",
+            lastName = "User",
+            idNumber = "999-88-7777",
+            dateOfBirth = DateOfBirth(day = 1, month = 3, year = 1975),
+            address = PaymentSheet.Address(city = "Orlando", state = "FL"),
+        )
+
+        val REFRESH_KYC_INFO = RefreshKycInfo(
+            firstName = "Test",
+            lastName = "User",
+            idNumberLastFour = "7777",
+            dateOfBirth = DateOfBirth(day = 1, month = 3, year = 1975),
+            idType = "social_security_number",
+            address = PaymentSheet.Address(city = "Orlando", state = "FL", country = "US")
+        )
+    }
+}
@@ -1303,6 +1303,7 @@ class OnrampInteractorTest {
         val result = interactor.logOut()
         assert(result is OnrampLogOutResult.Completed)
 
+        verify(cryptoApiRepository).clearCache()
         testAnalyticsService.assertContainsEvent(OnrampAnalyticsEvent.LinkLogout)
     }
 
@@ -1334,6 +1335,19 @@ class OnrampInteractorTest {
         assert(result is OnrampVerifyIdentityResult.Completed)
 
         testAnalyticsService.assertContainsEvent(OnrampAnalyticsEvent.IdentityVerificationCompleted)
+        verify(cryptoApiRepository).invalidateVerificationData()
+    }
+
+    @Test
+    fun testHandleIdentityVerificationResultCanceledInvalidatesVerificationData() {
+        interactor.onLinkControllerState(mockLinkStateWithAccount())
+
+        val result = interactor.handleIdentityVerificationResult(
+            VerificationFlowResult.Canceled
+        )
+
+        assert(result is OnrampVerifyIdentityResult.Cancelled)
+        verify(cryptoApiRepository).invalidateVerificationData()
     }
 
     @Test
@@ -49,6 +49,7 @@ import kotlinx.serialization.json.Json
 import java.util.Locale
 import javax.inject.Named
 import kotlin.coroutines.CoroutineContext
+import kotlin.random.Random
 
 /**
  * Dependencies shared between activities should live here.
@@ -206,6 +207,12 @@ internal interface FinancialConnectionsSheetSharedModule {
             return Dispatchers.IO
         }
 
+        /**
+         * Jitters the retries of polling, see [com.stripe.android.financialconnections.utils.PollingPolicy].
+         */
+        @Provides
+        internal fun providePollingRandom(): Random = Random.Default
+
         @Provides
         internal fun provideFraudDetectionDataRepository(
             application: Application,
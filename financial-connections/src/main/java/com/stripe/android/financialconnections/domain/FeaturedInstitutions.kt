@@ -1,21 +1,30 @@
 package com.stripe.android.financialconnections.domain
 
+import com.stripe.android.financialconnections.features.common.InstitutionIconPrefetcher
 import com.stripe.android.financialconnections.model.InstitutionResponse
 import com.stripe.android.financialconnections.repository.FinancialConnectionsInstitutionsRepository
+import com.stripe.android.financialconnections.repository.InstitutionSearchCache
 import javax.inject.Inject
 
 /**
  * Fetches featured institutions.
  *
+ * Featured institutions seed the local search index used by [SearchInstitutions], and their icons
+ * are prefetched while the picker renders.
  */
 internal class FeaturedInstitutions @Inject constructor(
-    private val repository: FinancialConnectionsInstitutionsRepository
+    private val repository: FinancialConnectionsInstitutionsRepository,
+    private val searchCache: InstitutionSearchCache,
+    private val iconPrefetcher: InstitutionIconPrefetcher,
 ) {
     suspend operator fun invoke(
         clientSecret: String
     ): InstitutionResponse {
         return repository.featuredInstitutions(
             clientSecret = clientSecret,
-        )
+        ).also { response ->
+            searchCache.seed(response.data)
+            iconPrefetcher.prefetch(response.data.map { it.icon?.default })
+        }
     }
 }
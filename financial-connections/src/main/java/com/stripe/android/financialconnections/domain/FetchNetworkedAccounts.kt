@@ -1,13 +1,15 @@
 package com.stripe.android.financialconnections.domain
 
 import com.stripe.android.financialconnections.FinancialConnectionsSheetConfiguration
+import com.stripe.android.financialconnections.features.common.InstitutionIconPrefetcher
 import com.stripe.android.financialconnections.model.NetworkedAccountsList
 import com.stripe.android.financialconnections.repository.FinancialConnectionsAccountsRepository
 import javax.inject.Inject
 
 internal class FetchNetworkedAccounts @Inject constructor(
     private val repository: FinancialConnectionsAccountsRepository,
-    private val configuration: FinancialConnectionsSheetConfiguration
+    private val configuration: FinancialConnectionsSheetConfiguration,
+    private val iconPrefetcher: InstitutionIconPrefetcher,
 ) {
 
     suspend operator fun invoke(
@@ -15,5 +17,17 @@ internal class FetchNetworkedAccounts @Inject constructor(
     ): NetworkedAccountsList = repository.getNetworkedAccounts(
         clientSecret = configuration.financialConnectionsSessionClientSecret,
         consumerSessionClientSecret = consumerSessionClientSecret
-    )
+    ).also { prefetchIcons(it) }
+
+    private fun prefetchIcons(accountsList: NetworkedAccountsList) {
+        val networkedAccounts = accountsList.display?.text?.returningNetworkingUserAccountPicker?.accounts
+            .orEmpty()
+            .associateBy { it.id }
+        // Same icon as the one the link account picker displays for each account.
+        iconPrefetcher.prefetch(
+            accountsList.data.map { account ->
+                (networkedAccounts[account.id]?.accountIcon ?: account.institution?.icon)?.default
+            }
+        )
+    }
 }
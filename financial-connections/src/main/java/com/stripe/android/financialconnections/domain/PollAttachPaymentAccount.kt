@@ -11,17 +11,21 @@ import com.stripe.android.financialconnections.model.SynchronizeSessionResponse
 import com.stripe.android.financialconnections.repository.AttachedPaymentAccountRepository
 import com.stripe.android.financialconnections.repository.ConsumerSessionProvider
 import com.stripe.android.financialconnections.repository.FinancialConnectionsAccountsRepository
-import com.stripe.android.financialconnections.utils.PollTimingOptions
-import com.stripe.android.financialconnections.utils.retryOnException
+import com.stripe.android.financialconnections.utils.AppVisibility
+import com.stripe.android.financialconnections.utils.PollingPolicy
+import com.stripe.android.financialconnections.utils.pollOnException
 import com.stripe.android.financialconnections.utils.shouldRetry
 import javax.inject.Inject
+import kotlin.random.Random
 import kotlin.time.Duration.Companion.seconds
 
 internal class PollAttachPaymentAccount @Inject constructor(
     private val repository: FinancialConnectionsAccountsRepository,
     private val consumerSessionProvider: ConsumerSessionProvider,
     private val attachedPaymentAccountRepository: AttachedPaymentAccountRepository,
-    private val configuration: FinancialConnectionsSheetConfiguration
+    private val configuration: FinancialConnectionsSheetConfiguration,
+    private val appVisibility: AppVisibility,
+    private val random: Random
 ) {
 
     suspend operator fun invoke(
@@ -30,11 +34,13 @@ internal class PollAttachPaymentAccount @Inject constructor(
         activeInstitution: FinancialConnectionsInstitution?,
         params: PaymentAccountParams
     ): LinkAccountSessionPaymentAccount {
-        return retryOnException(
-            PollTimingOptions(
+        return pollOnException(
+            PollingPolicy.accounts(
                 initialDelayMs = 1.seconds.inWholeMilliseconds,
             ),
-            retryCondition = { exception -> exception.shouldRetry }
+            retryCondition = { exception -> exception.shouldRetry },
+            isForeground = appVisibility.isForeground,
+            random = random
         ) {
             try {
                 repository.postAttachPaymentAccountToLinkAccountSession(
@@ -13,10 +13,12 @@ import com.stripe.android.financialconnections.model.PartnerAccountsList
 import com.stripe.android.financialconnections.model.SynchronizeSessionResponse
 import com.stripe.android.financialconnections.model.genericErrorPane
 import com.stripe.android.financialconnections.repository.FinancialConnectionsAccountsRepository
-import com.stripe.android.financialconnections.utils.PollTimingOptions
-import com.stripe.android.financialconnections.utils.retryOnException
+import com.stripe.android.financialconnections.utils.AppVisibility
+import com.stripe.android.financialconnections.utils.PollingPolicy
+import com.stripe.android.financialconnections.utils.pollOnException
 import com.stripe.android.financialconnections.utils.shouldRetry
 import javax.inject.Inject
+import kotlin.random.Random
 import kotlin.time.Duration.Companion.seconds
 
 /**
@@ -26,7 +28,9 @@ import kotlin.time.Duration.Companion.seconds
  */
 internal class PollAuthorizationSessionAccounts @Inject constructor(
     private val repository: FinancialConnectionsAccountsRepository,
-    private val configuration: FinancialConnectionsSheetConfiguration
+    private val configuration: FinancialConnectionsSheetConfiguration,
+    private val appVisibility: AppVisibility,
+    private val random: Random
 ) {
 
     suspend operator fun invoke(
@@ -35,12 +39,14 @@ internal class PollAuthorizationSessionAccounts @Inject constructor(
     ): PartnerAccountsList = try {
         val manifest = requireNotNull(sync.manifest)
         val activeAuthSession = requireNotNull(manifest.activeAuthSession)
-        retryOnException(
-            PollTimingOptions(
+        pollOnException(
+            PollingPolicy.accounts(
                 initialDelayMs = Flow.entries
                     .firstOrNull { it.value == activeAuthSession.flow }.toPollIntervalMs(),
             ),
-            retryCondition = { exception -> exception.shouldRetry }
+            retryCondition = { exception -> exception.shouldRetry },
+            isForeground = appVisibility.isForeground,
+            random = random
         ) {
             val accounts = repository.postAuthorizationSessionAccounts(
                 clientSecret = configuration.financialConnectionsSessionClientSecret,
@@ -4,11 +4,12 @@ import com.stripe.android.financialconnections.FinancialConnectionsSheetConfigur
 import com.stripe.android.financialconnections.model.FinancialConnectionsAuthorizationSession
 import com.stripe.android.financialconnections.model.MixedOAuthParams
 import com.stripe.android.financialconnections.repository.FinancialConnectionsRepository
-import com.stripe.android.financialconnections.utils.PollTimingOptions
-import com.stripe.android.financialconnections.utils.retryOnException
+import com.stripe.android.financialconnections.utils.AppVisibility
+import com.stripe.android.financialconnections.utils.PollingPolicy
+import com.stripe.android.financialconnections.utils.pollOnException
 import com.stripe.android.financialconnections.utils.shouldRetry
 import javax.inject.Inject
-import kotlin.time.Duration.Companion.seconds
+import kotlin.random.Random
 
 /**
  * Polls OAuth results from backend after user finishes authorization on web browser.
@@ -17,19 +18,19 @@ import kotlin.time.Duration.Companion.seconds
  */
 internal class PollAuthorizationSessionOAuthResults @Inject constructor(
     private val repository: FinancialConnectionsRepository,
-    private val configuration: FinancialConnectionsSheetConfiguration
+    private val configuration: FinancialConnectionsSheetConfiguration,
+    private val appVisibility: AppVisibility,
+    private val random: Random
 ) {
 
     suspend operator fun invoke(
         session: FinancialConnectionsAuthorizationSession
     ): MixedOAuthParams {
-        return retryOnException(
-            PollTimingOptions(
-                initialDelayMs = 0,
-                maxNumberOfRetries = 300, // Stripe.js has 600 second timeout, 600 / 2 = 300 retries
-                retryInterval = 2.seconds.inWholeMilliseconds
-            ),
-            retryCondition = { exception -> exception.shouldRetry }
+        return pollOnException(
+            PollingPolicy.OAuthResults,
+            retryCondition = { exception -> exception.shouldRetry },
+            isForeground = appVisibility.isForeground,
+            random = random
         ) {
             repository.postAuthorizationSessionOAuthResults(
                 clientSecret = configuration.financialConnectionsSessionClientSecret,
@@ -1,25 +1,50 @@
 package com.stripe.android.financialconnections.domain
 
+import com.stripe.android.financialconnections.features.common.InstitutionIconPrefetcher
 import com.stripe.android.financialconnections.model.InstitutionResponse
 import com.stripe.android.financialconnections.repository.FinancialConnectionsInstitutionsRepository
+import com.stripe.android.financialconnections.repository.InstitutionSearchCache
 import javax.inject.Inject
 
 /**
  * Searches for institutions based on a given query.
  *
+ * Results are cached for the session, so repeated queries (e.g. backspacing or retyping
+ * a prefix) don't hit the network again. The icons of new results are prefetched as they arrive.
  */
 internal class SearchInstitutions @Inject constructor(
-    private val repository: FinancialConnectionsInstitutionsRepository
+    private val repository: FinancialConnectionsInstitutionsRepository,
+    private val searchCache: InstitutionSearchCache,
+    private val iconPrefetcher: InstitutionIconPrefetcher,
 ) {
     suspend operator fun invoke(
         clientSecret: String,
         query: String
     ): InstitutionResponse {
+        searchCache.get(query)?.let { return it }
         return repository.searchInstitutions(
             clientSecret = clientSecret,
             query = query,
             limit = SEARCH_INSTITUTIONS_LIMIT
-        )
+        ).also { response ->
+            searchCache.put(query, response)
+            iconPrefetcher.prefetch(response.data.map { it.icon?.default })
+        }
+    }
+
+    /**
+     * @return the cached response for [query], if it was already searched during this session.
+     */
+    fun cached(query: String): InstitutionResponse? {
+        return searchCache.get(query)
+    }
+
+    /**
+     * @return provisional results for [query] built from locally known institutions, to display
+     * while the search request is in flight.
+     */
+    fun localMatches(query: String): InstitutionResponse? {
+        return searchCache.localMatches(query, SEARCH_INSTITUTIONS_LIMIT)
     }
 
     private companion object {
@@ -13,6 +13,7 @@ import androidx.compose.ui.platform.LocalInspectionMode
 import androidx.compose.ui.res.painterResource
 import androidx.compose.ui.unit.dp
 import com.stripe.android.financialconnections.R
+import com.stripe.android.financialconnections.features.common.InstitutionIconPrefetcher.Companion.INSTITUTION_ICON_SIZE_DP
 import com.stripe.android.financialconnections.ui.LocalImageLoader
 import com.stripe.android.financialconnections.ui.theme.FinancialConnectionsTheme.colors
 import com.stripe.android.uicore.image.StripeImage
@@ -25,7 +26,7 @@ internal fun InstitutionIcon(
 ) {
     val previewMode = LocalInspectionMode.current
     val iconModifier = modifier
-        .size(56.dp)
+        .size(INSTITUTION_ICON_SIZE_DP.dp)
         .shadow(1.dp, RoundedCornerShape(12.dp), clip = true)
 
     when {
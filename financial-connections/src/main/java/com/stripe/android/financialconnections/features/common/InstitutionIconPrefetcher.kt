@@ -0,0 +1,78 @@
+package com.stripe.android.financialconnections.features.common
+
+import android.app.Application
+import com.stripe.android.core.injection.IOContext
+import com.stripe.android.financialconnections.di.ActivityRetainedScope
+import com.stripe.android.uicore.image.StripeImageLoader
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Semaphore
+import kotlinx.coroutines.sync.withPermit
+import javax.inject.Inject
+import kotlin.coroutines.CoroutineContext
+import kotlin.math.roundToInt
+
+/**
+ * Loads institution icons into the shared [StripeImageLoader] as soon as the institutions they
+ * belong to are fetched, so that pickers render them from memory instead of loading each one as
+ * its row is composed.
+ *
+ * Icons are decoded at the size [InstitutionIcon] displays them at. Icons still in the memory cache
+ * are not fetched again by the image loader, while icons that failed to load or were evicted are.
+ */
+@ActivityRetainedScope
+internal class InstitutionIconPrefetcher(
+    private val imageLoader: StripeImageLoader,
+    private val iconSizePx: Int,
+    private val scope: CoroutineScope,
+) {
+
+    @Inject
+    constructor(
+        imageLoader: StripeImageLoader,
+        application: Application,
+        @IOContext workContext: CoroutineContext,
+    ) : this(
+        imageLoader = imageLoader,
+        iconSizePx = (INSTITUTION_ICON_SIZE_DP * application.resources.displayMetrics.density).roundToInt(),
+        scope = CoroutineScope(SupervisorJob() + workContext),
+    )
+
+    private val prefetchingUrls = HashSet<String>()
+    private val permits = Semaphore(MAX_CONCURRENT_PREFETCHES)
+
+    /**
+     * Prefetches the icons at [urls] that aren't being prefetched already.
+     *
+     * @return a job completing once every icon was loaded or failed to load
+     */
+    fun prefetch(urls: List<String?>): Job {
+        val newUrls = synchronized(prefetchingUrls) {
+            urls.filterNotNull().distinct().filter { prefetchingUrls.add(it) }
+        }
+        return scope.launch {
+            newUrls.forEach { url ->
+                launch {
+                    try {
+                        permits.withPermit {
+                            imageLoader.load(url, iconSizePx, iconSizePx)
+                        }
+                    } finally {
+                        synchronized(prefetchingUrls) { prefetchingUrls.remove(url) }
+                    }
+                }
+            }
+        }
+    }
+
+    internal companion object {
+        const val INSTITUTION_ICON_SIZE_DP = 56
+
+        /**
+         * Leaves connections for the requests and images of the screen being displayed.
+         */
+        const val MAX_CONCURRENT_PREFETCHES = 4
+    }
+}
@@ -256,13 +256,26 @@ private fun LazyListScope.searchResults(
                 )
             }
 
+            // Loading with local matches: Display provisional results.
+            is Loading -> institutions.value?.data?.takeIf { it.isNotEmpty() }
+                ?.let { provisionalResults ->
+                    items(
+                        items = provisionalResults,
+                        key = { it.id },
+                        itemContent = { institution ->
+                            InstitutionResultTile(
+                                modifier = Modifier.padding(8.dp),
+                                loading = selectedInstitutionId == institution.id,
+                                enabled = selectedInstitutionId?.let { it == institution.id } ?: true,
+                                institution = institution,
+                                onInstitutionSelected = { onInstitutionSelected(it, false) }
+                            )
+                        }
+                    )
+                } ?: searchResultsShimmer()
+
             // Loading: Display shimmer.
-            is Uninitialized,
-            is Loading -> items((0..10).toList()) {
-                InstitutionResultShimmer(
-                    modifier = Modifier.padding(8.dp)
-                )
-            }
+            is Uninitialized -> searchResultsShimmer()
 
             // Success: Display search results.
             is Success -> if (institutions().data.isEmpty()) {
@@ -303,6 +316,14 @@ private fun LazyListScope.searchResults(
     }
 }
 
+private fun LazyListScope.searchResultsShimmer() {
+    items((0..10).toList()) {
+        InstitutionResultShimmer(
+            modifier = Modifier.padding(8.dp)
+        )
+    }
+}
+
 @Composable
 private fun NoResultsTile(
     modifier: Modifier = Modifier,
@@ -164,33 +164,52 @@ internal class InstitutionPickerViewModel @AssistedInject constructor(
     }
 
     fun onQueryChanged(query: String) {
+        // While the search request is in flight, display locally known matches if any.
+        val provisionalResults = if (query.isNotBlank()) {
+            searchInstitutions.localMatches(query)
+        } else {
+            null
+        }
         searchJob += suspend {
-            if (query.isNotBlank()) {
-                delay(SEARCH_DEBOUNCE_MS)
-                val (result, millis) = measureTimeMillis {
-                    searchInstitutions(
-                        clientSecret = configuration.financialConnectionsSessionClientSecret,
-                        query = query
-                    )
-                }
-                eventTracker.track(
-                    SearchSucceeded(
-                        pane = PANE,
-                        query = query,
-                        duration = millis,
-                        resultCount = result.data.count()
-                    )
-                )
-                FinancialConnections.emitEvent(Name.SEARCH_INITIATED)
-                result
-            } else {
-                InstitutionResponse(
+            val cachedResult = if (query.isNotBlank()) searchInstitutions.cached(query) else null
+            when {
+                query.isBlank() -> InstitutionResponse(
                     data = emptyList(),
                     showManualEntry = false
                 )
+                // Queries already answered during this session are displayed right away. They
+                // aren't tracked as searches again, so that backspacing through them doesn't skew
+                // the search latency or emit a search event per keystroke.
+                cachedResult != null -> cachedResult
+                else -> {
+                    delay(SEARCH_DEBOUNCE_MS)
+                    val (result, millis) = measureTimeMillis {
+                        searchInstitutions(
+                            clientSecret = configuration.financialConnectionsSessionClientSecret,
+                            query = query
+                        )
+                    }
+                    eventTracker.track(
+                        SearchSucceeded(
+                            pane = PANE,
+                            query = query,
+                            duration = millis,
+                            resultCount = result.data.count()
+                        )
+                    )
+                    FinancialConnections.emitEvent(Name.SEARCH_INITIATED)
+                    result
+                }
             }
         }.execute {
-            copy(searchInstitutions = if (it.isCancellationError()) Loading() else it)
+            copy(
+                searchInstitutions = when {
+                    it is Loading -> Loading(provisionalResults)
+                    // A newer query superseded this one: keep its loading state.
+                    it.isCancellationError() -> searchInstitutions as? Loading ?: Loading()
+                    else -> it
+                }
+            )
         }
     }
 
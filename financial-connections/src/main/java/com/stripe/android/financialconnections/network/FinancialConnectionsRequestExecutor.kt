@@ -1,6 +1,7 @@
 package com.stripe.android.financialconnections.network
 
 import com.stripe.android.core.Logger
+import com.stripe.android.core.StripeError
 import com.stripe.android.core.exception.APIConnectionException
 import com.stripe.android.core.exception.APIException
 import com.stripe.android.core.exception.AuthenticationException
@@ -14,6 +15,7 @@ import com.stripe.android.core.networking.StripeRequest
 import com.stripe.android.core.networking.StripeResponse
 import com.stripe.android.core.networking.responseJson
 import com.stripe.android.financialconnections.analytics.FinancialConnectionsResponseEventEmitter
+import com.stripe.android.financialconnections.utils.RETRY_AFTER_FIELD
 import kotlinx.serialization.KSerializer
 import kotlinx.serialization.json.Json
 import java.net.HttpURLConnection
@@ -95,7 +97,11 @@ internal class FinancialConnectionsRequestExecutor @Inject constructor(
         val responseCode = response.code
         val stripeError = StripeErrorJsonParser().parse(response.responseJson())
         throw when (responseCode) {
-            HttpURLConnection.HTTP_ACCEPTED,
+            HttpURLConnection.HTTP_ACCEPTED -> InvalidRequestException(
+                stripeError.withRetryAfter(response),
+                requestId,
+                responseCode
+            )
             HttpURLConnection.HTTP_BAD_REQUEST,
             HttpURLConnection.HTTP_NOT_FOUND -> InvalidRequestException(
                 stripeError,
@@ -108,4 +114,20 @@ internal class FinancialConnectionsRequestExecutor @Inject constructor(
             else -> APIException(stripeError, requestId, responseCode)
         }
     }
+
+    /**
+     * Passes a `Retry-After` header on to polling, unless the error body already says when to retry.
+     */
+    private fun StripeError.withRetryAfter(response: StripeResponse<String>): StripeError {
+        val retryAfter = response.getHeaderValue(HEADER_RETRY_AFTER)?.firstOrNull()
+        return if (retryAfter == null || extraFields?.containsKey(RETRY_AFTER_FIELD) == true) {
+            this
+        } else {
+            copy(extraFields = extraFields.orEmpty() + (RETRY_AFTER_FIELD to retryAfter))
+        }
+    }
+
+    private companion object {
+        const val HEADER_RETRY_AFTER = "Retry-After"
+    }
 }
@@ -64,6 +64,7 @@ import com.stripe.android.financialconnections.presentation.FinancialConnections
 import com.stripe.android.financialconnections.ui.FinancialConnectionsSheetNativeActivity.Companion.getArgs
 import com.stripe.android.financialconnections.ui.theme.Theme
 import com.stripe.android.financialconnections.ui.toLocalTheme
+import com.stripe.android.financialconnections.utils.AppVisibility
 import com.stripe.android.financialconnections.utils.UriUtils
 import com.stripe.android.financialconnections.utils.get
 import com.stripe.android.financialconnections.utils.updateWithNewEntry
@@ -97,6 +98,7 @@ internal class FinancialConnectionsSheetNativeViewModel @Inject constructor(
     private val logger: Logger,
     private val navigationManager: NavigationManager,
     private val currentLinkBrand: CurrentLinkBrand,
+    private val appVisibility: AppVisibility,
     @Named(APPLICATION_ID) private val applicationId: String,
     private val initialState: FinancialConnectionsSheetNativeState,
 ) : FinancialConnectionsViewModel<FinancialConnectionsSheetNativeState>(
@@ -455,10 +457,12 @@ internal class FinancialConnectionsSheetNativeViewModel @Inject constructor(
     }
 
     fun onBackgrounded() {
+        appVisibility.onBackgrounded()
         trackBackgroundStateChanged(backgrounded = true)
     }
 
     fun onForegrounded() {
+        appVisibility.onForegrounded()
         trackBackgroundStateChanged(backgrounded = false)
     }
 
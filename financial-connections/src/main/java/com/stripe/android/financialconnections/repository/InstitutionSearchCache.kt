@@ -0,0 +1,98 @@
+package com.stripe.android.financialconnections.repository
+
+import com.stripe.android.financialconnections.di.ActivityRetainedScope
+import com.stripe.android.financialconnections.model.FinancialConnectionsInstitution
+import com.stripe.android.financialconnections.model.InstitutionResponse
+import java.util.Locale
+import javax.inject.Inject
+
+/**
+ * In-memory cache of institution search results for the current session.
+ *
+ * Besides exact query results, it keeps a prefix index of every institution seen so far
+ * (featured institutions and earlier search results) so that a query extending a previous one
+ * can be pre-filtered locally while the authoritative search request is in flight.
+ */
+@ActivityRetainedScope
+internal class InstitutionSearchCache @Inject constructor() {
+
+    private val results = object : LinkedHashMap<String, InstitutionResponse>(
+        MAX_CACHED_QUERIES,
+        LOAD_FACTOR,
+        true
+    ) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, InstitutionResponse>?): Boolean {
+            return size > MAX_CACHED_QUERIES
+        }
+    }
+
+    private val knownInstitutions = LinkedHashMap<String, FinancialConnectionsInstitution>()
+
+    @Synchronized
+    fun get(query: String): InstitutionResponse? {
+        return results[query.normalized()]
+    }
+
+    @Synchronized
+    fun put(query: String, response: InstitutionResponse) {
+        results[query.normalized()] = response
+        index(response.data)
+    }
+
+    /**
+     * Adds [institutions] to the prefix index without associating them to a query.
+     */
+    @Synchronized
+    fun seed(institutions: List<FinancialConnectionsInstitution>) {
+        index(institutions)
+    }
+
+    /**
+     * Returns the institutions known locally that match [query], or null if none do.
+     *
+     * Results of the longest cached prefix of [query] are ranked first, followed by any other
+     * indexed institution that matches. These results are provisional and must be replaced by
+     * the response of the search endpoint.
+     */
+    @Synchronized
+    fun localMatches(query: String, limit: Int): InstitutionResponse? {
+        val normalized = query.normalized()
+        if (normalized.isEmpty()) return null
+
+        val prefixResults = longestCachedPrefix(normalized)?.data.orEmpty()
+        val matches = LinkedHashMap<String, FinancialConnectionsInstitution>()
+        (prefixResults.asSequence() + knownInstitutions.values.asSequence())
+            .filter { it.matches(normalized) }
+            .forEach { matches.putIfAbsent(it.id, it) }
+
+        return matches.values
+            .take(limit)
+            .takeIf { it.isNotEmpty() }
+            ?.let { InstitutionResponse(showManualEntry = false, data = it) }
+    }
+
+    private fun longestCachedPrefix(normalized: String): InstitutionResponse? {
+        for (end in normalized.length - 1 downTo 1) {
+            results[normalized.substring(0, end)]?.let { return it }
+        }
+        return null
+    }
+
+    private fun index(institutions: List<FinancialConnectionsInstitution>) {
+        institutions.forEach { knownInstitutions[it.id] = it }
+    }
+
+    private fun FinancialConnectionsInstitution.matches(normalized: String): Boolean {
+        val name = name.lowercase(Locale.ROOT)
+        return name.startsWith(normalized) ||
+            name.contains(" $normalized") ||
+            formattedUrl.lowercase(Locale.ROOT).startsWith(normalized)
+    }
+
+    private fun String.normalized(): String = trim().lowercase(Locale.ROOT)
+
+    private companion object {
+        const val MAX_CACHED_QUERIES = 50
+        const val LOAD_FACTOR = 0.75f
+    }
+}
@@ -0,0 +1,25 @@
+package com.stripe.android.financialconnections.utils
+
+import com.stripe.android.financialconnections.di.ActivityRetainedScope
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import javax.inject.Inject
+
+/**
+ * Whether the auth flow is in the foreground, as reported by its activity.
+ */
+@ActivityRetainedScope
+internal class AppVisibility @Inject constructor() {
+
+    private val _isForeground = MutableStateFlow(true)
+    val isForeground: StateFlow<Boolean> = _isForeground.asStateFlow()
+
+    fun onBackgrounded() {
+        _isForeground.value = false
+    }
+
+    fun onForegrounded() {
+        _isForeground.value = true
+    }
+}
@@ -31,7 +31,7 @@ internal suspend fun <T> retryOnException(
         either.fold(
             onFailure = { exception ->
                 when {
-                    remainingTimes == 0 -> throw PollingReachedMaxRetriesException(options)
+                    remainingTimes == 0 -> throw PollingReachedMaxRetriesException(options.maxNumberOfRetries)
                     retryCondition(exception).not() -> throw exception
                 }
             },
@@ -51,9 +51,9 @@ internal data class PollTimingOptions(
  * Thrown when polling has reached the max number of retries.
  */
 internal class PollingReachedMaxRetriesException(
-    pollingOptions: PollTimingOptions
+    maxNumberOfRetries: Int
 ) : StripeException(
-    message = "reached max number of retries ${pollingOptions.maxNumberOfRetries}.",
+    message = "reached max number of retries $maxNumberOfRetries.",
     statusCode = HttpURLConnection.HTTP_ACCEPTED
 ) {
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
@@ -68,3 +68,19 @@ internal val Throwable.shouldRetry: Boolean
         val statusCode: Int? = (this as? StripeException)?.statusCode
         return statusCode == HttpURLConnection.HTTP_ACCEPTED
     }
+
+/**
+ * How long the backend asked to wait before polling again, if it did, through the
+ * [RETRY_AFTER_FIELD] of a [HttpURLConnection.HTTP_ACCEPTED] API response.
+ */
+internal val Throwable.retryAfterMs: Long?
+    get() = (this as? StripeException)
+        ?.takeIf { it.shouldRetry }
+        ?.stripeError?.extraFields?.get(RETRY_AFTER_FIELD)
+        ?.toLongOrNull()
+        ?.seconds?.inWholeMilliseconds
+
+/**
+ * The number of seconds to wait before polling again, from the `Retry-After` header or the error body.
+ */
+internal const val RETRY_AFTER_FIELD = "retry_after"
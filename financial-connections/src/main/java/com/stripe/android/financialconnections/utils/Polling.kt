@@ -0,0 +1,116 @@
+package com.stripe.android.financialconnections.utils
+
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.withTimeoutOrNull
+import kotlin.math.min
+import kotlin.math.pow
+import kotlin.math.roundToLong
+import kotlin.random.Random
+import kotlin.time.Duration.Companion.milliseconds
+import kotlin.time.Duration.Companion.seconds
+
+/**
+ * When to poll for a result the backend is still preparing.
+ *
+ * After [initialDelayMs], the first [fastProbes] retries are [fastProbeIntervalMs] apart, so that
+ * results that are ready quickly are picked up quickly. Retries then grow by [backoffMultiplier] up
+ * to [maxIntervalMs], each one randomly moved by up to [jitterRatio] of its interval so that clients
+ * don't poll in lockstep. Polling gives up once its retry intervals add up to more than [timeoutMs].
+ */
+internal data class PollingPolicy(
+    val initialDelayMs: Long,
+    val fastProbeIntervalMs: Long = 0.25.seconds.inWholeMilliseconds,
+    val fastProbes: Int = 4,
+    val backoffMultiplier: Double = 1.5,
+    val maxIntervalMs: Long = 2.seconds.inWholeMilliseconds,
+    val jitterRatio: Double = 0.2,
+    val timeoutMs: Long = 45.seconds.inWholeMilliseconds,
+) {
+
+    /**
+     * The interval before the retry that follows the given number of failed [attempts].
+     */
+    fun retryIntervalMs(attempts: Int, random: Random): Long {
+        if (attempts <= fastProbes) {
+            return fastProbeIntervalMs
+        }
+        val interval = min(
+            fastProbeIntervalMs * backoffMultiplier.pow(attempts - fastProbes),
+            maxIntervalMs.toDouble(),
+        )
+        val jitter = interval * jitterRatio * random.nextDouble(from = -1.0, until = 1.0)
+        return (interval + jitter).roundToLong().coerceAtLeast(0)
+    }
+
+    companion object {
+        /**
+         * OAuth results are usually ready as soon as the user is back from the bank, but Stripe.js
+         * waits up to 600 seconds for them.
+         */
+        val OAuthResults = PollingPolicy(
+            initialDelayMs = 0,
+            fastProbeIntervalMs = 0.5.seconds.inWholeMilliseconds,
+            maxIntervalMs = 5.seconds.inWholeMilliseconds,
+            timeoutMs = 600.seconds.inWholeMilliseconds,
+        )
+
+        fun accounts(initialDelayMs: Long) = PollingPolicy(initialDelayMs = initialDelayMs)
+    }
+}
+
+/**
+ * Executes and returns the result of the given [block], polling on the schedule of [policy] for as
+ * long as it fails with an exception that meets [retryCondition]. Any other exception is thrown.
+ *
+ * A server-provided [retryAfterMs] hint takes the place of the policy's next interval. Polling is
+ * paused while the app is in the background, and resumes right away once it's back, as whatever the
+ * user did outside the app may have produced the result.
+ */
+internal suspend fun <T> pollOnException(
+    policy: PollingPolicy,
+    retryCondition: suspend (Throwable) -> Boolean,
+    isForeground: StateFlow<Boolean> = AlwaysForeground,
+    random: Random = Random.Default,
+    block: suspend () -> T
+): T {
+    var attempts = 0
+    var waitedMs = 0L
+    var intervalMs = policy.initialDelayMs
+    while (true) {
+        awaitNextAttempt(intervalMs, isForeground)
+        val exception = try {
+            return block()
+        } catch (e: CancellationException) {
+            throw e
+        } catch (@Suppress("TooGenericExceptionCaught") e: Exception) {
+            e
+        }
+        if (!retryCondition(exception)) {
+            throw exception
+        }
+
+        attempts++
+        intervalMs = exception.retryAfterMs ?: policy.retryIntervalMs(attempts, random)
+        waitedMs += intervalMs
+        if (waitedMs > policy.timeoutMs) {
+            throw PollingReachedMaxRetriesException(attempts)
+        }
+    }
+}
+
+/**
+ * Waits [intervalMs] in the foreground. If the app is or goes to the background meanwhile, waits for
+ * it to come back instead.
+ */
+private suspend fun awaitNextAttempt(intervalMs: Long, isForeground: StateFlow<Boolean>) {
+    val wasBackgrounded = !isForeground.value ||
+        withTimeoutOrNull(intervalMs.milliseconds) { isForeground.first { !it } } != null
+    if (wasBackgrounded) {
+        isForeground.first { it }
+    }
+}
+
+private val AlwaysForeground: StateFlow<Boolean> = MutableStateFlow(true)
@@ -14,6 +14,7 @@ import com.stripe.android.financialconnections.repository.AttachedPaymentAccount
 import com.stripe.android.financialconnections.repository.CachedConsumerSession
 import com.stripe.android.financialconnections.repository.ConsumerSessionProvider
 import com.stripe.android.financialconnections.repository.FinancialConnectionsAccountsRepository
+import com.stripe.android.financialconnections.utils.AppVisibility
 import kotlinx.coroutines.test.runTest
 import org.junit.Test
 import org.mockito.Mockito.anyString
@@ -22,6 +23,7 @@ import org.mockito.Mockito.verify
 import org.mockito.kotlin.anyOrNull
 import org.mockito.kotlin.eq
 import org.mockito.kotlin.whenever
+import kotlin.random.Random
 
 internal class PollAttachPaymentAccountTest {
 
@@ -38,7 +40,9 @@ internal class PollAttachPaymentAccountTest {
         repository,
         consumerSessionRepository,
         attachedPaymentAccountRepository,
-        configuration
+        configuration,
+        AppVisibility(),
+        Random(seed = 42)
     )
 
     @Test
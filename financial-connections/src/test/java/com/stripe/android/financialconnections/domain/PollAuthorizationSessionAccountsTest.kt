@@ -16,6 +16,7 @@ import com.stripe.android.financialconnections.model.FinancialConnectionsSession
 import com.stripe.android.financialconnections.model.PartnerAccountsList
 import com.stripe.android.financialconnections.model.genericErrorPane
 import com.stripe.android.financialconnections.repository.FinancialConnectionsAccountsRepository
+import com.stripe.android.financialconnections.utils.AppVisibility
 import junit.framework.TestCase.assertEquals
 import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.test.runTest
@@ -27,6 +28,7 @@ import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.verify
 import org.mockito.kotlin.whenever
 import java.net.HttpURLConnection
+import kotlin.random.Random
 import kotlin.test.assertIs
 
 @OptIn(ExperimentalCoroutinesApi::class)
@@ -38,7 +40,7 @@ internal class PollAuthorizationSessionAccountsTest {
         ApiKeyFixtures.DEFAULT_PUBLISHABLE_KEY
     )
     private val pollAuthorizationSessionAccounts =
-        PollAuthorizationSessionAccounts(repository, configuration)
+        PollAuthorizationSessionAccounts(repository, configuration, AppVisibility(), Random(seed = 42))
 
     @Test
     fun `test successful account polling`() = runTest {
@@ -85,8 +87,9 @@ internal class PollAuthorizationSessionAccountsTest {
 
         assertIs<AccountLoadError>(exception)
 
-        // Retries 180 times
-        verify(repository, times(180)).postAuthorizationSessionAccounts(
+        // Backs off over 45 seconds, instead of retrying 180 times every 250ms. The seeded jitter
+        // makes the number of retries exact.
+        verify(repository, times(29)).postAuthorizationSessionAccounts(
             configuration.financialConnectionsSessionClientSecret,
             sync.manifest.activeAuthSession!!.id
         )
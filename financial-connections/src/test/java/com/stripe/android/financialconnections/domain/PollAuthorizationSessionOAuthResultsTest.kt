@@ -5,11 +5,13 @@ import com.stripe.android.financialconnections.ApiKeyFixtures
 import com.stripe.android.financialconnections.FinancialConnectionsSheetConfiguration
 import com.stripe.android.financialconnections.model.MixedOAuthParams
 import com.stripe.android.financialconnections.repository.FinancialConnectionsRepository
+import com.stripe.android.financialconnections.utils.AppVisibility
 import kotlinx.coroutines.test.runTest
 import org.junit.Test
 import org.mockito.kotlin.any
 import org.mockito.kotlin.given
 import org.mockito.kotlin.mock
+import kotlin.random.Random
 import kotlin.test.assertEquals
 
 internal class PollAuthorizationSessionOAuthResultsTest {
@@ -20,7 +22,9 @@ internal class PollAuthorizationSessionOAuthResultsTest {
         configuration = FinancialConnectionsSheetConfiguration(
             ApiKeyFixtures.DEFAULT_FINANCIAL_CONNECTIONS_SESSION_SECRET,
             ApiKeyFixtures.DEFAULT_PUBLISHABLE_KEY
-        )
+        ),
+        appVisibility = AppVisibility(),
+        random = Random(seed = 42)
     )
 
     @Test
@@ -0,0 +1,133 @@
+package com.stripe.android.financialconnections.domain
+
+import com.google.common.truth.Truth.assertThat
+import com.stripe.android.financialconnections.ApiKeyFixtures
+import com.stripe.android.financialconnections.features.common.InstitutionIconPrefetcher
+import com.stripe.android.financialconnections.model.FinancialConnectionsInstitution
+import com.stripe.android.financialconnections.networking.FakeFinancialConnectionsInstitutionsRepository
+import com.stripe.android.financialconnections.repository.InstitutionSearchCache
+import kotlinx.coroutines.test.TestScope
+import kotlinx.coroutines.test.runTest
+import org.junit.Test
+import org.mockito.kotlin.mock
+
+internal class SearchInstitutionsTest {
+
+    private val chase = institution(id = "chase", name = "Chase")
+    private val charlesSchwab = institution(id = "schwab", name = "Charles Schwab")
+    private val citi = institution(id = "citi", name = "Citibank")
+    private val capitalOne = institution(id = "capone", name = "Capital One")
+
+    private val repository = FakeFinancialConnectionsInstitutionsRepository(
+        institutions = listOf(chase, charlesSchwab, citi, capitalOne),
+        featured = listOf(chase, capitalOne),
+    )
+    private val cache = InstitutionSearchCache()
+    private val iconPrefetcher = InstitutionIconPrefetcher(
+        imageLoader = mock(),
+        iconSizePx = 56,
+        scope = TestScope(),
+    )
+    private val searchInstitutions = SearchInstitutions(repository, cache, iconPrefetcher)
+    private val featuredInstitutions = FeaturedInstitutions(repository, cache, iconPrefetcher)
+
+    @Test
+    fun `typing a query issues one request per distinct prefix`() = runTest {
+        type("c", "ch", "cha", "chas", "chase")
+
+        assertThat(repository.searchQueries).containsExactly("c", "ch", "cha", "chas", "chase").inOrder()
+    }
+
+    @Test
+    fun `backspacing and retyping a prefix is answered from the cache`() = runTest {
+        type("c", "ch", "cha", "chas", "chase")
+        // backspace twice, then retype.
+        type("chas", "cha", "chas", "chase")
+
+        assertThat(repository.searchQueries).hasSize(5)
+    }
+
+    @Test
+    fun `queries are normalized before hitting the cache`() = runTest {
+        type("Chase", " chase ", "CHASE")
+
+        assertThat(repository.searchQueries).containsExactly("Chase")
+    }
+
+    @Test
+    fun `clearing and retyping the whole query does not repeat any request`() = runTest {
+        val trace = listOf("c", "ci", "cit", "citi")
+        type(*trace.toTypedArray())
+        type(*trace.reversed().toTypedArray())
+        type(*trace.toTypedArray())
+
+        assertThat(repository.searchQueries).isEqualTo(trace)
+    }
+
+    @Test
+    fun `cached returns results only for queries already searched`() = runTest {
+        assertThat(searchInstitutions.cached("ch")).isNull()
+
+        val response = searchInstitutions(CLIENT_SECRET, "ch")
+
+        assertThat(searchInstitutions.cached("ch")).isEqualTo(response)
+        assertThat(searchInstitutions.cached("cha")).isNull()
+    }
+
+    @Test
+    fun `featured institutions seed local matches`() = runTest {
+        featuredInstitutions(CLIENT_SECRET)
+
+        val matches = searchInstitutions.localMatches("cap")
+
+        assertThat(matches?.data).containsExactly(capitalOne)
+        assertThat(repository.searchQueries).isEmpty()
+    }
+
+    @Test
+    fun `prefix extensions are pre-filtered from earlier results`() = runTest {
+        searchInstitutions(CLIENT_SECRET, "ch")
+
+        val matches = searchInstitutions.localMatches("chas")
+
+        assertThat(matches?.data).containsExactly(chase)
+        assertThat(repository.searchQueries).containsExactly("ch")
+    }
+
+    @Test
+    fun `local matches rank the longest cached prefix first`() = runTest {
+        featuredInstitutions(CLIENT_SECRET)
+        searchInstitutions(CLIENT_SECRET, "ch")
+
+        val matches = searchInstitutions.localMatches("cha")
+
+        assertThat(matches?.data).containsExactly(chase, charlesSchwab).inOrder()
+    }
+
+    @Test
+    fun `local matches include word prefixes`() = runTest {
+        searchInstitutions(CLIENT_SECRET, "c")
+
+        val matches = searchInstitutions.localMatches("schwab")
+
+        assertThat(matches?.data).containsExactly(charlesSchwab)
+    }
+
+    @Test
+    fun `local matches are null when nothing is known`() = runTest {
+        assertThat(searchInstitutions.localMatches("chase")).isNull()
+        assertThat(searchInstitutions.localMatches(" ")).isNull()
+    }
+
+    private suspend fun type(vararg queries: String) {
+        queries.forEach { searchInstitutions(CLIENT_SECRET, it) }
+    }
+
+    private fun institution(id: String, name: String): FinancialConnectionsInstitution {
+        return ApiKeyFixtures.institution().copy(id = id, name = name, url = null)
+    }
+
+    private companion object {
+        const val CLIENT_SECRET = "client_secret"
+    }
+}
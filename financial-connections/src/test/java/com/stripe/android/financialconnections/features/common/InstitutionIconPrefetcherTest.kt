@@ -0,0 +1,216 @@
+package com.stripe.android.financialconnections.features.common
+
+import android.graphics.Bitmap
+import com.google.common.truth.Truth.assertThat
+import com.stripe.android.core.Logger
+import com.stripe.android.financialconnections.ApiKeyFixtures
+import com.stripe.android.financialconnections.domain.FeaturedInstitutions
+import com.stripe.android.financialconnections.domain.SearchInstitutions
+import com.stripe.android.financialconnections.model.FinancialConnectionsInstitution
+import com.stripe.android.financialconnections.model.Image
+import com.stripe.android.financialconnections.networking.FakeFinancialConnectionsInstitutionsRepository
+import com.stripe.android.financialconnections.repository.InstitutionSearchCache
+import com.stripe.android.uicore.image.DefaultStripeImageLoader
+import com.stripe.android.uicore.image.ImageLruMemoryCache
+import com.stripe.android.uicore.image.LoadedImage
+import com.stripe.android.uicore.image.NetworkImageDecoder
+import kotlinx.coroutines.joinAll
+import kotlinx.coroutines.test.TestScope
+import kotlinx.coroutines.test.runTest
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.mockito.kotlin.any
+import org.mockito.kotlin.doAnswer
+import org.mockito.kotlin.mock
+import org.robolectric.RobolectricTestRunner
+import java.io.IOException
+import java.net.URL
+
+@RunWith(RobolectricTestRunner::class)
+internal class InstitutionIconPrefetcherTest {
+
+    private val iconServer = FakeIconServer()
+
+    private val imageLoader = DefaultStripeImageLoader(
+        context = mock(),
+        logger = Logger.noop(),
+        memoryCache = ImageLruMemoryCache(maxSize = MEMORY_CACHE_SIZE_KB),
+        networkImageDecoder = iconServer.decoder,
+        diskCache = null,
+    )
+
+    private val chase = institution(id = "chase", name = "Chase")
+    private val charlesSchwab = institution(id = "schwab", name = "Charles Schwab")
+    private val citi = institution(id = "citi", name = "Citibank")
+    private val capitalOne = institution(id = "capone", name = "Capital One")
+
+    private val repository = FakeFinancialConnectionsInstitutionsRepository(
+        institutions = listOf(chase, charlesSchwab, citi, capitalOne),
+        featured = listOf(chase, capitalOne),
+    )
+
+    @Test
+    fun `navigating between pickers fetches each icon once`() = runTest {
+        val prefetcher = prefetcher()
+        val searchCache = InstitutionSearchCache()
+        val featuredInstitutions = FeaturedInstitutions(repository, searchCache, prefetcher)
+        val searchInstitutions = SearchInstitutions(repository, searchCache, prefetcher)
+
+        val featured = featuredInstitutions(CLIENT_SECRET).data
+        render(featured)
+        val results = searchInstitutions(CLIENT_SECRET, "c").data
+        render(results)
+        // The user picks Chase, goes back from partner auth, and clears the query.
+        render(results)
+        render(featured)
+
+        assertThat(iconServer.fetches).containsExactly(
+            chase.iconUrl, 1,
+            charlesSchwab.iconUrl, 1,
+            citi.iconUrl, 1,
+            capitalOne.iconUrl, 1,
+        )
+    }
+
+    @Test
+    fun `prefetched icons render from memory at their display size`() = runTest {
+        val urls = listOf(chase, capitalOne).map { it.iconUrl }
+
+        prefetcher().prefetch(urls).join()
+
+        urls.forEach { url ->
+            assertThat(imageLoader.get(url).getOrNull()).isNotNull()
+        }
+        assertThat(iconServer.requestedSizes).containsExactly(ICON_SIZE_PX, ICON_SIZE_PX)
+    }
+
+    @Test
+    fun `overlapping results prefetched together fetch each icon once`() = runTest {
+        val prefetcher = prefetcher()
+
+        listOf(
+            prefetcher.prefetch(listOf(chase, capitalOne).map { it.iconUrl }),
+            prefetcher.prefetch(listOf(chase, charlesSchwab, citi, capitalOne).map { it.iconUrl }),
+            prefetcher.prefetch(listOf(chase.iconUrl, null, chase.iconUrl)),
+        ).joinAll()
+
+        assertThat(iconServer.fetches.values).containsExactly(1, 1, 1, 1)
+    }
+
+    @Test
+    fun `icons that failed to load are prefetched again`() = runTest {
+        val prefetcher = prefetcher()
+        iconServer.failures += chase.iconUrl
+
+        prefetcher.prefetch(listOf(chase.iconUrl)).join()
+        prefetcher.prefetch(listOf(chase.iconUrl)).join()
+
+        assertThat(iconServer.fetches[chase.iconUrl]).isEqualTo(2)
+        assertThat(imageLoader.get(chase.iconUrl).getOrNull()).isNotNull()
+    }
+
+    @Test
+    fun `prefetched icons are kept within the memory cache size`() = runTest {
+        val urls = List(10) { "https://b.stripecdn.com/icons/bank_$it.png" }
+
+        prefetcher().prefetch(urls).join()
+
+        val cachedIcons = urls.count { imageLoader.get(it).getOrNull() != null }
+        assertThat(iconServer.fetches).hasSize(10)
+        assertThat(cachedIcons).isEqualTo(MEMORY_CACHE_SIZE_KB / ICON_SIZE_KB)
+    }
+
+    @Test
+    fun `icons evicted from memory are prefetched again`() = runTest {
+        val prefetcher = prefetcher()
+        val evictedUrl = chase.iconUrl
+        val urls = List(MEMORY_CACHE_SIZE_KB / ICON_SIZE_KB) { "https://b.stripecdn.com/icons/bank_$it.png" }
+
+        prefetcher.prefetch(listOf(evictedUrl)).join()
+        prefetcher.prefetch(urls).join()
+
+        assertThat(imageLoader.get(evictedUrl).getOrNull()).isNull()
+
+        prefetcher.prefetch(listOf(evictedUrl)).join()
+
+        assertThat(iconServer.fetches[evictedUrl]).isEqualTo(2)
+        assertThat(imageLoader.get(evictedUrl).getOrNull()).isNotNull()
+    }
+
+    private fun TestScope.prefetcher() = InstitutionIconPrefetcher(
+        imageLoader = imageLoader,
+        iconSizePx = ICON_SIZE_PX,
+        scope = backgroundScope,
+    )
+
+    /**
+     * Loads the icons of [institutions] the way [InstitutionIcon] does when their rows are displayed.
+     */
+    private suspend fun render(institutions: List<FinancialConnectionsInstitution>) {
+        institutions.forEach { imageLoader.load(it.iconUrl, ICON_SIZE_PX, ICON_SIZE_PX).getOrThrow() }
+    }
+
+    private fun institution(id: String, name: String): FinancialConnectionsInstitution {
+        return ApiKeyFixtures.institution().copy(
+            id = id,
+            name = name,
+            url = null,
+            icon = Image("https://b.stripecdn.com/icons/$id.png"),
+        )
+    }
+
+    private val FinancialConnectionsInstitution.iconUrl: String
+        get() = requireNotNull(icon?.default)
+
+    /**
+     * Serves a bitmap of the requested size for every icon after [LATENCY_MILLIS], and records the
+     * fetches made for each of them.
+     */
+    private class FakeIconServer {
+        private val _fetches = mutableMapOf<String, Int>()
+        private val _requestedSizes = mutableListOf<Int>()
+        val failures = mutableSetOf<String>()
+
+        val fetches: Map<String, Int>
+            get() = synchronized(this) { _fetches.toMap() }
+
+        val requestedSizes: List<Int>
+            get() = synchronized(this) { _requestedSizes.toList() }
+
+        val decoder = mock<NetworkImageDecoder> {
+            onBlocking { decode(any(), any(), any()) } doAnswer { invocation ->
+                serve(
+                    url = invocation.getArgument<URL>(0).toString(),
+                    width = invocation.getArgument(1),
+                    height = invocation.getArgument(2),
+                )
+            }
+        }
+
+        private fun serve(url: String, width: Int, height: Int): LoadedImage {
+            val failed = synchronized(this) {
+                _fetches[url] = (_fetches[url] ?: 0) + 1
+                _requestedSizes += width
+                failures.remove(url)
+            }
+            Thread.sleep(LATENCY_MILLIS)
+            if (failed) {
+                throw IOException("Failed to load $url")
+            }
+            return LoadedImage(
+                contentType = LoadedImage.ContentType.Known.Png,
+                bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888),
+            )
+        }
+    }
+
+    private companion object {
+        const val CLIENT_SECRET = "client_secret"
+        const val LATENCY_MILLIS = 50L
+        const val ICON_SIZE_PX = 56
+
+        // A 56x56 ARGB_8888 bitmap, as counted by the memory cache.
+        const val ICON_SIZE_KB = ICON_SIZE_PX * ICON_SIZE_PX * 4 / 1024
+        const val MEMORY_CACHE_SIZE_KB = 5 * ICON_SIZE_KB
+    }
+}
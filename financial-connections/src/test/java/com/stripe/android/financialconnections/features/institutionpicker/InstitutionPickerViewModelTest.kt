@@ -260,6 +260,37 @@ internal class InstitutionPickerViewModelTest {
         }
     }
 
+    @Test
+    fun `onQueryChanged - cached results are displayed without tracking another search`() = runTest {
+        val query = "query"
+        val searchResults = InstitutionResponse(
+            showManualEntry = false,
+            data = listOf(
+                FinancialConnectionsInstitution(
+                    id = "id",
+                    name = "name",
+                    url = "url",
+                    featured = false,
+                    featuredOrder = null,
+                    mobileHandoffCapable = false
+                )
+            )
+        )
+
+        givenManifestReturns(ApiKeyFixtures.sessionManifest())
+        whenever(searchInstitutions.cached(query)).thenReturn(searchResults)
+
+        val viewModel = buildViewModel(InstitutionPickerState())
+        viewModel.onQueryChanged(query)
+        advanceUntilIdle()
+
+        withState(viewModel) { state ->
+            assertEquals(state.searchInstitutions()!!, searchResults)
+            verify(searchInstitutions, never()).invoke(any(), any())
+            assertTrue(eventTracker.sentEvents.none { it.eventName == "linked_accounts.search.succeeded" })
+        }
+    }
+
     @Test
     fun `onQueryChanged - no institutions are searched when blank query`() = runTest {
         val query = "  "
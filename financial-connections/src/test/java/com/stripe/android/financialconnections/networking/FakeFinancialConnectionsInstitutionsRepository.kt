@@ -0,0 +1,43 @@
+package com.stripe.android.financialconnections.networking
+
+import com.stripe.android.financialconnections.model.FinancialConnectionsInstitution
+import com.stripe.android.financialconnections.model.InstitutionResponse
+import com.stripe.android.financialconnections.repository.FinancialConnectionsInstitutionsRepository
+import java.util.Locale
+
+/**
+ * Fake institutions repository that searches a fixed set of [institutions] by name prefix and
+ * records every network call it receives.
+ */
+internal class FakeFinancialConnectionsInstitutionsRepository(
+    private val institutions: List<FinancialConnectionsInstitution>,
+    private val featured: List<FinancialConnectionsInstitution> = emptyList(),
+) : FinancialConnectionsInstitutionsRepository {
+
+    val searchQueries = mutableListOf<String>()
+    var featuredCalls = 0
+        private set
+
+    val networkCalls: Int
+        get() = searchQueries.size + featuredCalls
+
+    override suspend fun featuredInstitutions(clientSecret: String): InstitutionResponse {
+        featuredCalls++
+        return InstitutionResponse(showManualEntry = true, data = featured)
+    }
+
+    override suspend fun searchInstitutions(
+        clientSecret: String,
+        query: String,
+        limit: Int
+    ): InstitutionResponse {
+        searchQueries += query
+        val normalized = query.trim().lowercase(Locale.ROOT)
+        return InstitutionResponse(
+            showManualEntry = true,
+            data = institutions
+                .filter { it.name.lowercase(Locale.ROOT).startsWith(normalized) }
+                .take(limit)
+        )
+    }
+}
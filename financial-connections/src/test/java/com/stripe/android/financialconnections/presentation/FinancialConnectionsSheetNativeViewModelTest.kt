@@ -39,6 +39,7 @@ import com.stripe.android.financialconnections.model.FinancialConnectionsSession
 import com.stripe.android.financialconnections.model.FinancialConnectionsSessionManifest
 import com.stripe.android.financialconnections.presentation.FinancialConnectionsSheetNativeViewEffect.Finish
 import com.stripe.android.financialconnections.ui.theme.Theme
+import com.stripe.android.financialconnections.utils.AppVisibility
 import com.stripe.android.financialconnections.utils.TestNavigationManager
 import com.stripe.android.financialconnections.utils.UriUtils
 import com.stripe.android.model.LinkBrand
@@ -595,6 +596,7 @@ internal class FinancialConnectionsSheetNativeViewModelTest {
         logger = mock(),
         navigationManager = TestNavigationManager(),
         currentLinkBrand = currentLinkBrand,
+        appVisibility = AppVisibility(),
         savedStateHandle = SavedStateHandle(),
         initialState = initialState,
         createInstantDebitsResult = createInstantDebitsResult,
@@ -11,6 +11,8 @@ import com.stripe.android.financialconnections.model.BankAccount
 import com.stripe.android.financialconnections.model.FinancialConnectionsAccount
 import com.stripe.android.financialconnections.network.FinancialConnectionsRequestExecutor
 import com.stripe.android.financialconnections.test.readResourceAsString
+import com.stripe.android.financialconnections.utils.retryAfterMs
+import com.stripe.android.financialconnections.utils.shouldRetry
 import com.stripe.android.financialconnections.utils.testJson
 import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.test.runTest
@@ -149,6 +151,28 @@ class FinancialConnectionsRepositoryImplTest {
             assertThat(result.paymentAccount).isInstanceOf(BankAccount::class.java)
         }
 
+    @Test
+    fun `postAuthorizationSessionOAuthResults - 202 passes the Retry-After header on to polling`() =
+        runTest {
+            whenever(mockStripeNetworkClient.executeRequest(any())).thenReturn(
+                StripeResponse(
+                    code = HttpURLConnection.HTTP_ACCEPTED,
+                    body = """{"error": {"message": "Still processing"}}""",
+                    headers = mapOf("Retry-After" to listOf("3"))
+                )
+            )
+
+            val result = runCatching {
+                financialConnectionsRepositoryImpl.postAuthorizationSessionOAuthResults(
+                    clientSecret = "client_secret",
+                    sessionId = "session_id"
+                )
+            }
+
+            assertThat(result.exceptionOrNull()?.shouldRetry).isTrue()
+            assertThat(result.exceptionOrNull()?.retryAfterMs).isEqualTo(3000)
+        }
+
     private suspend fun givenGetRequestReturns(successBody: String) {
         whenever(mockStripeNetworkClient.executeRequest(any())).thenReturn(
             StripeResponse(
@@ -0,0 +1,223 @@
+package com.stripe.android.financialconnections.utils
+
+import com.google.common.truth.Truth.assertThat
+import com.stripe.android.core.StripeError
+import com.stripe.android.core.exception.InvalidRequestException
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.test.TestScope
+import kotlinx.coroutines.test.runTest
+import org.junit.Test
+import java.net.HttpURLConnection
+import kotlin.random.Random
+
+/**
+ * Compares the adaptive [PollingPolicy] schedules against the fixed [PollTimingOptions] schedules
+ * they replaced, in virtual time.
+ */
+internal class PollingTest {
+
+    @Test
+    fun `fast probes pick up a quick OAuth result sooner than the fixed schedule`() = runTest {
+        val fixed = FakeBackend(readyAtMs = 600)
+        val adaptive = FakeBackend(readyAtMs = 600)
+
+        pollFixed(FIXED_OAUTH_RESULTS, fixed)
+        pollAdaptive(PollingPolicy.OAuthResults, adaptive)
+
+        assertThat(fixed.detectedAtMs).isEqualTo(2_000)
+        assertThat(adaptive.detectedAtMs).isEqualTo(1_000)
+    }
+
+    @Test
+    fun `returning from the bank app polls right away`() = runTest {
+        val isForeground = MutableStateFlow(true)
+        // The user leaves for the bank app, and the result is ready as they come back 10.5s later.
+        launch {
+            delay(100)
+            isForeground.value = false
+            delay(10_400)
+            isForeground.value = true
+        }
+        val fixed = FakeBackend(readyAtMs = 10_500)
+        val adaptive = FakeBackend(readyAtMs = 10_500)
+
+        launch { pollFixed(FIXED_OAUTH_RESULTS, fixed) }
+        pollAdaptive(PollingPolicy.OAuthResults, adaptive, isForeground)
+        testScheduler.advanceUntilIdle()
+
+        assertThat(fixed.detectedAtMs).isEqualTo(12_000)
+        assertThat(fixed.requests).isEqualTo(7)
+        assertThat(adaptive.detectedAtMs).isEqualTo(10_500)
+        assertThat(adaptive.requests).isEqualTo(2)
+    }
+
+    @Test
+    fun `an abandoned flow stops polling while in the background`() = runTest {
+        val isForeground = MutableStateFlow(true)
+        val fixed = FakeBackend(readyAtMs = Long.MAX_VALUE)
+        val adaptive = FakeBackend(readyAtMs = Long.MAX_VALUE)
+
+        backgroundScope.launch { runCatching { pollFixed(FIXED_OAUTH_RESULTS, fixed) } }
+        backgroundScope.launch { pollAdaptive(PollingPolicy.OAuthResults, adaptive, isForeground) }
+        testScheduler.advanceTimeBy(100)
+        isForeground.value = false
+        testScheduler.advanceTimeBy(600_000)
+
+        assertThat(fixed.requests).isEqualTo(300)
+        assertThat(adaptive.requests).isEqualTo(1)
+    }
+
+    @Test
+    fun `a slow OAuth result takes fewer requests with a bounded detection delay`() = runTest {
+        val fixed = FakeBackend(readyAtMs = 60_000)
+        val adaptive = FakeBackend(readyAtMs = 60_000)
+
+        pollFixed(FIXED_OAUTH_RESULTS, fixed)
+        pollAdaptive(PollingPolicy.OAuthResults, adaptive)
+
+        assertThat(fixed.requests).isEqualTo(31)
+        assertThat(adaptive.requests).isLessThan(fixed.requests)
+        assertThat(adaptive.detectionDelayMs).isAtMost(6_000)
+    }
+
+    @Test
+    fun `slow accounts take fewer requests with a bounded detection delay`() = runTest {
+        val fixed = FakeBackend(readyAtMs = 20_000)
+        val adaptive = FakeBackend(readyAtMs = 20_000)
+
+        pollFixed(PollTimingOptions(initialDelayMs = 1_750), fixed)
+        pollAdaptive(PollingPolicy.accounts(initialDelayMs = 1_750), adaptive)
+
+        assertThat(fixed.requests).isEqualTo(74)
+        assertThat(adaptive.requests).isLessThan(fixed.requests / 2)
+        assertThat(adaptive.detectionDelayMs).isAtMost(2_400)
+    }
+
+    @Test
+    fun `quick accounts are picked up as soon as with the fixed schedule`() = runTest {
+        val fixed = FakeBackend(readyAtMs = 2_400)
+        val adaptive = FakeBackend(readyAtMs = 2_400)
+
+        pollFixed(PollTimingOptions(initialDelayMs = 1_750), fixed)
+        pollAdaptive(PollingPolicy.accounts(initialDelayMs = 1_750), adaptive)
+
+        assertThat(adaptive.detectedAtMs).isEqualTo(fixed.detectedAtMs)
+    }
+
+    @Test
+    fun `a retry-after hint from the backend replaces the next interval`() = runTest {
+        var requests = 0
+
+        val result = pollOnException(
+            policy = PollingPolicy.OAuthResults,
+            retryCondition = { it.shouldRetry },
+        ) {
+            requests++
+            if (requests == 1) throw accepted(retryAfterSeconds = "3") else "result"
+        }
+
+        assertThat(result).isEqualTo("result")
+        assertThat(testScheduler.currentTime).isEqualTo(3_000)
+    }
+
+    @Test
+    fun `polling gives up once the timeout is reached`() = runTest {
+        val backend = FakeBackend(readyAtMs = Long.MAX_VALUE)
+
+        val result = runCatching {
+            pollAdaptive(PollingPolicy.accounts(initialDelayMs = 0), backend)
+        }
+
+        assertThat(result.exceptionOrNull()).isInstanceOf(PollingReachedMaxRetriesException::class.java)
+        assertThat(testScheduler.currentTime).isAtMost(45_000)
+    }
+
+    @Test
+    fun `exceptions that are not retried are thrown right away`() = runTest {
+        val exception = InvalidRequestException(statusCode = HttpURLConnection.HTTP_BAD_REQUEST)
+
+        val result = runCatching {
+            pollOnException(PollingPolicy.OAuthResults, retryCondition = { it.shouldRetry }) {
+                throw exception
+            }
+        }
+
+        assertThat(result.exceptionOrNull()).isSameInstanceAs(exception)
+    }
+
+    @Test
+    fun `retry intervals grow from the fast probes up to the jittered maximum`() {
+        val policy = PollingPolicy.accounts(initialDelayMs = 0)
+        val random = Random(seed = 42)
+
+        val intervals = (1..20).map { policy.retryIntervalMs(it, random) }
+
+        assertThat(intervals.take(4)).containsExactly(250L, 250L, 250L, 250L)
+        assertThat(intervals[4]).isIn(300L..450L)
+        intervals.drop(10).forEach { assertThat(it).isIn(1_600L..2_400L) }
+    }
+
+    private suspend fun TestScope.pollFixed(options: PollTimingOptions, backend: FakeBackend) {
+        backend.scope = this
+        retryOnException(options, retryCondition = { it.shouldRetry }) { backend.poll() }
+    }
+
+    private suspend fun TestScope.pollAdaptive(
+        policy: PollingPolicy,
+        backend: FakeBackend,
+        isForeground: MutableStateFlow<Boolean> = MutableStateFlow(true),
+    ) {
+        backend.scope = this
+        pollOnException(
+            policy = policy,
+            retryCondition = { it.shouldRetry },
+            isForeground = isForeground,
+            random = Random(seed = 42),
+        ) { backend.poll() }
+    }
+
+    /**
+     * Answers with a 202 until [readyAtMs], and records the requests made and when the result was
+     * picked up.
+     */
+    private class FakeBackend(private val readyAtMs: Long) {
+        lateinit var scope: TestScope
+        var requests = 0
+            private set
+        var detectedAtMs: Long? = null
+            private set
+
+        val detectionDelayMs: Long
+            get() = requireNotNull(detectedAtMs) - readyAtMs
+
+        fun poll(): String {
+            requests++
+            val now = scope.testScheduler.currentTime
+            if (now < readyAtMs) {
+                throw accepted()
+            }
+            detectedAtMs = now
+            return "result"
+        }
+    }
+
+    private companion object {
+        /**
+         * The schedule OAuth results were polled on: every 2 seconds, up to 300 times.
+         */
+        val FIXED_OAUTH_RESULTS = PollTimingOptions(
+            initialDelayMs = 0,
+            maxNumberOfRetries = 300,
+            retryInterval = 2_000
+        )
+
+        fun accepted(retryAfterSeconds: String? = null) = InvalidRequestException(
+            stripeError = StripeError(
+                extraFields = retryAfterSeconds?.let { mapOf(RETRY_AFTER_FIELD to it) }
+            ),
+            statusCode = HttpURLConnection.HTTP_ACCEPTED
+        )
+    }
+}
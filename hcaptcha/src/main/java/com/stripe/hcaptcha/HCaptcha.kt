@@ -7,7 +7,7 @@ import com.stripe.hcaptcha.config.HCaptchaConfig
 import com.stripe.hcaptcha.config.HCaptchaInternalConfig
 import com.stripe.hcaptcha.config.HCaptchaSize
 import com.stripe.hcaptcha.task.Task
-import com.stripe.hcaptcha.webview.HCaptchaHeadlessWebView
+import com.stripe.hcaptcha.webview.HCaptchaHeadlessSession
 
 /**
  * hCaptcha client which allows invoking of challenge completion and listening for the result.
@@ -91,12 +91,12 @@ class HCaptcha private constructor(
         try {
             captchaVerifier = if (config.hideDialog) {
                 // Overwrite certain config values in case the dialog is hidden to avoid behavior collision
-                HCaptchaHeadlessWebView(
-                    activity = activity,
-                    config = config.copy(size = HCaptchaSize.INVISIBLE, loading = false),
-                    internalConfig = internalConfig,
-                    listener = listener
-                )
+                val headlessConfig = config.copy(size = HCaptchaSize.INVISIBLE, loading = false)
+                HCaptchaHeadlessSession.obtain(
+                    context = activity,
+                    config = headlessConfig,
+                    internalConfig = internalConfig
+                ).verifier(listener, headlessConfig)
             } else {
                 HCaptchaDialogFragment.newInstance(config, internalConfig, listener)
             }
@@ -0,0 +1,432 @@
+package com.stripe.hcaptcha.webview
+
+import android.content.ComponentCallbacks2
+import android.content.Context
+import android.content.res.Configuration
+import android.os.Handler
+import android.os.Looper
+import android.os.SystemClock
+import android.view.View
+import android.webkit.WebView
+import androidx.annotation.MainThread
+import androidx.annotation.RestrictTo
+import androidx.annotation.VisibleForTesting
+import androidx.fragment.app.FragmentActivity
+import com.stripe.hcaptcha.HCaptchaError
+import com.stripe.hcaptcha.HCaptchaException
+import com.stripe.hcaptcha.HCaptchaStateListener
+import com.stripe.hcaptcha.IHCaptchaVerifier
+import com.stripe.hcaptcha.R
+import com.stripe.hcaptcha.config.HCaptchaConfig
+import com.stripe.hcaptcha.config.HCaptchaInternalConfig
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.minutes
+import kotlin.time.Duration.Companion.seconds
+
+/**
+ * A headless hCaptcha WebView that stays loaded across verifications.
+ *
+ * The hCaptcha HTML and script are loaded once, and every verification only runs
+ * `resetAndExecute()` in the primed page. Retries and verifications after an expired token
+ * therefore don't pay for the WebView startup and script load again.
+ *
+ * A token minted after its requester went away is kept for the next request, and refreshed
+ * shortly before [HCaptchaConfig.tokenExpiration] while it is kept.
+ *
+ * The WebView is released on memory pressure and loaded again on the next request. The session is
+ * destroyed once it has been idle for [IDLE_TIMEOUT]: no verifier attached, no pending request and
+ * no kept token.
+ */
+@MainThread
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+internal class HCaptchaHeadlessSession(
+    context: Context,
+    internal val config: HCaptchaConfig,
+    internal val internalConfig: HCaptchaInternalConfig,
+    private val handler: Handler = Handler(Looper.getMainLooper()),
+    private val clock: () -> Long = SystemClock::elapsedRealtime
+) : ComponentCallbacks2 {
+    private val context = context.applicationContext
+    private val pageCallbacks = PageCallbacks()
+    private val waiters = ArrayDeque<Request>()
+    private val refreshRunnable = Runnable { refreshHeldToken() }
+    private val idleRunnable = Runnable { destroy() }
+
+    private var webViewHelper: HCaptchaWebViewHelper? = null
+    private var webViewLoaded = false
+    private var executing = false
+    private var releaseWhenIdle = false
+    private var destroyed = false
+    private var attachedVerifiers = 0
+
+    private var heldToken: HeldToken? = null
+    private var heldTokenRefreshes = 0
+
+    /**
+     * Whether the hCaptcha script is loaded and ready to execute.
+     */
+    val isPrimed: Boolean
+        get() = webViewLoaded
+
+    @VisibleForTesting
+    internal val webView: WebView?
+        get() = webViewHelper?.webView
+
+    init {
+        this.context.registerComponentCallbacks(this)
+        prime()
+        scheduleDestroyIfIdle()
+    }
+
+    /**
+     * Mints a token for [listener], reusing the loaded page, or hands over a kept token that is
+     * still valid. Failures are retried according to the retry predicate of [config].
+     */
+    fun requestToken(
+        listener: HCaptchaStateListener,
+        config: HCaptchaConfig = this.config
+    ) {
+        if (destroyed) {
+            listener.onFailure(HCaptchaException(HCaptchaError.ERROR))
+            return
+        }
+        handler.removeCallbacks(idleRunnable)
+
+        val token = takeHeldToken()
+        if (token != null) {
+            listener.onSuccess(token)
+            scheduleDestroyIfIdle()
+            return
+        }
+
+        waiters.addLast(Request(listener, config))
+        execute()
+    }
+
+    /**
+     * Stops delivering a result to [listener]. A token already being minted for it is kept for
+     * the next request.
+     */
+    fun cancel(listener: HCaptchaStateListener) {
+        waiters.removeAll { it.listener === listener }
+        releaseIfRequested()
+        scheduleDestroyIfIdle()
+    }
+
+    /**
+     * A verifier that mints its token through this session, and only cancels its own request
+     * on [IHCaptchaVerifier.reset] instead of destroying the WebView. The session is kept while
+     * the verifier is attached, i.e. until it is reset.
+     *
+     * @param config the config of the verification, whose retry predicate is used for its requests
+     */
+    fun verifier(
+        listener: HCaptchaStateListener,
+        config: HCaptchaConfig = this.config
+    ): IHCaptchaVerifier {
+        attachedVerifiers++
+        handler.removeCallbacks(idleRunnable)
+        return Verification(listener, config)
+    }
+
+    /**
+     * Destroys the WebView and drops any kept token. The next request loads the page again.
+     */
+    fun release() {
+        handler.removeCallbacks(refreshRunnable)
+        heldToken = null
+        heldTokenRefreshes = 0
+        executing = false
+        webViewLoaded = false
+        releaseWhenIdle = false
+        webViewHelper?.destroy()
+        webViewHelper = null
+    }
+
+    /**
+     * Releases the session for good. Pending requests fail.
+     */
+    fun destroy() {
+        if (destroyed) {
+            return
+        }
+        destroyed = true
+        handler.removeCallbacks(idleRunnable)
+        release()
+        context.unregisterComponentCallbacks(this)
+        failWaiters(HCaptchaException(HCaptchaError.ERROR))
+        val key = Key.of(config, internalConfig)
+        if (sessions[key] === this) {
+            sessions.remove(key)
+        }
+    }
+
+    override fun onTrimMemory(level: Int) {
+        @Suppress("DEPRECATION")
+        val underPressure = level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW ||
+            level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL ||
+            level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+        if (underPressure) {
+            releaseWhenIdle = true
+            releaseIfRequested()
+        }
+    }
+
+    @Deprecated("Deprecated in Java")
+    override fun onLowMemory() {
+        releaseWhenIdle = true
+        releaseIfRequested()
+    }
+
+    override fun onConfigurationChanged(newConfig: Configuration) = Unit
+
+    private fun prime(): HCaptchaWebViewHelper {
+        webViewHelper?.let { return it }
+
+        val webView: WebView = HCaptchaWebView(context)
+        webView.id = R.id.webView
+        webView.visibility = View.GONE
+
+        return HCaptchaWebViewHelper(
+            handler,
+            context,
+            config,
+            internalConfig,
+            pageCallbacks,
+            HCaptchaStateListener(
+                onOpen = {},
+                onSuccess = {},
+                onFailure = { exception -> onPageBroken(exception) }
+            ),
+            webView
+        ).also { webViewHelper = it }
+    }
+
+    private fun execute() {
+        if (executing) {
+            return
+        }
+        val helper = prime()
+        executing = true
+        if (webViewLoaded) {
+            helper.resetAndExecute()
+        }
+    }
+
+    private fun onLoaded() {
+        webViewLoaded = true
+        if (executing) {
+            webViewHelper?.resetAndExecute()
+        }
+    }
+
+    private fun onToken(token: String) {
+        executing = false
+        webViewHelper?.reset()
+
+        val waiter = waiters.removeFirstOrNull()
+        if (waiter != null) {
+            heldTokenRefreshes = 0
+            waiter.listener.onSuccess(token)
+        } else {
+            hold(token)
+        }
+        continueOrRelease()
+    }
+
+    private fun onError(exception: HCaptchaException) {
+        val helper = webViewHelper ?: return
+        // A refresh of a kept token has no waiter, and uses the session's config.
+        val requestConfig = waiters.firstOrNull()?.config ?: config
+        if (requestConfig.retryPredicate?.invoke(requestConfig, exception) == true) {
+            helper.resetAndExecute()
+            return
+        }
+
+        executing = false
+        helper.reset()
+        // A failed refresh leaves the kept token in place until it expires.
+        waiters.removeFirstOrNull()?.listener?.onFailure(exception)
+        continueOrRelease()
+    }
+
+    /**
+     * The page can't be used anymore, e.g. its JavaScript interfaces were removed after an
+     * insecure request.
+     */
+    private fun onPageBroken(exception: HCaptchaException) {
+        release()
+        failWaiters(exception)
+        scheduleDestroyIfIdle()
+    }
+
+    private fun continueOrRelease() {
+        if (waiters.isNotEmpty()) {
+            execute()
+        } else {
+            releaseIfRequested()
+            scheduleDestroyIfIdle()
+        }
+    }
+
+    /**
+     * Destroys the session after [IDLE_TIMEOUT] unless it is used again in the meantime.
+     */
+    private fun scheduleDestroyIfIdle() {
+        handler.removeCallbacks(idleRunnable)
+        val isIdle = attachedVerifiers == 0 && waiters.isEmpty() && !executing && heldToken == null
+        if (isIdle && !destroyed) {
+            handler.postDelayed(idleRunnable, IDLE_TIMEOUT.inWholeMilliseconds)
+        }
+    }
+
+    private fun detach(verification: Verification) {
+        if (verification.isDetached) {
+            return
+        }
+        verification.isDetached = true
+        attachedVerifiers--
+        cancel(verification.listener)
+    }
+
+    private fun releaseIfRequested() {
+        if (releaseWhenIdle && waiters.isEmpty()) {
+            release()
+        }
+    }
+
+    private fun failWaiters(exception: HCaptchaException) {
+        while (waiters.isNotEmpty()) {
+            waiters.removeFirst().listener.onFailure(exception)
+        }
+    }
+
+    private fun hold(token: String) {
+        handler.removeCallbacks(refreshRunnable)
+        heldToken = HeldToken(token, mintedAt = clock())
+        val refreshIn = (config.tokenExpiration - REFRESH_MARGIN).coerceAtLeast(Duration.ZERO)
+        handler.postDelayed(refreshRunnable, refreshIn.inWholeMilliseconds)
+    }
+
+    private fun takeHeldToken(): String? {
+        val held = heldToken ?: return null
+        heldToken = null
+        handler.removeCallbacks(refreshRunnable)
+        val age = clock() - held.mintedAt
+        return held.token.takeIf { age < config.tokenExpiration.inWholeMilliseconds }
+    }
+
+    private fun refreshHeldToken() {
+        if (heldToken == null || destroyed) {
+            return
+        }
+        if (heldTokenRefreshes >= MAX_HELD_TOKEN_REFRESHES) {
+            // Nobody asked for a token in a while, stop minting new ones.
+            heldToken = null
+            heldTokenRefreshes = 0
+            scheduleDestroyIfIdle()
+            return
+        }
+        heldTokenRefreshes++
+        execute()
+    }
+
+    private data class HeldToken(
+        val token: String,
+        val mintedAt: Long
+    )
+
+    private class Request(
+        val listener: HCaptchaStateListener,
+        val config: HCaptchaConfig
+    )
+
+    private inner class PageCallbacks : IHCaptchaVerifier {
+        override fun startVerification(activity: FragmentActivity) = execute()
+
+        override fun reset() = release()
+
+        override fun onLoaded() = this@HCaptchaHeadlessSession.onLoaded()
+
+        override fun onOpen() {
+            waiters.firstOrNull()?.listener?.onOpen()
+        }
+
+        override fun onSuccess(result: String) = onToken(result)
+
+        override fun onFailure(exception: HCaptchaException) = onError(exception)
+    }
+
+    private inner class Verification(
+        val listener: HCaptchaStateListener,
+        private val config: HCaptchaConfig
+    ) : IHCaptchaVerifier {
+        var isDetached = false
+
+        override fun startVerification(activity: FragmentActivity) = requestToken(listener, config)
+
+        override fun reset() = detach(this)
+
+        override fun onLoaded() = Unit
+
+        override fun onOpen() = listener.onOpen()
+
+        override fun onSuccess(result: String) = listener.onSuccess(result)
+
+        override fun onFailure(exception: HCaptchaException) = listener.onFailure(exception)
+    }
+
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    companion object {
+        /**
+         * How long before [HCaptchaConfig.tokenExpiration] a kept token is replaced.
+         */
+        internal val REFRESH_MARGIN = 10.seconds
+
+        internal const val MAX_HELD_TOKEN_REFRESHES = 2
+
+        /**
+         * How long an unused session keeps its WebView, e.g. between confirmation attempts.
+         */
+        internal val IDLE_TIMEOUT = 2.minutes
+
+        private val sessions = HashMap<Key, HCaptchaHeadlessSession>()
+
+        /**
+         * Returns the session for [config], creating it if needed. Sessions for different site keys
+         * or rqdata are kept apart, so that obtaining one doesn't affect the requests of another.
+         */
+        @MainThread
+        fun obtain(
+            context: Context,
+            config: HCaptchaConfig,
+            internalConfig: HCaptchaInternalConfig
+        ): HCaptchaHeadlessSession {
+            val key = Key.of(config, internalConfig)
+            sessions[key]?.takeUnless { it.destroyed }?.let { return it }
+
+            return HCaptchaHeadlessSession(context, config, internalConfig).also { sessions[key] = it }
+        }
+
+        @MainThread
+        internal fun destroyAll() {
+            sessions.values.toList().forEach { it.destroy() }
+            sessions.clear()
+        }
+    }
+
+    /**
+     * The retry predicate is a new lambda for each verification, so it doesn't take part in the
+     * key. Each request uses the predicate of its own config instead.
+     */
+    private data class Key(
+        val config: HCaptchaConfig,
+        val internalConfig: HCaptchaInternalConfig
+    ) {
+        companion object {
+            fun of(config: HCaptchaConfig, internalConfig: HCaptchaInternalConfig): Key {
+                return Key(config.copy(retryPredicate = null), internalConfig)
+            }
+        }
+    }
+}
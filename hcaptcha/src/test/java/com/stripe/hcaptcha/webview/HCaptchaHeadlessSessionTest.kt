@@ -0,0 +1,429 @@
+package com.stripe.hcaptcha.webview
+
+import android.content.ComponentCallbacks2
+import android.os.Build
+import android.os.Looper
+import android.os.SystemClock
+import androidx.fragment.app.FragmentActivity
+import com.google.common.truth.Truth.assertThat
+import com.stripe.hcaptcha.HCaptchaError
+import com.stripe.hcaptcha.HCaptchaException
+import com.stripe.hcaptcha.HCaptchaStateListener
+import com.stripe.hcaptcha.config.HCaptchaConfig
+import com.stripe.hcaptcha.config.HCaptchaInternalConfig
+import org.junit.After
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.Robolectric
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.Shadows.shadowOf
+import org.robolectric.annotation.Config
+import org.robolectric.shadows.ShadowSystemClock
+import java.util.concurrent.TimeUnit
+
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [Build.VERSION_CODES.TIRAMISU])
+class HCaptchaHeadlessSessionTest {
+
+    private var htmlLoads = 0
+    private val internalConfig = HCaptchaInternalConfig {
+        htmlLoads++
+        ShadowSystemClock.advanceBy(SCRIPT_LOAD_MILLIS, TimeUnit.MILLISECONDS)
+        "<html></html>"
+    }
+
+    @After
+    fun tearDown() {
+        HCaptchaHeadlessSession.destroyAll()
+    }
+
+    @Test
+    fun `creating a session loads the page once`() {
+        val session = createSession()
+
+        assertThat(htmlLoads).isEqualTo(1)
+        assertThat(shadowOf(session.webView).lastLoadDataWithBaseURL).isNotNull()
+        assertThat(session.isPrimed).isFalse()
+
+        session.loadPage()
+
+        assertThat(session.isPrimed).isTrue()
+    }
+
+    @Test
+    fun `request before the page loads executes once loaded`() {
+        val session = createSession()
+        val listener = RecordingListener()
+
+        session.requestToken(listener.stateListener)
+        assertThat(shadowOf(session.webView).lastLoadedUrl).isNull()
+
+        session.loadPage()
+        assertThat(shadowOf(session.webView).lastLoadedUrl).isEqualTo(RESET_AND_EXECUTE)
+
+        session.pass("token")
+        assertThat(listener.tokens).containsExactly("token")
+    }
+
+    @Test
+    fun `verifications reuse the loaded page and reset it in between`() {
+        val session = createSession()
+        session.loadPage()
+        val webView = session.webView
+
+        repeat(3) { attempt ->
+            val listener = RecordingListener()
+            session.requestToken(listener.stateListener)
+            assertThat(shadowOf(session.webView).lastLoadedUrl).isEqualTo(RESET_AND_EXECUTE)
+
+            session.pass("token-$attempt")
+            assertThat(listener.tokens).containsExactly("token-$attempt")
+            assertThat(shadowOf(session.webView).lastLoadedUrl).isEqualTo(RESET)
+        }
+
+        assertThat(session.webView).isSameInstanceAs(webView)
+        assertThat(shadowOf(webView).wasDestroyCalled()).isFalse()
+        assertThat(htmlLoads).isEqualTo(1)
+    }
+
+    @Test
+    fun `concurrent requests each get their own token`() {
+        val session = createSession()
+        session.loadPage()
+        val first = RecordingListener()
+        val second = RecordingListener()
+
+        session.requestToken(first.stateListener)
+        session.requestToken(second.stateListener)
+        session.pass("token-1")
+        session.pass("token-2")
+
+        assertThat(first.tokens).containsExactly("token-1")
+        assertThat(second.tokens).containsExactly("token-2")
+    }
+
+    @Test
+    fun `failure is delivered once and the page is kept`() {
+        val session = createSession()
+        session.loadPage()
+        val listener = RecordingListener()
+
+        session.requestToken(listener.stateListener)
+        session.fail(HCaptchaError.NETWORK_ERROR)
+
+        assertThat(listener.errors.map { it.hCaptchaError }).containsExactly(HCaptchaError.NETWORK_ERROR)
+        assertThat(shadowOf(session.webView).wasDestroyCalled()).isFalse()
+    }
+
+    @Test
+    fun `retryable failure executes again silently`() {
+        val session = createSession(
+            retryPredicate = { _, exception -> exception.hCaptchaError == HCaptchaError.SESSION_TIMEOUT }
+        )
+        session.loadPage()
+        val listener = RecordingListener()
+
+        session.requestToken(listener.stateListener)
+        session.fail(HCaptchaError.SESSION_TIMEOUT)
+        assertThat(shadowOf(session.webView).lastLoadedUrl).isEqualTo(RESET_AND_EXECUTE)
+
+        session.pass("token")
+        assertThat(listener.errors).isEmpty()
+        assertThat(listener.tokens).containsExactly("token")
+    }
+
+    @Test
+    fun `resetting a verifier keeps its token for the next request`() {
+        val activity = Robolectric.buildActivity(FragmentActivity::class.java).setup().get()
+        val session = createSession()
+        session.loadPage()
+        val cancelled = RecordingListener()
+
+        val verifier = session.verifier(cancelled.stateListener)
+        verifier.startVerification(activity)
+        verifier.reset()
+        session.pass("token")
+
+        val next = RecordingListener()
+        session.requestToken(next.stateListener)
+
+        assertThat(cancelled.tokens).isEmpty()
+        assertThat(next.tokens).containsExactly("token")
+        assertThat(shadowOf(session.webView).wasDestroyCalled()).isFalse()
+    }
+
+    @Test
+    fun `kept token is refreshed before it expires`() {
+        val session = createSession()
+        session.loadPage()
+        session.keepToken("token-1")
+
+        idleFor(session.config.tokenExpiration.inWholeMilliseconds - REFRESH_MARGIN_MILLIS)
+        assertThat(shadowOf(session.webView).lastLoadedUrl).isEqualTo(RESET_AND_EXECUTE)
+        session.pass("token-2")
+
+        val listener = RecordingListener()
+        session.requestToken(listener.stateListener)
+
+        assertThat(listener.tokens).containsExactly("token-2")
+        assertThat(htmlLoads).isEqualTo(1)
+    }
+
+    @Test
+    fun `kept token stops being refreshed when nobody asks for it`() {
+        val session = createSession()
+        session.loadPage()
+        session.keepToken("token-0")
+
+        val refreshInterval = session.config.tokenExpiration.inWholeMilliseconds - REFRESH_MARGIN_MILLIS
+        repeat(HCaptchaHeadlessSession.MAX_HELD_TOKEN_REFRESHES) { refresh ->
+            idleFor(refreshInterval)
+            session.pass("token-${refresh + 1}")
+        }
+        idleFor(refreshInterval)
+        assertThat(shadowOf(session.webView).lastLoadedUrl).isEqualTo(RESET)
+
+        val listener = RecordingListener()
+        session.requestToken(listener.stateListener)
+
+        assertThat(listener.tokens).isEmpty()
+        assertThat(shadowOf(session.webView).lastLoadedUrl).isEqualTo(RESET_AND_EXECUTE)
+    }
+
+    @Test
+    fun `expired kept token is not handed out`() {
+        val session = createSession()
+        session.loadPage()
+        session.keepToken("token")
+
+        // Skip the refresh by advancing the clock without running the looper.
+        ShadowSystemClock.advanceBy(session.config.tokenExpiration.inWholeMilliseconds, TimeUnit.MILLISECONDS)
+        val listener = RecordingListener()
+        session.requestToken(listener.stateListener)
+
+        assertThat(listener.tokens).isEmpty()
+        assertThat(shadowOf(session.webView).lastLoadedUrl).isEqualTo(RESET_AND_EXECUTE)
+    }
+
+    @Test
+    fun `memory pressure releases an idle session and the next request loads again`() {
+        val session = createSession()
+        session.loadPage()
+        val webView = session.webView
+
+        RuntimeEnvironment.getApplication().onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND)
+
+        assertThat(shadowOf(webView).wasDestroyCalled()).isTrue()
+        assertThat(session.webView).isNull()
+        assertThat(session.isPrimed).isFalse()
+
+        val listener = RecordingListener()
+        session.requestToken(listener.stateListener)
+        session.loadPage()
+        session.pass("token")
+
+        assertThat(htmlLoads).isEqualTo(2)
+        assertThat(listener.tokens).containsExactly("token")
+    }
+
+    @Test
+    fun `memory pressure during a verification releases once it completes`() {
+        val session = createSession()
+        session.loadPage()
+        val webView = session.webView
+        val listener = RecordingListener()
+
+        session.requestToken(listener.stateListener)
+        session.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND)
+        assertThat(shadowOf(webView).wasDestroyCalled()).isFalse()
+
+        session.pass("token")
+
+        assertThat(listener.tokens).containsExactly("token")
+        assertThat(shadowOf(webView).wasDestroyCalled()).isTrue()
+    }
+
+    @Test
+    fun `destroy fails pending requests and rejects new ones`() {
+        val session = createSession()
+        val pending = RecordingListener()
+        session.requestToken(pending.stateListener)
+        val webView = session.webView
+
+        session.destroy()
+
+        assertThat(shadowOf(webView).wasDestroyCalled()).isTrue()
+        assertThat(pending.errors.map { it.hCaptchaError }).containsExactly(HCaptchaError.ERROR)
+
+        val late = RecordingListener()
+        session.requestToken(late.stateListener)
+        assertThat(late.errors.map { it.hCaptchaError }).containsExactly(HCaptchaError.ERROR)
+        assertThat(htmlLoads).isEqualTo(1)
+    }
+
+    @Test
+    fun `obtain reuses the session for the same config`() {
+        val session = createSession(retryPredicate = { _, _ -> true })
+        val sameConfig = createSession(retryPredicate = { _, _ -> false })
+
+        assertThat(sameConfig).isSameInstanceAs(session)
+        assertThat(htmlLoads).isEqualTo(1)
+    }
+
+    @Test
+    fun `obtain keeps a separate session for another config`() {
+        val session = createSession()
+        val webView = session.webView
+        val pending = RecordingListener()
+        session.requestToken(pending.stateListener)
+
+        val other = createSession(siteKey = "other_site_key")
+
+        assertThat(other).isNotSameInstanceAs(session)
+        assertThat(createSession()).isSameInstanceAs(session)
+        assertThat(shadowOf(webView).wasDestroyCalled()).isFalse()
+        assertThat(pending.errors).isEmpty()
+        assertThat(htmlLoads).isEqualTo(2)
+
+        session.loadPage()
+        session.pass("token")
+        assertThat(pending.tokens).containsExactly("token")
+    }
+
+    @Test
+    fun `verification uses the retry predicate of its own config`() {
+        val activity = Robolectric.buildActivity(FragmentActivity::class.java).setup().get()
+        val session = createSession()
+        session.loadPage()
+        val listener = RecordingListener()
+
+        val verifier = session.verifier(
+            listener.stateListener,
+            session.config.copy(retryPredicate = { _, _ -> true })
+        )
+        verifier.startVerification(activity)
+        session.fail(HCaptchaError.SESSION_TIMEOUT)
+        assertThat(shadowOf(session.webView).lastLoadedUrl).isEqualTo(RESET_AND_EXECUTE)
+
+        session.pass("token")
+        assertThat(listener.errors).isEmpty()
+        assertThat(listener.tokens).containsExactly("token")
+    }
+
+    @Test
+    fun `session is destroyed once idle after its verifiers are reset`() {
+        val activity = Robolectric.buildActivity(FragmentActivity::class.java).setup().get()
+        val session = createSession()
+        session.loadPage()
+        val webView = session.webView
+        val listener = RecordingListener()
+
+        val verifier = session.verifier(listener.stateListener)
+        verifier.startVerification(activity)
+        session.pass("token")
+        idleFor(HCaptchaHeadlessSession.IDLE_TIMEOUT.inWholeMilliseconds)
+        assertThat(shadowOf(webView).wasDestroyCalled()).isFalse()
+
+        verifier.reset()
+        idleFor(HCaptchaHeadlessSession.IDLE_TIMEOUT.inWholeMilliseconds)
+
+        assertThat(shadowOf(webView).wasDestroyCalled()).isTrue()
+        assertThat(createSession()).isNotSameInstanceAs(session)
+        assertThat(htmlLoads).isEqualTo(2)
+    }
+
+    @Test
+    fun `subsequent tokens skip the page load`() {
+        val coldStart = SystemClock.elapsedRealtime()
+        val session = createSession()
+        val first = RecordingListener()
+        session.requestToken(first.stateListener)
+        session.loadPage()
+        session.pass("token-1")
+        val firstLatency = first.receivedAt.single() - coldStart
+
+        val warmStart = SystemClock.elapsedRealtime()
+        val second = RecordingListener()
+        session.requestToken(second.stateListener)
+        session.pass("token-2")
+        val secondLatency = second.receivedAt.single() - warmStart
+
+        assertThat(firstLatency).isEqualTo(SCRIPT_LOAD_MILLIS + PAGE_LOAD_MILLIS + EXECUTE_MILLIS)
+        assertThat(secondLatency).isEqualTo(EXECUTE_MILLIS)
+        assertThat(htmlLoads).isEqualTo(1)
+    }
+
+    private fun createSession(
+        siteKey: String = "test_site_key",
+        retryPredicate: ((HCaptchaConfig, HCaptchaException) -> Boolean)? = null
+    ): HCaptchaHeadlessSession {
+        return HCaptchaHeadlessSession.obtain(
+            context = RuntimeEnvironment.getApplication(),
+            config = HCaptchaConfig(siteKey = siteKey, hideDialog = true, retryPredicate = retryPredicate),
+            internalConfig = internalConfig
+        )
+    }
+
+    private fun HCaptchaHeadlessSession.jsInterface(): HCaptchaJSInterface {
+        return shadowOf(webView).getJavascriptInterface(HCaptchaJSInterface.JS_INTERFACE_TAG)
+            as HCaptchaJSInterface
+    }
+
+    private fun HCaptchaHeadlessSession.loadPage() {
+        ShadowSystemClock.advanceBy(PAGE_LOAD_MILLIS, TimeUnit.MILLISECONDS)
+        jsInterface().onLoaded()
+        shadowOf(Looper.getMainLooper()).idle()
+    }
+
+    private fun HCaptchaHeadlessSession.pass(token: String) {
+        ShadowSystemClock.advanceBy(EXECUTE_MILLIS, TimeUnit.MILLISECONDS)
+        jsInterface().onPass(token)
+        shadowOf(Looper.getMainLooper()).idle()
+    }
+
+    private fun HCaptchaHeadlessSession.fail(error: HCaptchaError) {
+        jsInterface().onError(error.errorId)
+        shadowOf(Looper.getMainLooper()).idle()
+    }
+
+    /**
+     * Mints a token nobody is waiting for, so that the session keeps it.
+     */
+    private fun HCaptchaHeadlessSession.keepToken(token: String) {
+        val listener = RecordingListener()
+        requestToken(listener.stateListener)
+        cancel(listener.stateListener)
+        pass(token)
+    }
+
+    private fun idleFor(millis: Long) {
+        shadowOf(Looper.getMainLooper()).idleFor(millis, TimeUnit.MILLISECONDS)
+    }
+
+    private class RecordingListener {
+        val tokens = mutableListOf<String>()
+        val receivedAt = mutableListOf<Long>()
+        val errors = mutableListOf<HCaptchaException>()
+
+        val stateListener = HCaptchaStateListener(
+            onOpen = {},
+            onSuccess = { token ->
+                tokens.add(token)
+                receivedAt.add(SystemClock.elapsedRealtime())
+            },
+            onFailure = { exception -> errors.add(exception) }
+        )
+    }
+
+    private companion object {
+        const val RESET_AND_EXECUTE = "javascript:resetAndExecute();"
+        const val RESET = "javascript:reset();"
+
+        const val SCRIPT_LOAD_MILLIS = 400L
+        const val PAGE_LOAD_MILLIS = 300L
+        const val EXECUTE_MILLIS = 50L
+
+        val REFRESH_MARGIN_MILLIS = HCaptchaHeadlessSession.REFRESH_MARGIN.inWholeMilliseconds
+    }
+}
@@ -0,0 +1,201 @@
+package com.stripe.android.identity.networking
+
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.ensureActive
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Semaphore
+import kotlinx.coroutines.sync.withPermit
+import kotlinx.coroutines.withContext
+import java.io.File
+import kotlin.coroutines.CoroutineContext
+
+/**
+ * Encodes and uploads the images of a document as a pipeline. Every image is encoded as soon as it
+ * is submitted, and uploaded as soon as it is encoded, so that encoding one side or resolution
+ * overlaps uploading another.
+ *
+ * At most [maxConcurrentEncodes] images are encoded, and [maxConcurrentUploads] uploaded, at a
+ * time. Submitting an image with the key of one in progress cancels the older one, so only the
+ * latest image of a key ever reports its result.
+ *
+ * The source of an image, such as its bitmap, is released as soon as it is encoded or fails to be,
+ * so an image that failed to be encoded has to be submitted again. An image that failed to be
+ * uploaded can be retried on its own with [retry], which uploads its file without encoding it
+ * again.
+ *
+ * @param scope the scope the images are uploaded in, which receives their results
+ * @param encodeContext the context the images are encoded in
+ */
+internal class DocumentUploadPipeline<K : Any>(
+    private val scope: CoroutineScope,
+    private val encodeContext: CoroutineContext,
+    maxConcurrentEncodes: Int = DEFAULT_MAX_CONCURRENT_ENCODES,
+    maxConcurrentUploads: Int = DEFAULT_MAX_CONCURRENT_UPLOADS,
+) {
+    private val encodePermits = Semaphore(maxConcurrentEncodes)
+    private val uploadPermits = Semaphore(maxConcurrentUploads)
+
+    private val lock = Any()
+    private val parts = HashMap<K, Part>()
+
+    /**
+     * Encodes and uploads an image, cancelling the image previously submitted with [key].
+     *
+     * @param encode creates the file to upload
+     * @param upload uploads the file, throwing if it fails
+     * @param onFailure notified when [encode] or [upload] fails, unless it was cancelled
+     */
+    fun submit(
+        key: K,
+        encode: suspend () -> File,
+        upload: suspend (File) -> Unit,
+        onFailure: (Stage, Throwable) -> Unit
+    ): Job {
+        return start(key, Part(encode, upload, onFailure))
+    }
+
+    /**
+     * Uploads the file of [key] again if its upload failed.
+     *
+     * @return the retried upload, or null if the image of [key] wasn't encoded or didn't fail
+     */
+    fun retry(key: K): Job? {
+        val failedPart = synchronized(lock) {
+            parts[key]?.takeIf { it.hasFailed }
+        } ?: return null
+        val file = failedPart.file ?: return null
+
+        return start(
+            key,
+            Part(
+                encode = null,
+                upload = failedPart.upload,
+                onFailure = failedPart.onFailure,
+                file = file
+            )
+        )
+    }
+
+    /**
+     * Whether the image of [key] failed to be encoded or uploaded.
+     */
+    fun hasFailed(key: K): Boolean {
+        return synchronized(lock) {
+            parts[key]?.hasFailed == true
+        }
+    }
+
+    /**
+     * Cancels the image of [key], without notifying its result.
+     */
+    fun cancel(key: K) {
+        synchronized(lock) {
+            parts.remove(key)
+        }?.job?.cancel()
+    }
+
+    /**
+     * Cancels every image, without notifying their results.
+     */
+    fun cancelAll() {
+        synchronized(lock) {
+            parts.values.toList().also { parts.clear() }
+        }.forEach { it.job?.cancel() }
+    }
+
+    private fun start(key: K, part: Part): Job {
+        val job = scope.launch(start = CoroutineStart.LAZY) {
+            val file = part.file ?: encode(part) ?: return@launch
+
+            runStage(part, Stage.UPLOAD) {
+                uploadPermits.withPermit { part.upload(file) }
+            } ?: return@launch
+
+            synchronized(lock) {
+                if (parts[key] === part) {
+                    parts.remove(key)
+                }
+            }
+        }
+        part.job = job
+
+        synchronized(lock) {
+            parts.put(key, part)
+        }?.job?.cancel()
+
+        job.start()
+        return job
+    }
+
+    /**
+     * Encodes the file of [part], releasing its source whether it succeeds or fails.
+     *
+     * @return the encoded file, or null if it failed
+     */
+    private suspend fun encode(part: Part): File? {
+        val encode = part.encode ?: return null
+        return try {
+            runStage(part, Stage.ENCODE) {
+                encodePermits.withPermit {
+                    withContext(encodeContext) { encode() }
+                }
+            }?.also { part.file = it }
+        } finally {
+            part.encode = null
+        }
+    }
+
+    /**
+     * Runs [block], notifying [Part.onFailure] if it fails.
+     *
+     * @return the result of [block], or null if it failed
+     */
+    private suspend fun <T : Any> runStage(part: Part, stage: Stage, block: suspend () -> T): T? {
+        return try {
+            block()
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            // A cancelled block may fail with its own exception, which isn't a result.
+            currentCoroutineContext().ensureActive()
+            part.hasFailed = true
+            part.onFailure(stage, e)
+            null
+        }
+    }
+
+    enum class Stage {
+        ENCODE,
+        UPLOAD
+    }
+
+    private class Part(
+        @Volatile var encode: (suspend () -> File)?,
+        val upload: suspend (File) -> Unit,
+        val onFailure: (Stage, Throwable) -> Unit,
+        @Volatile var file: File? = null
+    ) {
+        @Volatile
+        var hasFailed: Boolean = false
+
+        @Volatile
+        var job: Job? = null
+    }
+
+    internal companion object {
+        /**
+         * Encoding is CPU bound, and bitmaps are large, so only a couple are encoded at a time.
+         */
+        const val DEFAULT_MAX_CONCURRENT_ENCODES = 2
+
+        /**
+         * Enough to upload both resolutions of a side at once, without the uploads of both sides
+         * competing for bandwidth.
+         */
+        const val DEFAULT_MAX_CONCURRENT_UPLOADS = 2
+    }
+}
@@ -24,6 +24,7 @@ import com.stripe.android.camera.CameraPermissionEnsureable
 import com.stripe.android.camera.framework.image.longerEdge
 import com.stripe.android.core.injection.IOContext
 import com.stripe.android.core.injection.UIContext
+import com.stripe.android.core.model.StripeFile
 import com.stripe.android.core.model.StripeFilePurpose
 import com.stripe.android.identity.IdentityVerificationSheet
 import com.stripe.android.identity.IdentityVerificationSheetContract
@@ -56,6 +57,7 @@ import com.stripe.android.identity.navigation.navigateToErrorScreenWithDefaultVa
 import com.stripe.android.identity.navigation.navigateToErrorScreenWithRequirementError
 import com.stripe.android.identity.navigation.navigateToFinalErrorScreen
 import com.stripe.android.identity.navigation.routeToScreenName
+import com.stripe.android.identity.networking.DocumentUploadPipeline
 import com.stripe.android.identity.networking.IdentityModelFetcher
 import com.stripe.android.identity.networking.IdentityRepository
 import com.stripe.android.identity.networking.Resource
@@ -94,6 +96,7 @@ import com.stripe.android.identity.ui.IndividualCollectedStates
 import com.stripe.android.identity.utils.IdentityIO
 import com.stripe.android.identity.utils.IdentityImageHandler
 import com.stripe.android.mlcore.base.InterpreterInitializer
+import kotlinx.coroutines.CancellationException
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.SharingStarted
 import kotlinx.coroutines.flow.StateFlow
@@ -173,6 +176,15 @@ internal class IdentityViewModel(
     )
     val selfieUploadState: StateFlow<SelfieUploadState> = _selfieUploadedState
 
+    /**
+     * Encodes and uploads the scanned images of both sides of the document, overlapping the
+     * encoding of an image with the uploads of the others.
+     */
+    private val documentUploadPipeline = DocumentUploadPipeline<DocumentUploadKey>(
+        scope = viewModelScope,
+        encodeContext = workContext
+    )
+
     internal val selfieTrainingConsent: Boolean
         get() = savedStateHandle[SELFIE_TRAINING_CONSENT] ?: false
 
@@ -605,51 +617,32 @@ internal class IdentityViewModel(
             }
         }
 
-        // upload high res
-        runCatching {
-            processAndUploadBitmap(
-                bitmapToUpload = cropBitmapToUpload(
+        // Both resolutions are cropped and encoded off the main thread, uploading each as soon as
+        // it is encoded.
+        processAndUploadBitmap(
+            bitmapToUpload = {
+                cropBitmapToUpload(
                     originalBitmap,
                     detectorOutput.boundingBox,
                     verificationPage
-                ),
-                docCapturePage = verificationPage.documentCapture,
-                isHighRes = true,
-                isFront = isFront,
-                scores = scores,
-                targetScanType = targetScanType
-            )
-        }.onFailure {
-            postDocumentUploadPrepError(
-                isFront = isFront,
-                isHighRes = true,
-                scanType = targetScanType,
-                uploadMethod = UploadMethod.AUTOCAPTURE,
-                message = "Failed to prepare scanned document image for upload",
-                throwable = it
-            )
-        }
-
-        // upload low res
-        runCatching {
-            processAndUploadBitmap(
-                bitmapToUpload = originalBitmap,
-                docCapturePage = verificationPage.documentCapture,
-                isHighRes = false,
-                isFront = isFront,
-                scores = scores,
-                targetScanType = targetScanType
-            )
-        }.onFailure {
-            postDocumentUploadPrepError(
-                isFront = isFront,
-                isHighRes = false,
-                scanType = targetScanType,
-                uploadMethod = UploadMethod.AUTOCAPTURE,
-                message = "Failed to prepare full-frame document image for upload",
-                throwable = it
-            )
-        }
+                )
+            },
+            docCapturePage = verificationPage.documentCapture,
+            isHighRes = true,
+            isFront = isFront,
+            scores = scores,
+            targetScanType = targetScanType,
+            prepErrorMessage = "Failed to prepare scanned document image for upload"
+        )
+        processAndUploadBitmap(
+            bitmapToUpload = { originalBitmap },
+            docCapturePage = verificationPage.documentCapture,
+            isHighRes = false,
+            isFront = isFront,
+            scores = scores,
+            targetScanType = targetScanType,
+            prepErrorMessage = "Failed to prepare full-frame document image for upload"
+        )
     }
 
     private fun uploadFaceDetectorOutput(
@@ -721,6 +714,11 @@ internal class IdentityViewModel(
         }
     }
 
+    private data class DocumentUploadKey(
+        val isFront: Boolean,
+        val isHighRes: Boolean
+    )
+
     private data class SelfieUploadSpec(
         val selfie: FaceDetectorTransitioner.Selfie,
         val isHighRes: Boolean
@@ -740,61 +738,124 @@ internal class IdentityViewModel(
     /**
      * Processes document scan result by cropping and padding the bitmap if necessary,
      * then upload the processed file.
+     *
+     * The image is encoded in [workContext] and uploaded through [documentUploadPipeline], replacing
+     * any image of the same side and resolution that is still being uploaded.
      */
     @VisibleForTesting
     internal fun processAndUploadBitmap(
-        bitmapToUpload: Bitmap,
+        bitmapToUpload: () -> Bitmap,
         docCapturePage: VerificationPageStaticContentDocumentCapturePage,
         isHighRes: Boolean,
         isFront: Boolean,
         scores: List<Float>,
         targetScanType: IdentityScanState.ScanType,
+        prepErrorMessage: String
     ) {
-        identityIO.resizeBitmapAndCreateFileToUpload(
-            bitmap = bitmapToUpload,
-            verificationId = verificationArgs.verificationSessionId,
-            fileName =
-            StringBuilder().also { nameBuilder ->
-                nameBuilder.append(verificationArgs.verificationSessionId)
-                nameBuilder.append("_${if (isFront) FRONT else BACK}")
-                if (!isHighRes) {
-                    nameBuilder.append("_full_frame")
-                }
-                nameBuilder.append(".jpeg")
-            }.toString(),
-            maxDimension =
-            if (isHighRes) {
-                docCapturePage.highResImageMaxDimension
-            } else {
-                docCapturePage.lowResImageMaxDimension
-            },
-            compressionQuality =
-            if (isHighRes) {
-                docCapturePage.highResImageCompressionQuality
-            } else {
-                docCapturePage.lowResImageCompressionQuality
-            }
-        ).let { imageFile ->
-            uploadDocumentImagesAndNotify(
-                imageFile = imageFile,
-                filePurpose = requireNotNull(
-                    StripeFilePurpose.fromCode(docCapturePage.filePurpose)
-                ),
-                uploadMethod = UploadMethod.AUTOCAPTURE,
-                scores = scores,
-                isHighRes = isHighRes,
+        val onPrepError: (Throwable) -> Unit = {
+            postDocumentUploadPrepError(
                 isFront = isFront,
+                isHighRes = isHighRes,
                 scanType = targetScanType,
-                compressionQuality =
-                if (isHighRes) {
-                    docCapturePage.highResImageCompressionQuality
-                } else {
-                    docCapturePage.lowResImageCompressionQuality
-                }
+                uploadMethod = UploadMethod.AUTOCAPTURE,
+                message = prepErrorMessage,
+                throwable = it
             )
         }
+
+        val filePurpose = runCatching {
+            requireNotNull(StripeFilePurpose.fromCode(docCapturePage.filePurpose)) {
+                "Unknown file purpose: ${docCapturePage.filePurpose}"
+            }
+        }.getOrElse {
+            onPrepError(it)
+            return
+        }
+
+        documentUploadedState(isFront).updateStateAndSave { currentState ->
+            currentState.updateLoading(isHighRes = isHighRes)
+        }
+
+        documentUploadPipeline.submit(
+            key = DocumentUploadKey(isFront = isFront, isHighRes = isHighRes),
+            encode = {
+                encodeDocumentImage(
+                    bitmap = bitmapToUpload(),
+                    docCapturePage = docCapturePage,
+                    isHighRes = isHighRes,
+                    isFront = isFront
+                )
+            },
+            upload = { imageFile ->
+                uploadDocumentImage(
+                    imageFile = imageFile,
+                    filePurpose = filePurpose,
+                    uploadMethod = UploadMethod.AUTOCAPTURE,
+                    scores = scores,
+                    isHighRes = isHighRes,
+                    isFront = isFront,
+                    scanType = targetScanType,
+                    compressionQuality = docCapturePage.compressionQuality(isHighRes)
+                ).getOrThrow()
+            },
+            onFailure = { stage, throwable ->
+                // Upload failures are already reported by uploadDocumentImage.
+                if (stage == DocumentUploadPipeline.Stage.ENCODE) {
+                    onPrepError(throwable)
+                }
+            }
+        )
     }
 
+    /**
+     * Resizes and compresses a scanned document image into the file to upload.
+     */
+    private fun encodeDocumentImage(
+        bitmap: Bitmap,
+        docCapturePage: VerificationPageStaticContentDocumentCapturePage,
+        isHighRes: Boolean,
+        isFront: Boolean
+    ): File = identityIO.resizeBitmapAndCreateFileToUpload(
+        bitmap = bitmap,
+        verificationId = verificationArgs.verificationSessionId,
+        fileName = documentFileName(isFront = isFront, isHighRes = isHighRes),
+        maxDimension =
+        if (isHighRes) {
+            docCapturePage.highResImageMaxDimension
+        } else {
+            docCapturePage.lowResImageMaxDimension
+        },
+        compressionQuality = docCapturePage.compressionQuality(isHighRes)
+    )
+
+    private fun documentFileName(isFront: Boolean, isHighRes: Boolean): String =
+        StringBuilder().also { nameBuilder ->
+            nameBuilder.append(verificationArgs.verificationSessionId)
+            nameBuilder.append("_${if (isFront) FRONT else BACK}")
+            if (!isHighRes) {
+                nameBuilder.append("_full_frame")
+            }
+            nameBuilder.append(".jpeg")
+        }.toString()
+
+    private fun VerificationPageStaticContentDocumentCapturePage.compressionQuality(
+        isHighRes: Boolean
+    ): Float =
+        if (isHighRes) {
+            highResImageCompressionQuality
+        } else {
+            lowResImageCompressionQuality
+        }
+
+    private fun documentUploadedState(
+        isFront: Boolean
+    ): MutableStateFlow<SingleSideDocumentUploadState> =
+        if (isFront) {
+            _documentFrontUploadedState
+        } else {
+            _documentBackUploadedState
+        }
+
     /**
      * Update the analytics state.
      */
@@ -816,85 +877,132 @@ internal class IdentityViewModel(
         compressionQuality: Float
     ) {
         viewModelScope.launch {
-            if (isFront) {
-                _documentFrontUploadedState
-            } else {
-                _documentBackUploadedState
-            }.updateStateAndSave { currentState ->
+            documentUploadedState(isFront).updateStateAndSave { currentState ->
                 currentState.updateLoading(isHighRes = isHighRes)
             }
 
-            runCatching {
-                var uploadTime = 0L
-                identityRepository.uploadImage(
-                    verificationId = verificationArgs.verificationSessionId,
-                    ephemeralKey = verificationArgs.ephemeralKeySecret,
-                    imageFile = imageFile,
-                    filePurpose = filePurpose,
-                    onSuccessExecutionTimeBlock = { uploadTime = it }
-                ) to uploadTime
-            }.fold(
-                onSuccess = { fileTimePair ->
-                    identityAnalyticsRequestFactory.imageUpload(
-                        value = fileTimePair.second,
-                        compressionQuality = compressionQuality,
-                        scanType = scanType,
-                        id = fileTimePair.first.id,
-                        fileName = fileTimePair.first.filename,
-                        fileSize = imageFile.length() / BYTES_IN_KB
-                    )
+            uploadDocumentImage(
+                imageFile = imageFile,
+                filePurpose = filePurpose,
+                uploadMethod = uploadMethod,
+                scores = scores,
+                isHighRes = isHighRes,
+                isFront = isFront,
+                scanType = scanType,
+                compressionQuality = compressionQuality
+            )
+        }
+    }
 
-                    updateAnalyticsState { oldState ->
-                        if (isFront) {
-                            oldState.copy(
-                                docFrontUploadType = uploadMethod
-                            )
-                        } else {
-                            oldState.copy(
-                                docBackUploadType = uploadMethod
-                            )
-                        }
-                    }
-                    if (isFront) {
-                        _documentFrontUploadedState
-                    } else {
-                        _documentBackUploadedState
-                    }.updateStateAndSave { currentState ->
-                        currentState.update(
-                            isHighRes = isHighRes,
-                            newResult = UploadedResult(
-                                fileTimePair.first,
-                                scores,
-                                uploadMethod
-                            ),
-                        )
-                    }
-                },
-                onFailure = {
-                    identityAnalyticsRequestFactory.genericError(
-                        throwable = it,
-                        overrideMessage = "Failed to upload file : ${imageFile.name}",
-                        additionalMetadata = documentUploadErrorMetadata(
-                            isFront = isFront,
-                            isHighRes = isHighRes,
-                            scanType = scanType,
-                            uploadMethod = uploadMethod,
-                            stage = IdentityAnalyticsRequestFactory.UPLOAD_STAGE_REQUEST,
-                            fileName = imageFile.name
-                        )
-                    )
-                    if (isFront) {
-                        _documentFrontUploadedState
-                    } else {
-                        _documentBackUploadedState
-                    }.updateStateAndSave { currentState ->
-                        currentState.updateError(
-                            isHighRes = isHighRes,
-                            message = "Failed to upload file : ${imageFile.name}",
-                            throwable = it
-                        )
-                    }
-                }
+    /**
+     * Uploads the imageFile and notifies the corresponding result, unless the upload is cancelled.
+     */
+    private suspend fun uploadDocumentImage(
+        imageFile: File,
+        filePurpose: StripeFilePurpose,
+        uploadMethod: UploadMethod,
+        scores: List<Float>?,
+        isHighRes: Boolean,
+        isFront: Boolean,
+        scanType: IdentityScanState.ScanType,
+        compressionQuality: Float
+    ): Result<StripeFile> {
+        return runCatching {
+            var uploadTime = 0L
+            identityRepository.uploadImage(
+                verificationId = verificationArgs.verificationSessionId,
+                ephemeralKey = verificationArgs.ephemeralKeySecret,
+                imageFile = imageFile,
+                filePurpose = filePurpose,
+                onSuccessExecutionTimeBlock = { uploadTime = it }
+            ) to uploadTime
+        }.onSuccess { (uploadedFile, uploadTime) ->
+            identityAnalyticsRequestFactory.imageUpload(
+                value = uploadTime,
+                compressionQuality = compressionQuality,
+                scanType = scanType,
+                id = uploadedFile.id,
+                fileName = uploadedFile.filename,
+                fileSize = imageFile.length() / BYTES_IN_KB
+            )
+            onDocumentImageUploaded(
+                uploadedFile = uploadedFile,
+                uploadMethod = uploadMethod,
+                scores = scores,
+                isHighRes = isHighRes,
+                isFront = isFront
+            )
+        }.onFailure {
+            // A cancelled upload was replaced or cleared, and has no result to notify.
+            if (it is CancellationException) {
+                throw it
+            }
+            onDocumentImageUploadFailed(
+                imageFile = imageFile,
+                uploadMethod = uploadMethod,
+                isHighRes = isHighRes,
+                isFront = isFront,
+                scanType = scanType,
+                throwable = it
+            )
+        }.map { it.first }
+    }
+
+    private fun onDocumentImageUploaded(
+        uploadedFile: StripeFile,
+        uploadMethod: UploadMethod,
+        scores: List<Float>?,
+        isHighRes: Boolean,
+        isFront: Boolean
+    ) {
+        updateAnalyticsState { oldState ->
+            if (isFront) {
+                oldState.copy(
+                    docFrontUploadType = uploadMethod
+                )
+            } else {
+                oldState.copy(
+                    docBackUploadType = uploadMethod
+                )
+            }
+        }
+        documentUploadedState(isFront).updateStateAndSave { currentState ->
+            currentState.update(
+                isHighRes = isHighRes,
+                newResult = UploadedResult(
+                    uploadedFile,
+                    scores,
+                    uploadMethod
+                ),
+            )
+        }
+    }
+
+    private fun onDocumentImageUploadFailed(
+        imageFile: File,
+        uploadMethod: UploadMethod,
+        isHighRes: Boolean,
+        isFront: Boolean,
+        scanType: IdentityScanState.ScanType,
+        throwable: Throwable
+    ) {
+        identityAnalyticsRequestFactory.genericError(
+            throwable = throwable,
+            overrideMessage = "Failed to upload file : ${imageFile.name}",
+            additionalMetadata = documentUploadErrorMetadata(
+                isFront = isFront,
+                isHighRes = isHighRes,
+                scanType = scanType,
+                uploadMethod = uploadMethod,
+                stage = IdentityAnalyticsRequestFactory.UPLOAD_STAGE_REQUEST,
+                fileName = imageFile.name
+            )
+        )
+        documentUploadedState(isFront).updateStateAndSave { currentState ->
+            currentState.updateError(
+                isHighRes = isHighRes,
+                message = "Failed to upload file : ${imageFile.name}",
+                throwable = throwable
             )
         }
     }
@@ -921,11 +1029,7 @@ internal class IdentityViewModel(
             )
         )
         val error = IllegalStateException(detailedMessage, throwable)
-        if (isFront) {
-            _documentFrontUploadedState
-        } else {
-            _documentBackUploadedState
-        }.updateStateAndSave { currentState ->
+        documentUploadedState(isFront).updateStateAndSave { currentState ->
             currentState.updateError(
                 isHighRes = isHighRes,
                 message = detailedMessage,
@@ -1689,6 +1793,7 @@ internal class IdentityViewModel(
     }
 
     fun clearDocumentUploadedState() {
+        documentUploadPipeline.cancelAll()
         listOf(_documentFrontUploadedState, _documentBackUploadedState).forEach {
             it.updateStateAndSave {
                 SingleSideDocumentUploadState()
@@ -0,0 +1,230 @@
+package com.stripe.android.identity.networking
+
+import com.google.common.truth.Truth.assertThat
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.test.StandardTestDispatcher
+import kotlinx.coroutines.test.TestScope
+import kotlinx.coroutines.test.advanceUntilIdle
+import kotlinx.coroutines.test.currentTime
+import kotlinx.coroutines.test.runTest
+import org.junit.Test
+import java.io.File
+import java.io.IOException
+
+@OptIn(ExperimentalCoroutinesApi::class)
+class DocumentUploadPipelineTest {
+
+    private val uploader = FakeUploader()
+    private val failures = mutableListOf<Pair<String, DocumentUploadPipeline.Stage>>()
+
+    @Test
+    fun `encoding overlaps uploading across sides and resolutions`() = runTest {
+        val pipeline = createPipeline()
+
+        DOCUMENT_PARTS.forEach { part -> pipeline.submitPart(part) }
+        advanceUntilIdle()
+
+        // Encodes run two at a time, 0-100ms and 100-200ms, and each pair of uploads starts as
+        // soon as its pair of encodes and the previous uploads are done: 100-400ms and 400-700ms.
+        assertThat(currentTime).isEqualTo(700)
+        assertThat(currentTime).isLessThan(DOCUMENT_PARTS.size * (ENCODE_MILLIS + UPLOAD_MILLIS))
+        assertThat(uploader.uploadedFiles).containsExactly(
+            File("front_high.jpeg"),
+            File("front_low.jpeg"),
+            File("back_high.jpeg"),
+            File("back_low.jpeg")
+        ).inOrder()
+        assertThat(failures).isEmpty()
+    }
+
+    @Test
+    fun `encodes and uploads are bounded`() = runTest {
+        val pipeline = createPipeline(maxConcurrentEncodes = 2, maxConcurrentUploads = 3)
+
+        repeat(10) { pipeline.submitPart("part_$it") }
+        advanceUntilIdle()
+
+        assertThat(uploader.maxConcurrentEncodes).isEqualTo(2)
+        assertThat(uploader.maxConcurrentUploads).isEqualTo(3)
+        assertThat(uploader.uploadedFiles).hasSize(10)
+    }
+
+    @Test
+    fun `submitting a part again cancels its previous upload`() = runTest {
+        val pipeline = createPipeline()
+
+        val first = pipeline.submitPart("front_high", fileName = "first.jpeg")
+        // The first image is being uploaded when the second one is submitted.
+        delay(ENCODE_MILLIS + 1)
+        pipeline.submitPart("front_high", fileName = "second.jpeg")
+        advanceUntilIdle()
+
+        assertThat(first.isCancelled).isTrue()
+        assertThat(uploader.uploadedFiles).containsExactly(File("second.jpeg"))
+        assertThat(failures).isEmpty()
+    }
+
+    @Test
+    fun `retrying a failed upload uploads only that part without encoding it again`() = runTest {
+        val pipeline = createPipeline()
+        uploader.failingFiles += File("back_low.jpeg")
+
+        DOCUMENT_PARTS.forEach { part -> pipeline.submitPart(part) }
+        advanceUntilIdle()
+
+        assertThat(failures).containsExactly("back_low" to DocumentUploadPipeline.Stage.UPLOAD)
+        assertThat(pipeline.hasFailed("back_low")).isTrue()
+        assertThat(pipeline.hasFailed("front_high")).isFalse()
+
+        uploader.failingFiles.clear()
+        assertThat(pipeline.retry("back_low")).isNotNull()
+        advanceUntilIdle()
+
+        assertThat(uploader.encodedFiles).hasSize(DOCUMENT_PARTS.size)
+        assertThat(uploader.uploadedFiles).hasSize(DOCUMENT_PARTS.size)
+        assertThat(uploader.uploadedFiles.last()).isEqualTo(File("back_low.jpeg"))
+        assertThat(pipeline.hasFailed("back_low")).isFalse()
+    }
+
+    @Test
+    fun `a failed encode releases its source and is not retried`() = runTest {
+        val pipeline = createPipeline()
+        uploader.failingEncodes += "front_high.jpeg"
+        var encodes = 0
+
+        pipeline.submit(
+            key = "front_high",
+            encode = {
+                encodes++
+                uploader.encode("front_high.jpeg")
+            },
+            upload = { file -> uploader.upload(file) },
+            onFailure = { stage, _ -> failures += "front_high" to stage }
+        )
+        advanceUntilIdle()
+
+        assertThat(failures).containsExactly("front_high" to DocumentUploadPipeline.Stage.ENCODE)
+        assertThat(pipeline.hasFailed("front_high")).isTrue()
+
+        uploader.failingEncodes.clear()
+        assertThat(pipeline.retry("front_high")).isNull()
+        advanceUntilIdle()
+
+        assertThat(encodes).isEqualTo(1)
+        assertThat(uploader.uploadedFiles).isEmpty()
+    }
+
+    @Test
+    fun `retry does nothing for parts that did not fail`() = runTest {
+        val pipeline = createPipeline()
+
+        pipeline.submitPart("front_high")
+        assertThat(pipeline.retry("front_high")).isNull()
+        advanceUntilIdle()
+
+        assertThat(pipeline.retry("front_high")).isNull()
+        assertThat(pipeline.retry("back_high")).isNull()
+        assertThat(uploader.uploadedFiles).hasSize(1)
+    }
+
+    @Test
+    fun `cancelAll cancels every part without reporting failures`() = runTest {
+        val pipeline = createPipeline()
+
+        val jobs = DOCUMENT_PARTS.map { part -> pipeline.submitPart(part) }
+        delay(ENCODE_MILLIS + 1)
+        pipeline.cancelAll()
+        advanceUntilIdle()
+
+        assertThat(jobs.all { it.isCancelled }).isTrue()
+        assertThat(uploader.uploadedFiles).isEmpty()
+        assertThat(failures).isEmpty()
+        assertThat(pipeline.hasFailed("front_high")).isFalse()
+    }
+
+    @Test
+    fun `cancel cancels only its part`() = runTest {
+        val pipeline = createPipeline()
+
+        DOCUMENT_PARTS.forEach { part -> pipeline.submitPart(part) }
+        pipeline.cancel("front_low")
+        advanceUntilIdle()
+
+        assertThat(uploader.uploadedFiles).containsExactly(
+            File("front_high.jpeg"),
+            File("back_high.jpeg"),
+            File("back_low.jpeg")
+        )
+    }
+
+    private fun TestScope.createPipeline(
+        maxConcurrentEncodes: Int = 2,
+        maxConcurrentUploads: Int = 2
+    ) = DocumentUploadPipeline<String>(
+        scope = backgroundScope,
+        encodeContext = StandardTestDispatcher(testScheduler),
+        maxConcurrentEncodes = maxConcurrentEncodes,
+        maxConcurrentUploads = maxConcurrentUploads
+    )
+
+    private fun DocumentUploadPipeline<String>.submitPart(
+        key: String,
+        fileName: String = "$key.jpeg"
+    ) = submit(
+        key = key,
+        encode = { uploader.encode(fileName) },
+        upload = { file -> uploader.upload(file) },
+        onFailure = { stage, _ -> failures += key to stage }
+    )
+
+    /**
+     * Encodes and uploads with fixed latencies, recording how many run at once.
+     */
+    private class FakeUploader {
+        val encodedFiles = mutableListOf<File>()
+        val uploadedFiles = mutableListOf<File>()
+        val failingEncodes = mutableSetOf<String>()
+        val failingFiles = mutableSetOf<File>()
+
+        var maxConcurrentEncodes = 0
+        var maxConcurrentUploads = 0
+        private var concurrentEncodes = 0
+        private var concurrentUploads = 0
+
+        suspend fun encode(fileName: String): File {
+            concurrentEncodes++
+            maxConcurrentEncodes = maxOf(maxConcurrentEncodes, concurrentEncodes)
+            try {
+                delay(ENCODE_MILLIS)
+                if (fileName in failingEncodes) {
+                    throw IOException("Failed to encode $fileName")
+                }
+                return File(fileName).also { encodedFiles += it }
+            } finally {
+                concurrentEncodes--
+            }
+        }
+
+        suspend fun upload(file: File) {
+            concurrentUploads++
+            maxConcurrentUploads = maxOf(maxConcurrentUploads, concurrentUploads)
+            try {
+                delay(UPLOAD_MILLIS)
+                if (file in failingFiles) {
+                    throw IOException("Failed to upload $file")
+                }
+                uploadedFiles += file
+            } finally {
+                concurrentUploads--
+            }
+        }
+    }
+
+    private companion object {
+        const val ENCODE_MILLIS = 100L
+        const val UPLOAD_MILLIS = 300L
+
+        val DOCUMENT_PARTS = listOf("front_high", "front_low", "back_high", "back_low")
+    }
+}
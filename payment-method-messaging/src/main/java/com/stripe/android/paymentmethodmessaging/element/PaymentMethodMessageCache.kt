@@ -0,0 +1,130 @@
+package com.stripe.android.paymentmethodmessaging.element
+
+import android.os.SystemClock
+import com.stripe.android.model.PaymentMethodMessage
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.async
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.minutes
+
+/**
+ * The payment method messages retrieved in the last [staleAfter], keyed by the configuration they
+ * were retrieved for, so that re-rendering or re-configuring the element with an unchanged
+ * configuration doesn't retrieve its message again.
+ *
+ * Messages older than [staleAfter] are still returned, until [expireAfter], while a newer message
+ * is retrieved in the background for the next configuration. Concurrent retrievals of a
+ * configuration share a single request. Failures aren't cached, and neither are
+ * [PaymentMethodMessage.UnexpectedError] messages, which report an error as a successful result.
+ * Holds up to [maxSize] messages, dropping the least recently used.
+ *
+ * @param scope the scope messages are retrieved in, so that a retrieval outlives the element that
+ * started it when another element waits for it
+ */
+internal class PaymentMethodMessageCache(
+    private val staleAfter: Duration = DEFAULT_STALE_AFTER,
+    private val expireAfter: Duration = DEFAULT_EXPIRE_AFTER,
+    private val maxSize: Int = DEFAULT_MAX_SIZE,
+    private val scope: CoroutineScope = CoroutineScope(SupervisorJob() + Dispatchers.IO),
+    private val clock: () -> Long = SystemClock::elapsedRealtime,
+) {
+    private val entries = object : LinkedHashMap<Key, Entry>(maxSize, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Key, Entry>): Boolean {
+            return size > maxSize
+        }
+    }
+    private val inFlight = HashMap<Key, Deferred<Result<PaymentMethodMessage>>>()
+
+    /**
+     * The cached message of [key], or the result of [retrieve] if there is none.
+     */
+    suspend fun getOrRetrieve(
+        key: Key,
+        retrieve: suspend () -> Result<PaymentMethodMessage>
+    ): Result<PaymentMethodMessage> {
+        var staleMessage: PaymentMethodMessage? = null
+        val retrieval = synchronized(this) {
+            val entry = entries[key]
+            when {
+                entry == null || age(entry) >= expireAfter.inWholeMilliseconds -> {
+                    entries.remove(key)
+                    retrieveLocked(key, retrieve)
+                }
+                age(entry) >= staleAfter.inWholeMilliseconds -> {
+                    staleMessage = entry.message
+                    retrieveLocked(key, retrieve)
+                }
+                else -> return Result.success(entry.message)
+            }
+        }
+        // Started outside the lock, as the retrieval takes the lock when it completes.
+        retrieval.start()
+
+        return staleMessage?.let { Result.success(it) } ?: retrieval.await()
+    }
+
+    @Synchronized
+    fun clear() {
+        entries.clear()
+    }
+
+    private fun retrieveLocked(
+        key: Key,
+        retrieve: suspend () -> Result<PaymentMethodMessage>
+    ): Deferred<Result<PaymentMethodMessage>> {
+        inFlight[key]?.let { return it }
+
+        val startedAt = clock()
+        val retrieval = scope.async(start = CoroutineStart.LAZY) {
+            val result = runCatching { retrieve().getOrThrow() }
+            synchronized(this@PaymentMethodMessageCache) {
+                inFlight.remove(key)
+                result.onSuccess { message ->
+                    if (message !is PaymentMethodMessage.UnexpectedError) {
+                        entries[key] = Entry(message, retrievedAt = startedAt)
+                    }
+                }
+            }
+            result
+        }
+        inFlight[key] = retrieval
+        return retrieval
+    }
+
+    private fun age(entry: Entry): Long {
+        return clock() - entry.retrievedAt
+    }
+
+    /**
+     * The configuration a message is retrieved for.
+     */
+    data class Key(
+        val publishableKey: String,
+        val stripeAccountId: String?,
+        val paymentMethods: List<String>,
+        val amount: Int,
+        val currency: String,
+        val locale: String,
+        val country: String?,
+    )
+
+    private class Entry(
+        val message: PaymentMethodMessage,
+        val retrievedAt: Long,
+    )
+
+    internal companion object {
+        val DEFAULT_STALE_AFTER = 1.minutes
+        val DEFAULT_EXPIRE_AFTER = 10.minutes
+        const val DEFAULT_MAX_SIZE = 32
+
+        /**
+         * Shared by every [PaymentMethodMessagingElement] in the process.
+         */
+        val Shared = PaymentMethodMessageCache()
+    }
+}
@@ -29,7 +29,8 @@ internal class DefaultPaymentMethodMessagingCoordinator @Inject constructor(
     private val paymentConfiguration: Provider<PaymentConfiguration>,
     private val eventReporter: PaymentMethodMessagingEventReporter,
     @ViewModelScope private val viewModelScope: CoroutineScope,
-    private val errorReporter: ErrorReporter
+    private val errorReporter: ErrorReporter,
+    private val messageCache: PaymentMethodMessageCache,
 ) : PaymentMethodMessagingCoordinator {
 
     private val _messagingContent = MutableStateFlow<PaymentMethodMessagingContent?>(null)
@@ -39,17 +40,7 @@ internal class DefaultPaymentMethodMessagingCoordinator @Inject constructor(
         configuration: PaymentMethodMessagingElement.Configuration.State
     ): PaymentMethodMessagingElement.ConfigureResult = viewModelScope.async {
         eventReporter.onLoadStarted(configuration)
-        stripeRepository.retrievePaymentMethodMessage(
-            paymentMethods = configuration.paymentMethodTypes?.map { it.code } ?: listOf(),
-            amount = configuration.amount.toInt(),
-            currency = configuration.currency,
-            locale = configuration.locale,
-            country = configuration.countryCode,
-            requestOptions = ApiRequest.Options(
-                apiKey = paymentConfiguration.get().publishableKey,
-                stripeAccount = paymentConfiguration.get().stripeAccountId
-            )
-        ).fold(
+        retrievePaymentMethodMessage(configuration).fold(
             onSuccess = { paymentMethodMessage ->
                 val content = PaymentMethodMessagingContent.get(
                     message = paymentMethodMessage,
@@ -75,6 +66,37 @@ internal class DefaultPaymentMethodMessagingCoordinator @Inject constructor(
         )
     }.await()
 
+    private suspend fun retrievePaymentMethodMessage(
+        configuration: PaymentMethodMessagingElement.Configuration.State
+    ): Result<PaymentMethodMessage> {
+        val stripeConfiguration = paymentConfiguration.get()
+        val key = PaymentMethodMessageCache.Key(
+            publishableKey = stripeConfiguration.publishableKey,
+            stripeAccountId = stripeConfiguration.stripeAccountId,
+            paymentMethods = configuration.paymentMethodTypes?.map { it.code } ?: listOf(),
+            amount = configuration.amount.toInt(),
+            // Currencies and countries are case insensitive, so configurations that only differ by
+            // case share their message.
+            currency = configuration.currency.lowercase(),
+            locale = configuration.locale,
+            country = configuration.countryCode?.uppercase(),
+        )
+
+        return messageCache.getOrRetrieve(key) {
+            stripeRepository.retrievePaymentMethodMessage(
+                paymentMethods = key.paymentMethods,
+                amount = key.amount,
+                currency = key.currency,
+                locale = key.locale,
+                country = key.country,
+                requestOptions = ApiRequest.Options(
+                    apiKey = key.publishableKey,
+                    stripeAccount = key.stripeAccountId
+                )
+            )
+        }
+    }
+
     private fun reportLoadResult(message: PaymentMethodMessage, content: PaymentMethodMessagingContent) {
         if (message is PaymentMethodMessage.UnexpectedError) {
             errorReporter.report(
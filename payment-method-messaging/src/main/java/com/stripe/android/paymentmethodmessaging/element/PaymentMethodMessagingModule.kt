@@ -76,6 +76,11 @@ internal interface PaymentMethodMessagingModule {
             return DefaultDurationProvider.instance
         }
 
+        @Provides
+        fun providesPaymentMethodMessageCache(): PaymentMethodMessageCache {
+            return PaymentMethodMessageCache.Shared
+        }
+
         @Provides
         @ViewModelScope
         fun provideViewModelScope(): CoroutineScope {
@@ -6,7 +6,6 @@ import app.cash.turbine.test
 import com.google.common.truth.Truth.assertThat
 import com.stripe.android.PaymentConfiguration
 import com.stripe.android.model.PaymentMethod
-import com.stripe.android.networking.StripeRepository
 import com.stripe.android.paymentmethodmessaging.element.analytics.FakeEventReporter
 import com.stripe.android.payments.core.analytics.ErrorReporter
 import com.stripe.android.testing.CleanupTestRule
@@ -124,15 +123,60 @@ internal class DefaultPaymentMethodMessagingCoordinatorTest {
         }
     }
 
+    @Test
+    fun `rapid reconfiguration only retrieves each configuration once`() = runScenario {
+        listOf(
+            ResultType.SINGLE_PARTNER,
+            ResultType.MULTI_PARTNER,
+            ResultType.SINGLE_PARTNER,
+            ResultType.SINGLE_PARTNER,
+            ResultType.MULTI_PARTNER,
+        ).forEach { resultType ->
+            assertThat(coordinator.configureCoordinator(resultType))
+                .isInstanceOf(PaymentMethodMessagingElement.ConfigureResult.Succeeded::class.java)
+        }
+
+        assertThat(repository.retrievePaymentMethodMessageCalls).isEqualTo(2)
+    }
+
+    @Test
+    fun `configurations that only differ by case share their message`() = runScenario {
+        listOf("usd" to "US", "USD" to "us", "Usd" to "Us").forEach { (currency, country) ->
+            coordinator.configure(
+                PaymentMethodMessagingElement.Configuration()
+                    .amount(1000L)
+                    .currency(currency)
+                    .countryCode(country)
+                    .paymentMethodTypes(listOf(PaymentMethod.Type.Klarna))
+                    .build()
+            )
+        }
+
+        assertThat(repository.retrievePaymentMethodMessageCalls).isEqualTo(1)
+        assertThat(coordinator.messagingContent.value)
+            .isInstanceOf(PaymentMethodMessagingContent.SinglePartner::class.java)
+    }
+
+    @Test
+    fun `failed configurations are retrieved again`() = runScenario {
+        repeat(3) {
+            assertThat(coordinator.configureCoordinator(ResultType.FAILURE))
+                .isInstanceOf(PaymentMethodMessagingElement.ConfigureResult.Failed::class.java)
+        }
+
+        assertThat(repository.retrievePaymentMethodMessageCalls).isEqualTo(3)
+    }
+
     private class Scenario(
         val coordinator: DefaultPaymentMethodMessagingCoordinator,
+        val repository: FakeStripeRepository,
         val errorReporter: FakeErrorReporter
     )
 
     private fun runScenario(
         testBlock: suspend Scenario.() -> Unit
     ) = runTest {
-        val repository: StripeRepository = FakeStripeRepository()
+        val repository = FakeStripeRepository()
         val paymentConfig = { PaymentConfiguration(publishableKey = "key") }
         val errorReporter = FakeErrorReporter()
         val coordinator = DefaultPaymentMethodMessagingCoordinator(
@@ -140,11 +184,15 @@ internal class DefaultPaymentMethodMessagingCoordinatorTest {
             paymentConfiguration = paymentConfig,
             eventReporter = FakeEventReporter(),
             viewModelScope = coroutineScopeCleanupRule.track(CoroutineScope(UnconfinedTestDispatcher())),
-            errorReporter = errorReporter
+            errorReporter = errorReporter,
+            messageCache = PaymentMethodMessageCache(
+                scope = coroutineScopeCleanupRule.track(CoroutineScope(UnconfinedTestDispatcher()))
+            )
         )
 
         Scenario(
             coordinator = coordinator,
+            repository = repository,
             errorReporter = errorReporter
         ).testBlock()
 
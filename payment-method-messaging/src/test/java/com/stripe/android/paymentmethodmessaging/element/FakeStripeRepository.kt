@@ -7,6 +7,9 @@ import com.stripe.android.model.PaymentMethodMessageLearnMore
 import com.stripe.android.testing.AbsFakeStripeRepository
 
 class FakeStripeRepository : AbsFakeStripeRepository() {
+    var retrievePaymentMethodMessageCalls = 0
+        private set
+
     override suspend fun retrievePaymentMethodMessage(
         paymentMethods: List<String>,
         amount: Int,
@@ -15,6 +18,7 @@ class FakeStripeRepository : AbsFakeStripeRepository() {
         locale: String,
         requestOptions: ApiRequest.Options
     ): Result<PaymentMethodMessage> {
+        retrievePaymentMethodMessageCalls++
         return when {
             amount > 0 -> Result.success(if (paymentMethods.size == 1) singlePartner else multiPartner)
             amount == 0 -> Result.success(PaymentMethodMessage.NoContent(listOf()))
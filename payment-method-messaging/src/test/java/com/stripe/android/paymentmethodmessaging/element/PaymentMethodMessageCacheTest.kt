@@ -0,0 +1,179 @@
+package com.stripe.android.paymentmethodmessaging.element
+
+import com.google.common.truth.Truth.assertThat
+import com.stripe.android.model.PaymentMethodMessage
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.test.TestScope
+import kotlinx.coroutines.test.advanceTimeBy
+import kotlinx.coroutines.test.advanceUntilIdle
+import kotlinx.coroutines.test.runTest
+import org.junit.Test
+import kotlin.time.Duration.Companion.minutes
+
+@OptIn(ExperimentalCoroutinesApi::class)
+class PaymentMethodMessageCacheTest {
+
+    private var retrievals = 0
+    private var failRetrievals = false
+    private var unexpectedErrors = false
+
+    @Test
+    fun `rapid reconfiguration only retrieves each configuration once`() = runTest {
+        val cache = createCache()
+
+        listOf(1000, 2000, 1000, 2000, 3000, 1000, 1000, 3000).forEach { amount ->
+            cache.getOrRetrieve(key(amount = amount)) { retrieve(amount) }
+        }
+
+        assertThat(retrievals).isEqualTo(3)
+    }
+
+    @Test
+    fun `concurrent retrievals of a configuration share a request`() = runTest {
+        val cache = createCache()
+
+        val results = List(10) {
+            async { cache.getOrRetrieve(key()) { retrieve(1000) } }
+        }.awaitAll()
+
+        assertThat(retrievals).isEqualTo(1)
+        assertThat(results.distinct()).containsExactly(Result.success(message(1000, retrieval = 1)))
+    }
+
+    @Test
+    fun `stale messages are returned while a newer message is retrieved`() = runTest {
+        val cache = createCache()
+
+        cache.getOrRetrieve(key()) { retrieve(1000) }
+        advanceTimeBy(2.minutes)
+
+        val stale = cache.getOrRetrieve(key()) { retrieve(1000) }
+        assertThat(stale.getOrThrow()).isEqualTo(message(1000, retrieval = 1))
+
+        advanceUntilIdle()
+        assertThat(retrievals).isEqualTo(2)
+
+        val revalidated = cache.getOrRetrieve(key()) { retrieve(1000) }
+        assertThat(revalidated.getOrThrow()).isEqualTo(message(1000, retrieval = 2))
+        assertThat(retrievals).isEqualTo(2)
+    }
+
+    @Test
+    fun `expired messages are retrieved again`() = runTest {
+        val cache = createCache()
+
+        cache.getOrRetrieve(key()) { retrieve(1000) }
+        advanceTimeBy(11.minutes)
+
+        val result = cache.getOrRetrieve(key()) { retrieve(1000) }
+
+        assertThat(result.getOrThrow()).isEqualTo(message(1000, retrieval = 2))
+        assertThat(retrievals).isEqualTo(2)
+    }
+
+    @Test
+    fun `failures are shared by concurrent retrievals but not cached`() = runTest {
+        val cache = createCache()
+        failRetrievals = true
+
+        val results = List(3) {
+            async { cache.getOrRetrieve(key()) { retrieve(1000) } }
+        }.awaitAll()
+
+        assertThat(results.all { it.isFailure }).isTrue()
+        assertThat(retrievals).isEqualTo(1)
+
+        failRetrievals = false
+        val result = cache.getOrRetrieve(key()) { retrieve(1000) }
+
+        assertThat(result.getOrThrow()).isEqualTo(message(1000, retrieval = 2))
+        assertThat(retrievals).isEqualTo(2)
+    }
+
+    @Test
+    fun `unexpected error messages are not cached`() = runTest {
+        val cache = createCache()
+        unexpectedErrors = true
+
+        val result = cache.getOrRetrieve(key()) { retrieve(1000) }
+
+        assertThat(result.getOrThrow()).isInstanceOf(PaymentMethodMessage.UnexpectedError::class.java)
+        assertThat(retrievals).isEqualTo(1)
+
+        unexpectedErrors = false
+        val retried = cache.getOrRetrieve(key()) { retrieve(1000) }
+
+        assertThat(retried.getOrThrow()).isEqualTo(message(1000, retrieval = 2))
+        assertThat(retrievals).isEqualTo(2)
+    }
+
+    @Test
+    fun `least recently used messages are dropped`() = runTest {
+        val cache = createCache(maxSize = 2)
+
+        cache.getOrRetrieve(key(amount = 1000)) { retrieve(1000) }
+        cache.getOrRetrieve(key(amount = 2000)) { retrieve(2000) }
+        cache.getOrRetrieve(key(amount = 1000)) { retrieve(1000) }
+        cache.getOrRetrieve(key(amount = 3000)) { retrieve(3000) }
+        assertThat(retrievals).isEqualTo(3)
+
+        cache.getOrRetrieve(key(amount = 1000)) { retrieve(1000) }
+        assertThat(retrievals).isEqualTo(3)
+
+        cache.getOrRetrieve(key(amount = 2000)) { retrieve(2000) }
+        assertThat(retrievals).isEqualTo(4)
+    }
+
+    @Test
+    fun `clear drops every message`() = runTest {
+        val cache = createCache()
+
+        cache.getOrRetrieve(key()) { retrieve(1000) }
+        cache.clear()
+        cache.getOrRetrieve(key()) { retrieve(1000) }
+
+        assertThat(retrievals).isEqualTo(2)
+    }
+
+    private suspend fun retrieve(amount: Int): Result<PaymentMethodMessage> {
+        retrievals++
+        val retrieval = retrievals
+        delay(RETRIEVAL_MILLIS)
+        return if (failRetrievals) {
+            Result.failure(IllegalStateException("Failed to retrieve $amount"))
+        } else if (unexpectedErrors) {
+            Result.success(PaymentMethodMessage.UnexpectedError(message = "Failed to retrieve $amount"))
+        } else {
+            Result.success(message(amount, retrieval))
+        }
+    }
+
+    private fun TestScope.createCache(
+        maxSize: Int = PaymentMethodMessageCache.DEFAULT_MAX_SIZE
+    ) = PaymentMethodMessageCache(
+        maxSize = maxSize,
+        scope = backgroundScope,
+        clock = { testScheduler.currentTime },
+    )
+
+    private fun key(amount: Int = 1000) = PaymentMethodMessageCache.Key(
+        publishableKey = "pk_test_123",
+        stripeAccountId = null,
+        paymentMethods = listOf("klarna", "affirm"),
+        amount = amount,
+        currency = "usd",
+        locale = "en-US",
+        country = "US",
+    )
+
+    private fun message(amount: Int, retrieval: Int): PaymentMethodMessage {
+        return PaymentMethodMessage.NoContent(paymentMethods = listOf("$amount #$retrieval"))
+    }
+
+    private companion object {
+        const val RETRIEVAL_MILLIS = 200L
+    }
+}
@@ -103,7 +103,10 @@ internal class PaymentMethodMessagingContentTest {
             paymentConfiguration = { PaymentConfiguration("key") },
             eventReporter = FakeEventReporter(),
             viewModelScope = coroutineScopeCleanupRule.track(CoroutineScope(UnconfinedTestDispatcher())),
-            errorReporter = FakeErrorReporter()
+            errorReporter = FakeErrorReporter(),
+            messageCache = PaymentMethodMessageCache(
+                scope = coroutineScopeCleanupRule.track(CoroutineScope(UnconfinedTestDispatcher()))
+            )
         )
 
         Scenario(
@@ -8,6 +8,7 @@ import com.stripe.android.PaymentConfiguration
 import com.stripe.android.model.PaymentMethod
 import com.stripe.android.paymentmethodmessaging.element.DefaultPaymentMethodMessagingCoordinator
 import com.stripe.android.paymentmethodmessaging.element.FakeStripeRepository
+import com.stripe.android.paymentmethodmessaging.element.PaymentMethodMessageCache
 import com.stripe.android.paymentmethodmessaging.element.PaymentMethodMessagingContent
 import com.stripe.android.paymentmethodmessaging.element.PaymentMethodMessagingElement
 import com.stripe.android.paymentmethodmessaging.element.PaymentMethodMessagingElementPreview
@@ -195,7 +196,10 @@ internal class PaymentMethodMessageAnalyticsTest {
             paymentConfiguration = { PaymentConfiguration(publishableKey = "pk_123_test") },
             eventReporter = eventReporter,
             viewModelScope = coroutineScopeCleanupRule.track(CoroutineScope(UnconfinedTestDispatcher())),
-            errorReporter = errorReporter
+            errorReporter = errorReporter,
+            messageCache = PaymentMethodMessageCache(
+                scope = coroutineScopeCleanupRule.track(CoroutineScope(UnconfinedTestDispatcher()))
+            )
         )
 
         val element = PaymentMethodMessagingElement(
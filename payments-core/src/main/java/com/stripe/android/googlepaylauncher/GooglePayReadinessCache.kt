@@ -0,0 +1,182 @@
+package com.stripe.android.googlepaylauncher
+
+import android.app.Activity
+import android.app.Application
+import android.os.Bundle
+import com.google.android.gms.wallet.PaymentsClient
+import com.stripe.android.payments.Clock
+import com.stripe.android.payments.SystemClock
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.ensureActive
+import java.util.concurrent.atomic.AtomicBoolean
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.minutes
+
+/**
+ * Remembers [PaymentsClient.isReadyToPay] results, so that PaymentSheet, FlowController and the
+ * Google Pay launchers don't each ask Google Play services again while loading.
+ *
+ * Results are keyed by the Google Pay environment and the `IsReadyToPayRequest` JSON, which holds
+ * the allowed card networks, the billing address requirements, `existingPaymentMethodRequired`,
+ * and the Stripe account used for tokenization. A change to any of them is a different key.
+ *
+ * - A result is reused for [ttl].
+ * - Concurrent loads of the same key share a single `isReadyToPay` call.
+ * - Everything is dropped when the app returns to the foreground, as the user may have added a
+ *   card or switched their Google account in the meantime.
+ */
+internal class GooglePayReadinessCache(
+    private val ttl: Duration = DEFAULT_TTL,
+    private val clock: Clock = SystemClock,
+) {
+    private val lock = Any()
+    private val results = HashMap<Key, Result>()
+    private val inFlight = HashMap<Key, CompletableDeferred<Boolean?>>()
+    private val watchingForeground = AtomicBoolean(false)
+
+    /**
+     * Incremented on [invalidate], so that a call started before is not cached.
+     */
+    private var generation = 0
+
+    /**
+     * Returns the cached readiness for [key], or calls [load] once for every concurrent caller.
+     *
+     * [load] returns null when readiness couldn't be determined, e.g. on timeout. The caller gets
+     * null, and nothing is cached, so the next load tries again.
+     */
+    suspend fun getOrLoad(key: Key, load: suspend () -> Boolean?): Boolean? {
+        while (true) {
+            var owner = false
+            val deferred = synchronized(lock) {
+                results[key]?.takeIf { isFresh(it) }?.let { return it.isReady }
+                inFlight.getOrPut(key) {
+                    owner = true
+                    CompletableDeferred()
+                }
+            }
+
+            if (!owner) {
+                try {
+                    return deferred.await()
+                } catch (e: CancellationException) {
+                    // The caller making the call was cancelled or failed. Take over, unless we
+                    // were cancelled too.
+                    currentCoroutineContext().ensureActive()
+                    continue
+                }
+            }
+
+            return loadAsOwner(key, deferred, load)
+        }
+    }
+
+    fun invalidate() {
+        synchronized(lock) {
+            results.clear()
+            generation++
+        }
+    }
+
+    /**
+     * Drop the cached results whenever [application] returns to the foreground.
+     */
+    fun invalidateOnForeground(application: Application) {
+        if (watchingForeground.compareAndSet(false, true)) {
+            application.registerActivityLifecycleCallbacks(ForegroundCallbacks())
+        }
+    }
+
+    private suspend fun loadAsOwner(
+        key: Key,
+        deferred: CompletableDeferred<Boolean?>,
+        load: suspend () -> Boolean?,
+    ): Boolean? {
+        val startGeneration = synchronized(lock) { generation }
+        var isReady: Boolean? = null
+        var loaded = false
+        try {
+            isReady = load()
+            loaded = true
+        } finally {
+            synchronized(lock) {
+                inFlight.remove(key)
+                val result = isReady
+                if (loaded && result != null && generation == startGeneration) {
+                    results[key] = Result(result, loadedAt = clock.currentTimeMillis())
+                }
+            }
+            if (loaded) {
+                deferred.complete(isReady)
+            } else {
+                // Waiting callers load again themselves.
+                deferred.cancel()
+            }
+        }
+        return isReady
+    }
+
+    private fun isFresh(result: Result): Boolean {
+        return clock.currentTimeMillis() - result.loadedAt < ttl.inWholeMilliseconds
+    }
+
+    data class Key(
+        val environment: GooglePayEnvironment,
+        val isReadyToPayRequestJson: String,
+    )
+
+    private class Result(
+        val isReady: Boolean,
+        val loadedAt: Long,
+    )
+
+    /**
+     * Tracks the activities started after registration only. Activities that were already started,
+     * such as the merchant's screen, can't be balanced and are ignored when they stop, so that
+     * they don't make the app look like it went to background.
+     */
+    private inner class ForegroundCallbacks : Application.ActivityLifecycleCallbacks {
+        private val startedActivities = HashSet<Activity>()
+        private var inBackground = false
+
+        override fun onActivityStarted(activity: Activity) {
+            if (startedActivities.isEmpty() && inBackground) {
+                inBackground = false
+                invalidate()
+            }
+            startedActivities += activity
+        }
+
+        override fun onActivityStopped(activity: Activity) {
+            if (!startedActivities.remove(activity)) {
+                return
+            }
+            if (startedActivities.isEmpty() && !activity.isChangingConfigurations) {
+                inBackground = true
+            }
+        }
+
+        override fun onActivityCreated(activity: Activity, savedInstanceState: Bundle?) = Unit
+
+        override fun onActivityResumed(activity: Activity) = Unit
+
+        override fun onActivityPaused(activity: Activity) = Unit
+
+        override fun onActivitySaveInstanceState(activity: Activity, outState: Bundle) = Unit
+
+        override fun onActivityDestroyed(activity: Activity) {
+            startedActivities -= activity
+        }
+    }
+
+    companion object {
+        val DEFAULT_TTL = 30.minutes
+
+        /**
+         * Shared by every [DefaultGooglePayRepository] in the process.
+         */
+        val Shared = GooglePayReadinessCache()
+    }
+}
@@ -1,5 +1,6 @@
 package com.stripe.android.googlepaylauncher
 
+import android.app.Application
 import android.content.Context
 import androidx.annotation.RestrictTo
 import com.google.android.gms.wallet.IsReadyToPayRequest
@@ -12,6 +13,7 @@ import com.stripe.android.GooglePayJsonFactory
 import com.stripe.android.core.Logger
 import com.stripe.android.core.exception.StripeException
 import com.stripe.android.payments.core.analytics.ErrorReporter
+import kotlinx.coroutines.CancellationException
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.flow
 import kotlinx.coroutines.flow.flowOf
@@ -31,8 +33,15 @@ fun interface GooglePayRepository {
     companion object {
         private val defaultFactory = DefaultGooglePayAvailabilityClient.Factory()
 
+        /**
+         * Setting a factory drops the readiness results cached with the previous one.
+         */
         @Volatile
         var googlePayAvailabilityClientFactory: GooglePayAvailabilityClient.Factory = defaultFactory
+            set(value) {
+                field = value
+                GooglePayReadinessCache.Shared.invalidate()
+            }
 
         fun resetFactory() {
             googlePayAvailabilityClientFactory = defaultFactory
@@ -56,7 +65,8 @@ internal class DefaultGooglePayRepository(
     private val logger: Logger = Logger.noop(),
     private val cardBrandFilter: CardBrandFilter = DefaultCardBrandFilter,
     private val cardFundingFilter: CardFundingFilter,
-    private val additionalEnabledNetworks: List<String> = emptyList()
+    private val additionalEnabledNetworks: List<String> = emptyList(),
+    private val readinessCache: GooglePayReadinessCache = GooglePayReadinessCache.Shared,
 ) : GooglePayRepository {
 
     @Inject
@@ -88,6 +98,10 @@ internal class DefaultGooglePayRepository(
         additionalEnabledNetworks = additionalEnabledNetworks
     )
 
+    init {
+        (context.applicationContext as? Application)?.let(readinessCache::invalidateOnForeground)
+    }
+
     private val googlePayAvailabilityClient: GooglePayAvailabilityClient by lazy {
         GooglePayRepository.googlePayAvailabilityClientFactory.create(
             paymentsClient = paymentsClientFactory.create(environment)
@@ -105,42 +119,69 @@ internal class DefaultGooglePayRepository(
     }
 
     private suspend fun isReadyAsync(): Boolean {
-        val request = runCatching {
-            IsReadyToPayRequest.fromJson(
-                googlePayJsonFactory.createIsReadyToPayRequest(
-                    billingAddressParameters = billingAddressParameters,
-                    existingPaymentMethodRequired = existingPaymentMethodRequired,
-                    allowCreditCards = allowCreditCards
-                ).toString()
-            )
+        val requestJson = runCatching {
+            googlePayJsonFactory.createIsReadyToPayRequest(
+                billingAddressParameters = billingAddressParameters,
+                existingPaymentMethodRequired = existingPaymentMethodRequired,
+                allowCreditCards = allowCreditCards
+            ).toString()
         }.getOrElse {
-            errorReporter.report(
-                ErrorReporter.UnexpectedErrorEvent.GOOGLE_PAY_JSON_REQUEST_PARSING,
-                StripeException.create(it)
-            )
+            reportJsonParsingFailure(it)
+            return false
+        }
 
-            logger.error("Google Pay json parsing failed.", it)
+        val isReady = readinessCache.getOrLoad(
+            key = GooglePayReadinessCache.Key(environment, requestJson)
+        ) {
+            loadIsReady(requestJson)
+        } ?: false
 
-            return false
+        logger.info("Google Pay ready? $isReady")
+
+        return isReady
+    }
+
+    /**
+     * @return whether Google Pay is ready, or null if it couldn't be determined.
+     */
+    private suspend fun loadIsReady(requestJson: String): Boolean? {
+        val request = runCatching {
+            IsReadyToPayRequest.fromJson(requestJson)
+        }.getOrElse {
+            reportJsonParsingFailure(it)
+            return null
         }
 
-        val isReady = runCatching {
-            withTimeoutOrNull(30.seconds) {
+        return runCatching {
+            val isReady = withTimeoutOrNull(30.seconds) {
                 googlePayAvailabilityClient.isReady(request)
-            } ?: false.also {
+            }
+            if (isReady == null) {
                 errorReporter.report(ErrorReporter.ExpectedErrorEvent.GOOGLE_PAY_IS_READY_TIMEOUT)
             }
-        }.onFailure {
+            isReady
+        }.getOrElse { error ->
+            if (error is CancellationException) {
+                // Let the readiness cache hand the call over to a waiting caller.
+                throw error
+            }
+
             errorReporter.report(
                 ErrorReporter.ExpectedErrorEvent.GOOGLE_PAY_IS_READY_API_CALL,
-                StripeException.create(it)
+                StripeException.create(error)
             )
 
-            logger.error("Google Pay check failed.", it)
-        }.getOrDefault(false)
+            logger.error("Google Pay check failed.", error)
+            null
+        }
+    }
 
-        logger.info("Google Pay ready? $isReady")
+    private fun reportJsonParsingFailure(error: Throwable) {
+        errorReporter.report(
+            ErrorReporter.UnexpectedErrorEvent.GOOGLE_PAY_JSON_REQUEST_PARSING,
+            StripeException.create(error)
+        )
 
-        return isReady
+        logger.error("Google Pay json parsing failed.", error)
     }
 }
@@ -93,6 +93,7 @@ enum class PaymentAnalyticsEvent(val code: String) : AnalyticsEvent {
     Auth3ds2Fallback("3ds2_fallback"),
 
     AuthRedirect("url_redirect_next_action"),
+    AuthRedirectResolved("url_redirect_resolved"),
     AuthError("auth_error"),
 
     // Source Authentication
@@ -0,0 +1,215 @@
+package com.stripe.android.payments.core.analytics
+
+import androidx.annotation.RestrictTo
+import com.stripe.android.core.networking.AnalyticsRequestFactory
+import com.stripe.android.payments.Clock
+import com.stripe.android.payments.SystemClock
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.minutes
+import kotlin.time.Duration.Companion.seconds
+
+/**
+ * Decides which error reports are sent, so that a single failure mode repeating in a loop, e.g. a
+ * retrying poller or a broken endpoint, doesn't turn into a storm of identical analytics requests
+ * competing with payment traffic.
+ *
+ * - Reports are fingerprinted by their [ErrorReporter.ErrorEvent] and exception code. The first
+ *   report of a fingerprint is sent, and repeats within [collapseWindow] are only counted. The
+ *   count is sent with the next report of that fingerprint once the window has passed, or by
+ *   [takeDueSuppressedReports] on the next report of any kind if the fingerprint doesn't recur.
+ * - Every sent report takes a token from a bucket of [burstSize] tokens, refilled one token per
+ *   [refillInterval]. Reports that find the bucket empty are counted like collapsed repeats.
+ * - High severity events, and success events used to compute failure rates, are always sent.
+ *
+ * Error reporters share the [Shared] throttle, so the limits apply to the whole process, like the
+ * analytics session they are kept for. The state is reset when [AnalyticsRequestFactory.sessionId]
+ * changes.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+class ErrorReportThrottle internal constructor(
+    private val clock: Clock = SystemClock,
+    private val sessionIdProvider: () -> Any = { AnalyticsRequestFactory.sessionId },
+    private val collapseWindow: Duration = DEFAULT_COLLAPSE_WINDOW,
+    private val burstSize: Int = DEFAULT_BURST_SIZE,
+    private val refillInterval: Duration = DEFAULT_REFILL_INTERVAL,
+) {
+    private var sessionId: Any? = null
+    private val fingerprints = HashMap<Fingerprint, FingerprintState>()
+    private val refillMillis = refillInterval.inWholeMilliseconds
+    private val bucketCapacity = burstSize * refillMillis
+
+    /**
+     * The bucket content, in milliseconds of refill time. A token is worth [refillMillis].
+     */
+    private var bucket = bucketCapacity
+    private var lastRefillAt = 0L
+
+    private var sentCount = 0
+    private var collapsedCount = 0
+    private var rateLimitedCount = 0
+
+    /**
+     * What was decided for the reports of the current session so far.
+     */
+    val counters: Counters
+        @Synchronized get() = Counters(
+            sent = sentCount,
+            collapsed = collapsedCount,
+            rateLimited = rateLimitedCount,
+        )
+
+    /**
+     * Decides whether to send a report.
+     *
+     * @param additionalParams the params of the report, sent with the count of its repeats if it
+     * is dropped and its fingerprint doesn't recur.
+     */
+    @Synchronized
+    fun decide(
+        errorEvent: ErrorReporter.ErrorEvent,
+        exceptionCode: String?,
+        additionalParams: Map<String, String> = emptyMap(),
+    ): Decision {
+        val now = clock.currentTimeMillis()
+        resetIfNewSession(now)
+
+        if (errorEvent.isHighSeverity || errorEvent is ErrorReporter.SuccessEvent) {
+            sentCount++
+            return Decision.Send(suppressedCount = 0)
+        }
+
+        val fingerprint = Fingerprint(errorEvent.eventName, exceptionCode)
+        val state = fingerprints[fingerprint]
+        val windowStartedAt = state?.windowStartedAt
+
+        if (state != null && windowStartedAt != null &&
+            now - windowStartedAt < collapseWindow.inWholeMilliseconds
+        ) {
+            state.suppress(errorEvent, additionalParams)
+            collapsedCount++
+            return Decision.Drop
+        }
+
+        if (!takeToken(now)) {
+            val rateLimited = state ?: FingerprintState().also { fingerprints[fingerprint] = it }
+            rateLimited.suppress(errorEvent, additionalParams)
+            rateLimitedCount++
+            return Decision.Drop
+        }
+
+        val suppressedCount = state?.suppressedCount ?: 0
+        fingerprints[fingerprint] = FingerprintState(windowStartedAt = now)
+        sentCount++
+        return Decision.Send(suppressedCount)
+    }
+
+    /**
+     * The dropped reports of fingerprints that didn't recur since their window passed, or since
+     * they were rate limited, to be sent with their count. Each takes a token, and opens a new
+     * window for its fingerprint.
+     */
+    @Synchronized
+    fun takeDueSuppressedReports(): List<SuppressedReport> {
+        val now = clock.currentTimeMillis()
+        resetIfNewSession(now)
+
+        val due = fingerprints.mapNotNull { (fingerprint, state) ->
+            val windowStartedAt = state.windowStartedAt
+            val isDue = windowStartedAt == null || now - windowStartedAt >= collapseWindow.inWholeMilliseconds
+            state.lastSuppressed?.takeIf { isDue }?.let { fingerprint to it }
+        }
+
+        val reports = mutableListOf<SuppressedReport>()
+        for ((fingerprint, report) in due) {
+            if (!takeToken(now)) {
+                break
+            }
+            fingerprints[fingerprint] = FingerprintState(windowStartedAt = now)
+            sentCount++
+            reports += report
+        }
+        return reports
+    }
+
+    private fun resetIfNewSession(now: Long) {
+        val currentSessionId = sessionIdProvider()
+        if (currentSessionId != sessionId) {
+            sessionId = currentSessionId
+            fingerprints.clear()
+            bucket = bucketCapacity
+            lastRefillAt = now
+            sentCount = 0
+            collapsedCount = 0
+            rateLimitedCount = 0
+        }
+    }
+
+    private fun takeToken(now: Long): Boolean {
+        val elapsed = (now - lastRefillAt).coerceAtLeast(0)
+        lastRefillAt = now
+        bucket = (bucket + elapsed).coerceAtMost(bucketCapacity)
+
+        if (bucket < refillMillis) {
+            return false
+        }
+        bucket -= refillMillis
+        return true
+    }
+
+    sealed interface Decision {
+        /**
+         * Send the report. [suppressedCount] identical reports were dropped since the last one
+         * was sent.
+         */
+        data class Send(val suppressedCount: Int) : Decision
+
+        data object Drop : Decision
+    }
+
+    /**
+     * The last of [suppressedCount] identical reports that were dropped since the last one was
+     * sent.
+     */
+    data class SuppressedReport(
+        val errorEvent: ErrorReporter.ErrorEvent,
+        val additionalParams: Map<String, String>,
+        val suppressedCount: Int,
+    )
+
+    data class Counters(
+        val sent: Int,
+        val collapsed: Int,
+        val rateLimited: Int,
+    )
+
+    private data class Fingerprint(
+        val eventName: String,
+        val exceptionCode: String?,
+    )
+
+    /**
+     * @param windowStartedAt when the last report was sent, or null if none was sent yet.
+     */
+    private class FingerprintState(
+        val windowStartedAt: Long? = null,
+        var suppressedCount: Int = 0,
+        var lastSuppressed: SuppressedReport? = null,
+    ) {
+        fun suppress(errorEvent: ErrorReporter.ErrorEvent, additionalParams: Map<String, String>) {
+            suppressedCount++
+            lastSuppressed = SuppressedReport(errorEvent, additionalParams, suppressedCount)
+        }
+    }
+
+    internal companion object {
+        val DEFAULT_COLLAPSE_WINDOW = 1.minutes
+        const val DEFAULT_BURST_SIZE = 20
+        val DEFAULT_REFILL_INTERVAL = 6.seconds
+
+        /**
+         * Shared by every [RealErrorReporter], however it is created, as reporters are created per
+         * component and per fallback, but report for the same process.
+         */
+        val Shared: ErrorReportThrottle by lazy { ErrorReportThrottle() }
+    }
+}
@@ -86,7 +86,14 @@ interface ErrorReporter : FraudDetectionErrorReporter {
     }
 
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
-    interface ErrorEvent : AnalyticsEvent
+    interface ErrorEvent : AnalyticsEvent {
+        /**
+         * High severity events are always reported. Other events are collapsed and rate limited
+         * when they repeat, see [ErrorReportThrottle].
+         */
+        val isHighSeverity: Boolean
+            get() = false
+    }
 
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
     enum class ExpectedErrorEvent(override val eventName: String) : ErrorEvent {
@@ -364,6 +371,12 @@ interface ErrorReporter : FraudDetectionErrorReporter {
 
         override val eventName: String
             get() = "unexpected_error.$partialEventName"
+
+        /**
+         * These point at bugs in the SDK, so every occurrence is reported.
+         */
+        override val isHighSeverity: Boolean
+            get() = true
     }
 
     /**
@@ -8,25 +8,70 @@ import javax.inject.Inject
 
 /**
  * [ErrorReporter] which sends error analytics via [AnalyticsRequestExecutor].
+ *
+ * Repeated reports are collapsed and rate limited by [ErrorReportThrottle.Shared], which every
+ * reporter of the process shares.
  */
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
-class RealErrorReporter @Inject constructor(
+class RealErrorReporter internal constructor(
     private val analyticsRequestExecutor: AnalyticsRequestExecutor,
-    private val analyticsRequestFactory: AnalyticsRequestFactory
+    private val analyticsRequestFactory: AnalyticsRequestFactory,
+    private val throttle: ErrorReportThrottle,
 ) : ErrorReporter {
+
+    @Inject
+    constructor(
+        analyticsRequestExecutor: AnalyticsRequestExecutor,
+        analyticsRequestFactory: AnalyticsRequestFactory,
+    ) : this(
+        analyticsRequestExecutor = analyticsRequestExecutor,
+        analyticsRequestFactory = analyticsRequestFactory,
+        throttle = ErrorReportThrottle.Shared,
+    )
+
     override fun report(
         errorEvent: ErrorReporter.ErrorEvent,
         stripeException: StripeException?,
         additionalNonPiiParams: Map<String, String>,
     ) {
+        val exceptionCode = stripeException?.let { it.stripeError?.code ?: it.analyticsValue() }
         val paramsFromStripeException = if (stripeException == null) {
             emptyMap()
         } else {
             ErrorReporter.getAdditionalParamsFromStripeException(stripeException = stripeException)
         }
         val additionalParams = paramsFromStripeException + additionalNonPiiParams
+
+        val decision = throttle.decide(errorEvent, exceptionCode, additionalParams)
+        if (decision is ErrorReportThrottle.Decision.Send) {
+            send(errorEvent, additionalParams, decision.suppressedCount)
+        }
+
+        // Repeats of other reports whose fingerprint didn't recur would otherwise never be sent.
+        throttle.takeDueSuppressedReports().forEach { report ->
+            send(report.errorEvent, report.additionalParams, report.suppressedCount)
+        }
+    }
+
+    private fun send(
+        errorEvent: ErrorReporter.ErrorEvent,
+        additionalParams: Map<String, String>,
+        suppressedCount: Int,
+    ) {
+        val suppressedCountParams = if (suppressedCount > 0) {
+            mapOf(PARAM_SUPPRESSED_COUNT to suppressedCount.toString())
+        } else {
+            emptyMap()
+        }
         analyticsRequestExecutor.executeAsync(
-            analyticsRequestFactory.createRequest(errorEvent, additionalParams)
+            analyticsRequestFactory.createRequest(errorEvent, additionalParams + suppressedCountParams)
         )
     }
+
+    private companion object {
+        /**
+         * How many identical reports were dropped since the last one was sent.
+         */
+        const val PARAM_SUPPRESSED_COUNT = "suppressed_count"
+    }
 }
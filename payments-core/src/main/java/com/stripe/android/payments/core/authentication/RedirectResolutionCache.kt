@@ -0,0 +1,52 @@
+package com.stripe.android.payments.core.authentication
+
+import com.stripe.android.payments.Clock
+import com.stripe.android.payments.SystemClock
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.minutes
+
+/**
+ * The URLs resolved by [RealRedirectResolver] in the last [ttl], keyed by the URL they were
+ * resolved from. Holds up to [maxSize] URLs, dropping the least recently used.
+ */
+internal class RedirectResolutionCache(
+    private val ttl: Duration = DEFAULT_TTL,
+    private val maxSize: Int = DEFAULT_MAX_SIZE,
+    private val clock: Clock = SystemClock,
+) {
+    private val entries = object : LinkedHashMap<String, Entry>(maxSize, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, Entry>): Boolean {
+            return size > maxSize
+        }
+    }
+
+    @Synchronized
+    operator fun get(url: String): String? {
+        val entry = entries[url] ?: return null
+        if (clock.currentTimeMillis() - entry.resolvedAt >= ttl.inWholeMilliseconds) {
+            entries.remove(url)
+            return null
+        }
+        return entry.resolvedUrl
+    }
+
+    @Synchronized
+    operator fun set(url: String, resolvedUrl: String) {
+        entries[url] = Entry(resolvedUrl, resolvedAt = clock.currentTimeMillis())
+    }
+
+    private class Entry(
+        val resolvedUrl: String,
+        val resolvedAt: Long,
+    )
+
+    internal companion object {
+        val DEFAULT_TTL = 1.minutes
+        const val DEFAULT_MAX_SIZE = 16
+
+        /**
+         * Shared by every [RealRedirectResolver] in the process.
+         */
+        val Shared = RedirectResolutionCache()
+    }
+}
@@ -1,53 +1,205 @@
 package com.stripe.android.payments.core.authentication
 
 import com.stripe.android.core.injection.IOContext
+import com.stripe.android.core.networking.AnalyticsRequestExecutor
+import com.stripe.android.networking.PaymentAnalyticsEvent
+import com.stripe.android.networking.PaymentAnalyticsRequestFactory
 import kotlinx.coroutines.withContext
 import java.net.HttpURLConnection
+import java.net.URI
 import java.net.URL
 import javax.inject.Inject
 import javax.net.ssl.HttpsURLConnection
 import kotlin.coroutines.CoroutineContext
+import kotlin.time.Duration
+import kotlin.time.DurationUnit
+import kotlin.time.TimeSource
 
 private const val RedirectTimeoutInMillis = 10_000
 
+/**
+ * Redirect bodies larger than this aren't read to return the connection to the pool.
+ */
+private const val MaxDrainedBodyBytes = 16 * 1024
+private const val DrainBufferBytes = 2 * 1024
+
 internal fun interface RedirectResolver {
     suspend operator fun invoke(url: String): String
 }
 
 internal typealias ConfigureSslHandler = HttpsURLConnection.() -> Unit
 
+/**
+ * Resolves a URL by following up to [maxHops] redirects, stopping at a redirect loop.
+ *
+ * Every hop reads the redirect body to its end, so that `HttpURLConnection` returns the
+ * connection to its keep-alive pool, and the next hop to the same host skips DNS and TLS setup.
+ * Successful resolutions are kept in [cache], so that retries and re-launches with the same URL
+ * don't go to the network again.
+ *
+ * @param onResolved notified of every network resolution, with the timing of each hop. The injected
+ * resolver reports it as [PaymentAnalyticsEvent.AuthRedirectResolved].
+ */
 internal class RealRedirectResolver(
     private val configureSSL: ConfigureSslHandler,
     private val ioDispatcher: CoroutineContext,
+    private val maxHops: Int = DEFAULT_MAX_HOPS,
+    private val cache: RedirectResolutionCache = RedirectResolutionCache.Shared,
+    private val onResolved: (RedirectResolution) -> Unit,
 ) : RedirectResolver {
 
     @Inject
     constructor(
-        @IOContext ioDispatcher: CoroutineContext
-    ) : this(configureSSL = {}, ioDispatcher = ioDispatcher)
+        @IOContext ioDispatcher: CoroutineContext,
+        analyticsRequestExecutor: AnalyticsRequestExecutor,
+        paymentAnalyticsRequestFactory: PaymentAnalyticsRequestFactory,
+    ) : this(
+        configureSSL = {},
+        ioDispatcher = ioDispatcher,
+        onResolved = { resolution ->
+            analyticsRequestExecutor.executeAsync(
+                paymentAnalyticsRequestFactory.createRequest(
+                    PaymentAnalyticsEvent.AuthRedirectResolved,
+                    resolution.analyticsParams
+                )
+            )
+        },
+    )
 
     override suspend fun invoke(url: String): String {
+        cache[url]?.let { return it }
+
         return withContext(ioDispatcher) {
-            runCatching {
-                val connection = (URL(url).openConnection() as HttpURLConnection).apply {
-                    connectTimeout = RedirectTimeoutInMillis
-                    readTimeout = RedirectTimeoutInMillis
-                    instanceFollowRedirects = false
-
-                    if (this is HttpsURLConnection) {
-                        configureSSL()
-                    }
-                }
+            val resolution = resolve(url)
+            onResolved(resolution)
 
-                val locationHeader = connection.getHeaderField("Location")
-                if (!locationHeader.isNullOrEmpty()) {
-                    locationHeader
-                } else {
-                    url
-                }
+            if (resolution.isComplete) {
+                cache[url] = resolution.resolvedUrl
+            }
+
+            resolution.resolvedUrl
+        }
+    }
+
+    private fun resolve(url: String): RedirectResolution {
+        val hops = mutableListOf<RedirectResolution.Hop>()
+        val visitedUrls = hashSetOf(url)
+        var resolvedUrl = url
+        var nextUrl: String? = url
+
+        while (nextUrl != null && hops.size < maxHops) {
+            val hop = runCatching {
+                followHop(nextUrl)
             }.getOrElse {
-                url
+                return RedirectResolution(url, resolvedUrl, hops, isComplete = false)
             }
+            hops += hop
+
+            val location = hop.location ?: break
+            val followableUrl = location.toFollowableUrl(base = hop.url)
+            resolvedUrl = followableUrl ?: location
+            nextUrl = followableUrl?.takeIf { visitedUrls.add(it) }
         }
+
+        val isComplete = hops.lastOrNull()?.let { it.statusCode < HttpURLConnection.HTTP_BAD_REQUEST } ?: false
+        return RedirectResolution(url, resolvedUrl, hops, isComplete)
     }
+
+    private fun followHop(url: String): RedirectResolution.Hop {
+        val start = TimeSource.Monotonic.markNow()
+        val connection = (URL(url).openConnection() as HttpURLConnection).apply {
+            connectTimeout = RedirectTimeoutInMillis
+            readTimeout = RedirectTimeoutInMillis
+            instanceFollowRedirects = false
+
+            if (this is HttpsURLConnection) {
+                configureSSL()
+            }
+        }
+
+        val statusCode = connection.responseCode
+        val location = connection.getHeaderField("Location")?.takeIf { it.isNotEmpty() }
+        val duration = start.elapsedNow()
+
+        if (location == null || !connection.drainRedirectBody()) {
+            connection.disconnect()
+        }
+
+        return RedirectResolution.Hop(url, statusCode, location, duration)
+    }
+
+    /**
+     * Reads the body of a redirect, which lets the connection be reused.
+     *
+     * @return whether the body was read to its end
+     */
+    private fun HttpURLConnection.drainRedirectBody(): Boolean {
+        return runCatching {
+            (errorStream ?: inputStream).use { stream ->
+                val buffer = ByteArray(DrainBufferBytes)
+                var drained = 0
+                while (drained <= MaxDrainedBodyBytes) {
+                    val read = stream.read(buffer)
+                    if (read == -1) {
+                        return@use true
+                    }
+                    drained += read
+                }
+                false
+            }
+        }.getOrDefault(false)
+    }
+
+    /**
+     * The absolute http(s) URL of [this] location, or null if it can't be followed, e.g. an app
+     * scheme.
+     */
+    private fun String.toFollowableUrl(base: String): String? {
+        return runCatching {
+            URI(base).resolve(this).toString().takeIf {
+                it.startsWith("https://", ignoreCase = true) || it.startsWith("http://", ignoreCase = true)
+            }
+        }.getOrNull()
+    }
+
+    internal companion object {
+        /**
+         * Only the first redirect is followed by default, as next action URLs redirect straight to
+         * the page or app that completes the payment.
+         */
+        const val DEFAULT_MAX_HOPS = 1
+    }
+}
+
+/**
+ * How a URL was resolved.
+ *
+ * @param isComplete whether every hop succeeded, rather than stopping at a connection failure or
+ * an error response
+ */
+internal data class RedirectResolution(
+    val url: String,
+    val resolvedUrl: String,
+    val hops: List<Hop>,
+    val isComplete: Boolean,
+) {
+    /**
+     * The outcome and timing of the resolution, without its URLs.
+     */
+    val analyticsParams: Map<String, Any>
+        get() = mapOf(
+            "is_complete" to isComplete,
+            "hop_count" to hops.size,
+            "status_codes" to hops.joinToString(",") { it.statusCode.toString() },
+            "hop_durations" to hops.joinToString(",") { it.duration.inWholeMilliseconds.toString() },
+            "duration" to hops.fold(Duration.ZERO) { total, hop -> total + hop.duration }
+                .toDouble(DurationUnit.MILLISECONDS).toFloat(),
+        )
+
+    data class Hop(
+        val url: String,
+        val statusCode: Int,
+        val location: String?,
+        val duration: Duration,
+    )
 }
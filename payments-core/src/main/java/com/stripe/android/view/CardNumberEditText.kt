@@ -16,6 +16,7 @@ import com.stripe.android.R
 import com.stripe.android.cards.CardAccountRangeRepository
 import com.stripe.android.cards.CardAccountRangeService
 import com.stripe.android.cards.CardNumber
+import com.stripe.android.cards.CardNumberFormatter
 import com.stripe.android.cards.DefaultCardAccountRangeRepositoryFactory
 import com.stripe.android.cards.DefaultCardAccountRangeService
 import com.stripe.android.cards.DefaultStaticCardAccountRanges
@@ -290,28 +291,12 @@ class CardNumberEditText internal constructor(
         addedDigits: Int,
         panLength: Int = this.panLength
     ): Int {
-        val gapSet = CardNumber.getSpacePositions(panLength)
-
-        val gapsJumped = gapSet.count { gap ->
-            start <= gap && start + addedDigits >= gap
-        }
-
-        val skipBack = gapSet.any { gap ->
-            // addedDigits can only be 0 if we are deleting,
-            // so we need to check whether or not to skip backwards one space
-            addedDigits == 0 && start == gap + 1
-        }
-
-        var newPosition = start + addedDigits + gapsJumped
-        if (skipBack && newPosition > 0) {
-            newPosition--
-        }
-
-        return if (newPosition <= newFormattedLength) {
-            newPosition
-        } else {
-            newFormattedLength
-        }
+        return CardNumberFormatter.cursorPosition(
+            formattedLength = newFormattedLength,
+            start = start,
+            addedDigits = addedDigits,
+            panLength = panLength
+        )
     }
 
     @JvmSynthetic
@@ -347,6 +332,8 @@ class CardNumberEditText internal constructor(
 
         private var beforeCardNumber = unvalidatedCardNumber
 
+        private val formatter = CardNumberFormatter()
+
         private var isPastedPan = false
 
         override fun beforeTextChanged(s: CharSequence?, start: Int, count: Int, after: Int) {
@@ -363,24 +350,24 @@ class CardNumberEditText internal constructor(
 
             isPastedPan = isPastedPan(start, before, count, cardNumber)
 
-            if (isPastedPan) {
-                updateLengthFilter(cardNumber.getFormatted(cardNumber.length).length)
-            }
-
-            if (isPastedPan) {
+            val maxPanLength = if (isPastedPan) {
                 cardNumber.length
             } else {
                 panLength
-            }.let { maxPanLength ->
-                val formattedNumber = cardNumber.getFormatted(maxPanLength)
-                newCursorPosition = calculateCursorPosition(
-                    formattedNumber.length,
-                    latestChangeStart,
-                    latestInsertionSize,
-                    maxPanLength
-                )
-                this.formattedNumber = formattedNumber
             }
+            formatter.format(cardNumber.normalized, maxPanLength)
+
+            if (isPastedPan) {
+                updateLengthFilter(formatter.length)
+            }
+
+            newCursorPosition = calculateCursorPosition(
+                formatter.length,
+                latestChangeStart,
+                latestInsertionSize,
+                maxPanLength
+            )
+            formattedNumber = formatter.toString()
         }
 
         override fun afterTextChanged(s: Editable?) {
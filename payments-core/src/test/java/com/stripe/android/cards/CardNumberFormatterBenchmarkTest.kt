@@ -0,0 +1,136 @@
+package com.stripe.android.cards
+
+import org.json.JSONObject
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import java.io.File
+import java.lang.management.ManagementFactory
+import kotlin.time.Duration
+import kotlin.time.measureTime
+
+/**
+ * Reports the cost of formatting a card number as it is typed or pasted, compared to the
+ * formatting used before [CardNumberFormatter].
+ *
+ * Timings and allocations depend on the machine and JVM running the test, so they are only
+ * reported. The report is written as JSON to [REPORT_FILE_NAME] in the build's benchmark reports
+ * directory, so that it can be compared between builds.
+ *
+ * The benchmark is left out of the unit tests and only runs with
+ * `./gradlew :payments-core:testDebugUnitTest -PrunBenchmarks --tests '*BenchmarkTest'`.
+ */
+@RunWith(RobolectricTestRunner::class)
+class CardNumberFormatterBenchmarkTest {
+
+    private val formatter = CardNumberFormatter()
+
+    @Test
+    fun `card number formatting benchmark`() {
+        val report = JSONObject()
+            .put("benchmark", "CardNumberFormatter.format")
+            .put("measured_iterations", MEASURED_ITERATIONS)
+            .put("fast_typing", fastTyping())
+            .put("large_paste", largePaste())
+            .toString(2)
+
+        val reportsDir = System.getProperty(REPORTS_DIR_PROPERTY)
+            ?: error("$REPORTS_DIR_PROPERTY is set by the build when run with -PrunBenchmarks.")
+        File(reportsDir, REPORT_FILE_NAME).apply { parentFile?.mkdirs() }.writeText(report)
+    }
+
+    private fun fastTyping(): JSONObject {
+        val typed = measure { typeNumber(::formatWithFormatter) }
+        val legacy = measure { typeNumber(::formatWithLegacy) }
+
+        return JSONObject()
+            .put("digits", TYPED_NUMBER.length)
+            .put("formatter", typed.toJson())
+            .put("legacy", legacy.toJson())
+    }
+
+    private fun largePaste(): JSONObject {
+        val pasted = measure { formatWithFormatter(LARGE_PASTE, LARGE_PASTE_DIGITS, 0, LARGE_PASTE.length) }
+        val legacy = measure { formatWithLegacy(LARGE_PASTE, LARGE_PASTE_DIGITS, 0, LARGE_PASTE.length) }
+
+        return JSONObject()
+            .put("characters", LARGE_PASTE.length)
+            .put("formatter", pasted.toJson())
+            .put("legacy", legacy.toJson())
+    }
+
+    /**
+     * Types a 19 digit number one digit at a time, as `CardNumberEditText` formats it.
+     */
+    private fun typeNumber(format: (String, Int, Int, Int) -> Int): Int {
+        var text = ""
+        var cursor = 0
+        TYPED_NUMBER.forEach { digit ->
+            text += digit
+            cursor = format(text, PAN_LENGTH, cursor, 1)
+        }
+        return cursor
+    }
+
+    private fun formatWithFormatter(text: String, panLength: Int, start: Int, addedDigits: Int): Int {
+        // The text field needs the formatted number as a String.
+        val formatted = formatter.format(text, panLength).toString()
+        return CardNumberFormatter.cursorPosition(formatted.length, start, addedDigits, panLength)
+    }
+
+    private fun formatWithLegacy(text: String, panLength: Int, start: Int, addedDigits: Int): Int {
+        val formatted = LegacyCardNumberFormatting.format(text, panLength)
+        return LegacyCardNumberFormatting.cursorPosition(formatted.length, start, addedDigits, panLength)
+    }
+
+    private fun measure(block: () -> Int): Result {
+        repeat(WARMUP_ITERATIONS) { block() }
+
+        val allocatedBefore = allocatedBytes()
+        val duration = measureTime {
+            repeat(MEASURED_ITERATIONS) { block() }
+        }
+        val allocatedAfter = allocatedBytes()
+
+        return Result(
+            timePerIteration = duration / MEASURED_ITERATIONS,
+            allocatedBytesPerIteration = if (allocatedBefore != null && allocatedAfter != null) {
+                (allocatedAfter - allocatedBefore) / MEASURED_ITERATIONS
+            } else {
+                null
+            }
+        )
+    }
+
+    /**
+     * The bytes allocated by the current thread, when the JVM running the test counts them.
+     */
+    private fun allocatedBytes(): Long? {
+        val threads = ManagementFactory.getThreadMXBean() as? com.sun.management.ThreadMXBean
+        return threads
+            ?.takeIf { it.isThreadAllocatedMemorySupported && it.isThreadAllocatedMemoryEnabled }
+            ?.getThreadAllocatedBytes(Thread.currentThread().id)
+    }
+
+    private data class Result(
+        val timePerIteration: Duration,
+        val allocatedBytesPerIteration: Long?
+    ) {
+        fun toJson(): JSONObject = JSONObject()
+            .put("time_per_iteration_ns", timePerIteration.inWholeNanoseconds)
+            .putOpt("allocated_bytes_per_iteration", allocatedBytesPerIteration)
+    }
+
+    private companion object {
+        const val REPORTS_DIR_PROPERTY = "stripe.benchmarkReportsDir"
+        const val REPORT_FILE_NAME = "card-number-formatter.json"
+        const val WARMUP_ITERATIONS = 200
+        const val MEASURED_ITERATIONS = 1_000
+
+        const val PAN_LENGTH = 19
+        const val TYPED_NUMBER = "6216828050123456789"
+
+        val LARGE_PASTE = "4242 4242-4242 4242 ".repeat(10)
+        val LARGE_PASTE_DIGITS = CardNumber.Unvalidated(LARGE_PASTE).length
+    }
+}
@@ -0,0 +1,219 @@
+package com.stripe.android.cards
+
+import com.google.common.truth.Truth.assertThat
+import com.stripe.android.model.CardBrand
+import kotlin.random.Random
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+
+/**
+ * Checks [CardNumberFormatter] against the previous formatting, and the cursor invariants of
+ * `CardNumberEditText`, over random input for the PAN length of every [CardBrand].
+ */
+class CardNumberFormatterTest {
+
+    private val random = Random(SEED)
+    private val formatter = CardNumberFormatter()
+
+    @Test
+    fun `formatting matches the previous formatting`() {
+        repeat(ITERATIONS) {
+            val input = randomInput(maxDigits = 24)
+            val panLength = PAN_LENGTHS.random(random)
+
+            assertEquals(
+                LegacyCardNumberFormatting.format(input, panLength),
+                formatter.format(input, panLength).toString(),
+                "\"$input\" with PAN length $panLength"
+            )
+        }
+    }
+
+    @Test
+    fun `formatting pasted numbers matches the previous formatting`() {
+        repeat(ITERATIONS) {
+            val input = randomInput(maxDigits = 40)
+            val digits = CardNumber.Unvalidated(input).length
+
+            assertEquals(
+                LegacyCardNumberFormatting.format(input, digits),
+                formatter.format(input, digits).toString(),
+                "\"$input\""
+            )
+        }
+    }
+
+    @Test
+    fun `cursor positions match the previous positions`() {
+        PAN_LENGTHS.forEach { panLength ->
+            for (formattedLength in 0..MAX_FORMATTED_LENGTH) {
+                for (start in 0..formattedLength) {
+                    for (addedDigits in 0..MAX_FORMATTED_LENGTH) {
+                        val position = CardNumberFormatter.cursorPosition(
+                            formattedLength = formattedLength,
+                            start = start,
+                            addedDigits = addedDigits,
+                            panLength = panLength
+                        )
+
+                        assertEquals(
+                            LegacyCardNumberFormatting.cursorPosition(
+                                formattedLength,
+                                start,
+                                addedDigits,
+                                panLength
+                            ),
+                            position
+                        )
+                        assertTrue(position in 0..formattedLength)
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    fun `typing digits keeps the cursor at the end of the number`() {
+        PAN_LENGTHS.forEach { panLength ->
+            var formatted = ""
+            repeat(panLength) {
+                val start = formatted.length
+                formatted = formatter.format(formatted + random.nextInt(10), panLength).toString()
+
+                assertEquals(
+                    formatted.length,
+                    CardNumberFormatter.cursorPosition(formatted.length, start, 1, panLength),
+                    "\"$formatted\" with PAN length $panLength"
+                )
+            }
+        }
+    }
+
+    @Test
+    fun `deleting digits never leaves the cursor after a separator`() {
+        PAN_LENGTHS.forEach { panLength ->
+            var formatted = formatter.format(randomDigits(panLength), panLength).toString()
+            while (formatted.isNotEmpty()) {
+                val start = formatted.length - 1
+                formatted = formatter.format(formatted.dropLast(1), panLength).toString()
+
+                val position = CardNumberFormatter.cursorPosition(
+                    formatted.length,
+                    start,
+                    0,
+                    panLength
+                )
+
+                assertEquals(formatted.length, position, "\"$formatted\" with PAN length $panLength")
+                assertTrue(position == 0 || formatted[position - 1] != ' ')
+            }
+        }
+    }
+
+    @Test
+    fun `editing anywhere keeps the cursor after the same digits`() {
+        repeat(ITERATIONS) {
+            val panLength = PAN_LENGTHS.random(random)
+            val before = formatter.format(randomDigits(random.nextInt(panLength + 1)), panLength)
+                .toString()
+            val start = random.nextInt(before.length + 1)
+            val inserted = randomDigits(random.nextInt(3))
+            val deleted = if (inserted.isEmpty()) random.nextInt(before.length - start + 1) else 0
+
+            val after = formatter.format(
+                before.substring(0, start) + inserted + before.substring(start + deleted),
+                panLength
+            ).toString()
+            val position = CardNumberFormatter.cursorPosition(
+                after.length,
+                start,
+                inserted.length,
+                panLength
+            )
+
+            val expectedDigits = before.take(start).count { it.isDigit() } + inserted.length
+
+            assertEquals(
+                minOf(expectedDigits, after.count { it.isDigit() }),
+                after.take(position).count { it.isDigit() },
+                "\"$before\" edited at $start to \"$after\""
+            )
+        }
+    }
+
+    @Test
+    fun `pasting a number places the cursor at its end`() {
+        repeat(ITERATIONS) {
+            val input = randomInput(minDigits = CardNumber.MIN_PAN_LENGTH, maxDigits = 24)
+            val digits = CardNumber.Unvalidated(input).length
+            val formatted = formatter.format(input, digits).toString()
+
+            assertEquals(
+                formatted.length,
+                CardNumberFormatter.cursorPosition(formatted.length, 0, input.length, digits)
+            )
+        }
+    }
+
+    @Test
+    fun `separator is configurable`() {
+        assertThat(CardNumberFormatter(separator = '-').format("378282246310005", 15).toString())
+            .isEqualTo("3782-822463-10005")
+    }
+
+    @Test
+    fun `trailing separators follow every complete group`() {
+        assertThat(formatter.format("4242", 16, trailingSeparator = true).toString())
+            .isEqualTo("4242 ")
+        assertThat(formatter.format("42424242", 16, trailingSeparator = true).toString())
+            .isEqualTo("4242 4242 ")
+        assertThat(formatter.format("3782822463", 15, trailingSeparator = true).toString())
+            .isEqualTo("3782 822463 ")
+    }
+
+    @Test
+    fun `large pastes grow the buffer`() {
+        val input = randomDigits(1_000)
+
+        assertThat(formatter.format(input, input.length).toString())
+            .isEqualTo(LegacyCardNumberFormatting.format(input, input.length))
+        assertThat(formatter.length).isEqualTo(1_003)
+    }
+
+    private fun randomDigits(length: Int): String {
+        return buildString {
+            repeat(length) { append('0' + random.nextInt(10)) }
+        }
+    }
+
+    /**
+     * Digits, mixed with the spaces and dashes of a pasted number.
+     */
+    private fun randomInput(minDigits: Int = 0, maxDigits: Int): String {
+        return buildString {
+            repeat(random.nextInt(minDigits, maxDigits + 1)) {
+                when (random.nextInt(8)) {
+                    0 -> append(' ')
+                    1 -> append('-')
+                }
+                append('0' + random.nextInt(10))
+            }
+        }
+    }
+
+    internal companion object {
+        private const val SEED = 1234
+        private const val ITERATIONS = 5_000
+        private const val MAX_FORMATTED_LENGTH = 24
+
+        /**
+         * The PAN lengths of every brand, and every valid PAN length.
+         */
+        val PAN_LENGTHS: List<Int> = (
+            CardBrand.entries.map { it.getMaxLengthForCardNumber("") } +
+                CardBrand.DinersClub.getMaxLengthForCardNumber("36") +
+                (CardNumber.MIN_PAN_LENGTH..CardNumber.MAX_PAN_LENGTH)
+            ).distinct().sorted()
+    }
+}
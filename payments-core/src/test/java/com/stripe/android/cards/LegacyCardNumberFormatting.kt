@@ -0,0 +1,72 @@
+package com.stripe.android.cards
+
+/**
+ * The card number formatting and cursor positioning used before [CardNumberFormatter]. Kept to
+ * check that the output is unchanged.
+ */
+internal object LegacyCardNumberFormatting {
+
+    fun format(cardNumber: String, panLength: Int): String {
+        val spacePositions = CardNumber.getSpacePositions(panLength)
+        val spacelessCardNumber = CardNumber.Unvalidated(cardNumber).normalized.take(panLength)
+        val groups = arrayOfNulls<String?>(spacePositions.size + 1)
+
+        val length = spacelessCardNumber.length
+        var lastUsedIndex = 0
+
+        spacePositions
+            .toList().sorted().forEachIndexed { idx, spacePosition ->
+                val adjustedSpacePosition = spacePosition - idx
+                if (length > adjustedSpacePosition) {
+                    groups[idx] = spacelessCardNumber.substring(
+                        lastUsedIndex,
+                        adjustedSpacePosition
+                    )
+                    lastUsedIndex = adjustedSpacePosition
+                }
+            }
+
+        // populate any remaining digits in the first index with a null value
+        groups
+            .indexOfFirst { it == null }
+            .takeIf {
+                it != -1
+            }?.let {
+                groups[it] = spacelessCardNumber.substring(lastUsedIndex)
+            }
+
+        return groups
+            .takeWhile { it != null }
+            .joinToString(" ")
+    }
+
+    fun cursorPosition(
+        newFormattedLength: Int,
+        start: Int,
+        addedDigits: Int,
+        panLength: Int
+    ): Int {
+        val gapSet = CardNumber.getSpacePositions(panLength)
+
+        val gapsJumped = gapSet.count { gap ->
+            start <= gap && start + addedDigits >= gap
+        }
+
+        val skipBack = gapSet.any { gap ->
+            // addedDigits can only be 0 if we are deleting,
+            // so we need to check whether or not to skip backwards one space
+            addedDigits == 0 && start == gap + 1
+        }
+
+        var newPosition = start + addedDigits + gapsJumped
+        if (skipBack && newPosition > 0) {
+            newPosition--
+        }
+
+        return if (newPosition <= newFormattedLength) {
+            newPosition
+        } else {
+            newFormattedLength
+        }
+    }
+}
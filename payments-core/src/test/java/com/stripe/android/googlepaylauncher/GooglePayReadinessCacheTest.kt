@@ -0,0 +1,176 @@
+package com.stripe.android.googlepaylauncher
+
+import android.app.Activity
+import android.app.Application
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.google.common.truth.Truth.assertThat
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.test.runCurrent
+import kotlinx.coroutines.test.runTest
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.Robolectric
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.minutes
+import kotlin.time.Duration.Companion.seconds
+
+@RunWith(AndroidJUnit4::class)
+class GooglePayReadinessCacheTest {
+
+    private var now = 0L
+    private var loads = 0
+
+    private val cache = GooglePayReadinessCache(
+        ttl = 30.minutes,
+        clock = { now },
+    )
+
+    @Test
+    fun `concurrent loads of the same key share one load`() = runTest {
+        val results = List(10) {
+            async { cache.getOrLoad(KEY) { load(isReady = true) } }
+        }.awaitAll()
+
+        assertThat(results).containsExactlyElementsIn(List(10) { true })
+        assertThat(loads).isEqualTo(1)
+    }
+
+    @Test
+    fun `different keys are loaded separately`() = runTest {
+        assertThat(cache.getOrLoad(KEY) { load(isReady = true) }).isTrue()
+        assertThat(cache.getOrLoad(PRODUCTION_KEY) { load(isReady = false) }).isFalse()
+        assertThat(cache.getOrLoad(OTHER_REQUEST_KEY) { load(isReady = true) }).isTrue()
+
+        assertThat(cache.getOrLoad(KEY) { load(isReady = false) }).isTrue()
+        assertThat(cache.getOrLoad(PRODUCTION_KEY) { load(isReady = true) }).isFalse()
+        assertThat(loads).isEqualTo(3)
+    }
+
+    @Test
+    fun `results expire after the ttl`() = runTest {
+        cache.getOrLoad(KEY) { load(isReady = true) }
+
+        advanceClockBy(29.minutes)
+        assertThat(cache.getOrLoad(KEY) { load(isReady = false) }).isTrue()
+        assertThat(loads).isEqualTo(1)
+
+        advanceClockBy(1.minutes)
+        assertThat(cache.getOrLoad(KEY) { load(isReady = false) }).isFalse()
+        assertThat(loads).isEqualTo(2)
+    }
+
+    @Test
+    fun `undetermined results are shared but not cached`() = runTest {
+        val results = List(3) {
+            async { cache.getOrLoad(KEY) { load(isReady = null) } }
+        }.awaitAll()
+
+        assertThat(results).containsExactly(null, null, null)
+        assertThat(loads).isEqualTo(1)
+
+        assertThat(cache.getOrLoad(KEY) { load(isReady = true) }).isTrue()
+        assertThat(loads).isEqualTo(2)
+    }
+
+    @Test
+    fun `invalidate drops cached results`() = runTest {
+        cache.getOrLoad(KEY) { load(isReady = true) }
+
+        cache.invalidate()
+
+        assertThat(cache.getOrLoad(KEY) { load(isReady = false) }).isFalse()
+        assertThat(loads).isEqualTo(2)
+    }
+
+    @Test
+    fun `a load started before invalidate is not cached`() = runTest {
+        val loadStarted = CompletableDeferred<Unit>()
+        val result = async {
+            cache.getOrLoad(KEY) {
+                loadStarted.complete(Unit)
+                load(isReady = true)
+            }
+        }
+
+        loadStarted.await()
+        cache.invalidate()
+
+        assertThat(result.await()).isTrue()
+        assertThat(cache.getOrLoad(KEY) { load(isReady = false) }).isFalse()
+    }
+
+    @Test
+    fun `a waiting caller loads again when the loading caller is cancelled`() = runTest {
+        val owner = launch { cache.getOrLoad(KEY) { load(isReady = true) } }
+        runCurrent()
+        val waiter = async { cache.getOrLoad(KEY) { load(isReady = false) } }
+        runCurrent()
+
+        owner.cancel()
+
+        assertThat(waiter.await()).isFalse()
+        assertThat(loads).isEqualTo(2)
+    }
+
+    @Test
+    fun `results are dropped when the app returns to the foreground`() = runTest {
+        val application = ApplicationProvider.getApplicationContext<Application>()
+        cache.invalidateOnForeground(application)
+        // Registering twice doesn't register the callbacks twice.
+        cache.invalidateOnForeground(application)
+
+        val activity = Robolectric.buildActivity(Activity::class.java).setup()
+        cache.getOrLoad(KEY) { load(isReady = true) }
+
+        activity.pause().stop()
+        assertThat(cache.getOrLoad(KEY) { load(isReady = false) }).isTrue()
+
+        activity.start()
+        assertThat(cache.getOrLoad(KEY) { load(isReady = false) }).isFalse()
+        assertThat(loads).isEqualTo(2)
+    }
+
+    @Test
+    fun `activities started before registering don't count as going to background`() = runTest {
+        val application = ApplicationProvider.getApplicationContext<Application>()
+        val merchantActivity = Robolectric.buildActivity(Activity::class.java).setup()
+        cache.invalidateOnForeground(application)
+        cache.getOrLoad(KEY) { load(isReady = true) }
+
+        val sheetActivity = Robolectric.buildActivity(Activity::class.java).setup()
+        merchantActivity.pause().stop()
+        Robolectric.buildActivity(Activity::class.java).setup()
+
+        assertThat(cache.getOrLoad(KEY) { load(isReady = false) }).isTrue()
+        assertThat(loads).isEqualTo(1)
+
+        sheetActivity.pause().stop()
+        assertThat(cache.getOrLoad(KEY) { load(isReady = false) }).isTrue()
+    }
+
+    private suspend fun load(isReady: Boolean?): Boolean? {
+        loads++
+        delay(1.seconds)
+        return isReady
+    }
+
+    private fun advanceClockBy(duration: Duration) {
+        now += duration.inWholeMilliseconds
+    }
+
+    private companion object {
+        val KEY = GooglePayReadinessCache.Key(
+            environment = GooglePayEnvironment.Test,
+            isReadyToPayRequestJson = """{"existingPaymentMethodRequired":true}""",
+        )
+        val PRODUCTION_KEY = KEY.copy(environment = GooglePayEnvironment.Production)
+        val OTHER_REQUEST_KEY = KEY.copy(
+            isReadyToPayRequestJson = """{"existingPaymentMethodRequired":false}"""
+        )
+    }
+}
@@ -7,15 +7,24 @@ import app.cash.turbine.test
 import com.google.android.gms.common.api.ApiException
 import com.google.android.gms.common.api.Status
 import com.google.android.gms.tasks.Tasks
+import com.google.android.gms.wallet.IsReadyToPayRequest
 import com.google.android.gms.wallet.PaymentsClient
+import com.google.common.truth.Truth.assertThat
 import com.stripe.android.DefaultCardFundingFilter
 import com.stripe.android.GooglePayJsonFactory
 import com.stripe.android.PaymentConfiguration
 import com.stripe.android.core.Logger
 import com.stripe.android.payments.core.analytics.ErrorReporter
 import com.stripe.android.testing.FakeErrorReporter
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.launch
 import kotlinx.coroutines.test.advanceTimeBy
+import kotlinx.coroutines.test.runCurrent
 import kotlinx.coroutines.test.runTest
+import org.junit.After
 import org.junit.Before
 import org.junit.Test
 import org.junit.runner.RunWith
@@ -36,6 +45,11 @@ class GooglePayRepositoryTest {
         PaymentConfiguration.init(context, "pk_123")
     }
 
+    @After
+    fun teardown() {
+        GooglePayRepository.resetFactory()
+    }
+
     @Test
     fun `when google pay is ready, 'isReady' should return true`() = runTest {
         val paymentsClient = mock<PaymentsClient>()
@@ -117,20 +131,141 @@ class GooglePayRepositoryTest {
         )
     }
 
+    @Test
+    fun `concurrent loaders share a single 'isReady' call`() = runTest {
+        val availabilityClient = FakeGooglePayAvailabilityClient(isReady = true)
+        GooglePayRepository.googlePayAvailabilityClientFactory = availabilityClient
+        val readinessCache = GooglePayReadinessCache()
+
+        val results = List(5) {
+            async {
+                createGooglePayRepository(readinessCache = readinessCache).isReady().first()
+            }
+        }.awaitAll()
+
+        assertThat(results).containsExactly(true, true, true, true, true)
+        assertThat(availabilityClient.calls).isEqualTo(1)
+
+        createGooglePayRepository(readinessCache = readinessCache).isReady().test {
+            assertEquals(true, awaitItem())
+            awaitComplete()
+        }
+        assertThat(availabilityClient.calls).isEqualTo(1)
+    }
+
+    @Test
+    fun `a waiting loader takes over when the loading one is cancelled`() = runTest {
+        val availabilityClient = FakeGooglePayAvailabilityClient(isReady = true)
+        GooglePayRepository.googlePayAvailabilityClientFactory = availabilityClient
+        val readinessCache = GooglePayReadinessCache()
+        val errorReporter = FakeErrorReporter()
+
+        val cancelled = launch {
+            createGooglePayRepository(errorReporter = errorReporter, readinessCache = readinessCache)
+                .isReady().first()
+        }
+        runCurrent()
+        val waiting = async {
+            createGooglePayRepository(errorReporter = errorReporter, readinessCache = readinessCache)
+                .isReady().first()
+        }
+        runCurrent()
+
+        cancelled.cancel()
+
+        assertThat(waiting.await()).isTrue()
+        assertThat(availabilityClient.calls).isEqualTo(2)
+        assertThat(errorReporter.getLoggedErrors()).isEmpty()
+    }
+
+    @Test
+    fun `readiness is cached separately per environment and request`() = runTest {
+        val availabilityClient = FakeGooglePayAvailabilityClient(isReady = true)
+        GooglePayRepository.googlePayAvailabilityClientFactory = availabilityClient
+        val readinessCache = GooglePayReadinessCache()
+
+        val repositories = listOf(
+            createGooglePayRepository(readinessCache = readinessCache),
+            createGooglePayRepository(
+                readinessCache = readinessCache,
+                environment = GooglePayEnvironment.Production,
+            ),
+            createGooglePayRepository(
+                readinessCache = readinessCache,
+                billingAddressParameters = GooglePayJsonFactory.BillingAddressParameters(
+                    isRequired = true,
+                    format = GooglePayJsonFactory.BillingAddressParameters.Format.Full,
+                ),
+            ),
+            createGooglePayRepository(
+                readinessCache = readinessCache,
+                existingPaymentMethodRequired = false,
+            ),
+        )
+
+        repeat(2) {
+            repositories.forEach { repository ->
+                assertEquals(true, repository.isReady().first())
+            }
+        }
+
+        assertThat(availabilityClient.calls).isEqualTo(4)
+    }
+
+    @Test
+    fun `failed readiness checks are not cached`() = runTest {
+        val paymentsClient = mock<PaymentsClient>()
+        val readinessCache = GooglePayReadinessCache()
+
+        whenever(paymentsClient.isReadyToPay(any())) doReturn Tasks.forException(
+            ApiException(Status.RESULT_INTERNAL_ERROR)
+        ) doReturn Tasks.forResult(true)
+
+        assertEquals(
+            false,
+            createGooglePayRepository(paymentsClient, readinessCache = readinessCache).isReady().first()
+        )
+        assertEquals(
+            true,
+            createGooglePayRepository(paymentsClient, readinessCache = readinessCache).isReady().first()
+        )
+    }
+
     private fun createGooglePayRepository(
-        paymentsClient: PaymentsClient,
-        errorReporter: ErrorReporter = FakeErrorReporter()
+        paymentsClient: PaymentsClient = mock(),
+        errorReporter: ErrorReporter = FakeErrorReporter(),
+        readinessCache: GooglePayReadinessCache = GooglePayReadinessCache(),
+        environment: GooglePayEnvironment = GooglePayEnvironment.Test,
+        billingAddressParameters: GooglePayJsonFactory.BillingAddressParameters =
+            GooglePayJsonFactory.BillingAddressParameters(),
+        existingPaymentMethodRequired: Boolean = true,
     ): DefaultGooglePayRepository {
         return DefaultGooglePayRepository(
             context = context,
-            environment = GooglePayEnvironment.Test,
-            billingAddressParameters = GooglePayJsonFactory.BillingAddressParameters(),
-            existingPaymentMethodRequired = true,
+            environment = environment,
+            billingAddressParameters = billingAddressParameters,
+            existingPaymentMethodRequired = existingPaymentMethodRequired,
             allowCreditCards = true,
             paymentsClientFactory = { paymentsClient },
             errorReporter = errorReporter,
             logger = Logger.noop(),
             cardFundingFilter = DefaultCardFundingFilter,
+            readinessCache = readinessCache,
         )
     }
+
+    private class FakeGooglePayAvailabilityClient(
+        private val isReady: Boolean,
+    ) : GooglePayAvailabilityClient, GooglePayAvailabilityClient.Factory {
+        var calls = 0
+            private set
+
+        override fun create(paymentsClient: PaymentsClient): GooglePayAvailabilityClient = this
+
+        override suspend fun isReady(request: IsReadyToPayRequest): Boolean {
+            calls++
+            delay(1.seconds)
+            return isReady
+        }
+    }
 }
@@ -0,0 +1,77 @@
+package com.stripe.android.networking
+
+import com.stripe.android.core.networking.QueryStringFactory
+import java.net.URLEncoder
+
+/**
+ * The query string encoding [QueryStringFactory] used before it encoded params in a single pass.
+ * Kept to check that the output is unchanged.
+ */
+@Suppress("UNCHECKED_CAST")
+internal object LegacyQueryStringFactory {
+
+    fun create(params: Map<String, *>?): String {
+        return flattenParamsMap(params).joinToString("&") {
+            it.toString()
+        }
+    }
+
+    fun createFromParamsWithEmptyValues(params: Map<String, *>?): String {
+        return params?.let(QueryStringFactory::compactParams)?.let(::create) ?: ""
+    }
+
+    private fun isPrimitive(value: Any?) =
+        value is String || value is Number || value is Boolean || value is Char
+
+    private fun flattenParamsList(
+        params: List<*>,
+        keyPrefix: String
+    ): List<Parameter> {
+        return if (params.isEmpty()) {
+            listOf(Parameter(keyPrefix, ""))
+        } else if (params.all { isPrimitive(it) }) {
+            val newPrefix = "$keyPrefix[]"
+            params.flatMap {
+                flattenParamsValue(it, newPrefix)
+            }
+        } else {
+            params.flatMapIndexed { index, value ->
+                flattenParamsValue(value, "$keyPrefix[$index]")
+            }
+        }
+    }
+
+    private fun flattenParamsMap(
+        params: Map<String, *>?,
+        keyPrefix: String? = null
+    ): List<Parameter> {
+        return params?.flatMap { (key, value) ->
+            val newPrefix = keyPrefix?.let { "$it[$key]" } ?: key
+            flattenParamsValue(value, newPrefix)
+        }
+            ?: emptyList()
+    }
+
+    private fun flattenParamsValue(
+        value: Any?,
+        keyPrefix: String
+    ): List<Parameter> {
+        return when (value) {
+            is Map<*, *> -> flattenParamsMap(value as Map<String, Any?>?, keyPrefix)
+            is List<*> -> flattenParamsList(value, keyPrefix)
+            null -> listOf(Parameter(keyPrefix, ""))
+            else -> listOf(Parameter(keyPrefix, value.toString()))
+        }
+    }
+
+    private data class Parameter(
+        private val key: String,
+        private val value: String
+    ) {
+        override fun toString(): String {
+            val encodedKey = URLEncoder.encode(key, Charsets.UTF_8.name())
+            val encodedValue = URLEncoder.encode(value, Charsets.UTF_8.name())
+            return "$encodedKey=$encodedValue"
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.stripe.android.networking
+
+import com.stripe.android.core.networking.QueryStringFactory
+import org.json.JSONObject
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import java.io.File
+import java.lang.management.ManagementFactory
+import kotlin.time.Duration
+import kotlin.time.measureTime
+
+/**
+ * Reports the cost of form encoding a large confirm request, compared to flattening the params
+ * into a list of parameters first.
+ *
+ * Timings and allocations depend on the machine and JVM running the test, so they are only
+ * reported. The report is written as JSON to [REPORT_FILE_NAME] in the build's benchmark reports
+ * directory, so that it can be compared between builds.
+ *
+ * The benchmark is left out of the unit tests and only runs with
+ * `./gradlew :payments-core:testDebugUnitTest -PrunBenchmarks --tests '*BenchmarkTest'`.
+ */
+@RunWith(RobolectricTestRunner::class)
+class ParamsFormEncodingBenchmarkTest {
+
+    @Test
+    fun `confirm params encoding benchmark`() {
+        val params = ParamsFormEncodingTest.createLargeConfirmParams().toParamMap()
+
+        val singlePass = measure { QueryStringFactory.createFromParamsWithEmptyValues(params) }
+        val flattened = measure { LegacyQueryStringFactory.createFromParamsWithEmptyValues(params) }
+
+        val report = JSONObject()
+            .put("benchmark", "QueryStringFactory.createFromParamsWithEmptyValues")
+            .put("measured_iterations", MEASURED_ITERATIONS)
+            .put("encoded_length", QueryStringFactory.createFromParamsWithEmptyValues(params).length)
+            .put("single_pass", singlePass.toJson())
+            .put("flattened", flattened.toJson())
+            .toString(2)
+
+        val reportsDir = System.getProperty(REPORTS_DIR_PROPERTY)
+            ?: error("$REPORTS_DIR_PROPERTY is set by the build when run with -PrunBenchmarks.")
+        File(reportsDir, REPORT_FILE_NAME).apply { parentFile?.mkdirs() }.writeText(report)
+    }
+
+    private fun measure(block: () -> String): Result {
+        repeat(WARMUP_ITERATIONS) { block() }
+
+        val allocatedBefore = allocatedBytes()
+        val duration = measureTime {
+            repeat(MEASURED_ITERATIONS) { block() }
+        }
+        val allocatedAfter = allocatedBytes()
+
+        return Result(
+            timePerRequest = duration / MEASURED_ITERATIONS,
+            allocatedBytesPerRequest = if (allocatedBefore != null && allocatedAfter != null) {
+                (allocatedAfter - allocatedBefore) / MEASURED_ITERATIONS
+            } else {
+                null
+            }
+        )
+    }
+
+    /**
+     * The bytes allocated by the current thread, when the JVM running the test counts them.
+     */
+    private fun allocatedBytes(): Long? {
+        val threads = ManagementFactory.getThreadMXBean() as? com.sun.management.ThreadMXBean
+        return threads
+            ?.takeIf { it.isThreadAllocatedMemorySupported && it.isThreadAllocatedMemoryEnabled }
+            ?.getThreadAllocatedBytes(Thread.currentThread().id)
+    }
+
+    private data class Result(
+        val timePerRequest: Duration,
+        val allocatedBytesPerRequest: Long?
+    ) {
+        fun toJson(): JSONObject = JSONObject()
+            .put("time_per_request_ns", timePerRequest.inWholeNanoseconds)
+            .putOpt("allocated_bytes_per_request", allocatedBytesPerRequest)
+    }
+
+    private companion object {
+        const val REPORTS_DIR_PROPERTY = "stripe.benchmarkReportsDir"
+        const val REPORT_FILE_NAME = "params-form-encoding.json"
+        const val WARMUP_ITERATIONS = 200
+        const val MEASURED_ITERATIONS = 1_000
+    }
+}
@@ -0,0 +1,133 @@
+package com.stripe.android.networking
+
+import com.google.common.truth.Truth.assertThat
+import com.stripe.android.core.networking.QueryStringFactory
+import com.stripe.android.model.AddressFixtures
+import com.stripe.android.model.CardParamsFixtures
+import com.stripe.android.model.ConfirmPaymentIntentParams
+import com.stripe.android.model.MandateDataParams
+import com.stripe.android.model.MandateDataParamsFixtures
+import com.stripe.android.model.PaymentMethodCreateParamsFixtures
+import com.stripe.android.model.PaymentMethodOptionsParams
+import com.stripe.android.model.PersonTokenParamsFixtures
+import com.stripe.android.model.StripeParamsModel
+import com.stripe.android.testing.RadarOptionsFactory
+import kotlin.test.Test
+import kotlin.test.assertEquals
+
+/**
+ * Checks that [QueryStringFactory] encodes every params fixture exactly like it did before it
+ * encoded params in a single pass.
+ */
+class ParamsFormEncodingTest {
+
+    @Test
+    fun `params fixtures are encoded like before`() {
+        PARAMS_FIXTURES.forEach { (name, params) ->
+            val paramMap = params.toParamMap()
+
+            assertEquals(
+                LegacyQueryStringFactory.createFromParamsWithEmptyValues(paramMap),
+                QueryStringFactory.createFromParamsWithEmptyValues(paramMap),
+                name
+            )
+            assertEquals(
+                LegacyQueryStringFactory.create(paramMap),
+                QueryStringFactory.create(paramMap),
+                name
+            )
+        }
+    }
+
+    @Test
+    fun `confirm params with every nested object are encoded like before`() {
+        val paramMap = createLargeConfirmParams().toParamMap()
+
+        assertThat(QueryStringFactory.createFromParamsWithEmptyValues(paramMap))
+            .isEqualTo(LegacyQueryStringFactory.createFromParamsWithEmptyValues(paramMap))
+    }
+
+    internal companion object {
+        private val PARAMS_FIXTURES: List<Pair<String, StripeParamsModel>> = listOf(
+            "CardParamsFixtures.MINIMUM" to CardParamsFixtures.MINIMUM,
+            "CardParamsFixtures.DEFAULT" to CardParamsFixtures.DEFAULT,
+            "CardParamsFixtures.WITH_ATTRIBUTION" to CardParamsFixtures.WITH_ATTRIBUTION,
+            "MandateDataParamsFixtures.DEFAULT" to MandateDataParamsFixtures.DEFAULT,
+            "PersonTokenParamsFixtures.PARAMS" to PersonTokenParamsFixtures.PARAMS,
+            "PaymentMethodCreateParamsFixtures.CARD" to PaymentMethodCreateParamsFixtures.CARD,
+            "PaymentMethodCreateParamsFixtures.CARD_WITH_ATTRIBUTION" to
+                PaymentMethodCreateParamsFixtures.CARD_WITH_ATTRIBUTION,
+            "PaymentMethodCreateParamsFixtures.DEFAULT_CARD" to
+                PaymentMethodCreateParamsFixtures.DEFAULT_CARD,
+            "PaymentMethodCreateParamsFixtures.DEFAULT_FPX" to
+                PaymentMethodCreateParamsFixtures.DEFAULT_FPX,
+            "PaymentMethodCreateParamsFixtures.DEFAULT_SEPA_DEBIT" to
+                PaymentMethodCreateParamsFixtures.DEFAULT_SEPA_DEBIT,
+            "PaymentMethodCreateParamsFixtures.AU_BECS_DEBIT" to
+                PaymentMethodCreateParamsFixtures.AU_BECS_DEBIT,
+            "PaymentMethodCreateParamsFixtures.BACS_DEBIT" to
+                PaymentMethodCreateParamsFixtures.BACS_DEBIT,
+            "PaymentMethodCreateParamsFixtures.P24" to PaymentMethodCreateParamsFixtures.P24,
+            "PaymentMethodCreateParamsFixtures.BANCONTACT" to
+                PaymentMethodCreateParamsFixtures.BANCONTACT,
+            "PaymentMethodCreateParamsFixtures.EPS" to PaymentMethodCreateParamsFixtures.EPS,
+            "PaymentMethodCreateParamsFixtures.GRABPAY" to PaymentMethodCreateParamsFixtures.GRABPAY,
+            "PaymentMethodCreateParamsFixtures.US_BANK_ACCOUNT" to
+                PaymentMethodCreateParamsFixtures.US_BANK_ACCOUNT,
+            "PaymentMethodCreateParamsFixtures.CASH_APP_PAY" to
+                PaymentMethodCreateParamsFixtures.CASH_APP_PAY,
+            "PaymentMethodCreateParamsFixtures.AMAZON_PAY" to
+                PaymentMethodCreateParamsFixtures.AMAZON_PAY,
+            "PaymentMethodCreateParamsFixtures.MULTIBANCO" to
+                PaymentMethodCreateParamsFixtures.MULTIBANCO,
+            "PaymentMethodCreateParamsFixtures.REVOLUT_PAY" to
+                PaymentMethodCreateParamsFixtures.REVOLUT_PAY,
+            "PaymentMethodCreateParamsFixtures.SWISH" to PaymentMethodCreateParamsFixtures.SWISH,
+            "PaymentMethodCreateParamsFixtures.MOBILE_PAY" to
+                PaymentMethodCreateParamsFixtures.MOBILE_PAY,
+            "PaymentMethodCreateParamsFixtures.TWINT" to PaymentMethodCreateParamsFixtures.TWINT,
+            "PaymentMethodCreateParamsFixtures.ALMA" to PaymentMethodCreateParamsFixtures.ALMA,
+            "PaymentMethodCreateParamsFixtures.SUNBIT" to PaymentMethodCreateParamsFixtures.SUNBIT,
+            "PaymentMethodCreateParamsFixtures.BILLIE" to PaymentMethodCreateParamsFixtures.BILLIE,
+            "PaymentMethodCreateParamsFixtures.SATISPAY" to
+                PaymentMethodCreateParamsFixtures.SATISPAY,
+            "PaymentMethodCreateParamsFixtures.CRYPTO" to PaymentMethodCreateParamsFixtures.CRYPTO,
+            "PaymentMethodCreateParamsFixtures.PAY_BY_BANK" to
+                PaymentMethodCreateParamsFixtures.PAY_BY_BANK,
+            "PaymentMethodCreateParamsFixtures.createWith" to
+                PaymentMethodCreateParamsFixtures.createWith(
+                    mapOf("order_id" to "123 456", "note" to "café & crème")
+                ),
+        )
+
+        /**
+         * A confirm request with mandate data, shipping, payment method data, payment method
+         * options and radar options.
+         */
+        fun createLargeConfirmParams(): ConfirmPaymentIntentParams {
+            return ConfirmPaymentIntentParams.createWithPaymentMethodCreateParams(
+                paymentMethodCreateParams = PaymentMethodCreateParamsFixtures.createWith(
+                    mapOf("order_id" to "123 456", "note" to "café & crème")
+                ),
+                clientSecret = "pi_1234_secret_5678",
+                mandateData = MandateDataParams(MandateDataParams.Type.Online.DEFAULT),
+                setupFutureUsage = ConfirmPaymentIntentParams.SetupFutureUsage.OffSession,
+                shipping = ConfirmPaymentIntentParams.Shipping(
+                    address = AddressFixtures.ADDRESS,
+                    name = "Jenny Rosen",
+                    carrier = "Fedex",
+                    phone = "1-800-555-1234",
+                    trackingNumber = "12345"
+                ),
+                paymentMethodOptions = PaymentMethodOptionsParams.Card(
+                    cvc = "123",
+                    network = "visa"
+                ),
+            ).copy(
+                returnUrl = "stripesdk://payment_return_url/com.stripe.android",
+                receiptEmail = "jenny.rosen@example.com",
+                radarOptions = RadarOptionsFactory.create(),
+            )
+        }
+    }
+}
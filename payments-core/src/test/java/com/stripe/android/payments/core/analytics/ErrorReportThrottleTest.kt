@@ -0,0 +1,193 @@
+package com.stripe.android.payments.core.analytics
+
+import com.google.common.truth.Truth.assertThat
+import com.stripe.android.payments.core.analytics.ErrorReportThrottle.Decision
+import org.junit.Test
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.milliseconds
+import kotlin.time.Duration.Companion.minutes
+import kotlin.time.Duration.Companion.seconds
+
+class ErrorReportThrottleTest {
+
+    private var now = 0L
+    private var sessionId = "session_1"
+
+    private val throttle = ErrorReportThrottle(
+        clock = { now },
+        sessionIdProvider = { sessionId },
+        collapseWindow = 1.minutes,
+        burstSize = 3,
+        refillInterval = 10.seconds,
+    )
+
+    @Test
+    fun `first report of a fingerprint is sent`() {
+        assertThat(throttle.decide(EXPECTED_EVENT, "card_declined")).isEqualTo(Decision.Send(0))
+    }
+
+    @Test
+    fun `a storm of identical reports collapses into one`() {
+        val decisions = List(500) {
+            advanceBy(10.milliseconds)
+            throttle.decide(EXPECTED_EVENT, "card_declined")
+        }
+
+        assertThat(decisions.first()).isEqualTo(Decision.Send(0))
+        assertThat(decisions.count { it is Decision.Send }).isEqualTo(1)
+        assertThat(throttle.counters).isEqualTo(
+            ErrorReportThrottle.Counters(sent = 1, collapsed = 499, rateLimited = 0)
+        )
+    }
+
+    @Test
+    fun `collapsed count is sent with the first report after the window`() {
+        throttle.decide(EXPECTED_EVENT, "card_declined")
+        repeat(4) {
+            advanceBy(1.seconds)
+            throttle.decide(EXPECTED_EVENT, "card_declined")
+        }
+
+        advanceBy(1.minutes)
+
+        assertThat(throttle.decide(EXPECTED_EVENT, "card_declined")).isEqualTo(Decision.Send(4))
+        advanceBy(1.minutes)
+        assertThat(throttle.decide(EXPECTED_EVENT, "card_declined")).isEqualTo(Decision.Send(0))
+    }
+
+    @Test
+    fun `collapsed count of a fingerprint that does not recur is taken after the window`() {
+        throttle.decide(EXPECTED_EVENT, "card_declined", mapOf("attempt" to "0"))
+        repeat(3) {
+            advanceBy(1.seconds)
+            throttle.decide(EXPECTED_EVENT, "card_declined", mapOf("attempt" to "${it + 1}"))
+        }
+        assertThat(throttle.takeDueSuppressedReports()).isEmpty()
+
+        advanceBy(1.minutes)
+
+        assertThat(throttle.takeDueSuppressedReports()).containsExactly(
+            ErrorReportThrottle.SuppressedReport(
+                errorEvent = EXPECTED_EVENT,
+                additionalParams = mapOf("attempt" to "3"),
+                suppressedCount = 3,
+            )
+        )
+        assertThat(throttle.takeDueSuppressedReports()).isEmpty()
+        // Taking the count opened a new window.
+        assertThat(throttle.decide(EXPECTED_EVENT, "card_declined")).isEqualTo(Decision.Drop)
+        assertThat(throttle.counters).isEqualTo(
+            ErrorReportThrottle.Counters(sent = 2, collapsed = 4, rateLimited = 0)
+        )
+    }
+
+    @Test
+    fun `rate limited count is taken once a token refills`() {
+        repeat(3) {
+            throttle.decide(EXPECTED_EVENT, "code_$it")
+        }
+        throttle.decide(EXPECTED_EVENT, "code_3")
+        assertThat(throttle.takeDueSuppressedReports()).isEmpty()
+
+        advanceBy(10.seconds)
+
+        assertThat(throttle.takeDueSuppressedReports()).containsExactly(
+            ErrorReportThrottle.SuppressedReport(
+                errorEvent = EXPECTED_EVENT,
+                additionalParams = emptyMap(),
+                suppressedCount = 1,
+            )
+        )
+    }
+
+    @Test
+    fun `fingerprints differ by event and exception code`() {
+        assertThat(throttle.decide(EXPECTED_EVENT, "card_declined")).isEqualTo(Decision.Send(0))
+        assertThat(throttle.decide(EXPECTED_EVENT, "expired_card")).isEqualTo(Decision.Send(0))
+        assertThat(throttle.decide(OTHER_EXPECTED_EVENT, "card_declined")).isEqualTo(Decision.Send(0))
+        assertThat(throttle.decide(EXPECTED_EVENT, "card_declined")).isEqualTo(Decision.Drop)
+    }
+
+    @Test
+    fun `distinct reports beyond the burst are rate limited until tokens refill`() {
+        repeat(3) {
+            assertThat(throttle.decide(EXPECTED_EVENT, "code_$it")).isEqualTo(Decision.Send(0))
+        }
+
+        assertThat(throttle.decide(EXPECTED_EVENT, "code_3")).isEqualTo(Decision.Drop)
+        assertThat(throttle.decide(EXPECTED_EVENT, "code_3")).isEqualTo(Decision.Drop)
+        assertThat(throttle.counters).isEqualTo(
+            ErrorReportThrottle.Counters(sent = 3, collapsed = 0, rateLimited = 2)
+        )
+
+        advanceBy(9.seconds)
+        assertThat(throttle.decide(EXPECTED_EVENT, "code_3")).isEqualTo(Decision.Drop)
+
+        advanceBy(1.seconds)
+        // The rate limited reports are counted like collapsed ones.
+        assertThat(throttle.decide(EXPECTED_EVENT, "code_3")).isEqualTo(Decision.Send(3))
+        assertThat(throttle.counters).isEqualTo(
+            ErrorReportThrottle.Counters(sent = 4, collapsed = 0, rateLimited = 3)
+        )
+    }
+
+    @Test
+    fun `tokens refill up to the burst size`() {
+        advanceBy(10.minutes)
+
+        repeat(3) {
+            assertThat(throttle.decide(EXPECTED_EVENT, "code_$it")).isEqualTo(Decision.Send(0))
+        }
+        assertThat(throttle.decide(EXPECTED_EVENT, "code_3")).isEqualTo(Decision.Drop)
+    }
+
+    @Test
+    fun `high severity events are never dropped`() {
+        repeat(3) {
+            throttle.decide(EXPECTED_EVENT, "code_$it")
+        }
+
+        val decisions = List(100) {
+            throttle.decide(ErrorReporter.UnexpectedErrorEvent.MISSING_HOSTED_VOUCHER_URL, null)
+        }
+
+        assertThat(decisions).containsExactlyElementsIn(List(100) { Decision.Send(0) })
+        assertThat(throttle.decide(EXPECTED_EVENT, "code_3")).isEqualTo(Decision.Drop)
+    }
+
+    @Test
+    fun `success events are never dropped`() {
+        val decisions = List(100) {
+            throttle.decide(ErrorReporter.SuccessEvent.GET_SAVED_PAYMENT_METHODS_SUCCESS, null)
+        }
+
+        assertThat(decisions).containsExactlyElementsIn(List(100) { Decision.Send(0) })
+    }
+
+    @Test
+    fun `state is reset for a new session`() {
+        repeat(3) {
+            throttle.decide(EXPECTED_EVENT, "code_$it")
+        }
+        throttle.decide(EXPECTED_EVENT, "code_0")
+
+        sessionId = "session_2"
+
+        assertThat(throttle.counters).isEqualTo(
+            ErrorReportThrottle.Counters(sent = 3, collapsed = 1, rateLimited = 0)
+        )
+        assertThat(throttle.decide(EXPECTED_EVENT, "code_0")).isEqualTo(Decision.Send(0))
+        assertThat(throttle.counters).isEqualTo(
+            ErrorReportThrottle.Counters(sent = 1, collapsed = 0, rateLimited = 0)
+        )
+    }
+
+    private fun advanceBy(duration: Duration) {
+        now += duration.inWholeMilliseconds
+    }
+
+    private companion object {
+        val EXPECTED_EVENT = ErrorReporter.ExpectedErrorEvent.GET_SAVED_PAYMENT_METHODS_FAILURE
+        val OTHER_EXPECTED_EVENT = ErrorReporter.ExpectedErrorEvent.PLACES_FETCH_PLACE_ERROR
+    }
+}
@@ -26,7 +26,16 @@ class RealErrorReporterTest {
         publishableKeyProvider = { ApiKeyFixtures.DEFAULT_PUBLISHABLE_KEY },
         networkTypeProvider = { "5G" },
     )
-    val realErrorReporter: RealErrorReporter = RealErrorReporter(analyticsRequestExecutor, analyticsRequestFactory)
+    private var now = 0L
+    private val throttle = ErrorReportThrottle(
+        clock = { now },
+        sessionIdProvider = { SESSION_ID },
+    )
+    val realErrorReporter: RealErrorReporter = RealErrorReporter(
+        analyticsRequestExecutor,
+        analyticsRequestFactory,
+        throttle,
+    )
 
     @Before
     fun clearAnalyticsRequestExecutor() {
@@ -117,4 +126,73 @@ class RealErrorReporterTest {
         assertThat(analyticsRequestParams.get("status_code")).isNull()
         assertThat(analyticsRequestParams.get("request_id")).isNull()
     }
+
+    @Test
+    fun `RealErrorReporter collapses repeated reports and sends the count with the next one`() {
+        val exception = StripeException.create(IllegalArgumentException("this arg isn't legal"))
+
+        repeat(5) {
+            realErrorReporter.report(ErrorReporter.ExpectedErrorEvent.GET_SAVED_PAYMENT_METHODS_FAILURE, exception)
+        }
+
+        assertThat(analyticsRequestExecutor.getExecutedRequests()).hasSize(1)
+        assertThat(analyticsRequestExecutor.getExecutedRequests()[0].params["suppressed_count"]).isNull()
+
+        now += ErrorReportThrottle.DEFAULT_COLLAPSE_WINDOW.inWholeMilliseconds
+        realErrorReporter.report(ErrorReporter.ExpectedErrorEvent.GET_SAVED_PAYMENT_METHODS_FAILURE, exception)
+
+        val executedAnalyticsRequests = analyticsRequestExecutor.getExecutedRequests()
+        assertThat(executedAnalyticsRequests).hasSize(2)
+        assertThat(executedAnalyticsRequests[1].params["suppressed_count"]).isEqualTo("4")
+    }
+
+    @Test
+    fun `RealErrorReporter sends the count of repeats that do not recur with the next report`() {
+        repeat(3) {
+            realErrorReporter.report(
+                errorEvent = ErrorReporter.ExpectedErrorEvent.GET_SAVED_PAYMENT_METHODS_FAILURE,
+                additionalNonPiiParams = mapOf("foo" to "bar"),
+            )
+        }
+
+        now += ErrorReportThrottle.DEFAULT_COLLAPSE_WINDOW.inWholeMilliseconds
+        realErrorReporter.report(ErrorReporter.ExpectedErrorEvent.PLACES_FETCH_PLACE_ERROR)
+
+        val executedAnalyticsRequests = analyticsRequestExecutor.getExecutedRequests()
+        assertThat(executedAnalyticsRequests).hasSize(3)
+        assertThat(executedAnalyticsRequests[2].params["event"])
+            .isEqualTo(ErrorReporter.ExpectedErrorEvent.GET_SAVED_PAYMENT_METHODS_FAILURE.eventName)
+        assertThat(executedAnalyticsRequests[2].params["foo"]).isEqualTo("bar")
+        assertThat(executedAnalyticsRequests[2].params["suppressed_count"]).isEqualTo("2")
+    }
+
+    @Test
+    fun `RealErrorReporter reports every unexpected error`() {
+        repeat(5) {
+            realErrorReporter.report(ErrorReporter.UnexpectedErrorEvent.MISSING_HOSTED_VOUCHER_URL)
+        }
+
+        assertThat(analyticsRequestExecutor.getExecutedRequests()).hasSize(5)
+    }
+
+    @Test
+    fun `RealErrorReporters created separately share one throttle`() {
+        val firstReporter = RealErrorReporter(analyticsRequestExecutor, analyticsRequestFactory)
+        val secondReporter = RealErrorReporter(analyticsRequestExecutor, analyticsRequestFactory)
+
+        firstReporter.report(SharedThrottleEvent)
+        secondReporter.report(SharedThrottleEvent)
+
+        val sharedThrottleRequests = analyticsRequestExecutor.getExecutedRequests()
+            .filter { it.params["event"] == SharedThrottleEvent.eventName }
+        assertThat(sharedThrottleRequests).hasSize(1)
+    }
+
+    private object SharedThrottleEvent : ErrorReporter.ErrorEvent {
+        override val eventName = "real_error_reporter_test.shared_throttle"
+    }
+
+    private companion object {
+        const val SESSION_ID = "session_id"
+    }
 }
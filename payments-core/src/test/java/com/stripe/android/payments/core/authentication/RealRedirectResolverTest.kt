@@ -8,8 +8,12 @@ import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.test.runTest
 import org.junit.Rule
 import org.junit.Test
+import java.util.concurrent.TimeUnit
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.milliseconds
 
 private const val ResolvedUrl = "https://stripe.com/pay-me"
+private const val AppSchemeUrl = "weixin://wxpay/bizpayurl?pr=1234"
 
 internal class RealRedirectResolverTest {
 
@@ -82,7 +86,147 @@ internal class RealRedirectResolverTest {
         assertThat(result).isEqualTo(url)
     }
 
-    private fun buildResolver(): RedirectResolver {
+    @Test
+    fun `Follows multi-hop redirect chains`() = runTest {
+        val resolutions = mutableListOf<RedirectResolution>()
+        val resolver = buildResolver(maxHops = 5, onResolved = resolutions::add)
+        val url = buildPmRedirectsUrl()
+
+        enqueueRedirect("/authorize/acct_1234567890", location = urlFor("/hop/1"))
+        // Relative locations are resolved against the URL of the hop.
+        enqueueRedirect("/hop/1", location = "/hop/2", statusCode = 301)
+        networkRule.enqueue(path("/hop/2"), method("GET")) { response ->
+            response.setResponseCode(200)
+        }
+
+        assertThat(resolver(url)).isEqualTo(urlFor("/hop/2"))
+        assertThat(resolutions.single().hops.map { it.statusCode }).containsExactly(302, 301, 200).inOrder()
+        assertThat(resolutions.single().hops.map { it.url })
+            .containsExactly(url, urlFor("/hop/1"), urlFor("/hop/2"))
+            .inOrder()
+    }
+
+    @Test
+    fun `Stops following redirects after the max hops`() = runTest {
+        val resolver = buildResolver(maxHops = 2)
+        val url = buildPmRedirectsUrl()
+
+        enqueueRedirect("/authorize/acct_1234567890", location = urlFor("/hop/1"))
+        enqueueRedirect("/hop/1", location = urlFor("/hop/2"))
+
+        assertThat(resolver(url)).isEqualTo(urlFor("/hop/2"))
+    }
+
+    @Test
+    fun `Stops following redirects at a loop`() = runTest {
+        val resolutions = mutableListOf<RedirectResolution>()
+        val resolver = buildResolver(maxHops = 5, onResolved = resolutions::add)
+        val url = buildPmRedirectsUrl()
+
+        enqueueRedirect("/authorize/acct_1234567890", location = urlFor("/hop/1"))
+        enqueueRedirect("/hop/1", location = url)
+
+        assertThat(resolver(url)).isEqualTo(url)
+        assertThat(resolutions.single().hops).hasSize(2)
+    }
+
+    @Test
+    fun `Does not follow redirects to app schemes`() = runTest {
+        val resolver = buildResolver(maxHops = 5)
+        val url = buildPmRedirectsUrl()
+
+        enqueueRedirect("/authorize/acct_1234567890", location = AppSchemeUrl)
+
+        assertThat(resolver(url)).isEqualTo(AppSchemeUrl)
+    }
+
+    @Test
+    fun `Resolved URLs are cached`() = runTest {
+        val resolutions = mutableListOf<RedirectResolution>()
+        val cache = RedirectResolutionCache()
+        val url = buildPmRedirectsUrl()
+
+        enqueueRedirect("/authorize/acct_1234567890", location = ResolvedUrl)
+
+        assertThat(buildResolver(cache = cache, onResolved = resolutions::add)(url)).isEqualTo(ResolvedUrl)
+        // A second request would fail the test, as only one response is enqueued.
+        assertThat(buildResolver(cache = cache, onResolved = resolutions::add)(url)).isEqualTo(ResolvedUrl)
+        assertThat(resolutions).hasSize(1)
+    }
+
+    @Test
+    fun `Failed resolutions are not cached`() = runTest {
+        val resolver = buildResolver()
+        val url = buildPmRedirectsUrl()
+
+        networkRule.enqueue(path("/authorize/acct_1234567890"), method("GET")) { response ->
+            response.setResponseCode(500)
+        }
+        enqueueRedirect("/authorize/acct_1234567890", location = ResolvedUrl)
+
+        assertThat(resolver(url)).isEqualTo(url)
+        assertThat(resolver(url)).isEqualTo(ResolvedUrl)
+    }
+
+    @Test
+    fun `Captures the timing of every hop`() = runTest {
+        val resolutions = mutableListOf<RedirectResolution>()
+        val resolver = buildResolver(maxHops = 5, onResolved = resolutions::add)
+        val url = buildPmRedirectsUrl()
+
+        networkRule.enqueue(path("/authorize/acct_1234567890"), method("GET")) { response ->
+            response.setResponseCode(302)
+            response.addHeader("Location", urlFor("/hop/1"))
+            response.setHeadersDelay(200, TimeUnit.MILLISECONDS)
+        }
+        networkRule.enqueue(path("/hop/1"), method("GET")) { response ->
+            response.setResponseCode(200)
+        }
+
+        resolver(url)
+
+        val hops = resolutions.single().hops
+        assertThat(hops[0].duration).isAtLeast(200.milliseconds)
+        assertThat(hops[1].duration).isAtLeast(Duration.ZERO)
+    }
+
+    @Test
+    fun `Analytics params describe the hops without their URLs`() {
+        val resolution = RedirectResolution(
+            url = ResolvedUrl,
+            resolvedUrl = AppSchemeUrl,
+            hops = listOf(
+                RedirectResolution.Hop(ResolvedUrl, 302, ResolvedUrl, 120.milliseconds),
+                RedirectResolution.Hop(ResolvedUrl, 301, AppSchemeUrl, 80.milliseconds),
+            ),
+            isComplete = true,
+        )
+
+        assertThat(resolution.analyticsParams).containsExactly(
+            "is_complete", true,
+            "hop_count", 2,
+            "status_codes", "302,301",
+            "hop_durations", "120,80",
+            "duration", 200f,
+        )
+    }
+
+    private fun enqueueRedirect(path: String, location: String, statusCode: Int = 302) {
+        networkRule.enqueue(path(path), method("GET")) { response ->
+            response.setResponseCode(statusCode)
+            response.addHeader("Location", location)
+        }
+    }
+
+    private fun urlFor(path: String): String {
+        return networkRule.baseUrl.resolve(path).toString()
+    }
+
+    private fun buildResolver(
+        maxHops: Int = RealRedirectResolver.DEFAULT_MAX_HOPS,
+        cache: RedirectResolutionCache = RedirectResolutionCache(),
+        onResolved: (RedirectResolution) -> Unit = {},
+    ): RedirectResolver {
         return RealRedirectResolver(
             configureSSL = {
                 // We need to trust all because we're resolving both the localhost URL
@@ -90,9 +234,11 @@ internal class RealRedirectResolverTest {
                 sslSocketFactory = networkRule.clientSocketFactory(trustAll = true)
             },
             ioDispatcher = Dispatchers.Unconfined,
+            maxHops = maxHops,
+            cache = cache,
+            onResolved = onResolved,
         )
     }
-
     private fun buildPmRedirectsUrl(): String {
         return networkRule.baseUrl.newBuilder()
             .addPathSegment("authorize")
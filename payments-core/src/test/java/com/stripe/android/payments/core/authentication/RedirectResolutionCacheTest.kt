@@ -0,0 +1,45 @@
+package com.stripe.android.payments.core.authentication
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.Test
+import kotlin.time.Duration.Companion.seconds
+
+class RedirectResolutionCacheTest {
+
+    private var now = 0L
+
+    private val cache = RedirectResolutionCache(
+        ttl = 60.seconds,
+        maxSize = 2,
+        clock = { now },
+    )
+
+    @Test
+    fun `resolved URLs expire after the ttl`() {
+        cache[SOURCE_URL] = RESOLVED_URL
+
+        now += 59.seconds.inWholeMilliseconds
+        assertThat(cache[SOURCE_URL]).isEqualTo(RESOLVED_URL)
+
+        now += 1.seconds.inWholeMilliseconds
+        assertThat(cache[SOURCE_URL]).isNull()
+    }
+
+    @Test
+    fun `least recently used URLs are dropped beyond the max size`() {
+        cache["https://example.com/1"] = RESOLVED_URL
+        cache["https://example.com/2"] = RESOLVED_URL
+        assertThat(cache["https://example.com/1"]).isEqualTo(RESOLVED_URL)
+
+        cache["https://example.com/3"] = RESOLVED_URL
+
+        assertThat(cache["https://example.com/1"]).isEqualTo(RESOLVED_URL)
+        assertThat(cache["https://example.com/2"]).isNull()
+        assertThat(cache["https://example.com/3"]).isEqualTo(RESOLVED_URL)
+    }
+
+    private companion object {
+        const val SOURCE_URL = "https://hooks.stripe.com/redirect/authenticate/src_123"
+        const val RESOLVED_URL = "https://stripe.com/pay-me"
+    }
+}
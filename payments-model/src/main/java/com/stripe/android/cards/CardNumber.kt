@@ -48,41 +48,7 @@ sealed class CardNumber {
         @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
         fun getFormatted(
             panLength: Int = DEFAULT_PAN_LENGTH
-        ) = formatNumber(panLength)
-
-        private fun formatNumber(panLength: Int): String {
-            val spacePositions = getSpacePositions(panLength)
-            val spacelessCardNumber = normalized.take(panLength)
-            val groups = arrayOfNulls<String?>(spacePositions.size + 1)
-
-            val length = spacelessCardNumber.length
-            var lastUsedIndex = 0
-
-            spacePositions
-                .toList().sorted().forEachIndexed { idx, spacePosition ->
-                    val adjustedSpacePosition = spacePosition - idx
-                    if (length > adjustedSpacePosition) {
-                        groups[idx] = spacelessCardNumber.substring(
-                            lastUsedIndex,
-                            adjustedSpacePosition
-                        )
-                        lastUsedIndex = adjustedSpacePosition
-                    }
-                }
-
-            // populate any remaining digits in the first index with a null value
-            groups
-                .indexOfFirst { it == null }
-                .takeIf {
-                    it != -1
-                }?.let {
-                    groups[it] = spacelessCardNumber.substring(lastUsedIndex)
-                }
-
-            return groups
-                .takeWhile { it != null }
-                .joinToString(" ")
-        }
+        ): String = CardNumberFormatter().format(normalized, panLength).toString()
 
         @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
         fun isPartialEntry(panLength: Int) =
@@ -0,0 +1,168 @@
+package com.stripe.android.cards
+
+import androidx.annotation.RestrictTo
+
+/**
+ * Formats card numbers into a reusable buffer, and maps cursor positions between the entered and
+ * the formatted number. Shared by `CardNumberEditText` and the Compose card number field, so that
+ * both format a keystroke in a single pass over the number, without intermediate strings.
+ *
+ * Separators follow the gap pattern of a PAN length, e.g. `4242 4242 4242 4242` for 16 digits,
+ * `3782 822463 10005` for 15 digits and `6216 8280 5012 3456 789` for 19 digits.
+ *
+ * Instances are not thread safe.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+class CardNumberFormatter(
+    private val separator: Char = ' ',
+) {
+    private var buffer = CharArray(INITIAL_CAPACITY)
+
+    /**
+     * The length of the last formatted number, separators included.
+     */
+    var length: Int = 0
+        private set
+
+    /**
+     * Formats [input] into the buffer, skipping the spaces and dashes it contains.
+     *
+     * @param panLength the PAN length whose gap pattern is used
+     * @param maxDigits the number of digits to keep, the rest are dropped
+     * @param trailingSeparator whether a group is followed by a separator as soon as it is
+     * complete, as the Compose field shows it, rather than only once the next digit is entered
+     */
+    fun format(
+        input: CharSequence,
+        panLength: Int,
+        maxDigits: Int = panLength,
+        trailingSeparator: Boolean = false,
+    ): CardNumberFormatter {
+        val gaps = digitGaps(panLength)
+        ensureCapacity(minOf(input.length, maxDigits) + gaps.size)
+
+        var digits = 0
+        var gapIndex = 0
+        var end = 0
+        for (index in 0 until input.length) {
+            val char = input[index]
+            if (char == ' ' || char == '-') {
+                continue
+            }
+            if (digits == maxDigits) {
+                break
+            }
+            if (!trailingSeparator && gapIndex < gaps.size && digits == gaps[gapIndex]) {
+                buffer[end++] = separator
+                gapIndex++
+            }
+            buffer[end++] = char
+            digits++
+            if (trailingSeparator && gapIndex < gaps.size && digits == gaps[gapIndex]) {
+                buffer[end++] = separator
+                gapIndex++
+            }
+        }
+
+        length = end
+        return this
+    }
+
+    /**
+     * The last formatted number.
+     */
+    override fun toString(): String = String(buffer, 0, length)
+
+    private fun ensureCapacity(capacity: Int) {
+        if (capacity > buffer.size) {
+            buffer = CharArray(maxOf(capacity, buffer.size * 2))
+        }
+    }
+
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    companion object {
+        private const val INITIAL_CAPACITY = 24
+
+        /**
+         * For every PAN length up to [CardNumber.MAX_PAN_LENGTH], the number of digits preceding
+         * each separator.
+         */
+        private val DIGIT_GAPS = Array(CardNumber.MAX_PAN_LENGTH + 1) { panLength ->
+            CardNumber.getSpacePositions(panLength).sorted().mapIndexed { index, position ->
+                position - index
+            }.toIntArray()
+        }
+
+        private val DEFAULT_DIGIT_GAPS = DIGIT_GAPS[CardNumber.DEFAULT_PAN_LENGTH]
+
+        private fun digitGaps(panLength: Int): IntArray {
+            return DIGIT_GAPS.getOrNull(panLength) ?: DEFAULT_DIGIT_GAPS
+        }
+
+        /**
+         * Where to put the cursor after an edit of a formatted number.
+         *
+         * @param formattedLength the length of the formatted number after the edit
+         * @param start the position in the formatted number at which the edit starts
+         * @param addedDigits the number of characters inserted, zero for a deletion
+         * @param panLength the PAN length whose gap pattern is used
+         */
+        fun cursorPosition(
+            formattedLength: Int,
+            start: Int,
+            addedDigits: Int,
+            panLength: Int,
+        ): Int {
+            val gaps = digitGaps(panLength)
+            var position = start + addedDigits
+            var skipBack = false
+
+            for (index in gaps.indices) {
+                val separatorPosition = gaps[index] + index
+                if (start <= separatorPosition && start + addedDigits >= separatorPosition) {
+                    position++
+                }
+                // Deleting the digit after a separator also skips back over the separator.
+                if (addedDigits == 0 && start == separatorPosition + 1) {
+                    skipBack = true
+                }
+            }
+
+            if (skipBack && position > 0) {
+                position--
+            }
+
+            return position.coerceAtMost(formattedLength)
+        }
+
+        /**
+         * Maps an offset in the entered digits to the number formatted with trailing separators.
+         */
+        fun originalToTransformed(offset: Int, panLength: Int): Int {
+            val gaps = digitGaps(panLength)
+            var transformed = offset
+            for (gap in gaps) {
+                if (offset < gap) {
+                    break
+                }
+                transformed++
+            }
+            return transformed
+        }
+
+        /**
+         * Maps an offset in the number formatted with trailing separators to the entered digits.
+         */
+        fun transformedToOriginal(offset: Int, panLength: Int): Int {
+            val gaps = digitGaps(panLength)
+            var original = offset
+            for (index in gaps.indices) {
+                if (offset <= gaps[index] + index) {
+                    break
+                }
+                original--
+            }
+            return original
+        }
+    }
+}
@@ -4,6 +4,7 @@ import androidx.compose.ui.text.AnnotatedString
 import com.google.common.truth.Truth.assertThat
 import com.stripe.android.ui.core.CardNumberFixtures
 import org.junit.Test
+import kotlin.random.Random
 
 class CardNumberVisualTransformationsTest {
     @Test
@@ -44,4 +45,41 @@ class CardNumberVisualTransformationsTest {
         assertThat(transformation.filter(AnnotatedString(CardNumberFixtures.UNIONPAY_19_NO_SPACES)).text)
             .isEqualTo(AnnotatedString(CardNumberFixtures.UNIONPAY_19_WITH_SPACES))
     }
+
+    @Test
+    fun `offset mappings skip the separators for every transformation`() {
+        val random = Random(1234)
+        val transformations = listOf(
+            CardNumberVisualTransformations.Default(separator = ' '),
+            CardNumberVisualTransformations.FourteenAndFifteenPanLength(separator = ' '),
+            CardNumberVisualTransformations.NineteenPanLength(separator = ' '),
+        )
+
+        transformations.forEach { transformation ->
+            repeat(500) {
+                val number = buildString {
+                    repeat(random.nextInt(24)) { append('0' + random.nextInt(10)) }
+                }
+                val transformed = transformation.filter(AnnotatedString(number))
+                val formatted = transformed.text.text
+                val mapping = transformed.offsetMapping
+
+                assertThat(formatted.filter { it != ' ' }).isEqualTo(number)
+
+                for (offset in 0..number.length) {
+                    val transformedOffset = mapping.originalToTransformed(offset)
+
+                    assertThat(transformedOffset).isIn(0..formatted.length)
+                    assertThat(mapping.transformedToOriginal(transformedOffset)).isEqualTo(offset)
+                    if (offset < number.length) {
+                        assertThat(formatted[transformedOffset]).isEqualTo(number[offset])
+                    }
+                }
+
+                for (offset in 0..formatted.length) {
+                    assertThat(mapping.transformedToOriginal(offset)).isIn(0..number.length)
+                }
+            }
+        }
+    }
 }
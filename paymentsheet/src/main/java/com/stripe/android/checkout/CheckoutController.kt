@@ -29,8 +29,11 @@ import com.stripe.android.paymentsheet.repositories.validateShippingCountry
 import com.stripe.android.paymentsheet.verticalmode.CurrencySelectorOptions
 import com.stripe.android.uicore.image.rememberDrawablePainter
 import dev.drewhamilton.poko.Poko
+import kotlinx.coroutines.CancellationException
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.cancel
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.ensureActive
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withTimeout
@@ -76,6 +79,12 @@ class CheckoutController @Inject internal constructor(
      */
     val isUpdating: StateFlow<Boolean> = operationCoordinator.isUpdating
 
+    private val mutationQueue = CheckoutMutationQueue(
+        operationCoordinator = operationCoordinator,
+        currentState = { stateHolder.state },
+        commit = checkoutStateLoader::reload,
+    )
+
     init {
         viewModelScope.launch {
             operationCoordinator.observeConfirmationResults()
@@ -164,7 +173,11 @@ class CheckoutController @Inject internal constructor(
         stateHolder.state?.checkoutSessionResponse
             ?.validateShippingCountry(address.build().country)
             ?.onFailure { return kotlin.Result.failure(it) }
-        return updateAddress(CheckoutSessionResponse.TaxAddressSource.SHIPPING, address) {
+        return updateAddress(
+            kind = CheckoutMutationQueue.Kind.ShippingAddress,
+            addressType = CheckoutSessionResponse.TaxAddressSource.SHIPPING,
+            address = address,
+        ) {
             copy(
                 collectedDetails = collectedDetails.copy(
                     shippingName = name,
@@ -183,6 +196,7 @@ class CheckoutController @Inject internal constructor(
         email: String?,
     ): kotlin.Result<Unit> {
         return withCheckoutState(
+            kind = CheckoutMutationQueue.Kind.Email,
             additionalStateMutations = {
                 copy(collectedDetails = collectedDetails.copy(email = email))
             },
@@ -194,7 +208,11 @@ class CheckoutController @Inject internal constructor(
     internal suspend fun updateBillingAddress(
         name: String?,
         address: Address,
-    ): kotlin.Result<Unit> = updateAddress(CheckoutSessionResponse.TaxAddressSource.BILLING, address) {
+    ): kotlin.Result<Unit> = updateAddress(
+        kind = CheckoutMutationQueue.Kind.BillingAddress,
+        addressType = CheckoutSessionResponse.TaxAddressSource.BILLING,
+        address = address,
+    ) {
         copy(
             collectedDetails = collectedDetails.copy(
                 billingName = name,
@@ -228,12 +246,14 @@ class CheckoutController @Inject internal constructor(
     }
 
     private suspend fun updateAddress(
+        kind: CheckoutMutationQueue.Kind,
         addressType: CheckoutSessionResponse.TaxAddressSource,
         address: Address,
         mutation: CheckoutControllerState.(Address.State) -> CheckoutControllerState,
     ): kotlin.Result<Unit> {
         val built = address.build()
         return withCheckoutState(
+            kind = kind,
             additionalStateMutations = { mutation(built) },
         ) {
             checkoutSessionTaxRegionUpdater.updateServerStateIfNeeded(
@@ -245,16 +265,20 @@ class CheckoutController @Inject internal constructor(
     }
 
     /**
-     * Runs a mutation against the checkout session, serializing it behind the operation coordinator
-     * so mutations run in sequence. [block] produces the updated [CheckoutSessionResponse]; the
-     * result is folded into a new [CheckoutControllerState] (with any [additionalStateMutations]
-     * applied) and handed to [checkoutStateLoader] to reload the payment element and atomically
-     * commit the new state.
+     * Runs a mutation against the checkout session through the [mutationQueue], serializing it behind
+     * the operation coordinator so mutations run in sequence. [block] produces the updated
+     * [CheckoutSessionResponse]; the result is folded into a new [CheckoutControllerState] (with any
+     * [additionalStateMutations] applied) and handed to [checkoutStateLoader] to reload the payment
+     * element and atomically commit the new state.
+     *
+     * A queued mutation of the same [kind] is superseded by this one, and mutations queued together
+     * are committed with a single reload; see [CheckoutMutationQueue].
      *
      * Returns [kotlin.Result.failure] if the session hasn't been configured yet or a payment flow is
      * currently presented.
      */
     private suspend fun withCheckoutState(
+        kind: CheckoutMutationQueue.Kind? = null,
         additionalStateMutations: CheckoutControllerState.() -> CheckoutControllerState = { this },
         block: suspend CheckoutControllerState.(sessionId: String) -> kotlin.Result<CheckoutSessionResponse>,
     ): kotlin.Result<Unit> {
@@ -267,18 +291,20 @@ class CheckoutController @Inject internal constructor(
                 IllegalStateException("Cannot mutate checkout session while a payment flow is presented.")
             )
         }
-        return operationCoordinator.runMutation {
+        // The queue hands each mutation the latest state, committed or produced by the mutations
+        // batched ahead of it, so serialized mutations build on each other's results rather than a
+        // stale snapshot.
+        return mutationQueue.run(kind) { state ->
             runCatching {
-                // Re-read the latest committed state inside the lock so serialized mutations
-                // build on each other's results rather than a stale snapshot.
-                val state = requireNotNull(stateHolder.state)
                 val response = state.block(state.checkoutSessionResponse.id).getOrThrow()
-                val newState = state
+                state
                     .copy(checkoutSessionResponse = response)
                     .additionalStateMutations()
-                // reload resolves flag images (reusing newState's carried-over cache) and commits
-                // the fully reloaded state to the holder.
-                checkoutStateLoader.reload(newState)
+            }.onFailure { error ->
+                // Timeouts are failures of the mutation, but a cancelled caller stops its batch.
+                if (error is CancellationException) {
+                    currentCoroutineContext().ensureActive()
+                }
             }
         }
     }
@@ -0,0 +1,171 @@
+@file:OptIn(com.stripe.android.paymentelement.CheckoutSessionPreview::class)
+
+package com.stripe.android.checkout
+
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.isActive
+
+/**
+ * Runs [CheckoutController]'s session mutations in order behind the [CheckoutOperationCoordinator],
+ * merging the mutations that queue up while another one runs:
+ *
+ * - A queued mutation with a [Kind] is superseded by a later mutation of the same kind, as only the
+ *   last address or email matters. Its caller gets the result of the mutation that superseded it.
+ * - Whoever gets the next turn runs every queued mutation as one batch. Each mutation builds on the
+ *   state the previous one produced, and the batch is committed with a single [commit], rather than
+ *   a reload of the payment element per mutation.
+ * - A batch that changes neither the session nor the collected details isn't committed at all.
+ *
+ * A mutation that fails doesn't fail the rest of its batch, but a failed [commit] fails every
+ * mutation that succeeded.
+ */
+internal class CheckoutMutationQueue(
+    private val operationCoordinator: CheckoutOperationCoordinator,
+    private val currentState: () -> CheckoutControllerState?,
+    private val commit: suspend (CheckoutControllerState) -> Unit,
+) {
+    private val lock = Any()
+    private val queue = mutableListOf<Mutation>()
+
+    suspend fun run(
+        kind: Kind?,
+        update: suspend (CheckoutControllerState) -> Result<CheckoutControllerState>,
+    ): Result<Unit> {
+        val mutation = Mutation(kind, update)
+        enqueue(mutation)
+
+        try {
+            operationCoordinator.runMutation {
+                // A turn runs the batches up to and including this caller's own mutation, so a caller
+                // never waits on the turn of a caller that might have been cancelled.
+                while (!latest(mutation).result.isCompleted) {
+                    runBatch(takeBatch())
+                }
+                Result.success(Unit)
+            }
+        } catch (error: CancellationException) {
+            withdraw(mutation)
+            throw error
+        }
+
+        return latest(mutation).result.await()
+    }
+
+    private fun enqueue(mutation: Mutation) = synchronized(lock) {
+        val superseded = mutation.kind?.let { kind -> queue.firstOrNull { it.kind == kind } }
+        if (superseded != null) {
+            queue.remove(superseded)
+            superseded.supersededBy = mutation
+            mutation.supersedes = superseded
+        }
+        queue.add(mutation)
+    }
+
+    /**
+     * Removes the mutation of a cancelled caller that hasn't run yet, putting back the latest mutation
+     * it superseded whose caller is still waiting.
+     */
+    private fun withdraw(mutation: Mutation) = synchronized(lock) {
+        mutation.isWithdrawn = true
+        val index = queue.indexOf(mutation)
+        if (index < 0) {
+            return@synchronized
+        }
+
+        val restored = restore(mutation)
+        if (restored != null) {
+            queue[index] = restored
+        } else {
+            queue.removeAt(index)
+        }
+    }
+
+    /**
+     * Puts the mutations of a batch whose running caller was cancelled back at the front of the
+     * queue, so that the next turn runs them for their own callers.
+     */
+    private fun requeue(batch: List<Mutation>) = synchronized(lock) {
+        val restored = batch.mapNotNull { mutation ->
+            if (mutation.isWithdrawn) restore(mutation) else mutation
+        }
+        queue.addAll(0, restored)
+    }
+
+    /**
+     * The latest mutation superseded by the withdrawn [mutation] whose caller is still waiting.
+     */
+    private fun restore(mutation: Mutation): Mutation? {
+        var restored = mutation.supersedes
+        while (restored != null && restored.isWithdrawn) {
+            restored = restored.supersedes
+        }
+        restored?.supersededBy = null
+        return restored
+    }
+
+    private fun latest(mutation: Mutation): Mutation = synchronized(lock) {
+        generateSequence(mutation) { it.supersededBy }.last()
+    }
+
+    private fun takeBatch(): List<Mutation> = synchronized(lock) {
+        queue.toList().also { queue.clear() }
+    }
+
+    private suspend fun runBatch(batch: List<Mutation>) {
+        val failures = mutableMapOf<Mutation, Throwable>()
+        val committed = runCatching {
+            val initialState = requireNotNull(currentState())
+            var state = initialState
+            batch.forEach { mutation ->
+                mutation.update(state).fold(
+                    onSuccess = { state = it },
+                    onFailure = { failures[mutation] = it },
+                )
+            }
+            if (state.hasChangesFrom(initialState)) {
+                commit(state)
+            }
+        }
+
+        val cancellation = (failures.values + listOfNotNull(committed.exceptionOrNull()))
+            .firstOrNull { it is CancellationException }
+        if (cancellation != null && !currentCoroutineContext().isActive) {
+            // Only the caller running the batch was cancelled, so the other callers' mutations are
+            // left for the next turn rather than failed with this cancellation.
+            requeue(batch)
+            throw cancellation
+        }
+
+        batch.forEach { mutation ->
+            mutation.result.complete(
+                failures[mutation]?.let { Result.failure(it) } ?: committed
+            )
+        }
+    }
+
+    /**
+     * Mutations of the same kind overwrite each other, so only the latest queued one has to run.
+     */
+    enum class Kind {
+        ShippingAddress,
+        BillingAddress,
+        Email,
+    }
+
+    private class Mutation(
+        val kind: Kind?,
+        val update: suspend (CheckoutControllerState) -> Result<CheckoutControllerState>,
+    ) {
+        val result = CompletableDeferred<Result<Unit>>()
+        var supersededBy: Mutation? = null
+        var supersedes: Mutation? = null
+        var isWithdrawn = false
+    }
+}
+
+private fun CheckoutControllerState.hasChangesFrom(other: CheckoutControllerState): Boolean {
+    return checkoutSessionResponse != other.checkoutSessionResponse ||
+        collectedDetails != other.collectedDetails
+}
@@ -74,11 +74,33 @@ class CustomerSheet internal constructor(
     fun configure(
         configuration: Configuration,
     ) {
+        if (viewModel.configureRequest?.configuration != configuration) {
+            CustomerSheetHacks.prefetcher.cancel()
+        }
+
         viewModel.configureRequest = CustomerSheetConfigureRequest(
             configuration = configuration,
         )
     }
 
+    /**
+     * Starts loading the customer's saved payment methods in the background, so that [present] can
+     * show them without a loading state. Call this after [configure], once the customer is likely to
+     * open the sheet, such as when showing the screen that presents it.
+     *
+     * The prefetched payment methods are used by the next [present] within a minute, as long as
+     * [configure] wasn't called with a different configuration in between. Otherwise, the sheet
+     * loads them when presented, as it does without a prefetch.
+     */
+    fun prefetch() {
+        val request = viewModel.configureRequest ?: return
+
+        CustomerSheetHacks.prefetcher.prefetch(
+            configuration = request.configuration,
+            initializationDataSource = CustomerSheetHacks.initializationDataSource,
+        )
+    }
+
     /**
      * Presents a sheet to manage the customer. Results of the sheet are delivered through the callback
      * passed in [CustomerSheet.create].
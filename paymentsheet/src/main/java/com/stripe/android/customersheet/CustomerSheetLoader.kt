@@ -44,6 +44,7 @@ internal class DefaultCustomerSheetLoader(
     private val lpmRepository: LpmRepository,
     private val initializationDataSourceProvider: Single<CustomerSheetInitializationDataSource>,
     private val intentDataSourceProvider: Single<CustomerSheetIntentDataSource>,
+    private val prefetcher: CustomerSheetPrefetcher,
     private val eventReporter: CustomerSheetEventReporter,
     private val errorReporter: ErrorReporter,
     private val workContext: CoroutineContext,
@@ -63,6 +64,7 @@ internal class DefaultCustomerSheetLoader(
         lpmRepository = lpmRepository,
         initializationDataSourceProvider = CustomerSheetHacks.initializationDataSource,
         intentDataSourceProvider = CustomerSheetHacks.intentDataSource,
+        prefetcher = CustomerSheetHacks.prefetcher,
         eventReporter = eventReporter,
         errorReporter = errorReporter,
         workContext = workContext,
@@ -72,11 +74,11 @@ internal class DefaultCustomerSheetLoader(
         configuration: CustomerSheet.Configuration
     ): Result<CustomerSheetState.Full> {
         val result = workContext.runCatching {
-            val initializationDataSource = retrieveInitializationDataSource().getOrThrow()
-            var customerSheetSession = initializationDataSource
-                .loadCustomerSheetSession(configuration)
-                .toResult()
-                .getOrThrow()
+            var customerSheetSession = prefetcher.take(configuration)
+                ?: retrieveInitializationDataSource().getOrThrow()
+                    .loadCustomerSheetSession(configuration)
+                    .toResult()
+                    .getOrThrow()
 
             val isPaymentMethodSyncDefaultEnabled = getDefaultPaymentMethodsEnabledForCustomerSheet(
                 customerSheetSession.elementsSession
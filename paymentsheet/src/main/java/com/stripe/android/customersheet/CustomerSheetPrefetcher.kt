@@ -0,0 +1,122 @@
+package com.stripe.android.customersheet
+
+import android.os.SystemClock
+import com.stripe.android.common.coroutines.Single
+import com.stripe.android.customersheet.data.CustomerSheetInitializationDataSource
+import com.stripe.android.customersheet.data.CustomerSheetSession
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.async
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.ensureActive
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.minutes
+
+/**
+ * Loads a [CustomerSheetSession] ahead of [CustomerSheet.present], so that the sheet can show the
+ * customer's payment methods without waiting on the network.
+ *
+ * A prefetched session is used at most once, by a sheet loaded with the same configuration within
+ * [validity] of the prefetch starting, as the customer's payment methods may change afterwards.
+ * Prefetching with another configuration cancels the previous prefetch, and failures are left to
+ * the sheet to load again.
+ *
+ * @param scope the scope sessions are prefetched in, so that a prefetch outlives the screen that
+ * started it while the sheet waits for it
+ */
+internal class CustomerSheetPrefetcher(
+    private val scope: CoroutineScope,
+    private val validity: Duration,
+    private val timeSource: () -> Long,
+) {
+    constructor() : this(
+        scope = CoroutineScope(SupervisorJob() + Dispatchers.IO),
+        validity = DEFAULT_VALIDITY,
+        timeSource = SystemClock::elapsedRealtime,
+    )
+
+    private var prefetch: Prefetch? = null
+
+    /**
+     * Starts loading the session for [configuration], unless a fresh prefetch for it was started.
+     */
+    fun prefetch(
+        configuration: CustomerSheet.Configuration,
+        initializationDataSource: Single<CustomerSheetInitializationDataSource>,
+    ) {
+        synchronized(this) {
+            prefetch?.let { current ->
+                if (current.isUsableFor(configuration)) {
+                    return
+                }
+                current.session.cancel()
+            }
+
+            prefetch = Prefetch(
+                configuration = configuration,
+                startedAtMillis = timeSource(),
+                session = scope.async {
+                    initializationDataSource.await()
+                        .loadCustomerSheetSession(configuration)
+                        .toResult()
+                },
+            )
+        }
+    }
+
+    /**
+     * Takes the prefetched session for [configuration], waiting for it if it is still loading.
+     *
+     * @return the session, or null if there is no fresh prefetch for [configuration] or it failed
+     */
+    suspend fun take(configuration: CustomerSheet.Configuration): CustomerSheetSession? {
+        val prefetch = synchronized(this) {
+            prefetch.also { prefetch = null }
+        } ?: return null
+
+        if (!prefetch.isUsableFor(configuration)) {
+            prefetch.session.cancel()
+            return null
+        }
+
+        return try {
+            prefetch.session.await().getOrNull()
+        } catch (error: CancellationException) {
+            // The prefetch was cancelled rather than the caller, which loads the session itself.
+            currentCoroutineContext().ensureActive()
+            null
+        }
+    }
+
+    /**
+     * Cancels and drops the current prefetch, such as when [CustomerSheet] is configured again.
+     */
+    fun cancel() {
+        synchronized(this) {
+            prefetch?.session?.cancel()
+            prefetch = null
+        }
+    }
+
+    private fun Prefetch.isUsableFor(configuration: CustomerSheet.Configuration): Boolean {
+        return this.configuration == configuration &&
+            timeSource() - startedAtMillis < validity.inWholeMilliseconds
+    }
+
+    private class Prefetch(
+        val configuration: CustomerSheet.Configuration,
+        val startedAtMillis: Long,
+        val session: Deferred<Result<CustomerSheetSession>>,
+    )
+
+    internal companion object {
+        /**
+         * Long enough to cover going from the screen that prefetches to presenting the sheet, and
+         * short enough for the customer's payment methods not to be outdated.
+         */
+        val DEFAULT_VALIDITY = 1.minutes
+    }
+}
@@ -8,6 +8,7 @@ import androidx.lifecycle.LifecycleOwner
 import com.stripe.android.common.coroutines.Single
 import com.stripe.android.common.coroutines.asSingle
 import com.stripe.android.customersheet.CustomerSheetIntegration
+import com.stripe.android.customersheet.CustomerSheetPrefetcher
 import com.stripe.android.customersheet.data.CustomerSheetInitializationDataSource
 import com.stripe.android.customersheet.data.CustomerSheetIntentDataSource
 import com.stripe.android.customersheet.data.CustomerSheetPaymentMethodDataSource
@@ -37,6 +38,8 @@ internal object CustomerSheetHacks {
     val intentDataSource: Single<CustomerSheetIntentDataSource>
         get() = _intentDataSource.asSingle()
 
+    val prefetcher = CustomerSheetPrefetcher()
+
     fun initialize(
         application: Application,
         lifecycleOwner: LifecycleOwner,
@@ -99,5 +102,6 @@ internal object CustomerSheetHacks {
         _paymentMethodDataSource.value = null
         _savedSelectionDataSource.value = null
         _intentDataSource.value = null
+        prefetcher.cancel()
     }
 }
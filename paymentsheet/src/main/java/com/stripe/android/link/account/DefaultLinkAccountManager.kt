@@ -64,7 +64,16 @@ internal class DefaultLinkAccountManager @Inject constructor(
     private val _consumerState: MutableStateFlow<ConsumerState?> = MutableStateFlow(null)
     override val consumerState: StateFlow<ConsumerState?> = _consumerState.asStateFlow()
 
-    override var cachedShippingAddresses: ConsumerShippingAddresses? = null
+    private val paymentDetailsCache = LinkPaymentDetailsCache()
+
+    override var cachedShippingAddresses: ConsumerShippingAddresses?
+        get() = linkAccountHolder.linkAccountInfo.value.account?.let { linkAccount ->
+            paymentDetailsCache.getShippingAddresses(linkAccount.clientSecret)
+        }
+        set(value) {
+            val linkAccount = linkAccountHolder.linkAccountInfo.value.account ?: return
+            paymentDetailsCache.putShippingAddresses(linkAccount.clientSecret, value)
+        }
 
     private val _suggestedEmail: MutableStateFlow<String?> = MutableStateFlow(null)
     override val suggestedEmail: StateFlow<String?> = _suggestedEmail.asStateFlow()
@@ -117,6 +126,7 @@ internal class DefaultLinkAccountManager @Inject constructor(
         }
 
     override suspend fun logOut(): Result<ConsumerSession> {
+        paymentDetailsCache.clear()
         return runCatching {
             requireNotNull(linkAccountHolder.linkAccountInfo.value.account)
         }.mapCatching { account ->
@@ -217,6 +227,7 @@ internal class DefaultLinkAccountManager @Inject constructor(
                     consumerSessionClientSecret = account.clientSecret,
                     clientAttributionMetadata = config.clientAttributionMetadata,
                 ).onSuccess {
+                    paymentDetailsCache.onPaymentDetailsCreated(account.clientSecret)
                     errorReporter.report(ErrorReporter.SuccessEvent.LINK_CREATE_CARD_SUCCESS)
                 }
             }
@@ -242,6 +253,7 @@ internal class DefaultLinkAccountManager @Inject constructor(
                 clientAttributionMetadata = config.clientAttributionMetadata,
                 customerEphemeralKey = customerEphemeralKey,
             ).onSuccess {
+                paymentDetailsCache.onPaymentDetailsCreated(account.clientSecret)
                 errorReporter.report(ErrorReporter.SuccessEvent.LINK_CREATE_CARD_SUCCESS)
             }
         } ?: run {
@@ -279,7 +291,9 @@ internal class DefaultLinkAccountManager @Inject constructor(
                 userEmail = linkAccount.email,
                 consumerSessionClientSecret = linkAccount.clientSecret,
                 clientAttributionMetadata = config.clientAttributionMetadata,
-            )
+            ).onSuccess {
+                paymentDetailsCache.onPaymentDetailsCreated(linkAccount.clientSecret)
+            }
         } else {
             errorReporter.report(ErrorReporter.UnexpectedErrorEvent.LINK_ATTACH_BANK_ACCOUNT_WITH_NULL_ACCOUNT)
             Result.failure(
@@ -419,10 +433,20 @@ internal class DefaultLinkAccountManager @Inject constructor(
     override suspend fun listPaymentDetails(paymentMethodTypes: Set<String>): Result<ConsumerPaymentDetails> {
         val linkAccount = linkAccountHolder.linkAccountInfo.value.account
             ?: return Result.failure(NoLinkAccountFoundException())
-        return linkRepository.listPaymentDetails(
+        val paymentDetails = paymentDetailsCache.getPaymentDetails(
+            consumerSessionClientSecret = linkAccount.clientSecret,
+            paymentMethodTypes = paymentMethodTypes,
+        )?.let { Result.success(it) } ?: linkRepository.listPaymentDetails(
             paymentMethodTypes = paymentMethodTypes,
             consumerSessionClientSecret = linkAccount.clientSecret,
         ).onSuccess { paymentDetailsList ->
+            paymentDetailsCache.putPaymentDetails(
+                consumerSessionClientSecret = linkAccount.clientSecret,
+                paymentMethodTypes = paymentMethodTypes,
+                paymentDetails = paymentDetailsList,
+            )
+        }
+        return paymentDetails.onSuccess { paymentDetailsList ->
             _consumerState.value = _consumerState.value
                 ?.withPaymentDetailsResponse(paymentDetailsList)
                 ?: ConsumerState.fromResponse(paymentDetailsList)
@@ -432,9 +456,14 @@ internal class DefaultLinkAccountManager @Inject constructor(
     override suspend fun listShippingAddresses(): Result<ConsumerShippingAddresses> {
         val linkAccount = linkAccountHolder.linkAccountInfo.value.account
             ?: return Result.failure(NoLinkAccountFoundException())
+        paymentDetailsCache.getShippingAddresses(linkAccount.clientSecret)?.let {
+            return Result.success(it)
+        }
         return linkRepository.listShippingAddresses(
             consumerSessionClientSecret = linkAccount.clientSecret,
-        )
+        ).onSuccess { shippingAddresses ->
+            paymentDetailsCache.putShippingAddresses(linkAccount.clientSecret, shippingAddresses)
+        }
     }
 
     override suspend fun deletePaymentDetails(paymentDetailsId: String): Result<Unit> {
@@ -443,7 +472,9 @@ internal class DefaultLinkAccountManager @Inject constructor(
         return linkRepository.deletePaymentDetails(
             paymentDetailsId = paymentDetailsId,
             consumerSessionClientSecret = linkAccount.clientSecret,
-        )
+        ).onSuccess {
+            paymentDetailsCache.onPaymentDetailsDeleted(linkAccount.clientSecret, paymentDetailsId)
+        }
     }
 
     override suspend fun updatePaymentDetails(
@@ -457,6 +488,10 @@ internal class DefaultLinkAccountManager @Inject constructor(
             consumerSessionClientSecret = linkAccount.clientSecret,
         ).map { updatedPaymentDetails ->
             updatedPaymentDetails.also {
+                paymentDetailsCache.onPaymentDetailsUpdated(
+                    consumerSessionClientSecret = linkAccount.clientSecret,
+                    updatedPaymentDetails = it.paymentDetails.first(),
+                )
                 _consumerState.value = _consumerState.value?.withUpdatedPaymentDetail(
                     updatedPayment = it.paymentDetails.first(),
                     billingPhone = phone
@@ -35,6 +35,8 @@ internal interface LinkAccountManager {
 
     /**
      * Cached shipping addresses for the current Link account.
+     * [listShippingAddresses] calls will refresh this value. It is dropped on logout or when the
+     * consumer session changes.
      */
     var cachedShippingAddresses: ConsumerShippingAddresses?
 
@@ -0,0 +1,131 @@
+package com.stripe.android.link.account
+
+import com.stripe.android.model.ConsumerPaymentDetails
+import com.stripe.android.model.ConsumerShippingAddresses
+
+/**
+ * The payment details and shipping addresses of a consumer session, so that the wallet, the
+ * inline flow and the Link controller don't list them again for every screen of a session.
+ *
+ * Payment details are kept by the payment method types they were listed for, and are updated in
+ * place by the changes made to them in the session. Everything is dropped when the consumer
+ * session changes.
+ */
+internal class LinkPaymentDetailsCache {
+    private var consumerSessionClientSecret: String? = null
+    private val paymentDetails = HashMap<Set<String>, ConsumerPaymentDetails>()
+    private var shippingAddresses: ConsumerShippingAddresses? = null
+
+    @Synchronized
+    fun getPaymentDetails(
+        consumerSessionClientSecret: String,
+        paymentMethodTypes: Set<String>
+    ): ConsumerPaymentDetails? {
+        useSession(consumerSessionClientSecret)
+        return paymentDetails[paymentMethodTypes]
+    }
+
+    @Synchronized
+    fun putPaymentDetails(
+        consumerSessionClientSecret: String,
+        paymentMethodTypes: Set<String>,
+        paymentDetails: ConsumerPaymentDetails
+    ) {
+        useSession(consumerSessionClientSecret)
+        this.paymentDetails[paymentMethodTypes] = paymentDetails
+    }
+
+    @Synchronized
+    fun getShippingAddresses(consumerSessionClientSecret: String): ConsumerShippingAddresses? {
+        useSession(consumerSessionClientSecret)
+        return shippingAddresses
+    }
+
+    @Synchronized
+    fun putShippingAddresses(
+        consumerSessionClientSecret: String,
+        shippingAddresses: ConsumerShippingAddresses?
+    ) {
+        useSession(consumerSessionClientSecret)
+        this.shippingAddresses = shippingAddresses
+    }
+
+    /**
+     * New payment details may belong to any of the listed types, so every list is listed again.
+     */
+    @Synchronized
+    fun onPaymentDetailsCreated(consumerSessionClientSecret: String) {
+        useSession(consumerSessionClientSecret)
+        paymentDetails.clear()
+    }
+
+    /**
+     * Replaces [updatedPaymentDetails] in every list, making it the only default if it became the
+     * default.
+     */
+    @Synchronized
+    fun onPaymentDetailsUpdated(
+        consumerSessionClientSecret: String,
+        updatedPaymentDetails: ConsumerPaymentDetails.PaymentDetails
+    ) {
+        useSession(consumerSessionClientSecret)
+        updateLists { details ->
+            when {
+                details.id == updatedPaymentDetails.id -> updatedPaymentDetails
+                updatedPaymentDetails.isDefault -> details.withoutDefault()
+                else -> details
+            }
+        }
+    }
+
+    /**
+     * Removes the deleted payment details from every list. Lists it was the default of are listed
+     * again, as another payment detail may have become the default.
+     */
+    @Synchronized
+    fun onPaymentDetailsDeleted(consumerSessionClientSecret: String, paymentDetailsId: String) {
+        useSession(consumerSessionClientSecret)
+        paymentDetails.values.removeAll { list ->
+            list.paymentDetails.any { it.id == paymentDetailsId && it.isDefault }
+        }
+        updateLists { details ->
+            details.takeUnless { it.id == paymentDetailsId }
+        }
+    }
+
+    @Synchronized
+    fun clear() {
+        consumerSessionClientSecret = null
+        paymentDetails.clear()
+        shippingAddresses = null
+    }
+
+    /**
+     * Drops everything cached for another consumer session.
+     */
+    private fun useSession(consumerSessionClientSecret: String) {
+        if (this.consumerSessionClientSecret != consumerSessionClientSecret) {
+            clear()
+            this.consumerSessionClientSecret = consumerSessionClientSecret
+        }
+    }
+
+    private fun updateLists(
+        transform: (ConsumerPaymentDetails.PaymentDetails) -> ConsumerPaymentDetails.PaymentDetails?
+    ) {
+        paymentDetails.entries.forEach { entry ->
+            entry.setValue(
+                entry.value.copy(paymentDetails = entry.value.paymentDetails.mapNotNull(transform))
+            )
+        }
+    }
+
+    private fun ConsumerPaymentDetails.PaymentDetails.withoutDefault(): ConsumerPaymentDetails.PaymentDetails {
+        return when (this) {
+            is ConsumerPaymentDetails.Card -> copy(isDefault = false)
+            is ConsumerPaymentDetails.BankAccount -> copy(isDefault = false)
+            is ConsumerPaymentDetails.Generic -> copy(isDefault = false)
+            is ConsumerPaymentDetails.Passthrough -> this
+        }
+    }
+}
@@ -164,8 +164,80 @@ internal data class PaymentMethodMetadata(
         return PaymentMethodRegistry.definitionsByCode[paymentMethodCode]?.requiresMandate(this) ?: false
     }
 
+    // Which payment methods are supported only depends on this metadata, so it's resolved once per
+    // instance rather than every time a screen asks for it.
+    @IgnoredOnParcel
+    private val externalPaymentMethodSpecsByType: Map<String, ExternalPaymentMethodSpec> by lazy {
+        externalPaymentMethodSpecs.associateFirstBy { it.type }
+    }
+
+    @IgnoredOnParcel
+    private val displayableCustomPaymentMethodsById: Map<String, DisplayableCustomPaymentMethod> by lazy {
+        displayableCustomPaymentMethods.associateFirstBy { it.id }
+    }
+
+    @IgnoredOnParcel
+    private val supportedDefinitions: List<PaymentMethodDefinition> by lazy {
+        resolveSupportedPaymentMethodDefinitions()
+    }
+
+    @IgnoredOnParcel
+    private val supportedDefinitionsByCode: Map<String, PaymentMethodDefinition> by lazy {
+        supportedDefinitions.associateFirstBy { it.type.code }
+    }
+
+    @IgnoredOnParcel
+    private val supportedCodes: List<String> by lazy {
+        resolveSupportedPaymentMethodTypes()
+    }
+
+    @IgnoredOnParcel
+    private val supportedSavedTypes: List<PaymentMethod.Type> by lazy {
+        resolveSupportedSavedPaymentMethodTypes()
+    }
+
+    @IgnoredOnParcel
+    private val supportedPaymentMethodsByCode: Map<String, SupportedPaymentMethod> by lazy {
+        buildMap {
+            supportedCodes.forEach { code ->
+                if (!containsKey(code)) {
+                    resolveSupportedPaymentMethodForCode(code)?.let { put(code, it) }
+                }
+            }
+        }
+    }
+
+    @IgnoredOnParcel
+    private val orderedSupportedPaymentMethods: List<SupportedPaymentMethod> by lazy {
+        supportedCodes.mapNotNull { supportedPaymentMethodsByCode[it] }
+    }
+
     fun supportedPaymentMethodTypes(): List<String> {
-        return supportedPaymentMethodDefinitions().map { paymentMethodDefinition ->
+        return supportedCodes
+    }
+
+    fun supportedSavedPaymentMethodTypes(): List<PaymentMethod.Type> {
+        return supportedSavedTypes
+    }
+
+    fun supportedPaymentMethodForCode(
+        code: String,
+    ): SupportedPaymentMethod? {
+        return supportedPaymentMethodsByCode[code]
+    }
+
+    fun displayNameForCode(
+        code: String?,
+    ): ResolvableString {
+        return code?.let { supportedPaymentMethodForCode(code) }?.displayName.orEmpty()
+    }
+
+    fun sortedSupportedPaymentMethods(): List<SupportedPaymentMethod> {
+        return orderedSupportedPaymentMethods
+    }
+
+    private fun resolveSupportedPaymentMethodTypes(): List<String> {
+        return supportedDefinitions.map { paymentMethodDefinition ->
             paymentMethodDefinition.type.code
         }.plus(externalPaymentMethodTypes()).plus(customPaymentMethodIds()).run {
             if (paymentMethodOrder.isEmpty()) {
@@ -180,8 +252,8 @@ internal data class PaymentMethodMetadata(
         }
     }
 
-    fun supportedSavedPaymentMethodTypes(): List<PaymentMethod.Type> {
-        val supportedTypes = supportedPaymentMethodDefinitions().filter { paymentMethodDefinition ->
+    private fun resolveSupportedSavedPaymentMethodTypes(): List<PaymentMethod.Type> {
+        val supportedTypes = supportedDefinitions.filter { paymentMethodDefinition ->
             paymentMethodDefinition.supportedAsSavedPaymentMethod
         }.map {
             it.type
@@ -194,7 +266,7 @@ internal data class PaymentMethodMetadata(
         }
     }
 
-    fun supportedPaymentMethodForCode(
+    private fun resolveSupportedPaymentMethodForCode(
         code: String,
     ): SupportedPaymentMethod? {
         return if (isExternalPaymentMethod(code)) {
@@ -204,21 +276,11 @@ internal data class PaymentMethodMetadata(
             getUiDefinitionFactoryForCustomPaymentMethod(code)
                 ?.createSupportedPaymentMethod(metadata = this)
         } else {
-            val definition = supportedPaymentMethodDefinitions().firstOrNull { it.type.code == code } ?: return null
+            val definition = supportedDefinitionsByCode[code] ?: return null
             definition.uiDefinitionFactory(this).supportedPaymentMethod(this, definition, sharedDataSpecs)
         }
     }
 
-    fun displayNameForCode(
-        code: String?,
-    ): ResolvableString {
-        return code?.let { supportedPaymentMethodForCode(code) }?.displayName.orEmpty()
-    }
-
-    fun sortedSupportedPaymentMethods(): List<SupportedPaymentMethod> {
-        return supportedPaymentMethodTypes().mapNotNull { supportedPaymentMethodForCode(it) }
-    }
-
     private fun orderedPaymentMethodTypes(): List<String> {
         val originalOrderedTypes = stripeIntent.paymentMethodTypes
             .plus(externalPaymentMethodTypes())
@@ -245,6 +307,20 @@ internal data class PaymentMethodMetadata(
         }.toMap()
     }
 
+    /**
+     * Like [associateBy], but keeps the first element for each key, as lookups with `firstOrNull` do.
+     */
+    private inline fun <T> List<T>.associateFirstBy(keySelector: (T) -> String): Map<String, T> {
+        return buildMap {
+            this@associateFirstBy.forEach { element ->
+                val key = keySelector(element)
+                if (!containsKey(key)) {
+                    put(key, element)
+                }
+            }
+        }
+    }
+
     private fun externalPaymentMethodTypes(): List<String> {
         return externalPaymentMethodSpecs.map { it.type }
     }
@@ -254,27 +330,25 @@ internal data class PaymentMethodMetadata(
     }
 
     fun isExternalPaymentMethod(code: String): Boolean {
-        return externalPaymentMethodTypes().contains(code)
+        return externalPaymentMethodSpecsByType.containsKey(code)
     }
 
     fun isCustomPaymentMethod(code: String): Boolean {
-        return customPaymentMethodIds().contains(code)
+        return displayableCustomPaymentMethodsById.containsKey(code)
     }
 
     private fun getUiDefinitionFactoryForCustomPaymentMethod(code: String): UiDefinitionFactory.Simple? {
-        val displayableCustomPaymentMethodForCode = displayableCustomPaymentMethods.firstOrNull {
-            it.id == code
-        } ?: return null
+        val displayableCustomPaymentMethodForCode = displayableCustomPaymentMethodsById[code] ?: return null
 
         return CustomPaymentMethodUiDefinitionFactory(displayableCustomPaymentMethodForCode)
     }
 
     private fun getUiDefinitionFactoryForExternalPaymentMethod(code: String): UiDefinitionFactory.Simple? {
-        val externalPaymentMethodSpecForCode = externalPaymentMethodSpecs.firstOrNull { it.type == code } ?: return null
+        val externalPaymentMethodSpecForCode = externalPaymentMethodSpecsByType[code] ?: return null
         return ExternalPaymentMethodUiDefinitionFactory(externalPaymentMethodSpecForCode)
     }
 
-    private fun supportedPaymentMethodDefinitions(): List<PaymentMethodDefinition> {
+    private fun resolveSupportedPaymentMethodDefinitions(): List<PaymentMethodDefinition> {
         val supportedPaymentMethodTypes = stripeIntent.paymentMethodTypes.mapNotNull {
             PaymentMethodRegistry.definitionsByCode[it]
         }.filter {
@@ -323,7 +397,7 @@ internal data class PaymentMethodMetadata(
                 incentive = null,
             )
         } else {
-            val definition = supportedPaymentMethodDefinitions().firstOrNull { it.type.code == code } ?: return null
+            val definition = supportedDefinitionsByCode[code] ?: return null
 
             definition.uiDefinitionFactory(this).formHeaderInformation(
                 metadata = this,
@@ -349,7 +423,7 @@ internal data class PaymentMethodMetadata(
                 arguments = uiDefinitionFactoryArgumentsFactory.create(this, requiresMandate = false)
             )
         } else {
-            val definition = supportedPaymentMethodDefinitions().firstOrNull { it.type.code == code } ?: return null
+            val definition = supportedDefinitionsByCode[code] ?: return null
 
             definition.uiDefinitionFactory(this).formElements(
                 metadata = this,
@@ -0,0 +1,278 @@
+@file:OptIn(com.stripe.android.paymentelement.CheckoutSessionPreview::class)
+
+package com.stripe.android.checkout
+
+import androidx.lifecycle.SavedStateHandle
+import com.google.common.truth.Truth.assertThat
+import com.stripe.android.checkout.CheckoutMutationQueue.Kind
+import com.stripe.android.core.Logger
+import com.stripe.android.paymentelement.confirmation.FakeConfirmationHandler
+import com.stripe.android.paymentelement.embedded.content.SheetStateHolder
+import com.stripe.android.paymentsheet.repositories.CheckoutSessionResponseFactory
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.test.TestScope
+import kotlinx.coroutines.test.runTest
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@RunWith(RobolectricTestRunner::class)
+internal class CheckoutMutationQueueTest {
+
+    @Test
+    fun `a burst of address updates makes one round trip and one reload behind the running update`() =
+        runScenario {
+            val results = List(5) { index ->
+                updateShippingAddress(postalCode = "8020$index").also { runCurrent() }
+            }.awaitAll()
+
+            assertThat(results.all { it.isSuccess }).isTrue()
+            // The first update was running when the rest arrived, and only the last of those ran.
+            assertThat(server.taxRegions).containsExactly("80200", "80204").inOrder()
+            assertThat(reloads).isEqualTo(2)
+            assertThat(currentTime).isEqualTo(2 * (ROUND_TRIP_MILLIS + RELOAD_MILLIS))
+            assertThat(state.collectedDetails.shippingAddress?.postalCode).isEqualTo("80204")
+            assertThat(state.checkoutSessionResponse.amount).isEqualTo(2)
+        }
+
+    @Test
+    fun `updates of different kinds queued together are committed with one reload`() = runScenario {
+        val running = updateShippingAddress(postalCode = "80202")
+        runCurrent()
+        val queued = listOf(
+            updateEmail("first@example.com"),
+            updateBillingAddress(postalCode = "10001"),
+            updateEmail("second@example.com"),
+            updateShippingAddress(postalCode = "80203"),
+        )
+
+        (queued + running).awaitAll().forEach { it.getOrThrow() }
+
+        assertThat(server.taxRegions).containsExactly("80202", "80203").inOrder()
+        assertThat(reloads).isEqualTo(2)
+        assertThat(state.collectedDetails).isEqualTo(
+            CheckoutCollectedDetails(
+                email = "second@example.com",
+                shippingAddress = address("80203"),
+                billingAddress = address("10001"),
+            )
+        )
+    }
+
+    @Test
+    fun `superseded callers get the result of the update that superseded them`() = runScenario {
+        val running = updateShippingAddress(postalCode = "80200")
+        runCurrent()
+        val superseded = updateShippingAddress(postalCode = "80201")
+        server.failures += "80202"
+        val latest = updateShippingAddress(postalCode = "80202")
+
+        assertThat(running.await().isSuccess).isTrue()
+        assertThat(latest.await().exceptionOrNull()).hasMessageThat().isEqualTo("Invalid address")
+        assertThat(superseded.await().exceptionOrNull()).hasMessageThat().isEqualTo("Invalid address")
+        assertThat(state.collectedDetails.shippingAddress?.postalCode).isEqualTo("80200")
+        assertThat(reloads).isEqualTo(1)
+    }
+
+    @Test
+    fun `a failed update does not fail the rest of its batch`() = runScenario {
+        val running = updateEmail("first@example.com")
+        runCurrent()
+        server.failures += "80202"
+        val failed = updateShippingAddress(postalCode = "80202")
+        val email = updateEmail("second@example.com")
+
+        assertThat(running.await().isSuccess).isTrue()
+        assertThat(failed.await().isFailure).isTrue()
+        assertThat(email.await().isSuccess).isTrue()
+        assertThat(state.collectedDetails.email).isEqualTo("second@example.com")
+        assertThat(state.collectedDetails.shippingAddress).isNull()
+        assertThat(reloads).isEqualTo(2)
+    }
+
+    @Test
+    fun `a failed reload fails every update of its batch`() = runScenario {
+        val running = updateEmail("first@example.com")
+        runCurrent()
+        val queued = listOf(updateEmail("second@example.com"), updateBillingAddress(postalCode = "10001"))
+        reloadFailure = IllegalStateException("Failed to load")
+
+        assertThat(running.await().isFailure).isTrue()
+        queued.awaitAll().forEach { result ->
+            assertThat(result.exceptionOrNull()).hasMessageThat().isEqualTo("Failed to load")
+        }
+        assertThat(state.collectedDetails.email).isNull()
+    }
+
+    @Test
+    fun `updates that change nothing are not reloaded`() = runScenario {
+        updateEmail(null).await().getOrThrow()
+        updateBillingAddress(postalCode = null).await().getOrThrow()
+
+        assertThat(reloads).isEqualTo(0)
+        assertThat(currentTime).isEqualTo(0)
+    }
+
+    @Test
+    fun `updates without a kind are never superseded`() = runScenario {
+        val running = updateEmail("first@example.com")
+        runCurrent()
+        val first = applyPromotionCode()
+        val second = applyPromotionCode()
+
+        listOf(running, first, second).awaitAll().forEach { it.getOrThrow() }
+
+        assertThat(server.promotionCodes).isEqualTo(2)
+        assertThat(reloads).isEqualTo(2)
+    }
+
+    @Test
+    fun `a cancelled update is withdrawn and the update it superseded runs instead`() = runScenario {
+        val running = updateEmail("first@example.com")
+        runCurrent()
+        val superseded = updateShippingAddress(postalCode = "80201")
+        val cancelled = updateShippingAddress(postalCode = "80202")
+        runCurrent()
+
+        cancelled.cancel()
+
+        assertThat(running.await().isSuccess).isTrue()
+        assertThat(superseded.await().isSuccess).isTrue()
+        assertThat(server.taxRegions).containsExactly("80201")
+        assertThat(state.collectedDetails.shippingAddress?.postalCode).isEqualTo("80201")
+    }
+
+    @Test
+    fun `cancelling the caller running a batch leaves the other updates for the next turn`() = runScenario {
+        val running = updateEmail("first@example.com")
+        runCurrent()
+        val batchRunner = updateShippingAddress(postalCode = "80201")
+        val queued = updateBillingAddress(postalCode = "10001")
+        // The email is reloaded, and the shipping address caller is running the next batch.
+        advanceTimeBy(RELOAD_MILLIS + ROUND_TRIP_MILLIS / 2)
+
+        batchRunner.cancel()
+
+        assertThat(running.await().isSuccess).isTrue()
+        assertThat(queued.await().isSuccess).isTrue()
+        assertThat(server.taxRegions).containsExactly("80201")
+        assertThat(state.collectedDetails.billingAddress?.postalCode).isEqualTo("10001")
+        assertThat(state.collectedDetails.shippingAddress).isNull()
+    }
+
+    private fun runScenario(
+        block: suspend Scenario.() -> Unit,
+    ) = runTest {
+        val coordinator = CheckoutOperationCoordinator(
+            confirmationHandler = FakeConfirmationHandler(),
+            sheetStateHolder = SheetStateHolder(SavedStateHandle()),
+            sessionRefresher = FakeCheckoutSessionRefresher(),
+            logger = Logger.noop(),
+            resultCallback = CheckoutController.ResultCallback {},
+        )
+        Scenario(coordinator, this).block()
+    }
+
+    /**
+     * Commits through a reload with a fixed latency, against a [FakeCheckoutServer] with a fixed
+     * round trip latency, so bursts of updates are deterministic in virtual time.
+     */
+    private class Scenario(
+        coordinator: CheckoutOperationCoordinator,
+        private val testScope: TestScope,
+    ) : CoroutineScope by testScope {
+        val server = FakeCheckoutServer()
+        var state = CheckoutControllerStateFactory.create(
+            checkoutSessionResponse = CheckoutSessionResponseFactory.create(amount = 0),
+        )
+            private set
+        var reloads = 0
+            private set
+        var reloadFailure: Throwable? = null
+
+        private val queue = CheckoutMutationQueue(
+            operationCoordinator = coordinator,
+            currentState = { state },
+            commit = { newState ->
+                reloads++
+                delay(RELOAD_MILLIS)
+                reloadFailure?.let { throw it }
+                state = newState
+            },
+        )
+
+        val currentTime: Long get() = testScope.testScheduler.currentTime
+
+        fun runCurrent() = testScope.testScheduler.runCurrent()
+
+        fun advanceTimeBy(millis: Long) = testScope.testScheduler.advanceTimeBy(millis)
+
+        fun updateShippingAddress(postalCode: String) = enqueue(Kind.ShippingAddress) { current ->
+            server.updateTaxRegion(current, postalCode).copy(
+                collectedDetails = current.collectedDetails.copy(shippingAddress = address(postalCode)),
+            )
+        }
+
+        fun updateBillingAddress(postalCode: String?) = enqueue(Kind.BillingAddress) { current ->
+            current.copy(
+                collectedDetails = current.collectedDetails.copy(billingAddress = postalCode?.let { address(it) }),
+            )
+        }
+
+        fun updateEmail(email: String?) = enqueue(Kind.Email) { current ->
+            current.copy(collectedDetails = current.collectedDetails.copy(email = email))
+        }
+
+        fun applyPromotionCode() = enqueue(kind = null) { current ->
+            server.applyPromotionCode(current)
+        }
+
+        private fun enqueue(
+            kind: Kind?,
+            update: suspend (CheckoutControllerState) -> CheckoutControllerState,
+        ): Deferred<Result<Unit>> = async {
+            queue.run(kind) { current -> runCatching { update(current) } }
+        }
+    }
+
+    /**
+     * Counts round trips, and returns a new session amount on every one of them.
+     */
+    private class FakeCheckoutServer {
+        val taxRegions = mutableListOf<String>()
+        val failures = mutableSetOf<String>()
+        var promotionCodes = 0
+            private set
+
+        suspend fun updateTaxRegion(state: CheckoutControllerState, postalCode: String): CheckoutControllerState {
+            taxRegions += postalCode
+            delay(ROUND_TRIP_MILLIS)
+            require(postalCode !in failures) { "Invalid address" }
+            return state.withNextAmount()
+        }
+
+        suspend fun applyPromotionCode(state: CheckoutControllerState): CheckoutControllerState {
+            promotionCodes++
+            delay(ROUND_TRIP_MILLIS)
+            return state.withNextAmount()
+        }
+
+        private fun CheckoutControllerState.withNextAmount() = copy(
+            checkoutSessionResponse = checkoutSessionResponse.copy(amount = checkoutSessionResponse.amount + 1),
+        )
+    }
+
+    private companion object {
+        const val ROUND_TRIP_MILLIS = 300L
+        const val RELOAD_MILLIS = 200L
+
+        fun address(postalCode: String) = CheckoutController.Address()
+            .country("US")
+            .postalCode(postalCode)
+            .build()
+    }
+}
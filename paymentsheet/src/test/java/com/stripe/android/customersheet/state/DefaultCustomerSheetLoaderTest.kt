@@ -11,6 +11,7 @@ import com.stripe.android.customersheet.CustomerPermissions
 import com.stripe.android.customersheet.CustomerSheet
 import com.stripe.android.customersheet.CustomerSheetIntegration
 import com.stripe.android.customersheet.CustomerSheetLoader
+import com.stripe.android.customersheet.CustomerSheetPrefetcher
 import com.stripe.android.customersheet.DefaultCustomerSheetLoader
 import com.stripe.android.customersheet.FakeCustomerAdapter
 import com.stripe.android.customersheet.analytics.CustomerSheetEventReporter
@@ -51,9 +52,11 @@ import com.stripe.android.ui.core.cbc.CardBrandChoiceEligibility
 import com.stripe.android.utils.CompletableSingle
 import com.stripe.android.utils.FakeElementsSessionRepository
 import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.flow
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.test.StandardTestDispatcher
+import kotlinx.coroutines.test.TestScope
 import kotlinx.coroutines.test.UnconfinedTestDispatcher
 import kotlinx.coroutines.test.runTest
 import kotlinx.coroutines.withTimeout
@@ -734,6 +737,171 @@ internal class DefaultCustomerSheetLoaderTest {
             .containsExactly("card", "us_bank_account")
     }
 
+    @Test
+    fun `a prefetched session is shown without waiting for it to load`() = runTest {
+        val scenario = PrefetchScenario(this)
+
+        scenario.prefetch()
+        val timeToContent = scenario.presentAfter(1_000)
+
+        assertThat(timeToContent).isEqualTo(0)
+        assertThat(scenario.initializationDataSource.loads).isEqualTo(1)
+    }
+
+    @Test
+    fun `without a prefetch, the session loads when presented`() = runTest {
+        val scenario = PrefetchScenario(this)
+
+        val timeToContent = scenario.presentAfter(1_000)
+
+        assertThat(timeToContent).isEqualTo(SESSION_LOAD_MILLIS)
+        assertThat(scenario.initializationDataSource.loads).isEqualTo(1)
+    }
+
+    @Test
+    fun `a prefetch that is still loading when presented is awaited rather than loaded again`() = runTest {
+        val scenario = PrefetchScenario(this)
+
+        scenario.prefetch()
+        val timeToContent = scenario.presentAfter(SESSION_LOAD_MILLIS / 2)
+
+        assertThat(timeToContent).isEqualTo(SESSION_LOAD_MILLIS / 2)
+        assertThat(scenario.initializationDataSource.loads).isEqualTo(1)
+    }
+
+    @Test
+    fun `an expired prefetch is not used`() = runTest {
+        val scenario = PrefetchScenario(this)
+
+        scenario.prefetch()
+        val timeToContent = scenario.presentAfter(CustomerSheetPrefetcher.DEFAULT_VALIDITY.inWholeMilliseconds)
+
+        assertThat(timeToContent).isEqualTo(SESSION_LOAD_MILLIS)
+        assertThat(scenario.initializationDataSource.loads).isEqualTo(2)
+    }
+
+    @Test
+    fun `a prefetch for another configuration is not used`() = runTest {
+        val scenario = PrefetchScenario(this)
+
+        scenario.prefetch(CustomerSheet.Configuration(merchantDisplayName = "Other merchant"))
+        val timeToContent = scenario.presentAfter(1_000)
+
+        assertThat(timeToContent).isEqualTo(SESSION_LOAD_MILLIS)
+        assertThat(scenario.initializationDataSource.loads).isEqualTo(2)
+    }
+
+    @Test
+    fun `prefetching with another configuration cancels the previous prefetch`() = runTest {
+        val scenario = PrefetchScenario(this)
+
+        scenario.prefetch(CustomerSheet.Configuration(merchantDisplayName = "Other merchant"))
+        testScheduler.advanceTimeBy(SESSION_LOAD_MILLIS / 2)
+        scenario.prefetch()
+        val timeToContent = scenario.presentAfter(1_000)
+
+        assertThat(timeToContent).isEqualTo(0)
+        assertThat(scenario.initializationDataSource.loads).isEqualTo(2)
+        assertThat(scenario.initializationDataSource.completedLoads).isEqualTo(1)
+    }
+
+    @Test
+    fun `a failed prefetch is loaded again when presented`() = runTest {
+        val scenario = PrefetchScenario(this)
+        scenario.initializationDataSource.failNextLoad = true
+
+        scenario.prefetch()
+        val timeToContent = scenario.presentAfter(1_000)
+
+        assertThat(timeToContent).isEqualTo(SESSION_LOAD_MILLIS)
+        assertThat(scenario.initializationDataSource.loads).isEqualTo(2)
+    }
+
+    /**
+     * A sheet presented some time after the screen it is presented from was shown, with a session
+     * that takes [SESSION_LOAD_MILLIS] to load.
+     */
+    private inner class PrefetchScenario(private val testScope: TestScope) {
+        val configuration = CustomerSheet.Configuration(merchantDisplayName = "Example")
+        val initializationDataSource = SlowInitializationDataSource(
+            session = CustomerSheetSession(
+                elementsSession = createElementsSession(
+                    intent = STRIPE_INTENT,
+                    cardBrandChoice = null,
+                    isPaymentMethodSyncDefaultEnabled = false,
+                ),
+                paymentMethods = listOf(PaymentMethodFixtures.CARD_PAYMENT_METHOD),
+                savedSelection = null,
+                paymentMethodSaveConsentBehavior = PaymentMethodSaveConsentBehavior.Legacy,
+                permissions = CustomerPermissions(
+                    removePaymentMethod = PaymentMethodRemovePermission.Full,
+                    canRemoveLastPaymentMethod = true,
+                    canUpdateCardExpiryAndBillingDetails = true,
+                ),
+                defaultPaymentMethodId = null,
+                customerId = "cus_123",
+                customerEphemeralKeySecret = "ek_123",
+                customerSessionClientSecret = null,
+            ),
+        )
+
+        private val prefetcher = CustomerSheetPrefetcher(
+            scope = testScope.backgroundScope,
+            validity = CustomerSheetPrefetcher.DEFAULT_VALIDITY,
+            timeSource = { testScope.testScheduler.currentTime },
+        )
+
+        private val loader = createCustomerSheetLoader(
+            initializationDataSourceProvider = CompletableSingle(initializationDataSource),
+            intentDataSourceProvider = CompletableSingle(FakeCustomerSheetIntentDataSource()),
+            prefetcher = prefetcher,
+        )
+
+        fun prefetch(configuration: CustomerSheet.Configuration = this.configuration) {
+            prefetcher.prefetch(configuration, CompletableSingle(initializationDataSource))
+        }
+
+        /**
+         * @return the time from presenting the sheet to its content being loaded
+         */
+        suspend fun presentAfter(delayMillis: Long): Long {
+            testScope.testScheduler.advanceTimeBy(delayMillis)
+            testScope.testScheduler.runCurrent()
+            val presentedAt = testScope.testScheduler.currentTime
+
+            val state = loader.load(configuration).getOrThrow()
+
+            assertThat(state.customerPaymentMethods).containsExactly(PaymentMethodFixtures.CARD_PAYMENT_METHOD)
+            return testScope.testScheduler.currentTime - presentedAt
+        }
+    }
+
+    private class SlowInitializationDataSource(
+        private val session: CustomerSheetSession,
+    ) : CustomerSheetInitializationDataSource {
+        var loads = 0
+            private set
+        var completedLoads = 0
+            private set
+        var failNextLoad = false
+
+        override suspend fun loadCustomerSheetSession(
+            configuration: CustomerSheet.Configuration,
+        ): CustomerSheetDataResult<CustomerSheetSession> {
+            loads++
+            delay(SESSION_LOAD_MILLIS)
+            completedLoads++
+            if (failNextLoad) {
+                failNextLoad = false
+                return CustomerSheetDataResult.failure(
+                    cause = IllegalStateException("Failed to load"),
+                    displayMessage = null,
+                )
+            }
+            return CustomerSheetDataResult.success(session)
+        }
+    }
+
     private fun createCustomerSheetLoader(
         isGooglePayReady: Boolean = true,
         isCbcEligible: Boolean? = null,
@@ -842,7 +1010,8 @@ internal class DefaultCustomerSheetLoaderTest {
         lpmRepository: LpmRepository = this.lpmRepository,
         errorReporter: ErrorReporter = FakeErrorReporter(),
         eventReporter: CustomerSheetEventReporter = FakeCustomerSheetEventReporter(),
-        workContext: CoroutineContext = UnconfinedTestDispatcher()
+        workContext: CoroutineContext = UnconfinedTestDispatcher(),
+        prefetcher: CustomerSheetPrefetcher = CustomerSheetPrefetcher(),
     ): CustomerSheetLoader {
         return DefaultCustomerSheetLoader(
             googlePayRepositoryFactory = object : GooglePayRepositoryFactory {
@@ -860,6 +1029,7 @@ internal class DefaultCustomerSheetLoaderTest {
             },
             initializationDataSourceProvider = initializationDataSourceProvider,
             intentDataSourceProvider = intentDataSourceProvider,
+            prefetcher = prefetcher,
             lpmRepository = lpmRepository,
             isFinancialConnectionsAvailable = isFinancialConnectionsAvailable,
             eventReporter = eventReporter,
@@ -917,6 +1087,8 @@ internal class DefaultCustomerSheetLoaderTest {
     }
 
     private companion object {
+        private const val SESSION_LOAD_MILLIS = 800L
+
         private val STRIPE_INTENT = PaymentIntentFixtures.PI_REQUIRES_PAYMENT_METHOD.copy(
             paymentMethodTypes = listOf("card", "us_bank_account")
         )
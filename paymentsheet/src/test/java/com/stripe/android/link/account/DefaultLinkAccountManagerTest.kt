@@ -768,6 +768,170 @@ class DefaultLinkAccountManagerTest {
         assertThat(linkRepository.paymentMethodTypes).isEqualTo(setOf("card"))
     }
 
+    @Test
+    fun `listPaymentDetails lists once across wallet edits`() = runSuspendTest {
+        val linkRepository = FakeLinkRepository()
+        val accountManager = accountManager(linkRepository = linkRepository)
+        accountManager.setTestAccount(TestFactory.CONSUMER_SESSION, TestFactory.PUBLISHABLE_KEY)
+        val updatedGeneric = TestFactory.CONSUMER_PAYMENT_DETAILS_GENERIC.copy(isDefault = true)
+        linkRepository.updatePaymentDetailsResult = Result.success(
+            ConsumerPaymentDetails(paymentDetails = listOf(updatedGeneric))
+        )
+
+        accountManager.listPaymentDetails(WALLET_PAYMENT_METHOD_TYPES)
+        accountManager.deletePaymentDetails(TestFactory.CONSUMER_PAYMENT_DETAILS_BANK_ACCOUNT.id)
+        accountManager.listPaymentDetails(WALLET_PAYMENT_METHOD_TYPES)
+        accountManager.updatePaymentDetails(
+            ConsumerPaymentDetailsUpdateParams(
+                id = updatedGeneric.id,
+                isDefault = true,
+                clientAttributionMetadataParams =
+                PaymentMethodMetadataFixtures.CLIENT_ATTRIBUTION_METADATA.toParamMap(),
+            )
+        )
+        val result = accountManager.listPaymentDetails(WALLET_PAYMENT_METHOD_TYPES)
+
+        assertThat(linkRepository.listPaymentDetailsCalls).isEqualTo(1)
+        assertThat(result.getOrThrow().paymentDetails).containsExactly(
+            TestFactory.CONSUMER_PAYMENT_DETAILS_CARD.copy(isDefault = false),
+            TestFactory.CONSUMER_PAYMENT_DETAILS_PASSTHROUGH,
+            updatedGeneric,
+        ).inOrder()
+    }
+
+    @Test
+    fun `listPaymentDetails lists each set of payment method types`() = runSuspendTest {
+        val linkRepository = FakeLinkRepository()
+        val accountManager = accountManager(linkRepository = linkRepository)
+        accountManager.setTestAccount(TestFactory.CONSUMER_SESSION, TestFactory.PUBLISHABLE_KEY)
+
+        accountManager.listPaymentDetails(setOf("card"))
+        accountManager.listPaymentDetails(WALLET_PAYMENT_METHOD_TYPES)
+        accountManager.listPaymentDetails(setOf("card"))
+
+        assertThat(linkRepository.listPaymentDetailsCalls).isEqualTo(2)
+    }
+
+    @Test
+    fun `listPaymentDetails lists again after payment details are created`() = runSuspendTest {
+        val linkRepository = FakeLinkRepository()
+        val accountManager = accountManager(linkRepository = linkRepository)
+        accountManager.setTestAccount(TestFactory.CONSUMER_SESSION, TestFactory.PUBLISHABLE_KEY)
+
+        accountManager.listPaymentDetails(WALLET_PAYMENT_METHOD_TYPES)
+        accountManager.createCardPaymentDetails(TestFactory.PAYMENT_METHOD_CREATE_PARAMS)
+        accountManager.listPaymentDetails(WALLET_PAYMENT_METHOD_TYPES)
+
+        assertThat(linkRepository.listPaymentDetailsCalls).isEqualTo(2)
+    }
+
+    @Test
+    fun `listPaymentDetails lists again after the default payment details are deleted`() = runSuspendTest {
+        val linkRepository = FakeLinkRepository()
+        val accountManager = accountManager(linkRepository = linkRepository)
+        accountManager.setTestAccount(TestFactory.CONSUMER_SESSION, TestFactory.PUBLISHABLE_KEY)
+
+        accountManager.listPaymentDetails(WALLET_PAYMENT_METHOD_TYPES)
+        accountManager.deletePaymentDetails(TestFactory.CONSUMER_PAYMENT_DETAILS_CARD.id)
+        accountManager.listPaymentDetails(WALLET_PAYMENT_METHOD_TYPES)
+
+        assertThat(linkRepository.listPaymentDetailsCalls).isEqualTo(2)
+    }
+
+    @Test
+    fun `listPaymentDetails does not cache failures`() = runSuspendTest {
+        val linkRepository = FakeLinkRepository()
+        val accountManager = accountManager(linkRepository = linkRepository)
+        accountManager.setTestAccount(TestFactory.CONSUMER_SESSION, TestFactory.PUBLISHABLE_KEY)
+
+        linkRepository.listPaymentDetailsResult = Result.failure(AuthenticationException(StripeError()))
+        accountManager.listPaymentDetails(WALLET_PAYMENT_METHOD_TYPES)
+        linkRepository.listPaymentDetailsResult = Result.success(TestFactory.CONSUMER_PAYMENT_DETAILS)
+        val result = accountManager.listPaymentDetails(WALLET_PAYMENT_METHOD_TYPES)
+
+        assertThat(result.getOrNull()).isEqualTo(TestFactory.CONSUMER_PAYMENT_DETAILS)
+        assertThat(linkRepository.listPaymentDetailsCalls).isEqualTo(2)
+    }
+
+    @Test
+    fun `listPaymentDetails lists again after logging out`() = runSuspendTest {
+        val linkRepository = FakeLinkRepository()
+        val accountManager = accountManager(linkRepository = linkRepository)
+        accountManager.setTestAccount(TestFactory.CONSUMER_SESSION, TestFactory.PUBLISHABLE_KEY)
+
+        accountManager.listPaymentDetails(WALLET_PAYMENT_METHOD_TYPES)
+        accountManager.listShippingAddresses()
+        accountManager.logOut()
+        accountManager.setTestAccount(TestFactory.CONSUMER_SESSION, TestFactory.PUBLISHABLE_KEY)
+        accountManager.listPaymentDetails(WALLET_PAYMENT_METHOD_TYPES)
+        accountManager.listShippingAddresses()
+
+        assertThat(linkRepository.listPaymentDetailsCalls).isEqualTo(2)
+        assertThat(linkRepository.listShippingAddressesCalls).isEqualTo(2)
+    }
+
+    @Test
+    fun `listPaymentDetails lists again for another consumer session`() = runSuspendTest {
+        val linkRepository = FakeLinkRepository()
+        val accountManager = accountManager(linkRepository = linkRepository)
+        accountManager.setTestAccount(TestFactory.CONSUMER_SESSION, TestFactory.PUBLISHABLE_KEY)
+
+        accountManager.listPaymentDetails(WALLET_PAYMENT_METHOD_TYPES)
+        accountManager.setTestAccount(
+            TestFactory.CONSUMER_SESSION.copy(clientSecret = "other_client_secret"),
+            TestFactory.PUBLISHABLE_KEY
+        )
+        accountManager.listPaymentDetails(WALLET_PAYMENT_METHOD_TYPES)
+
+        assertThat(linkRepository.listPaymentDetailsCalls).isEqualTo(2)
+    }
+
+    @Test
+    fun `listShippingAddresses lists once per consumer session`() = runSuspendTest {
+        val linkRepository = FakeLinkRepository()
+        val accountManager = accountManager(linkRepository = linkRepository)
+        accountManager.setTestAccount(TestFactory.CONSUMER_SESSION, TestFactory.PUBLISHABLE_KEY)
+
+        val first = accountManager.listShippingAddresses()
+        val second = accountManager.listShippingAddresses()
+
+        assertThat(second).isEqualTo(first)
+        assertThat(linkRepository.listShippingAddressesCalls).isEqualTo(1)
+    }
+
+    @Test
+    fun `cachedShippingAddresses is the shipping addresses listed for the consumer session`() = runSuspendTest {
+        val linkRepository = FakeLinkRepository()
+        val accountManager = accountManager(linkRepository = linkRepository)
+        accountManager.setTestAccount(TestFactory.CONSUMER_SESSION, TestFactory.PUBLISHABLE_KEY)
+
+        assertThat(accountManager.cachedShippingAddresses).isNull()
+
+        val shippingAddresses = accountManager.listShippingAddresses().getOrThrow()
+
+        assertThat(accountManager.cachedShippingAddresses).isEqualTo(shippingAddresses)
+    }
+
+    @Test
+    fun `cachedShippingAddresses is dropped on logout and for another consumer session`() = runSuspendTest {
+        val accountManager = accountManager()
+        accountManager.setTestAccount(TestFactory.CONSUMER_SESSION, TestFactory.PUBLISHABLE_KEY)
+
+        accountManager.cachedShippingAddresses = TestFactory.CONSUMER_SHIPPING_ADDRESSES
+        accountManager.setTestAccount(
+            TestFactory.CONSUMER_SESSION.copy(clientSecret = "other_client_secret"),
+            TestFactory.PUBLISHABLE_KEY
+        )
+
+        assertThat(accountManager.cachedShippingAddresses).isNull()
+
+        accountManager.cachedShippingAddresses = TestFactory.CONSUMER_SHIPPING_ADDRESSES
+        accountManager.logOut()
+        accountManager.setTestAccount(TestFactory.CONSUMER_SESSION, TestFactory.PUBLISHABLE_KEY)
+
+        assertThat(accountManager.cachedShippingAddresses).isNull()
+    }
+
     @Test
     fun `deletePaymentDetails returns error when repository call fails`() = runSuspendTest {
         val error = AuthenticationException(StripeError())
@@ -1319,6 +1483,10 @@ class DefaultLinkAccountManagerTest {
             testLinkAccountHolder.set(LinkAccountUpdate.Value(account = null))
         }
     }
+
+    private companion object {
+        val WALLET_PAYMENT_METHOD_TYPES = setOf("card", "bank_account")
+    }
 }
 
 private open class AccountManagerEventsReporter : FakeLinkEventsReporter() {
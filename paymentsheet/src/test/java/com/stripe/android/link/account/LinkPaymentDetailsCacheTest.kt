@@ -0,0 +1,96 @@
+package com.stripe.android.link.account
+
+import com.google.common.truth.Truth.assertThat
+import com.stripe.android.link.TestFactory
+import org.junit.Test
+
+class LinkPaymentDetailsCacheTest {
+
+    private val cache = LinkPaymentDetailsCache()
+
+    @Test
+    fun `payment details are cached by payment method types`() {
+        cache.putPaymentDetails(CLIENT_SECRET, setOf("card"), TestFactory.CONSUMER_PAYMENT_DETAILS)
+
+        assertThat(cache.getPaymentDetails(CLIENT_SECRET, setOf("card")))
+            .isEqualTo(TestFactory.CONSUMER_PAYMENT_DETAILS)
+        assertThat(cache.getPaymentDetails(CLIENT_SECRET, setOf("card", "bank_account"))).isNull()
+    }
+
+    @Test
+    fun `updating payment details to the default un-defaults the others`() {
+        cache.putPaymentDetails(CLIENT_SECRET, setOf("card"), TestFactory.CONSUMER_PAYMENT_DETAILS)
+        val updatedBankAccount = TestFactory.CONSUMER_PAYMENT_DETAILS_BANK_ACCOUNT.copy(isDefault = true)
+
+        cache.onPaymentDetailsUpdated(CLIENT_SECRET, updatedBankAccount)
+
+        assertThat(cache.getPaymentDetails(CLIENT_SECRET, setOf("card"))?.paymentDetails).containsExactly(
+            TestFactory.CONSUMER_PAYMENT_DETAILS_CARD.copy(isDefault = false),
+            updatedBankAccount,
+            TestFactory.CONSUMER_PAYMENT_DETAILS_PASSTHROUGH,
+            TestFactory.CONSUMER_PAYMENT_DETAILS_GENERIC,
+        ).inOrder()
+    }
+
+    @Test
+    fun `updating payment details keeps the default when it is not the default`() {
+        cache.putPaymentDetails(CLIENT_SECRET, setOf("card"), TestFactory.CONSUMER_PAYMENT_DETAILS)
+        val updatedBankAccount = TestFactory.CONSUMER_PAYMENT_DETAILS_BANK_ACCOUNT.copy(nickname = "Savings")
+
+        cache.onPaymentDetailsUpdated(CLIENT_SECRET, updatedBankAccount)
+
+        assertThat(cache.getPaymentDetails(CLIENT_SECRET, setOf("card"))?.paymentDetails).containsExactly(
+            TestFactory.CONSUMER_PAYMENT_DETAILS_CARD,
+            updatedBankAccount,
+            TestFactory.CONSUMER_PAYMENT_DETAILS_PASSTHROUGH,
+            TestFactory.CONSUMER_PAYMENT_DETAILS_GENERIC,
+        ).inOrder()
+    }
+
+    @Test
+    fun `deleting payment details removes them from every list`() {
+        cache.putPaymentDetails(CLIENT_SECRET, setOf("card"), TestFactory.CONSUMER_PAYMENT_DETAILS)
+
+        cache.onPaymentDetailsDeleted(CLIENT_SECRET, TestFactory.CONSUMER_PAYMENT_DETAILS_BANK_ACCOUNT.id)
+
+        assertThat(cache.getPaymentDetails(CLIENT_SECRET, setOf("card"))?.paymentDetails).containsExactly(
+            TestFactory.CONSUMER_PAYMENT_DETAILS_CARD,
+            TestFactory.CONSUMER_PAYMENT_DETAILS_PASSTHROUGH,
+            TestFactory.CONSUMER_PAYMENT_DETAILS_GENERIC,
+        ).inOrder()
+    }
+
+    @Test
+    fun `deleting the default payment details drops the lists it was in`() {
+        cache.putPaymentDetails(CLIENT_SECRET, setOf("card"), TestFactory.CONSUMER_PAYMENT_DETAILS)
+
+        cache.onPaymentDetailsDeleted(CLIENT_SECRET, TestFactory.CONSUMER_PAYMENT_DETAILS_CARD.id)
+
+        assertThat(cache.getPaymentDetails(CLIENT_SECRET, setOf("card"))).isNull()
+    }
+
+    @Test
+    fun `creating payment details drops every list but keeps shipping addresses`() {
+        cache.putPaymentDetails(CLIENT_SECRET, setOf("card"), TestFactory.CONSUMER_PAYMENT_DETAILS)
+        cache.putShippingAddresses(CLIENT_SECRET, TestFactory.CONSUMER_SHIPPING_ADDRESSES)
+
+        cache.onPaymentDetailsCreated(CLIENT_SECRET)
+
+        assertThat(cache.getPaymentDetails(CLIENT_SECRET, setOf("card"))).isNull()
+        assertThat(cache.getShippingAddresses(CLIENT_SECRET)).isEqualTo(TestFactory.CONSUMER_SHIPPING_ADDRESSES)
+    }
+
+    @Test
+    fun `another consumer session drops everything`() {
+        cache.putPaymentDetails(CLIENT_SECRET, setOf("card"), TestFactory.CONSUMER_PAYMENT_DETAILS)
+        cache.putShippingAddresses(CLIENT_SECRET, TestFactory.CONSUMER_SHIPPING_ADDRESSES)
+
+        assertThat(cache.getShippingAddresses("other_client_secret")).isNull()
+        assertThat(cache.getPaymentDetails(CLIENT_SECRET, setOf("card"))).isNull()
+        assertThat(cache.getShippingAddresses(CLIENT_SECRET)).isNull()
+    }
+
+    private companion object {
+        const val CLIENT_SECRET = "client_secret"
+    }
+}
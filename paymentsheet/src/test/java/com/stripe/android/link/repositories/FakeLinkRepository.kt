@@ -57,6 +57,11 @@ internal open class FakeLinkRepository : LinkRepository {
     var updatePhoneNumberResult = Result.success(TestFactory.CONSUMER_SESSION)
     var deletePaymentDetailsResult = Result.success(Unit)
 
+    var listPaymentDetailsCalls = 0
+        private set
+    var listShippingAddressesCalls = 0
+        private set
+
     private val lookupConsumerCalls = Turbine<LookupCall>()
     private val lookupConsumerWithoutBackendLoggingCalls = Turbine<LookupCall>()
     private val mobileLookupCalls = Turbine<MobileLookupCall>()
@@ -232,11 +237,17 @@ internal open class FakeLinkRepository : LinkRepository {
     override suspend fun listPaymentDetails(
         paymentMethodTypes: Set<String>,
         consumerSessionClientSecret: String,
-    ): Result<ConsumerPaymentDetails> = listPaymentDetailsResult
+    ): Result<ConsumerPaymentDetails> {
+        listPaymentDetailsCalls++
+        return listPaymentDetailsResult
+    }
 
     override suspend fun listShippingAddresses(
         consumerSessionClientSecret: String,
-    ): Result<ConsumerShippingAddresses> = listShippingAddressesResult
+    ): Result<ConsumerShippingAddresses> {
+        listShippingAddressesCalls++
+        return listShippingAddressesResult
+    }
 
     override suspend fun deletePaymentDetails(
         paymentDetailsId: String,
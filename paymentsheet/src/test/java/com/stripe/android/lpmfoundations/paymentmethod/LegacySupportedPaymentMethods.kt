@@ -0,0 +1,124 @@
+package com.stripe.android.lpmfoundations.paymentmethod
+
+import com.stripe.android.lpmfoundations.luxe.SupportedPaymentMethod
+import com.stripe.android.lpmfoundations.paymentmethod.definitions.CustomPaymentMethodUiDefinitionFactory
+import com.stripe.android.lpmfoundations.paymentmethod.definitions.ExternalPaymentMethodUiDefinitionFactory
+import com.stripe.android.lpmfoundations.paymentmethod.definitions.LinkCardBrandDefinition
+import com.stripe.android.model.PaymentMethod
+
+/**
+ * The supported payment method resolution [PaymentMethodMetadata] used before it resolved them
+ * once per instance, which went through every definition on each call. Kept to check that the
+ * results are unchanged.
+ */
+internal class LegacySupportedPaymentMethods(
+    private val metadata: PaymentMethodMetadata,
+) {
+
+    fun supportedPaymentMethodTypes(): List<String> {
+        return supportedPaymentMethodDefinitions().map { paymentMethodDefinition ->
+            paymentMethodDefinition.type.code
+        }.plus(externalPaymentMethodTypes()).plus(customPaymentMethodIds()).run {
+            if (metadata.paymentMethodOrder.isEmpty()) {
+                this
+            } else {
+                val orderedPaymentMethodTypes = orderedPaymentMethodTypes().mapIndexed { index, code ->
+                    code to index
+                }.toMap()
+                sortedBy { code ->
+                    orderedPaymentMethodTypes[code]
+                }
+            }
+        }
+    }
+
+    fun supportedSavedPaymentMethodTypes(): List<PaymentMethod.Type> {
+        val supportedTypes = supportedPaymentMethodDefinitions().filter { paymentMethodDefinition ->
+            paymentMethodDefinition.supportedAsSavedPaymentMethod
+        }.map {
+            it.type
+        }
+
+        return if (metadata.allowsLinkInSavedPaymentMethods) {
+            supportedTypes + listOf(PaymentMethod.Type.Link)
+        } else {
+            supportedTypes
+        }
+    }
+
+    fun supportedPaymentMethodForCode(code: String): SupportedPaymentMethod? {
+        return if (isExternalPaymentMethod(code)) {
+            metadata.externalPaymentMethodSpecs.firstOrNull { it.type == code }?.let { spec ->
+                ExternalPaymentMethodUiDefinitionFactory(spec).createSupportedPaymentMethod(metadata)
+            }
+        } else if (isCustomPaymentMethod(code)) {
+            metadata.displayableCustomPaymentMethods.firstOrNull { it.id == code }?.let { customPaymentMethod ->
+                CustomPaymentMethodUiDefinitionFactory(customPaymentMethod).createSupportedPaymentMethod(metadata)
+            }
+        } else {
+            val definition = supportedPaymentMethodDefinitions().firstOrNull { it.type.code == code } ?: return null
+            definition.uiDefinitionFactory(metadata).supportedPaymentMethod(
+                metadata,
+                definition,
+                metadata.sharedDataSpecs,
+            )
+        }
+    }
+
+    fun sortedSupportedPaymentMethods(): List<SupportedPaymentMethod> {
+        return supportedPaymentMethodTypes().mapNotNull { supportedPaymentMethodForCode(it) }
+    }
+
+    fun isExternalPaymentMethod(code: String): Boolean {
+        return externalPaymentMethodTypes().contains(code)
+    }
+
+    fun isCustomPaymentMethod(code: String): Boolean {
+        return customPaymentMethodIds().contains(code)
+    }
+
+    private fun orderedPaymentMethodTypes(): List<String> {
+        val originalOrderedTypes = metadata.stripeIntent.paymentMethodTypes
+            .plus(externalPaymentMethodTypes())
+            .plus(customPaymentMethodIds())
+            .toMutableList()
+        val result = mutableListOf<String>()
+        for (pm in metadata.paymentMethodOrder) {
+            if (originalOrderedTypes.contains(pm)) {
+                result += pm
+                originalOrderedTypes.remove(pm)
+            }
+        }
+        result.addAll(originalOrderedTypes)
+        return result
+    }
+
+    private fun externalPaymentMethodTypes(): List<String> {
+        return metadata.externalPaymentMethodSpecs.map { it.type }
+    }
+
+    private fun customPaymentMethodIds(): List<String> {
+        return metadata.displayableCustomPaymentMethods.map { it.id }
+    }
+
+    private fun supportedPaymentMethodDefinitions(): List<PaymentMethodDefinition> {
+        val stripeIntent = metadata.stripeIntent
+        val supportedPaymentMethodTypes = stripeIntent.paymentMethodTypes.mapNotNull {
+            PaymentMethodRegistry.definitionsByCode[it]
+        }.filter {
+            it.isSupported(metadata)
+        }
+
+        val syntheticPaymentMethodTypes = listOf(LinkCardBrandDefinition).filter {
+            it.isSupported(metadata)
+        }
+
+        return (supportedPaymentMethodTypes + syntheticPaymentMethodTypes).filterNot {
+            stripeIntent.isLiveMode &&
+                stripeIntent.unactivatedPaymentMethods.contains(it.type.code)
+        }.filter { paymentMethodDefinition ->
+            paymentMethodDefinition.uiDefinitionFactory(metadata)
+                .canBeDisplayedInUi(paymentMethodDefinition, metadata.sharedDataSpecs)
+        }
+    }
+}
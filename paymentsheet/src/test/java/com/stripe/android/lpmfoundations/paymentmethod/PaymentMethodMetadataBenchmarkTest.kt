@@ -0,0 +1,113 @@
+package com.stripe.android.lpmfoundations.paymentmethod
+
+import com.google.common.truth.Truth.assertWithMessage
+import com.stripe.android.lpmfoundations.luxe.SupportedPaymentMethod
+import com.stripe.android.model.PaymentIntentFixtures
+import com.stripe.android.paymentsheet.addresselement.AddressDetails
+import org.json.JSONArray
+import org.json.JSONObject
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import java.io.File
+import kotlin.time.Duration
+import kotlin.time.measureTime
+
+/**
+ * Reports the cost of resolving the supported payment methods the way the payment method screens
+ * do, compared to resolving them on every call, for 5, 20 and 40 payment methods.
+ *
+ * Timings depend on the machine running the test, so they are only reported. The report is
+ * written as JSON to [REPORT_FILE_NAME] in the build's benchmark reports directory, so that it can
+ * be compared between builds.
+ *
+ * The benchmark is left out of the unit tests and only runs with
+ * `./gradlew :paymentsheet:testDebugUnitTest -PrunBenchmarks --tests '*BenchmarkTest'`.
+ */
+@RunWith(RobolectricTestRunner::class)
+internal class PaymentMethodMetadataBenchmarkTest {
+
+    @Test
+    fun `supported payment method resolution benchmark`() {
+        val counts = PAYMENT_METHOD_COUNTS.map { paymentMethodCount ->
+            val metadata = createMetadata(paymentMethodCount)
+            val legacy = LegacySupportedPaymentMethods(metadata)
+
+            val firstResolution = measureTime { metadata.copy().render() }
+            val cached = measure { metadata.render() }
+            val uncached = measure { legacy.render() }
+
+            assertWithMessage("$paymentMethodCount payment methods")
+                .that(metadata.render())
+                .isEqualTo(legacy.render())
+
+            JSONObject()
+                .put("payment_methods", paymentMethodCount)
+                .put("first_resolution_ns", firstResolution.inWholeNanoseconds)
+                .put("cached_render_ns", cached.inWholeNanoseconds)
+                .put("uncached_render_ns", uncached.inWholeNanoseconds)
+        }
+
+        val report = JSONObject()
+            .put("benchmark", "PaymentMethodMetadata supported payment methods")
+            .put("measured_iterations", MEASURED_ITERATIONS)
+            .put("payment_method_counts", JSONArray(counts))
+            .toString(2)
+
+        val reportsDir = System.getProperty(REPORTS_DIR_PROPERTY)
+            ?: error("$REPORTS_DIR_PROPERTY is set by the build when run with -PrunBenchmarks.")
+        File(reportsDir, REPORT_FILE_NAME).apply { parentFile?.mkdirs() }.writeText(report)
+    }
+
+    /**
+     * Resolves what a payment method screen displays: the ordered payment methods, and then the
+     * details of each of them as its row or form is shown.
+     */
+    private fun PaymentMethodMetadata.render(): List<SupportedPaymentMethod?> {
+        return sortedSupportedPaymentMethods() + supportedPaymentMethodTypes().map { code ->
+            isExternalPaymentMethod(code)
+            supportedPaymentMethodForCode(code)
+        }
+    }
+
+    private fun LegacySupportedPaymentMethods.render(): List<SupportedPaymentMethod?> {
+        return sortedSupportedPaymentMethods() + supportedPaymentMethodTypes().map { code ->
+            isExternalPaymentMethod(code)
+            supportedPaymentMethodForCode(code)
+        }
+    }
+
+    private fun createMetadata(paymentMethodCount: Int): PaymentMethodMetadata {
+        val paymentMethodTypes = PaymentMethodRegistry.all.map { it.type.code }.take(paymentMethodCount)
+        check(paymentMethodTypes.size == paymentMethodCount)
+
+        return PaymentMethodMetadataFactory.create(
+            stripeIntent = PaymentIntentFixtures.PI_REQUIRES_PAYMENT_METHOD.copy(
+                paymentMethodTypes = paymentMethodTypes,
+            ),
+            allowsPaymentMethodsRequiringShippingAddress = true,
+            shippingDetails = AddressDetails(name = "Jenny Rosen"),
+            paymentMethodOrder = paymentMethodTypes.reversed(),
+        )
+    }
+
+    /**
+     * The time per render, after [WARMUP_ITERATIONS] renders.
+     */
+    private fun measure(block: () -> Unit): Duration {
+        repeat(WARMUP_ITERATIONS) { block() }
+
+        return measureTime {
+            repeat(MEASURED_ITERATIONS) { block() }
+        } / MEASURED_ITERATIONS
+    }
+
+    private companion object {
+        const val REPORTS_DIR_PROPERTY = "stripe.benchmarkReportsDir"
+        const val REPORT_FILE_NAME = "payment-method-metadata.json"
+        const val WARMUP_ITERATIONS = 50
+        const val MEASURED_ITERATIONS = 200
+
+        val PAYMENT_METHOD_COUNTS = listOf(5, 20, 40)
+    }
+}
@@ -0,0 +1,153 @@
+package com.stripe.android.lpmfoundations.paymentmethod
+
+import com.google.common.truth.Truth.assertThat
+import com.google.common.truth.Truth.assertWithMessage
+import com.stripe.android.link.TestFactory
+import com.stripe.android.model.LinkMode
+import com.stripe.android.model.PaymentIntentFixtures
+import com.stripe.android.model.PaymentMethodFixtures
+import com.stripe.android.model.SetupIntentFixtures
+import com.stripe.android.paymentsheet.addresselement.AddressDetails
+import com.stripe.android.paymentsheet.state.LinkState
+import com.stripe.android.testing.PaymentIntentFactory
+import com.stripe.android.ui.core.elements.SharedDataSpec
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@RunWith(RobolectricTestRunner::class)
+internal class PaymentMethodMetadataSupportedPaymentMethodsTest {
+
+    @Test
+    fun `supported payment methods match the uncached resolution`() {
+        metadataCases().forEach { (name, metadata) ->
+            val legacy = LegacySupportedPaymentMethods(metadata)
+
+            assertWithMessage(name).that(metadata.supportedPaymentMethodTypes())
+                .containsExactlyElementsIn(legacy.supportedPaymentMethodTypes()).inOrder()
+            assertWithMessage(name).that(metadata.supportedSavedPaymentMethodTypes())
+                .containsExactlyElementsIn(legacy.supportedSavedPaymentMethodTypes()).inOrder()
+            assertWithMessage(name).that(metadata.sortedSupportedPaymentMethods())
+                .containsExactlyElementsIn(legacy.sortedSupportedPaymentMethods()).inOrder()
+
+            probedCodes(metadata).forEach { code ->
+                assertWithMessage("$name: $code").that(metadata.supportedPaymentMethodForCode(code))
+                    .isEqualTo(legacy.supportedPaymentMethodForCode(code))
+                assertWithMessage("$name: $code").that(metadata.isExternalPaymentMethod(code))
+                    .isEqualTo(legacy.isExternalPaymentMethod(code))
+                assertWithMessage("$name: $code").that(metadata.isCustomPaymentMethod(code))
+                    .isEqualTo(legacy.isCustomPaymentMethod(code))
+            }
+        }
+    }
+
+    @Test
+    fun `supported payment methods are resolved once per metadata`() {
+        val metadata = PaymentMethodMetadataFactory.create(
+            stripeIntent = PaymentIntentFixtures.PI_REQUIRES_PAYMENT_METHOD.copy(
+                paymentMethodTypes = listOf("card", "klarna", "affirm"),
+            ),
+            externalPaymentMethodSpecs = listOf(PaymentMethodFixtures.PAYPAL_EXTERNAL_PAYMENT_METHOD_SPEC),
+        )
+
+        assertThat(metadata.supportedPaymentMethodTypes())
+            .isSameInstanceAs(metadata.supportedPaymentMethodTypes())
+        assertThat(metadata.sortedSupportedPaymentMethods())
+            .isSameInstanceAs(metadata.sortedSupportedPaymentMethods())
+        assertThat(metadata.supportedPaymentMethodForCode("klarna"))
+            .isSameInstanceAs(metadata.sortedSupportedPaymentMethods()[1])
+        assertThat(metadata.supportedPaymentMethodForCode("external_paypal"))
+            .isSameInstanceAs(metadata.supportedPaymentMethodForCode("external_paypal"))
+    }
+
+    @Test
+    fun `copies resolve supported payment methods for their own values`() {
+        val metadata = PaymentMethodMetadataFactory.create(
+            stripeIntent = PaymentIntentFixtures.PI_REQUIRES_PAYMENT_METHOD.copy(
+                paymentMethodTypes = listOf("card", "klarna"),
+            ),
+        )
+        assertThat(metadata.supportedPaymentMethodTypes()).containsExactly("card", "klarna").inOrder()
+
+        val reordered = metadata.copy(paymentMethodOrder = listOf("klarna"))
+
+        assertThat(reordered.supportedPaymentMethodTypes()).containsExactly("klarna", "card").inOrder()
+        assertThat(metadata.supportedPaymentMethodTypes()).containsExactly("card", "klarna").inOrder()
+    }
+
+    private fun metadataCases(): List<Pair<String, PaymentMethodMetadata>> {
+        val allPaymentMethodTypes = PaymentMethodRegistry.all.map { it.type.code }
+
+        return listOf(
+            "default payment intent" to PaymentMethodMetadataFactory.create(),
+            "setup intent" to PaymentMethodMetadataFactory.create(
+                stripeIntent = SetupIntentFixtures.SI_REQUIRES_PAYMENT_METHOD,
+            ),
+            "every payment method" to PaymentMethodMetadataFactory.create(
+                stripeIntent = PaymentIntentFixtures.PI_REQUIRES_PAYMENT_METHOD.copy(
+                    paymentMethodTypes = allPaymentMethodTypes,
+                ),
+                allowsPaymentMethodsRequiringShippingAddress = true,
+                shippingDetails = AddressDetails(name = "Jenny Rosen"),
+                allowsLinkInSavedPaymentMethods = true,
+            ),
+            "every payment method for setup" to PaymentMethodMetadataFactory.create(
+                stripeIntent = SetupIntentFixtures.SI_REQUIRES_PAYMENT_METHOD.copy(
+                    paymentMethodTypes = allPaymentMethodTypes,
+                ),
+            ),
+            "payment method order" to PaymentMethodMetadataFactory.create(
+                stripeIntent = PaymentIntentFixtures.PI_REQUIRES_PAYMENT_METHOD.copy(
+                    paymentMethodTypes = listOf("card", "affirm", "klarna", "sepa_debit"),
+                ),
+                allowsPaymentMethodsRequiringShippingAddress = true,
+                paymentMethodOrder = listOf("cpmt_paypal", "klarna", "ignored", "external_paypal", "card"),
+                externalPaymentMethodSpecs = listOf(PaymentMethodFixtures.PAYPAL_EXTERNAL_PAYMENT_METHOD_SPEC),
+                displayableCustomPaymentMethods = listOf(PaymentMethodFixtures.PAYPAL_CUSTOM_PAYMENT_METHOD),
+            ),
+            "external and custom payment methods" to PaymentMethodMetadataFactory.create(
+                externalPaymentMethodSpecs = listOf(
+                    PaymentMethodFixtures.PAYPAL_EXTERNAL_PAYMENT_METHOD_SPEC,
+                    PaymentMethodFixtures.PAYPAL_EXTERNAL_PAYMENT_METHOD_SPEC.copy(label = "Duplicate"),
+                ),
+                displayableCustomPaymentMethods = listOf(PaymentMethodFixtures.PAYPAL_CUSTOM_PAYMENT_METHOD),
+            ),
+            "unactivated in live mode" to PaymentMethodMetadataFactory.create(
+                stripeIntent = PaymentIntentFixtures.PI_REQUIRES_PAYMENT_METHOD.copy(
+                    paymentMethodTypes = listOf("card", "klarna", "affirm"),
+                    unactivatedPaymentMethods = listOf("klarna"),
+                    isLiveMode = true,
+                ),
+            ),
+            "missing shared data specs" to PaymentMethodMetadataFactory.create(
+                stripeIntent = PaymentIntentFixtures.PI_REQUIRES_PAYMENT_METHOD.copy(
+                    paymentMethodTypes = listOf("card", "bacs_debit", "us_bank_account"),
+                ),
+                sharedDataSpecs = listOf(SharedDataSpec("card")),
+            ),
+            "link card brand" to PaymentMethodMetadataFactory.create(
+                stripeIntent = PaymentIntentFactory.create(
+                    paymentMethodTypes = listOf("card", "link"),
+                    linkFundingSources = listOf("card", "bank_account"),
+                ),
+                linkMode = LinkMode.LinkCardBrand,
+                linkState = LinkState(
+                    configuration = TestFactory.LINK_CONFIGURATION_WITH_INSTANT_DEBITS_ONBOARDING,
+                    loginState = LinkState.LoginState.LoggedOut,
+                    signupMode = null,
+                ),
+                allowsLinkInSavedPaymentMethods = true,
+            ),
+        )
+    }
+
+    private fun probedCodes(metadata: PaymentMethodMetadata): Set<String> {
+        return buildSet {
+            addAll(PaymentMethodRegistry.all.map { it.type.code })
+            addAll(metadata.stripeIntent.paymentMethodTypes)
+            addAll(metadata.externalPaymentMethodSpecs.map { it.type })
+            addAll(metadata.displayableCustomPaymentMethods.map { it.id })
+            add("unknown")
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.stripe.android.paymentsheet.state
+
+import com.stripe.android.networktesting.NetworkRule
+import com.stripe.android.networktesting.RequestMatcher
+import com.stripe.android.networktesting.RequestMatchers.host
+import com.stripe.android.networktesting.RequestMatchers.method
+import com.stripe.android.networktesting.RequestMatchers.path
+import com.stripe.android.networktesting.testBodyFromFile
+import okhttp3.mockwebserver.MockResponse
+import org.json.JSONObject
+import java.util.concurrent.TimeUnit
+import kotlin.time.Duration
+
+/**
+ * The endpoints [PaymentElementLoader.load] requests, with the responses recorded for them.
+ */
+internal enum class LoadEndpoint(
+    val method: String,
+    val path: String,
+    val fixture: String?,
+) {
+    ElementsSessions(
+        method = "GET",
+        path = "/v1/elements/sessions",
+        fixture = null,
+    ),
+    PaymentMethods(
+        method = "GET",
+        path = "/v1/payment_methods",
+        fixture = "payment-methods.json",
+    ),
+    Customer(
+        method = "GET",
+        path = "/v1/customers/$REPLAYED_CUSTOMER_ID",
+        fixture = "customer.json",
+    ),
+    ConsumerSessionLookup(
+        method = "POST",
+        path = "/v1/consumers/sessions/lookup",
+        fixture = "consumer-session-lookup.json",
+    );
+
+    val description: String
+        get() = "$method $path"
+}
+
+/**
+ * A request received by [LoadReplayServer], which was responded to [latency] after it was received.
+ */
+internal class ReplayedRequest(
+    val endpoint: LoadEndpoint,
+    val receivedAtNanos: Long,
+    val latency: Duration,
+) {
+    val respondedAtNanos: Long
+        get() = receivedAtNanos + latency.inWholeNanoseconds
+}
+
+/**
+ * Replays the responses recorded for [LoadEndpoint]s through [networkRule], each one after the
+ * latency of its endpoint, and records when every request was received.
+ */
+internal class LoadReplayServer(
+    private val networkRule: NetworkRule,
+    private val latencies: Map<LoadEndpoint, Duration>,
+) {
+    private val received = mutableListOf<ReplayedRequest>()
+
+    /**
+     * The requests received since the last [clear], in the order they were received.
+     */
+    val requests: List<ReplayedRequest>
+        get() = synchronized(received) { received.sortedBy { it.receivedAtNanos } }
+
+    fun clear() {
+        synchronized(received) { received.clear() }
+    }
+
+    /**
+     * Enqueues the next response to [endpoint], with the body recorded for it unless [body] is
+     * given.
+     */
+    fun enqueue(
+        endpoint: LoadEndpoint,
+        vararg requestMatchers: RequestMatcher,
+        body: (MockResponse) -> Unit = { response ->
+            response.testBodyFromFile("$FIXTURES_DIRECTORY/${requireNotNull(endpoint.fixture)}")
+        },
+    ) {
+        val latency = latencies.getValue(endpoint)
+        networkRule.enqueue(
+            host("api.stripe.com"),
+            method(endpoint.method),
+            path(endpoint.path),
+            *requestMatchers,
+        ) { _, response ->
+            synchronized(received) {
+                received += ReplayedRequest(endpoint, System.nanoTime(), latency)
+            }
+            body(response)
+            response.setHeadersDelay(latency.inWholeMilliseconds, TimeUnit.MILLISECONDS)
+        }
+    }
+
+    /**
+     * Enqueues the next response to [LoadEndpoint.ElementsSessions], with the recorded elements
+     * session [fixture] changed by [jsonModifier].
+     */
+    fun enqueueElementsSession(
+        fixture: String,
+        jsonModifier: (JSONObject) -> Unit,
+    ) {
+        enqueue(LoadEndpoint.ElementsSessions) { response ->
+            response.testBodyFromFile("$FIXTURES_DIRECTORY/$fixture", jsonModifier)
+        }
+    }
+
+    companion object {
+        const val FIXTURES_DIRECTORY = "payment-element-loader-benchmark"
+        const val REPLAYED_CUSTOMER_ID = "cus_1"
+    }
+}
+
+/**
+ * The chain of requests that determined when the last response was received. Going back from the
+ * last response, each request follows the one responded to last before it was sent, so requests
+ * made in parallel to the chain aren't part of it.
+ */
+internal fun List<ReplayedRequest>.criticalPath(): List<ReplayedRequest> {
+    val path = mutableListOf<ReplayedRequest>()
+    var current = maxByOrNull { it.respondedAtNanos }
+    while (current != null) {
+        path.add(0, current)
+        val sentAtNanos = current.receivedAtNanos
+        current = filter { it.respondedAtNanos <= sentAtNanos }.maxByOrNull { it.respondedAtNanos }
+    }
+    return path
+}
@@ -0,0 +1,557 @@
+package com.stripe.android.paymentsheet.state
+
+import android.app.Application
+import androidx.test.core.app.ApplicationProvider
+import com.google.common.truth.Truth.assertWithMessage
+import com.stripe.android.CardBrandFilter
+import com.stripe.android.CardFundingFilter
+import com.stripe.android.PaymentConfiguration
+import com.stripe.android.Stripe
+import com.stripe.android.core.Logger
+import com.stripe.android.core.networking.ApiRequest
+import com.stripe.android.core.networking.DefaultStripeNetworkClient
+import com.stripe.android.core.utils.DurationProvider
+import com.stripe.android.googlepaylauncher.GooglePayEnvironment
+import com.stripe.android.googlepaylauncher.GooglePayRepository
+import com.stripe.android.googlepaylauncher.injection.GooglePayRepositoryFactory
+import com.stripe.android.link.FakeIntegrityRequestManager
+import com.stripe.android.link.gate.FakeLinkGate
+import com.stripe.android.link.model.AccountStatus
+import com.stripe.android.lpmfoundations.luxe.LpmRepository
+import com.stripe.android.lpmfoundations.paymentmethod.AnalyticsMetadata
+import com.stripe.android.lpmfoundations.paymentmethod.PaymentSheetCardFundingFilter
+import com.stripe.android.model.PaymentMethod
+import com.stripe.android.networking.PaymentAnalyticsRequestFactory
+import com.stripe.android.networking.RequestSurface
+import com.stripe.android.networking.StripeApiRepository
+import com.stripe.android.networktesting.AdvancedFraudSignalsTestRule
+import com.stripe.android.networktesting.NetworkRule
+import com.stripe.android.networktesting.RequestMatchers.query
+import com.stripe.android.networktesting.TestApiKeys
+import com.stripe.android.paymentelement.callbacks.PaymentElementCallbackReferences
+import com.stripe.android.paymentelement.callbacks.PaymentElementCallbacks
+import com.stripe.android.paymentsheet.FakePrefsRepository
+import com.stripe.android.paymentsheet.PaymentSheet
+import com.stripe.android.paymentsheet.analytics.FakeLoadingEventReporter
+import com.stripe.android.paymentsheet.analytics.FakeLogFcLiteExperiment
+import com.stripe.android.paymentsheet.analytics.FakeLogLinkHoldbackExperiment
+import com.stripe.android.paymentsheet.analytics.FakePaymentMethodMessagePromotionsExperimentHandler
+import com.stripe.android.paymentsheet.repositories.CustomerApiRepository
+import com.stripe.android.paymentsheet.repositories.ElementsSessionClientParams
+import com.stripe.android.paymentsheet.repositories.RealElementsSessionRepository
+import com.stripe.android.paymentsheet.state.LoadReplayServer.Companion.REPLAYED_CUSTOMER_ID
+import com.stripe.android.paymentsheet.utils.FakeUserFacingLogger
+import com.stripe.android.repository.ConsumersApiServiceImpl
+import com.stripe.android.testing.FakeErrorReporter
+import com.stripe.android.ui.core.elements.ExternalPaymentMethodsRepository
+import com.stripe.android.utils.FakeLinkStore
+import com.stripe.android.utils.FakePaymentMethodFilter
+import com.stripe.android.utils.FakePaymentMethodMessagePromotionsHelper
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.runBlocking
+import org.json.JSONArray
+import org.json.JSONObject
+import org.junit.After
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.RuleChain
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import java.io.File
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.milliseconds
+import kotlin.time.Duration.Companion.nanoseconds
+
+/**
+ * Reports how long [DefaultPaymentElementLoader.load] takes end to end for each main integration,
+ * against recorded responses replayed with the latencies in [LATENCIES].
+ *
+ * For every variant, the report lists the requests made, the chain of requests the load waited on
+ * (its critical path) and the latency of that chain, which only change along with the loading
+ * flow and are asserted. It also lists the wall time of the loads and of each of their steps, which
+ * depend on the machine running the test and are only reported. The report is written as JSON to
+ * [REPORT_FILE_NAME] in the build's benchmark reports directory, so that it can be compared between
+ * builds.
+ *
+ * The loads wait on real delays, so the benchmark is left out of the unit tests and only runs with
+ * `./gradlew :paymentsheet:testDebugUnitTest -PrunBenchmarks --tests '*BenchmarkTest'`.
+ *
+ * Link is looked up with the consumer session lookup request only, in place of the Link account
+ * manager, which the report notes.
+ */
+@RunWith(RobolectricTestRunner::class)
+internal class PaymentElementLoaderBenchmarkTest {
+    private val application: Application = ApplicationProvider.getApplicationContext()
+    private val networkRule = NetworkRule()
+
+    @get:Rule
+    val ruleChain: RuleChain = RuleChain
+        .outerRule(networkRule)
+        .around(AdvancedFraudSignalsTestRule())
+
+    private val server = LoadReplayServer(networkRule, LATENCIES)
+
+    @After
+    fun tearDown() {
+        PaymentElementCallbackReferences.clear()
+    }
+
+    @Test
+    fun `load critical path benchmark`() {
+        PaymentElementCallbackReferences[CALLBACK_IDENTIFIER] = PaymentElementCallbacks.Builder()
+            .createIntentCallback { _ ->
+                error("Should not be called.")
+            }
+            .build()
+
+        val variants = Variant.all().map { variant ->
+            repeat(WARMUP_ITERATIONS) { load(variant) }
+            val loads = List(MEASURED_ITERATIONS) { load(variant) }
+
+            loads.forEach { load ->
+                assertWithMessage(variant.name)
+                    .that(load.requests.criticalPath().map { it.endpoint })
+                    .containsExactlyElementsIn(variant.expectedCriticalPath)
+                    .inOrder()
+            }
+
+            variant.report(loads)
+        }
+
+        val report = JSONObject()
+            .put("benchmark", "PaymentElementLoader.load")
+            .put("measured_iterations", MEASURED_ITERATIONS)
+            .put("latencies_ms", latenciesReport())
+            .put("stand_ins", standInsReport())
+            .put("variants", JSONArray(variants))
+            .toString(2)
+
+        val reportsDir = System.getProperty(REPORTS_DIR_PROPERTY)
+            ?: error("$REPORTS_DIR_PROPERTY is set by the build when run with -PrunBenchmarks.")
+        File(reportsDir, REPORT_FILE_NAME).apply { parentFile?.mkdirs() }.writeText(report)
+    }
+
+    private fun load(variant: Variant): LoadResult {
+        server.clear()
+        enqueueResponses(variant)
+
+        val durationProvider = RecordingDurationProvider()
+        val loader = createLoader(durationProvider)
+
+        val startedAtNanos = System.nanoTime()
+        runBlocking {
+            loader.load(
+                initializationMode = variant.intent.initializationMode,
+                integrationConfiguration = PaymentElementLoader.Configuration.PaymentSheet(variant.configuration()),
+                metadata = PaymentElementLoader.Metadata(initializedViaCompose = false),
+            ).getOrThrow()
+        }
+        val wallTime = (System.nanoTime() - startedAtNanos).nanoseconds
+
+        // Every replayed response was requested, and nothing else was.
+        networkRule.validate()
+
+        return LoadResult(
+            wallTime = wallTime,
+            requests = server.requests,
+            stepDurations = durationProvider.durations,
+        )
+    }
+
+    private fun enqueueResponses(variant: Variant) {
+        server.enqueueElementsSession(variant.intent.fixture) { json ->
+            if (variant.customer != CustomerType.CustomerSession) {
+                json.remove("customer")
+            }
+            if (!variant.link) {
+                json.removeLink()
+            }
+        }
+
+        if (variant.customer == CustomerType.LegacyEphemeralKey) {
+            server.enqueue(LoadEndpoint.PaymentMethods, query("type", PaymentMethod.Type.Card.code))
+            listOf(PaymentMethod.Type.SepaDebit, PaymentMethod.Type.USBankAccount).forEach { type ->
+                server.enqueue(LoadEndpoint.PaymentMethods, query("type", type.code)) { response ->
+                    response.setBody(EMPTY_PAYMENT_METHODS)
+                }
+            }
+
+            if (variant.link) {
+                server.enqueue(LoadEndpoint.Customer)
+            }
+        }
+
+        if (variant.link && variant.customer != CustomerType.Guest) {
+            server.enqueue(LoadEndpoint.ConsumerSessionLookup)
+        }
+    }
+
+    private fun createLoader(durationProvider: DurationProvider): DefaultPaymentElementLoader {
+        val paymentConfiguration = PaymentConfiguration(publishableKey = TestApiKeys.PUBLISHABLE)
+        val errorReporter = FakeErrorReporter()
+        val stripeRepository = StripeApiRepository(
+            appContext = application,
+            publishableKeyProvider = { TestApiKeys.PUBLISHABLE },
+            requestSurface = RequestSurface.PaymentElement,
+            workContext = Dispatchers.IO,
+            productUsageTokens = emptySet(),
+            paymentAnalyticsRequestFactory = PaymentAnalyticsRequestFactory(application, TestApiKeys.PUBLISHABLE),
+            analyticsRequestExecutor = {},
+            logger = Logger.noop(),
+        )
+        val customerRepository = CustomerApiRepository(
+            stripeRepository = stripeRepository,
+            lazyPaymentConfig = { paymentConfiguration },
+            logger = Logger.noop(),
+            errorReporter = errorReporter,
+            workContext = Dispatchers.IO,
+        )
+        val elementsSessionRepository = RealElementsSessionRepository(
+            application = application,
+            stripeNetworkClient = DefaultStripeNetworkClient(workContext = Dispatchers.IO),
+            stripeRepository = stripeRepository,
+            lazyPaymentConfig = { paymentConfiguration },
+            workContext = Dispatchers.IO,
+            clientParams = ElementsSessionClientParams(
+                mobileAppId = application.packageName,
+                mobileSessionIdProvider = { "benchmark_session" },
+            ),
+        )
+
+        return DefaultPaymentElementLoader(
+            prefsRepositoryFactory = { FakePrefsRepository() },
+            googlePayRepositoryFactory = object : GooglePayRepositoryFactory {
+                override fun invoke(
+                    environment: GooglePayEnvironment,
+                    cardFundingFilter: CardFundingFilter,
+                    cardBrandFilter: CardBrandFilter
+                ): GooglePayRepository {
+                    return GooglePayRepository {
+                        flow {
+                            delay(GOOGLE_PAY_LATENCY)
+                            emit(true)
+                        }
+                    }
+                }
+            },
+            lpmRepository = LpmRepository(),
+            logger = Logger.noop(),
+            eventReporter = FakeLoadingEventReporter(),
+            errorReporter = errorReporter,
+            workContext = Dispatchers.IO,
+            createLinkState = DefaultCreateLinkState(
+                accountStatusProvider = linkAccountStatusProvider(),
+                retrieveCustomerEmail = DefaultRetrieveCustomerEmail(customerRepository, durationProvider),
+                linkStore = FakeLinkStore(),
+                linkGateFactory = FakeLinkGate.Factory(FakeLinkGate()),
+                cardFundingFilterFactory = PaymentSheetCardFundingFilter.Factory(),
+            ),
+            logLinkHoldbackExperiment = FakeLogLinkHoldbackExperiment(),
+            logFcLiteExperiment = FakeLogFcLiteExperiment(),
+            externalPaymentMethodsRepository = ExternalPaymentMethodsRepository(errorReporter = errorReporter),
+            userFacingLogger = FakeUserFacingLogger(),
+            integrityRequestManager = FakeIntegrityRequestManager(),
+            tapToAddConnectionStarter = FakeTapToAddConnectionStarter.create(isSupported = false),
+            paymentConfiguration = { paymentConfiguration },
+            paymentElementCallbackIdentifier = CALLBACK_IDENTIFIER,
+            analyticsMetadataFactory = FakeDefaultPaymentElementLoaderAnalyticsMetadataFactory {
+                AnalyticsMetadata(emptyMap())
+            },
+            customerRepository = customerRepository,
+            createCustomerState = CreateCustomerState(
+                paymentMethodFilter = FakePaymentMethodFilter.noOp(),
+                errorReporter = errorReporter,
+            ),
+            checkoutSessionLoader = CheckoutSessionLoader(),
+            elementsSessionLoader = ElementsSessionLoader(elementsSessionRepository),
+            createCustomerMetadata = CreateCustomerMetadata(errorReporter),
+            paymentMethodMessagePromotionsHelper = FakePaymentMethodMessagePromotionsHelper(),
+            tapToAddAvailabilityFactory = FakeTapToAddAvailabilityFactory(isAvailableResult = false),
+            durationProvider = durationProvider,
+            paymentMethodMessagePromotionsExperimentHandler = FakePaymentMethodMessagePromotionsExperimentHandler(),
+        )
+    }
+
+    /**
+     * Stands in for the Link account manager, which looks the customer up by email when there is
+     * one, without the rest of the Link component.
+     */
+    private fun linkAccountStatusProvider(): LinkAccountStatusProvider {
+        val consumersApiService = ConsumersApiServiceImpl(
+            stripeNetworkClient = DefaultStripeNetworkClient(workContext = Dispatchers.IO),
+            apiVersion = Stripe.API_VERSION,
+            appInfo = null,
+        )
+
+        return LinkAccountStatusProvider { configuration ->
+            val email = configuration.customerInfo.email ?: return@LinkAccountStatusProvider AccountStatus.SignedOut
+            val lookup = consumersApiService.lookupConsumerSession(
+                email = email,
+                linkAuthIntentId = null,
+                requestSurface = RequestSurface.PaymentElement.value,
+                sessionId = configuration.elementsSessionId,
+                doNotLogConsumerFunnelEvent = false,
+                supportedVerificationTypes = null,
+                requestOptions = ApiRequest.Options(TestApiKeys.PUBLISHABLE),
+                customerId = null,
+            )
+            if (lookup.exists) AccountStatus.NeedsVerification() else AccountStatus.SignedOut
+        }
+    }
+
+    private fun Variant.configuration(): PaymentSheet.Configuration {
+        return PaymentSheet.Configuration(
+            merchantDisplayName = "Example, Inc.",
+            customer = when (customer) {
+                CustomerType.Guest -> null
+                CustomerType.CustomerSession -> PaymentSheet.CustomerConfiguration.createWithCustomerSession(
+                    id = REPLAYED_CUSTOMER_ID,
+                    clientSecret = "cuss_123_secret_123",
+                )
+                CustomerType.LegacyEphemeralKey -> PaymentSheet.CustomerConfiguration(
+                    id = REPLAYED_CUSTOMER_ID,
+                    ephemeralKeySecret = TestApiKeys.EPHEMERAL,
+                )
+            },
+            googlePay = PaymentSheet.GooglePayConfiguration(
+                environment = PaymentSheet.GooglePayConfiguration.Environment.Test,
+                countryCode = "US",
+            ),
+        )
+    }
+
+    private fun Variant.report(loads: List<LoadResult>): JSONObject {
+        val requests = loads.first().requests
+        val criticalPath = requests.criticalPath()
+        val criticalPathLatency = criticalPath.sumOf { it.latency.inWholeMilliseconds }
+        val wallTimes = loads.map { it.wallTime.inWholeMilliseconds }.sorted()
+
+        val requestCounts = JSONObject()
+        LoadEndpoint.entries.forEach { endpoint ->
+            val count = requests.count { it.endpoint == endpoint }
+            if (count > 0) {
+                requestCounts.put(endpoint.description, count)
+            }
+        }
+
+        val steps = JSONObject()
+        DurationProvider.Key.entries.forEach { key ->
+            val durations = loads.mapNotNull { it.stepDurations[key]?.inWholeMilliseconds }
+            if (durations.isNotEmpty()) {
+                steps.put(key.name, durations.median())
+            }
+        }
+
+        return JSONObject()
+            .put("name", name)
+            .put("requests", requestCounts)
+            .put("critical_path", JSONArray(criticalPath.map { it.endpoint.description }))
+            .put("critical_path_latency_ms", criticalPathLatency)
+            .put(
+                "wall_time_ms",
+                JSONObject()
+                    .put("median", wallTimes.median())
+                    .put("min", wallTimes.first())
+                    .put("max", wallTimes.last())
+            )
+            .put("overhead_ms", wallTimes.median() - criticalPathLatency)
+            .put("steps_ms", steps)
+    }
+
+    private fun latenciesReport(): JSONObject {
+        val latencies = JSONObject()
+        LATENCIES.forEach { (endpoint, latency) ->
+            latencies.put(endpoint.description, latency.inWholeMilliseconds)
+        }
+        return latencies.put("Google Pay isReady", GOOGLE_PAY_LATENCY.inWholeMilliseconds)
+    }
+
+    /**
+     * What the benchmark measures in place of the real loading flow.
+     */
+    private fun standInsReport(): JSONObject {
+        return JSONObject()
+            .put(
+                "link_account_status",
+                "Consumer session lookup request only, without the Link account manager and component",
+            )
+            .put("google_pay_is_ready", "Fixed delay, without Play services")
+    }
+
+    private fun List<Long>.median(): Long = sorted()[size / 2]
+
+    /**
+     * Disables Link in a recorded elements session, as if it wasn't enabled for the merchant.
+     */
+    private fun JSONObject.removeLink() {
+        remove("link_settings")
+        removeLinkFrom("ordered_payment_method_types_and_wallets")
+
+        val preference = getJSONObject("payment_method_preference")
+        preference.removeLinkFrom("ordered_payment_method_types")
+        listOf("payment_intent", "setup_intent").forEach { intent ->
+            preference.optJSONObject(intent)?.removeLinkFrom("payment_method_types")
+        }
+    }
+
+    private fun JSONObject.removeLinkFrom(key: String) {
+        val types = getJSONArray(key)
+        val typesWithoutLink = (0 until types.length()).map { types.getString(it) }.filter { it != "link" }
+        put(key, JSONArray(typesWithoutLink))
+    }
+
+    private enum class IntentType(
+        val key: String,
+        val fixture: String,
+        val initializationMode: PaymentElementLoader.InitializationMode,
+    ) {
+        PaymentIntent(
+            key = "payment_intent",
+            fixture = "elements-sessions-payment-intent.json",
+            initializationMode = PaymentElementLoader.InitializationMode.PaymentIntent(
+                clientSecret = "pi_example_secret_example",
+            ),
+        ),
+        SetupIntent(
+            key = "setup_intent",
+            fixture = "elements-sessions-setup-intent.json",
+            initializationMode = PaymentElementLoader.InitializationMode.SetupIntent(
+                clientSecret = "seti_example_secret_example",
+            ),
+        ),
+        DeferredIntent(
+            key = "deferred_intent",
+            fixture = "elements-sessions-deferred-intent.json",
+            initializationMode = PaymentElementLoader.InitializationMode.DeferredIntent(
+                intentConfiguration = PaymentSheet.IntentConfiguration(
+                    mode = PaymentSheet.IntentConfiguration.Mode.Payment(
+                        amount = 5099,
+                        currency = "usd",
+                    ),
+                ),
+            ),
+        ),
+    }
+
+    private enum class CustomerType(val key: String) {
+        Guest("guest"),
+        CustomerSession("customer_session"),
+        LegacyEphemeralKey("legacy_ephemeral_key"),
+    }
+
+    private data class Variant(
+        val intent: IntentType,
+        val customer: CustomerType,
+        val link: Boolean,
+    ) {
+        val name: String
+            get() = "${intent.key}/${customer.key}/${if (link) "link" else "no_link"}"
+
+        /**
+         * The session is loaded first. Saved payment methods of a legacy ephemeral key customer are
+         * fetched alongside it, but Link needs the customer's email, which is then retrieved for a
+         * legacy ephemeral key, before looking the customer up.
+         */
+        val expectedCriticalPath: List<LoadEndpoint>
+            get() = buildList {
+                add(LoadEndpoint.ElementsSessions)
+                if (link && customer == CustomerType.LegacyEphemeralKey) {
+                    add(LoadEndpoint.Customer)
+                }
+                if (link && customer != CustomerType.Guest) {
+                    add(LoadEndpoint.ConsumerSessionLookup)
+                }
+            }
+
+        companion object {
+            fun all(): List<Variant> {
+                return IntentType.entries.flatMap { intent ->
+                    CustomerType.entries.flatMap { customer ->
+                        listOf(true, false).map { link -> Variant(intent, customer, link) }
+                    }
+                }
+            }
+        }
+    }
+
+    private class LoadResult(
+        val wallTime: Duration,
+        val requests: List<ReplayedRequest>,
+        val stepDurations: Map<DurationProvider.Key, Duration>,
+    )
+
+    /**
+     * Records how long each step of a load took. The durations of a step measured more than once
+     * add up.
+     */
+    private class RecordingDurationProvider : DurationProvider {
+        private val startedAtNanos = mutableMapOf<DurationProvider.Key, Long>()
+        private val completed = mutableMapOf<DurationProvider.Key, Duration>()
+
+        val durations: Map<DurationProvider.Key, Duration>
+            get() = synchronized(this) { completed.toMap() }
+
+        override fun start(key: DurationProvider.Key, reset: Boolean) {
+            synchronized(this) {
+                if (reset || key !in startedAtNanos) {
+                    startedAtNanos[key] = System.nanoTime()
+                }
+            }
+        }
+
+        override fun elapsed(key: DurationProvider.Key): Duration? {
+            val startedAt = synchronized(this) { startedAtNanos[key] } ?: return null
+            return (System.nanoTime() - startedAt).nanoseconds
+        }
+
+        override fun end(key: DurationProvider.Key): Duration? {
+            val startedAt = synchronized(this) { startedAtNanos.remove(key) } ?: return null
+            return record(key, (System.nanoTime() - startedAt).nanoseconds)
+        }
+
+        override fun completedDuration(key: DurationProvider.Key): Duration? {
+            return synchronized(this) { completed[key] }
+        }
+
+        override suspend fun <T> measureDuration(key: DurationProvider.Key, block: suspend () -> T): T {
+            val startedAt = System.nanoTime()
+            return try {
+                block()
+            } finally {
+                record(key, (System.nanoTime() - startedAt).nanoseconds)
+            }
+        }
+
+        private fun record(key: DurationProvider.Key, duration: Duration): Duration {
+            synchronized(this) {
+                completed[key] = (completed[key] ?: Duration.ZERO) + duration
+            }
+            return duration
+        }
+    }
+
+    private companion object {
+        const val CALLBACK_IDENTIFIER = "PaymentElementLoaderBenchmarkTest"
+        const val REPORTS_DIR_PROPERTY = "stripe.benchmarkReportsDir"
+        const val REPORT_FILE_NAME = "payment-element-loader.json"
+        const val WARMUP_ITERATIONS = 1
+        const val MEASURED_ITERATIONS = 3
+
+        const val EMPTY_PAYMENT_METHODS =
+            """{"object":"list","data":[],"has_more":false,"url":"/v1/payment_methods"}"""
+
+        /**
+         * Spread far enough apart for requests made in parallel not to be mistaken for a chain.
+         */
+        val LATENCIES = mapOf(
+            LoadEndpoint.ElementsSessions to 120.milliseconds,
+            LoadEndpoint.PaymentMethods to 80.milliseconds,
+            LoadEndpoint.Customer to 60.milliseconds,
+            LoadEndpoint.ConsumerSessionLookup to 60.milliseconds,
+        )
+
+        val GOOGLE_PAY_LATENCY = 30.milliseconds
+    }
+}
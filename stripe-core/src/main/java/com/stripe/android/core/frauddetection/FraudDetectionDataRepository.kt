@@ -6,8 +6,10 @@ import com.stripe.android.core.networking.StripeNetworkClient
 import com.stripe.android.core.networking.StripeResponse
 import com.stripe.android.core.networking.responseJson
 import kotlinx.coroutines.CoroutineScope
-import kotlinx.coroutines.launch
-import kotlinx.coroutines.withContext
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.async
 import java.util.Calendar
 import kotlin.coroutines.CoroutineContext
 
@@ -45,6 +47,10 @@ fun interface FraudDetectionEnabledProvider {
     fun provideFraudDetectionEnabled(): Boolean
 }
 
+/**
+ * Fetches [FraudDetectionData] at most once at a time. Concurrent [refresh] and [getLatest] calls
+ * share the in-flight fetch, and neither hits the network while the cached data is not expired.
+ */
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 class DefaultFraudDetectionDataRepository(
     private val localStore: FraudDetectionDataStore,
@@ -54,20 +60,67 @@ class DefaultFraudDetectionDataRepository(
     private val workContext: CoroutineContext,
     private val fraudDetectionEnabledProvider: FraudDetectionEnabledProvider,
 ) : FraudDetectionDataRepository {
+    @Volatile
     private var cachedFraudDetectionData: FraudDetectionData? = null
 
+    private val fetchScope = CoroutineScope(workContext + SupervisorJob())
+    private val fetchLock = Any()
+    private var inFlightFetch: Deferred<FraudDetectionData?>? = null
+
     private val fraudDetectionEnabled: Boolean
         get() = fraudDetectionEnabledProvider.provideFraudDetectionEnabled()
 
     override fun refresh() {
-        if (fraudDetectionEnabled) {
-            CoroutineScope(workContext).launch {
-                getLatest()
+        if (fraudDetectionEnabled && freshCachedData() == null) {
+            fetchAsync()
+        }
+    }
+
+    override suspend fun getLatest(): FraudDetectionData? {
+        return freshCachedData() ?: fetchAsync().await()
+    }
+
+    override fun getCached(): FraudDetectionData? {
+        return cachedFraudDetectionData.takeIf {
+            fraudDetectionEnabled
+        }
+    }
+
+    override fun save(fraudDetectionData: FraudDetectionData) {
+        cachedFraudDetectionData = fraudDetectionData
+        localStore.save(fraudDetectionData)
+    }
+
+    private fun freshCachedData(): FraudDetectionData? {
+        return cachedFraudDetectionData?.takeUnless { it.isExpired(timestampSupplier()) }
+    }
+
+    /**
+     * Returns the in-flight fetch, or starts a new one.
+     */
+    private fun fetchAsync(): Deferred<FraudDetectionData?> {
+        val fetch = synchronized(fetchLock) {
+            inFlightFetch?.takeUnless { it.isCompleted } ?: fetchScope.async(
+                start = CoroutineStart.LAZY
+            ) {
+                fetch()
+            }.also { fetch ->
+                inFlightFetch = fetch
+                fetch.invokeOnCompletion {
+                    synchronized(fetchLock) {
+                        if (inFlightFetch === fetch) {
+                            inFlightFetch = null
+                        }
+                    }
+                }
             }
         }
+        // Started outside of the lock, as it may run right away on the calling thread.
+        fetch.start()
+        return fetch
     }
 
-    override suspend fun getLatest() = withContext(workContext) {
+    private suspend fun fetch(): FraudDetectionData? {
         val latestFraudDetectionData = localStore.get().let { localFraudDetectionData ->
             if (localFraudDetectionData == null ||
                 localFraudDetectionData.isExpired(timestampSupplier())
@@ -92,18 +145,7 @@ class DefaultFraudDetectionDataRepository(
             latestFraudDetectionData?.let(::save)
         }
 
-        latestFraudDetectionData
-    }
-
-    override fun getCached(): FraudDetectionData? {
-        return cachedFraudDetectionData.takeIf {
-            fraudDetectionEnabled
-        }
-    }
-
-    override fun save(fraudDetectionData: FraudDetectionData) {
-        cachedFraudDetectionData = fraudDetectionData
-        localStore.save(fraudDetectionData)
+        return latestFraudDetectionData
     }
 }
 
@@ -10,6 +10,7 @@ import com.stripe.android.core.utils.PluginDetector
 import com.stripe.android.core.version.StripeSdkVersion
 import java.util.Locale
 import java.util.UUID
+import java.util.concurrent.ConcurrentHashMap
 import javax.inject.Provider
 
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
@@ -23,10 +24,10 @@ open class AnalyticsRequestFactory(
 ) {
     /**
      * Builds an Analytics request for the given [AnalyticsEvent],
-     * including common params + event-specific params defined in [AnalyticsEvent.params]
+     * including common params + the [AnalyticsEvent.eventName]
      *
      * @param additionalParams any extra parameters that should be sent with this event.
-     * Ensure this common parameters are not already included in [standardParams].
+     * Ensure this common parameters are not already included in the standard params.
      *
      */
     open fun createRequest(
@@ -34,66 +35,67 @@ open class AnalyticsRequestFactory(
         additionalParams: Map<String, Any?>
     ): AnalyticsRequest {
         return AnalyticsRequest(
-            params = createParams(event) + additionalParams,
+            params = createParams(event, additionalParams),
             headers = RequestHeadersFactory.Analytics.create()
         )
     }
 
+    /**
+     * Writes the params of [event] into a single presized map. The key order is part of the
+     * encoded query: standard params, app data, the event name, then [additionalParams], which
+     * replace earlier values in place.
+     */
     private fun createParams(
-        event: AnalyticsEvent
-    ): Map<String, Any> {
-        return standardParams() + appDataParams() + event.params()
-    }
-
-    private fun AnalyticsEvent.params(): Map<String, String> {
-        return mapOf(AnalyticsFields.EVENT to this.eventName)
+        event: AnalyticsEvent,
+        additionalParams: Map<String, Any?>
+    ): Map<String, Any?> {
+        val networkType = networkTypeProvider.get()
+        val pluginType = pluginTypeProvider.get()
+        val isNewArchitecture = ReactNativeAnalytics.isNewArchitecture
+        val reactNativeVersion = ReactNativeAnalytics.reactNativeVersion
+        val appData = appData
+
+        val params = LinkedHashMap<String, Any?>(
+            mapCapacity(MAX_STANDARD_PARAMS + appData.size + 1 + additionalParams.size)
+        )
+        params[AnalyticsFields.ANALYTICS_UA] = ANALYTICS_UA
+        params[AnalyticsFields.PUBLISHABLE_KEY] = publishableKey()
+        params[AnalyticsFields.OS_NAME] = OS_NAME
+        params[AnalyticsFields.OS_RELEASE] = OS_RELEASE
+        params[AnalyticsFields.OS_VERSION] = OS_VERSION
+        params[AnalyticsFields.DEVICE_TYPE] = DEVICE_TYPE
+        params[AnalyticsFields.BINDINGS_VERSION] = StripeSdkVersion.VERSION_NAME
+        params[AnalyticsFields.IS_DEVELOPMENT] = BuildConfig.DEBUG
+        params[AnalyticsFields.SESSION_ID] = sessionId
+        params[AnalyticsFields.TIMESTAMP] = System.currentTimeMillis() / MILLIS_TO_SECONDS
+        params[AnalyticsFields.LOCALE] = Locale.getDefault().toString()
+        networkType?.let { params[AnalyticsFields.NETWORK_TYPE] = it }
+        pluginType?.let { params[AnalyticsFields.PLUGIN_TYPE] = it }
+        isNewArchitecture?.let { params[AnalyticsFields.REACT_NATIVE_IS_NEW_ARCHITECTURE] = it }
+        reactNativeVersion?.let { params[AnalyticsFields.REACT_NATIVE_VERSION] = it }
+        params.putAll(appData)
+        params[AnalyticsFields.EVENT] = event.eventName
+        params.putAll(additionalParams)
+        return params
     }
 
-    private fun standardParams(): Map<String, Any> = mapOf(
-        AnalyticsFields.ANALYTICS_UA to ANALYTICS_UA,
-        AnalyticsFields.PUBLISHABLE_KEY to runCatching {
+    private fun publishableKey(): String {
+        return runCatching {
             val publishableKey = publishableKeyProvider.get()
             if (publishableKey.startsWith("uk_")) {
                 "[REDACTED_LIVE_KEY]"
             } else {
                 publishableKey
             }
-        }.getOrDefault(ApiRequest.Options.UNDEFINED_PUBLISHABLE_KEY),
-        AnalyticsFields.OS_NAME to Build.VERSION.CODENAME,
-        AnalyticsFields.OS_RELEASE to Build.VERSION.RELEASE,
-        AnalyticsFields.OS_VERSION to Build.VERSION.SDK_INT,
-        AnalyticsFields.DEVICE_TYPE to DEVICE_TYPE,
-        AnalyticsFields.BINDINGS_VERSION to StripeSdkVersion.VERSION_NAME,
-        AnalyticsFields.IS_DEVELOPMENT to BuildConfig.DEBUG,
-        AnalyticsFields.SESSION_ID to sessionId,
-        AnalyticsFields.TIMESTAMP to System.currentTimeMillis() / MILLIS_TO_SECONDS,
-        AnalyticsFields.LOCALE to Locale.getDefault().toString(),
-    ) + networkType() + pluginType() + reactNativeParams()
-
-    private fun networkType(): Map<String, String> {
-        val networkType = networkTypeProvider.get() ?: return emptyMap()
-        return mapOf(AnalyticsFields.NETWORK_TYPE to networkType)
-    }
-
-    private fun pluginType(): Map<String, String> {
-        return pluginTypeProvider.get()?.let { pluginType ->
-            mapOf(AnalyticsFields.PLUGIN_TYPE to pluginType)
-        } ?: emptyMap()
+        }.getOrDefault(ApiRequest.Options.UNDEFINED_PUBLISHABLE_KEY)
     }
 
-    private fun reactNativeParams(): Map<String, Any> {
-        val params = mutableMapOf<String, Any>()
-        ReactNativeAnalytics.isNewArchitecture?.let {
-            params[AnalyticsFields.REACT_NATIVE_IS_NEW_ARCHITECTURE] = it
-        }
-        ReactNativeAnalytics.reactNativeVersion?.let {
-            params[AnalyticsFields.REACT_NATIVE_VERSION] = it
-        }
-        return params
-    }
-
-    internal fun appDataParams(): Map<String, Any> {
-        return when {
+    /**
+     * The app name and version don't change while the process is alive, and resolving the app
+     * label is a call into the package manager, so they are only computed once.
+     */
+    private val appData: Map<String, Any> by lazy {
+        when {
             packageManager != null && packageInfo != null -> {
                 mapOf(
                     AnalyticsFields.APP_NAME to getAppName(packageInfo, packageManager),
@@ -104,11 +106,20 @@ open class AnalyticsRequestFactory(
         }
     }
 
+    internal fun appDataParams(): Map<String, Any> = appData
+
     private fun getAppName(
         packageInfo: PackageInfo?,
         packageManager: PackageManager
     ): CharSequence {
-        return packageInfo?.applicationInfo?.loadLabel(packageManager).takeUnless {
+        return packageInfo?.applicationInfo?.let { applicationInfo ->
+            val appPackageName = applicationInfo.packageName
+            if (appPackageName == null) {
+                applicationInfo.loadLabel(packageManager)
+            } else {
+                APP_LABELS.getOrPut(appPackageName) { applicationInfo.loadLabel(packageManager) }
+            }
+        }.takeUnless {
             it.isNullOrBlank()
         } ?: packageName
     }
@@ -125,6 +136,19 @@ open class AnalyticsRequestFactory(
         private const val MILLIS_TO_SECONDS = 1000.0
 
         private val DEVICE_TYPE: String = "${Build.MANUFACTURER}_${Build.BRAND}_${Build.MODEL}"
+        private val OS_NAME = Build.VERSION.CODENAME
+        private val OS_RELEASE = Build.VERSION.RELEASE
+        private val OS_VERSION = Build.VERSION.SDK_INT
+
+        /**
+         * The standard params, plus the optional network, plugin and React Native params.
+         */
+        private const val MAX_STANDARD_PARAMS = 15
+
+        /**
+         * App labels by package name, shared by every factory in the process.
+         */
+        private val APP_LABELS = ConcurrentHashMap<String, CharSequence>()
 
         const val ANALYTICS_UA = "$ANALYTICS_PREFIX.$ANALYTICS_NAME-$ANALYTICS_VERSION"
 
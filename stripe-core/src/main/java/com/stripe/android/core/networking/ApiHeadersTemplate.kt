@@ -0,0 +1,70 @@
+package com.stripe.android.core.networking
+
+import com.stripe.android.core.AppInfo
+import java.util.Locale
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * The API request header values that only depend on the [AppInfo], locale and SDK version,
+ * computed once and shared by every [RequestHeadersFactory.BaseApiHeadersFactory] with the same
+ * inputs.
+ */
+internal class ApiHeadersTemplate private constructor(
+    appInfo: AppInfo?,
+    locale: Locale,
+    sdkVersion: String,
+    xStripeUserAgentParams: Map<String, String?>,
+) {
+    val userAgent: String = listOfNotNull(
+        RequestHeadersFactory.getUserAgent(sdkVersion),
+        appInfo?.toUserAgent()
+    ).joinToString(" ")
+
+    val xStripeUserAgent: String = xStripeUserAgentParams.toXStripeUserAgent()
+
+    val stripeClientUserAgent: String = StripeClientUserAgentHeaderFactory()
+        .createHeaderValue(appInfo)
+        .toString()
+
+    val languageTag: String? = locale.toLanguageTag()
+        .takeIf { it.isNotBlank() && it != RequestHeadersFactory.UNDETERMINED_LANGUAGE }
+
+    private data class Key(
+        val appInfo: AppInfo?,
+        val locale: Locale,
+        val sdkVersion: String,
+    )
+
+    companion object {
+        /**
+         * Only a handful of combinations exist in practice. The bound protects against callers
+         * creating factories for many different locales.
+         */
+        private const val MAX_TEMPLATES = 16
+
+        private val templates = ConcurrentHashMap<Key, ApiHeadersTemplate>()
+
+        fun get(
+            appInfo: AppInfo?,
+            locale: Locale,
+            sdkVersion: String,
+            xStripeUserAgentParams: () -> Map<String, String?>,
+        ): ApiHeadersTemplate {
+            val key = Key(appInfo, locale, sdkVersion)
+            templates[key]?.let { return it }
+
+            if (templates.size >= MAX_TEMPLATES) {
+                templates.clear()
+            }
+            return templates.getOrPut(key) {
+                ApiHeadersTemplate(appInfo, locale, sdkVersion, xStripeUserAgentParams())
+            }
+        }
+
+        internal fun Map<String, String?>.toXStripeUserAgent(): String {
+            return "{" + map { (key, value) ->
+                "\"$key\":\"$value\""
+            }.joinToString(",") + "}"
+        }
+    }
+}
@@ -5,13 +5,11 @@ import androidx.annotation.RestrictTo
 import com.stripe.android.core.ApiKeyValidator
 import com.stripe.android.core.ApiVersion
 import com.stripe.android.core.AppInfo
-import com.stripe.android.core.exception.InvalidRequestException
 import com.stripe.android.core.injection.PUBLISHABLE_KEY
 import com.stripe.android.core.injection.STRIPE_ACCOUNT_ID
 import com.stripe.android.core.version.StripeSdkVersion
 import kotlinx.parcelize.Parcelize
 import java.io.OutputStream
-import java.io.UnsupportedEncodingException
 import javax.inject.Inject
 import javax.inject.Named
 import javax.inject.Provider
@@ -30,21 +28,10 @@ data class ApiRequest internal constructor(
     private val sdkVersion: String = StripeSdkVersion.VERSION,
     override val shouldCache: Boolean = false
 ) : StripeRequest() {
-    private val query: String = QueryStringFactory.createFromParamsWithEmptyValues(params)
-
-    private val postBodyBytes: ByteArray
-        @Throws(UnsupportedEncodingException::class, InvalidRequestException::class)
-        get() {
-            try {
-                return query.toByteArray(Charsets.UTF_8)
-            } catch (e: UnsupportedEncodingException) {
-                throw InvalidRequestException(
-                    message = "Unable to encode parameters to ${Charsets.UTF_8.name()}. " +
-                        "Please contact support@stripe.com for assistance.",
-                    cause = e
-                )
-            }
-        }
+    /**
+     * Encoded once, and written as is for the query string or the post body.
+     */
+    private val encodedParams = FormUrlEncodedParams.encode(params, compact = true)
 
     private val headersFactory = RequestHeadersFactory.Api(
         options = options,
@@ -61,11 +48,11 @@ data class ApiRequest internal constructor(
      * If the HTTP method is [StripeRequest.Method.GET] or [StripeRequest.Method.DELETE], this is
      * the URL with query string; otherwise, just the URL.
      */
-    override val url: String
-        get() = if (Method.GET == method || Method.DELETE == method) {
+    override val url: String by lazy {
+        if (Method.GET == method || Method.DELETE == method) {
             listOfNotNull(
                 baseUrl,
-                query.takeIf { it.isNotEmpty() }
+                encodedParams.takeUnless { it.isEmpty() }?.toString()
             ).joinToString(
                 // In some cases, URL can already contain a question mark
                 // (eg, upcoming invoice lines)
@@ -78,16 +65,15 @@ data class ApiRequest internal constructor(
         } else {
             baseUrl
         }
+    }
 
     override val headers: Map<String, String> = headersFactory.create()
 
     override var postHeaders: Map<String, String>? = headersFactory.createPostHeader()
 
     override fun writePostBody(outputStream: OutputStream) {
-        postBodyBytes.let {
-            outputStream.write(it)
-            outputStream.flush()
-        }
+        encodedParams.writeTo(outputStream)
+        outputStream.flush()
     }
 
     override fun toString(): String {
@@ -0,0 +1,239 @@
+package com.stripe.android.core.networking
+
+import java.io.OutputStream
+import java.util.HashMap
+
+/**
+ * Params encoded as `application/x-www-form-urlencoded`, e.g. "p1=v1&p2[a]=v2".
+ *
+ * [encode] walks the param tree once and escapes every key and value straight into a single
+ * byte buffer. Nested keys are escaped once into a shared prefix buffer, instead of building a
+ * list of parameters, joining their strings and converting the result to bytes. The buffer is
+ * then written as is to the connection, or read as the query string.
+ *
+ * The output is identical to the one [QueryStringFactory] has always produced, including the
+ * key ordering and [java.net.URLEncoder] escaping.
+ */
+internal class FormUrlEncodedParams private constructor(
+    private val bytes: ByteArray,
+    private val length: Int
+) {
+    fun isEmpty(): Boolean = length == 0
+
+    fun writeTo(outputStream: OutputStream) {
+        outputStream.write(bytes, 0, length)
+    }
+
+    override fun toString(): String = String(bytes, 0, length, Charsets.US_ASCII)
+
+    private class Encoder {
+        private val output = AsciiBuffer(INITIAL_OUTPUT_CAPACITY)
+        private val prefix = AsciiBuffer(INITIAL_PREFIX_CAPACITY)
+
+        fun encode(params: Map<*, *>, compact: Boolean): FormUrlEncodedParams {
+            writeMap(params, compact = compact, topLevel = true)
+            return FormUrlEncodedParams(output.bytes, output.size)
+        }
+
+        private fun writeValue(value: Any?, compact: Boolean) {
+            when (value) {
+                is Map<*, *> -> writeMap(value, compact = compact, topLevel = false)
+                is List<*> -> writeList(value)
+                null -> writeParam("")
+                else -> writeParam(value.toString())
+            }
+        }
+
+        private fun writeMap(params: Map<*, *>, compact: Boolean, topLevel: Boolean) {
+            val mark = prefix.size
+            for ((key, value) in orderedEntries(params, compact)) {
+                // The Stripe API rejects null values, so compacted maps drop them.
+                if (compact && value == null) {
+                    continue
+                }
+
+                if (topLevel) {
+                    prefix.appendEncoded(key.toString())
+                } else {
+                    prefix.appendAscii(OPEN_BRACKET)
+                    prefix.appendEncoded(key.toString())
+                    prefix.appendAscii(CLOSE_BRACKET)
+                }
+                writeValue(value, compact)
+                prefix.size = mark
+            }
+        }
+
+        private fun writeList(params: List<*>) {
+            // Because application/x-www-form-urlencoded cannot represent an empty
+            // list, convention is to take the list parameter and just set it to an
+            // empty string. (e.g. A regular list might look like `a[]=1&b[]=2`.
+            // Emptying it would look like `a=`.)
+            if (params.isEmpty()) {
+                writeParam("")
+                return
+            }
+
+            // Compaction never reached into lists, so their content is written as is.
+            val mark = prefix.size
+            if (params.all(::isPrimitive)) {
+                // Lists of primitives can be serialized as `listName[]=`
+                prefix.appendAscii(OPEN_BRACKET)
+                prefix.appendAscii(CLOSE_BRACKET)
+                params.forEach { writeValue(it, compact = false) }
+            } else {
+                // Lists of objects must include the index like `listName[0]=`
+                params.forEachIndexed { index, value ->
+                    prefix.appendAscii(OPEN_BRACKET)
+                    prefix.appendAscii(index.toString())
+                    prefix.appendAscii(CLOSE_BRACKET)
+                    writeValue(value, compact = false)
+                    prefix.size = mark
+                }
+            }
+            prefix.size = mark
+        }
+
+        private fun writeParam(value: String) {
+            if (output.size > 0) {
+                output.appendAscii('&')
+            }
+            output.append(prefix)
+            output.appendAscii('=')
+            output.appendEncoded(value)
+        }
+
+        /**
+         * Compacted maps have always been copied into a [HashMap] before being flattened, and the
+         * params were written in its iteration order. That order depends on the runtime's
+         * [HashMap], so it is kept by iterating a copy. Maps with a single entry have only one
+         * order and are not copied.
+         */
+        private fun orderedEntries(params: Map<*, *>, compact: Boolean): Set<Map.Entry<*, *>> {
+            return if (compact && params.size > 1) {
+                HashMap(params).entries
+            } else {
+                params.entries
+            }
+        }
+
+        /**
+         * Determine if a value is a primitive. Primitives in lists can be serialized without indexes.
+         */
+        private fun isPrimitive(value: Any?) =
+            value is String || value is Number || value is Boolean || value is Char
+    }
+
+    /**
+     * A growable buffer of ASCII bytes.
+     */
+    private class AsciiBuffer(capacity: Int) {
+        var bytes = ByteArray(capacity)
+            private set
+        var size = 0
+
+        fun append(other: AsciiBuffer) {
+            ensureCapacity(other.size)
+            System.arraycopy(other.bytes, 0, bytes, size, other.size)
+            size += other.size
+        }
+
+        fun appendAscii(char: Char) {
+            ensureCapacity(1)
+            bytes[size++] = char.code.toByte()
+        }
+
+        fun appendAscii(value: String) {
+            ensureCapacity(value.length)
+            for (char in value) {
+                bytes[size++] = char.code.toByte()
+            }
+        }
+
+        /**
+         * Append [value] escaped the way [java.net.URLEncoder] does with UTF-8: letters, digits and
+         * `.-*_` are kept, spaces become `+`, and everything else is written as the `%XX` escaped
+         * UTF-8 bytes of the character. Unpaired surrogates can't be encoded in UTF-8 and are
+         * replaced with `?`, like [String.toByteArray] does.
+         */
+        @Suppress("MagicNumber")
+        fun appendEncoded(value: String) {
+            // Each UTF-16 char is at most 3 UTF-8 bytes, i.e. 9 escaped chars.
+            ensureCapacity(value.length * 9)
+
+            var i = 0
+            while (i < value.length) {
+                val char = value[i++]
+                val code = char.code
+                when {
+                    isUnreserved(char) -> bytes[size++] = code.toByte()
+                    char == ' ' -> bytes[size++] = '+'.code.toByte()
+                    code < 0x80 -> appendEscapedByte(code)
+                    code < 0x800 -> {
+                        appendEscapedByte(0xC0 or (code shr 6))
+                        appendEscapedByte(0x80 or (code and 0x3F))
+                    }
+                    Character.isHighSurrogate(char) &&
+                        i < value.length &&
+                        Character.isLowSurrogate(value[i]) -> {
+                        val codePoint = Character.toCodePoint(char, value[i++])
+                        appendEscapedByte(0xF0 or (codePoint shr 18))
+                        appendEscapedByte(0x80 or ((codePoint shr 12) and 0x3F))
+                        appendEscapedByte(0x80 or ((codePoint shr 6) and 0x3F))
+                        appendEscapedByte(0x80 or (codePoint and 0x3F))
+                    }
+                    Character.isSurrogate(char) -> appendEscapedByte('?'.code)
+                    else -> {
+                        appendEscapedByte(0xE0 or (code shr 12))
+                        appendEscapedByte(0x80 or ((code shr 6) and 0x3F))
+                        appendEscapedByte(0x80 or (code and 0x3F))
+                    }
+                }
+            }
+        }
+
+        @Suppress("MagicNumber")
+        private fun appendEscapedByte(byte: Int) {
+            bytes[size++] = '%'.code.toByte()
+            bytes[size++] = HEX_DIGITS[byte shr 4]
+            bytes[size++] = HEX_DIGITS[byte and 0xF]
+        }
+
+        private fun isUnreserved(char: Char): Boolean {
+            return char in 'a'..'z' || char in 'A'..'Z' || char in '0'..'9' ||
+                char == '.' || char == '-' || char == '*' || char == '_'
+        }
+
+        private fun ensureCapacity(extra: Int) {
+            val required = size + extra
+            if (required > bytes.size) {
+                bytes = bytes.copyOf(maxOf(bytes.size * 2, required))
+            }
+        }
+    }
+
+    companion object {
+        private const val INITIAL_OUTPUT_CAPACITY = 256
+        private const val INITIAL_PREFIX_CAPACITY = 64
+
+        private const val OPEN_BRACKET = "%5B"
+        private const val CLOSE_BRACKET = "%5D"
+
+        private val HEX_DIGITS = "0123456789ABCDEF".toByteArray(Charsets.US_ASCII)
+
+        private val EMPTY = FormUrlEncodedParams(ByteArray(0), 0)
+
+        /**
+         * Encode [params]. When [compact] is true, null values of the params map and of its nested
+         * maps are dropped, like [QueryStringFactory.compactParams] does. Otherwise, null values
+         * are encoded as empty strings.
+         */
+        fun encode(params: Map<String, *>?, compact: Boolean): FormUrlEncodedParams {
+            return if (params.isNullOrEmpty()) {
+                EMPTY
+            } else {
+                Encoder().encode(params, compact)
+            }
+        }
+    }
+}
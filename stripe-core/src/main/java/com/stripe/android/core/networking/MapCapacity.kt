@@ -0,0 +1,8 @@
+package com.stripe.android.core.networking
+
+/**
+ * The initial capacity a [HashMap] needs to hold [expectedSize] entries at the default load
+ * factor without being resized.
+ */
+@Suppress("MagicNumber")
+internal fun mapCapacity(expectedSize: Int): Int = (expectedSize / 0.75f).toInt() + 1
@@ -3,20 +3,40 @@ package com.stripe.android.core.networking
 import android.content.Context
 import android.content.Context.CONNECTIVITY_SERVICE
 import android.net.ConnectivityManager
+import android.net.Network
+import android.net.NetworkCapabilities
+import android.net.NetworkRequest
+import android.os.Build
 import android.telephony.TelephonyManager
 import androidx.annotation.RestrictTo
+import java.util.concurrent.atomic.AtomicInteger
 
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 class NetworkTypeDetector private constructor(
     private val connectivityManager: ConnectivityManager,
+    private val cache: NetworkTypeCache?,
 ) {
 
+    private constructor(connectivityManager: ConnectivityManager) : this(
+        connectivityManager = connectivityManager,
+        cache = NetworkTypeCache.obtain(connectivityManager),
+    )
+
     constructor(context: Context) : this(
         connectivityManager = context.applicationContext.getSystemService(CONNECTIVITY_SERVICE) as ConnectivityManager,
     )
 
-    @Suppress("DEPRECATION")
+    /**
+     * Returns the type of the active network. The value is cached for the process, and only
+     * queried again from [ConnectivityManager] after a network change.
+     */
     operator fun invoke(): String? {
+        val cache = cache ?: return detect()
+        return cache.get(::detect)
+    }
+
+    @Suppress("DEPRECATION")
+    private fun detect(): String? {
         val networkInfo = connectivityManager.activeNetworkInfo
 
         if (networkInfo == null || !networkInfo.isConnected) {
@@ -69,6 +89,86 @@ class NetworkTypeDetector private constructor(
         }
     }
 
+    /**
+     * Caches the network type until a connectivity callback reports a change. Each change bumps
+     * [generation], so a value detected while a change comes in is never served afterwards.
+     */
+    private class NetworkTypeCache(
+        val connectivityManager: ConnectivityManager,
+    ) : ConnectivityManager.NetworkCallback() {
+        private val generation = AtomicInteger()
+
+        @Volatile
+        private var cached: CachedNetworkType? = null
+
+        @Volatile
+        private var isRegistered = true
+
+        fun get(detect: () -> String?): String? {
+            if (!isRegistered) {
+                // Changes aren't reported anymore, so nothing can be cached.
+                return detect()
+            }
+            val currentGeneration = generation.get()
+            cached?.takeIf { it.generation == currentGeneration }?.let {
+                return it.networkType
+            }
+            return detect().also {
+                cached = CachedNetworkType(currentGeneration, it)
+            }
+        }
+
+        override fun onAvailable(network: Network) = invalidate()
+
+        override fun onLost(network: Network) = invalidate()
+
+        override fun onCapabilitiesChanged(network: Network, networkCapabilities: NetworkCapabilities) = invalidate()
+
+        private fun invalidate() {
+            generation.incrementAndGet()
+        }
+
+        private fun unregister() {
+            isRegistered = false
+            runCatching { connectivityManager.unregisterNetworkCallback(this) }
+        }
+
+        companion object {
+            @Volatile
+            private var instance: NetworkTypeCache? = null
+
+            /**
+             * Returns the cache shared by every detector in the process, or null if the
+             * connectivity callback can't be registered, in which case every call detects the
+             * network type again.
+             */
+            @Synchronized
+            fun obtain(connectivityManager: ConnectivityManager): NetworkTypeCache? {
+                instance?.takeIf { it.connectivityManager === connectivityManager }?.let { return it }
+
+                // Detectors still holding the previous cache detect the network type every time.
+                instance?.unregister()
+                instance = null
+
+                val cache = NetworkTypeCache(connectivityManager)
+                val registered = runCatching {
+                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+                        connectivityManager.registerDefaultNetworkCallback(cache)
+                    } else {
+                        connectivityManager.registerNetworkCallback(NetworkRequest.Builder().build(), cache)
+                    }
+                }.isSuccess
+
+                return cache.takeIf { registered }?.also { instance = it }
+            }
+        }
+    }
+
+    private class CachedNetworkType(
+        val generation: Int,
+        val networkType: String?,
+    )
+
     private enum class NetworkType(val value: String) {
         WiFi("Wi-Fi"),
         Mobile2G("2G"),
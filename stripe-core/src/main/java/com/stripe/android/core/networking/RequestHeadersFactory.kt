@@ -5,6 +5,8 @@ import android.system.Os
 import androidx.annotation.RestrictTo
 import com.stripe.android.core.ApiVersion
 import com.stripe.android.core.AppInfo
+import com.stripe.android.core.networking.ApiHeadersTemplate.Companion.toXStripeUserAgent
+import com.stripe.android.core.networking.StripeClientUserAgentHeaderFactory.Companion.HEADER_STRIPE_CLIENT_USER_AGENT
 import com.stripe.android.core.version.StripeSdkVersion
 import java.util.Locale
 
@@ -14,13 +16,13 @@ sealed class RequestHeadersFactory {
      * Creates a map for headers attached to all requests.
      */
     fun create(): Map<String, String> {
-        return extraHeaders.plus(
-            mapOf(
-                HEADER_USER_AGENT to userAgent,
-                HEADER_ACCEPT_CHARSET to CHARSET,
-                HEADER_X_STRIPE_USER_AGENT to xStripeUserAgent
-            )
-        )
+        val extraHeaders = extraHeaders
+        val headers = LinkedHashMap<String, String>(mapCapacity(extraHeaders.size + COMMON_HEADERS_COUNT))
+        headers.putAll(extraHeaders)
+        headers[HEADER_USER_AGENT] = userAgent
+        headers[HEADER_ACCEPT_CHARSET] = CHARSET
+        headers[HEADER_X_STRIPE_USER_AGENT] = xStripeUserAgent
+        return headers
     }
 
     /**
@@ -39,13 +41,7 @@ sealed class RequestHeadersFactory {
 
     protected abstract val xStripeUserAgent: String
 
-    protected fun defaultXStripeUserAgentMap() = mutableMapOf<String, String?>(
-        LANG to KOTLIN,
-        AnalyticsFields.BINDINGS_VERSION to StripeSdkVersion.VERSION_NAME,
-        AnalyticsFields.OS_VERSION to "${Build.VERSION.SDK_INT}",
-        TYPE to "${Build.MANUFACTURER}_${Build.BRAND}_${Build.MODEL}",
-        MODEL to Build.MODEL
-    )
+    protected fun defaultXStripeUserAgentMap() = createDefaultXStripeUserAgentMap()
 
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
     open class BaseApiHeadersFactory(
@@ -55,61 +51,40 @@ sealed class RequestHeadersFactory {
         private val apiVersion: String = ApiVersion.get().code,
         private val sdkVersion: String = StripeSdkVersion.VERSION
     ) : RequestHeadersFactory() {
-        private val stripeClientUserAgentHeaderFactory = StripeClientUserAgentHeaderFactory()
-
-        private val languageTag: String?
-            get() {
-                return locale.toLanguageTag()
-                    .takeIf { it.isNotBlank() && it != UNDETERMINED_LANGUAGE }
+        private val template: ApiHeadersTemplate by lazy {
+            ApiHeadersTemplate.get(appInfo, locale, sdkVersion) {
+                defaultXStripeUserAgentMap().apply {
+                    appInfo?.let { putAll(it.toParamMap()) }
+                }
             }
+        }
 
         override val userAgent: String
-            get() {
-                return listOfNotNull(
-                    getUserAgent(sdkVersion),
-                    appInfo?.toUserAgent()
-                ).joinToString(" ")
-            }
+            get() = template.userAgent
 
         override val xStripeUserAgent: String
-            get() {
-                val paramMap = defaultXStripeUserAgentMap()
-                appInfo?.let {
-                    paramMap.putAll(it.toParamMap())
-                }
-
-                return "{" + paramMap.map { (key, value) ->
-                    "\"$key\":\"$value\""
-                }.joinToString(",") + "}"
-            }
+            get() = template.xStripeUserAgent
 
+        /**
+         * Only the values coming from [ApiRequest.Options] change between requests, everything
+         * else comes from the [template].
+         */
         override val extraHeaders: Map<String, String>
             get() {
                 val apiRequestOptions = optionsProvider()
-                return mapOf(
-                    HEADER_ACCEPT to "application/json",
-                    HEADER_STRIPE_VERSION to apiVersion,
-                    HEADER_AUTHORIZATION to "Bearer ${apiRequestOptions.apiKey}"
-                ).plus(
-                    stripeClientUserAgentHeaderFactory.create(appInfo)
-                ).plus(
-                    if (apiRequestOptions.apiKeyIsUserKey) {
-                        val isLiveMode = Os.getenv("Stripe-Livemode") != "false"
-                        mapOf(HEADER_STRIPE_LIVEMODE to isLiveMode.toString())
-                    } else {
-                        emptyMap()
-                    }
-                ).plus(
-                    apiRequestOptions.stripeAccount?.let {
-                        mapOf(HEADER_STRIPE_ACCOUNT to it)
-                    }.orEmpty()
-                ).plus(
-                    apiRequestOptions.idempotencyKey?.let {
-                        mapOf(HEADER_IDEMPOTENCY_KEY to it)
-                    }.orEmpty()
-                ).plus(
-                    languageTag?.let { mapOf(HEADER_ACCEPT_LANGUAGE to it) }.orEmpty()
-                )
+                val template = template
+                val headers = LinkedHashMap<String, String>(mapCapacity(MAX_API_EXTRA_HEADERS_COUNT))
+                headers[HEADER_ACCEPT] = "application/json"
+                headers[HEADER_STRIPE_VERSION] = apiVersion
+                headers[HEADER_AUTHORIZATION] = "Bearer ${apiRequestOptions.apiKey}"
+                headers[HEADER_STRIPE_CLIENT_USER_AGENT] = template.stripeClientUserAgent
+                if (apiRequestOptions.apiKeyIsUserKey) {
+                    headers[HEADER_STRIPE_LIVEMODE] = isLiveMode.toString()
+                }
+                apiRequestOptions.stripeAccount?.let { headers[HEADER_STRIPE_ACCOUNT] = it }
+                apiRequestOptions.idempotencyKey?.let { headers[HEADER_IDEMPOTENCY_KEY] = it }
+                template.languageTag?.let { headers[HEADER_ACCEPT_LANGUAGE] = it }
+                return headers
             }
     }
 
@@ -179,12 +154,7 @@ sealed class RequestHeadersFactory {
             HEADER_CONTENT_TYPE to "${StripeRequest.MimeType.Json.code}; charset=$CHARSET"
         )
         override val xStripeUserAgent: String
-            get() {
-                val paramMap = defaultXStripeUserAgentMap()
-                return "{" + paramMap.map { (key, value) ->
-                    "\"$key\":\"$value\""
-                }.joinToString(",") + "}"
-            }
+            get() = DEFAULT_X_STRIPE_USER_AGENT
     }
 
     /**
@@ -195,12 +165,7 @@ sealed class RequestHeadersFactory {
         override val userAgent = getUserAgent(StripeSdkVersion.VERSION)
         override val extraHeaders = emptyMap<String, String>()
         override val xStripeUserAgent: String
-            get() {
-                val paramMap = defaultXStripeUserAgentMap()
-                return "{" + paramMap.map { (key, value) ->
-                    "\"$key\":\"$value\""
-                }.joinToString(",") + "}"
-            }
+            get() = DEFAULT_X_STRIPE_USER_AGENT
     }
 
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
@@ -217,5 +182,31 @@ sealed class RequestHeadersFactory {
         const val KOTLIN = "kotlin"
         const val TYPE = "type"
         const val MODEL = "model"
+
+        private const val COMMON_HEADERS_COUNT = 3
+        private const val MAX_API_EXTRA_HEADERS_COUNT = 8
+
+        /**
+         * The X-Stripe-User-Agent header without app info, which is the same for the whole process.
+         */
+        private val DEFAULT_X_STRIPE_USER_AGENT: String by lazy {
+            createDefaultXStripeUserAgentMap().toXStripeUserAgent()
+        }
+
+        /**
+         * Only used with user keys, to target test mode. Environment variables don't change while
+         * the process is alive.
+         */
+        private val isLiveMode: Boolean by lazy {
+            Os.getenv("Stripe-Livemode") != "false"
+        }
+
+        private fun createDefaultXStripeUserAgentMap() = mutableMapOf<String, String?>(
+            LANG to KOTLIN,
+            AnalyticsFields.BINDINGS_VERSION to StripeSdkVersion.VERSION_NAME,
+            AnalyticsFields.OS_VERSION to "${Build.VERSION.SDK_INT}",
+            TYPE to "${Build.MANUFACTURER}_${Build.BRAND}_${Build.MODEL}",
+            MODEL to Build.MODEL
+        )
     }
 }
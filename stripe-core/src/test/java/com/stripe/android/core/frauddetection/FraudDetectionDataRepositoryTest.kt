@@ -7,10 +7,18 @@ import com.stripe.android.core.exception.APIConnectionException
 import com.stripe.android.core.exception.StripeException
 import com.stripe.android.core.networking.DefaultStripeNetworkClient
 import com.stripe.android.core.networking.StripeNetworkClient
+import com.stripe.android.core.networking.StripeRequest
 import com.stripe.android.core.networking.StripeResponse
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.test.UnconfinedTestDispatcher
+import kotlinx.coroutines.test.runCurrent
 import kotlinx.coroutines.test.runTest
+import kotlinx.coroutines.withContext
 import org.junit.runner.RunWith
 import org.mockito.kotlin.any
 import org.mockito.kotlin.mock
@@ -19,10 +27,13 @@ import org.mockito.kotlin.verify
 import org.mockito.kotlin.whenever
 import org.robolectric.RobolectricTestRunner
 import org.robolectric.annotation.Config
+import java.io.File
 import java.net.HttpURLConnection.HTTP_OK
 import java.util.Calendar
 import java.util.UUID
 import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.coroutines.CoroutineContext
 import kotlin.test.Test
 
 @OptIn(ExperimentalCoroutinesApi::class)
@@ -144,7 +155,120 @@ class FraudDetectionDataRepositoryTest {
             assertThat(reportedError).isEqualTo(expectedError)
         }
 
+    @Test
+    fun `concurrent refresh() and getLatest() calls share one network request`() = runTest {
+        val networkClient = FakeFraudDetectionNetworkClient()
+        val repository = createRepository(networkClient, testDispatcher)
+
+        repeat(5) { repository.refresh() }
+        val results = List(5) { async { repository.getLatest() } }
+        runCurrent()
+
+        networkClient.response.complete(createResponse())
+
+        val latest = results.awaitAll()
+        assertThat(latest.distinct()).hasSize(1)
+        assertThat(latest.first()).isNotNull()
+        assertThat(repository.getCached()).isEqualTo(latest.first())
+        assertThat(networkClient.calls.get()).isEqualTo(1)
+    }
+
+    @Test
+    fun `parallel getLatest() calls from many threads make one network request`() = runTest {
+        // The latency gives concurrent callers a chance to join the in-flight request.
+        val networkClient = FakeFraudDetectionNetworkClient(latency = 50)
+        networkClient.response.complete(createResponse())
+        val repository = createRepository(networkClient, Dispatchers.Default)
+
+        val latest = withContext(Dispatchers.Default) {
+            List(50) { async { repository.getLatest() } }.awaitAll()
+        }
+
+        assertThat(latest.distinct()).hasSize(1)
+        assertThat(networkClient.calls.get()).isEqualTo(1)
+    }
+
+    @Test
+    fun `refresh() and getLatest() don't fetch when the cached data is fresh`() = runTest {
+        val networkClient = FakeFraudDetectionNetworkClient()
+        val repository = createRepository(networkClient, testDispatcher)
+        val freshFraudDetectionData = createFraudDetectionData(elapsedTime = -5L)
+
+        repository.save(freshFraudDetectionData)
+        repository.refresh()
+
+        assertThat(repository.getLatest()).isEqualTo(freshFraudDetectionData)
+        assertThat(networkClient.calls.get()).isEqualTo(0)
+    }
+
+    @Test
+    fun `a failed fetch is not shared with later calls`() = runTest {
+        val networkClient = FakeFraudDetectionNetworkClient()
+        networkClient.response.completeExceptionally(APIConnectionException("API connection failed!"))
+        val repository = createRepository(networkClient, testDispatcher)
+
+        assertThat(repository.getLatest()).isNull()
+
+        networkClient.response = CompletableDeferred(createResponse())
+
+        assertThat(repository.getLatest()).isNotNull()
+        assertThat(networkClient.calls.get()).isEqualTo(2)
+    }
+
+    private fun createRepository(
+        networkClient: StripeNetworkClient,
+        workContext: CoroutineContext,
+    ): DefaultFraudDetectionDataRepository {
+        return DefaultFraudDetectionDataRepository(
+            localStore = DefaultFraudDetectionDataStore(context, workContext),
+            fraudDetectionDataRequestFactory = DefaultFraudDetectionDataRequestFactory(context),
+            stripeNetworkClient = networkClient,
+            errorReporter = { /* No-op */ },
+            workContext = workContext,
+            fraudDetectionEnabledProvider = { true },
+        )
+    }
+
+    /**
+     * @param latency how long, in milliseconds, requests take before waiting for [response].
+     */
+    private class FakeFraudDetectionNetworkClient(
+        private val latency: Long = 0,
+    ) : StripeNetworkClient {
+        val calls = AtomicInteger(0)
+
+        @Volatile
+        var response = CompletableDeferred<StripeResponse<String>>()
+
+        override suspend fun executeRequest(request: StripeRequest): StripeResponse<String> {
+            calls.incrementAndGet()
+            delay(latency)
+            return response.await()
+        }
+
+        override suspend fun executeRequestForFile(
+            request: StripeRequest,
+            outputFile: File
+        ): StripeResponse<File> {
+            throw NotImplementedError()
+        }
+    }
+
     private companion object {
+        fun createResponse(): StripeResponse<String> {
+            return StripeResponse(
+                code = HTTP_OK,
+                body =
+                """
+                {
+                    "guid": "${UUID.randomUUID()}",
+                    "muid": "${UUID.randomUUID()}",
+                    "sid": "${UUID.randomUUID()}"
+                }
+                """.trimIndent()
+            )
+        }
+
         fun createFraudDetectionData(elapsedTime: Long = 0L): FraudDetectionData {
             return FraudDetectionDataFixtures.create(
                 Calendar.getInstance().timeInMillis + TimeUnit.MINUTES.toMillis(elapsedTime)
@@ -0,0 +1,137 @@
+package com.stripe.android.core.networking
+
+import android.app.Application
+import android.content.Context
+import android.net.ConnectivityManager
+import androidx.test.core.app.ApplicationProvider
+import org.json.JSONObject
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import java.io.File
+import java.lang.management.ManagementFactory
+import kotlin.time.Duration
+import kotlin.time.DurationUnit
+import kotlin.time.measureTime
+
+/**
+ * Reports the throughput and allocations of [AnalyticsRequestFactory.createRequest], compared to
+ * the params it used to build through chained map copies.
+ *
+ * Throughput and allocations depend on the machine and JVM running the test, so they are only
+ * reported. The report is written as JSON to [REPORT_FILE_NAME] in the build's benchmark reports
+ * directory, so that it can be compared between builds.
+ *
+ * The benchmark is left out of the unit tests and only runs with
+ * `./gradlew :stripe-core:testDebugUnitTest -PrunBenchmarks --tests '*BenchmarkTest'`.
+ */
+@RunWith(RobolectricTestRunner::class)
+class AnalyticsRequestFactoryBenchmarkTest {
+
+    private val application = ApplicationProvider.getApplicationContext<Application>()
+    private val packageInfo = application.packageManager.getPackageInfo(application.packageName, 0)
+    private val connectivityManager =
+        application.getSystemService(Context.CONNECTIVITY_SERVICE) as ConnectivityManager
+
+    private val event = object : AnalyticsEvent {
+        override val eventName: String = "mc_complete_sheet_newpm_show"
+    }
+    private val additionalParams = mapOf(
+        "mpe_config" to "value",
+        "currency" to "usd",
+        "is_decoupled" to false,
+        "locale" to "en_US",
+    )
+
+    @Test
+    fun `createRequest benchmark`() {
+        val factory = AnalyticsRequestFactory(
+            packageManager = application.packageManager,
+            packageInfo = packageInfo,
+            packageName = application.packageName,
+            publishableKeyProvider = { "pk_test_123" },
+            networkTypeProvider = NetworkTypeDetector(application)::invoke,
+            pluginTypeProvider = { null },
+        )
+        val legacy = LegacyAnalyticsParams(
+            packageManager = application.packageManager,
+            packageInfo = packageInfo,
+            packageName = application.packageName,
+            publishableKeyProvider = { "pk_test_123" },
+            networkTypeProvider = { detectNetworkTypeUncached() },
+            pluginTypeProvider = { null },
+        )
+
+        val current = measure { factory.createRequest(event, additionalParams) }
+        val chained = measure {
+            AnalyticsRequest(
+                params = legacy.create(event, additionalParams),
+                headers = RequestHeadersFactory.Analytics.create()
+            )
+        }
+
+        val report = JSONObject()
+            .put("benchmark", "AnalyticsRequestFactory.createRequest")
+            .put("measured_iterations", MEASURED_ITERATIONS)
+            .put("presized_params", current.toJson())
+            .put("legacy_chained_params", chained.toJson())
+            .toString(2)
+
+        val reportsDir = System.getProperty(REPORTS_DIR_PROPERTY)
+            ?: error("$REPORTS_DIR_PROPERTY is set by the build when run with -PrunBenchmarks.")
+        File(reportsDir, REPORT_FILE_NAME).apply { parentFile?.mkdirs() }.writeText(report)
+    }
+
+    @Suppress("DEPRECATION")
+    private fun detectNetworkTypeUncached(): String? {
+        return connectivityManager.activeNetworkInfo?.takeIf { it.isConnected }?.typeName
+    }
+
+    private fun measure(block: () -> AnalyticsRequest): Result {
+        repeat(WARMUP_ITERATIONS) { block() }
+
+        val allocatedBefore = allocatedBytes()
+        val duration = measureTime {
+            repeat(MEASURED_ITERATIONS) { block() }
+        }
+        val allocatedAfter = allocatedBytes()
+
+        return Result(
+            eventsPerSecond = (MEASURED_ITERATIONS / duration.toDouble(DurationUnit.SECONDS)).toLong(),
+            timePerEvent = duration / MEASURED_ITERATIONS,
+            allocatedBytesPerEvent = if (allocatedBefore != null && allocatedAfter != null) {
+                (allocatedAfter - allocatedBefore) / MEASURED_ITERATIONS
+            } else {
+                null
+            }
+        )
+    }
+
+    /**
+     * The bytes allocated by the current thread, when the JVM running the test counts them.
+     */
+    private fun allocatedBytes(): Long? {
+        val threads = ManagementFactory.getThreadMXBean() as? com.sun.management.ThreadMXBean
+        return threads
+            ?.takeIf { it.isThreadAllocatedMemorySupported && it.isThreadAllocatedMemoryEnabled }
+            ?.getThreadAllocatedBytes(Thread.currentThread().id)
+    }
+
+    private data class Result(
+        val eventsPerSecond: Long,
+        val timePerEvent: Duration,
+        val allocatedBytesPerEvent: Long?
+    ) {
+        fun toJson(): JSONObject = JSONObject()
+            .put("events_per_second", eventsPerSecond)
+            .put("time_per_event_ns", timePerEvent.inWholeNanoseconds)
+            .putOpt("allocated_bytes_per_event", allocatedBytesPerEvent)
+    }
+
+    private companion object {
+        const val REPORTS_DIR_PROPERTY = "stripe.benchmarkReportsDir"
+        const val REPORT_FILE_NAME = "analytics-request-factory.json"
+        const val WARMUP_ITERATIONS = 2_000
+        const val MEASURED_ITERATIONS = 10_000
+    }
+}
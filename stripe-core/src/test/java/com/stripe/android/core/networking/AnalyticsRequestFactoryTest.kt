@@ -1,5 +1,6 @@
 package com.stripe.android.core.networking
 
+import android.content.pm.ApplicationInfo
 import android.content.pm.PackageInfo
 import android.content.pm.PackageManager
 import android.os.Build
@@ -13,6 +14,9 @@ import junit.framework.TestCase
 import org.junit.Test
 import org.junit.runner.RunWith
 import org.mockito.kotlin.mock
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
 import org.robolectric.RobolectricTestRunner
 import java.util.Locale
 import javax.inject.Provider
@@ -192,6 +196,130 @@ class AnalyticsRequestFactoryTest : TestCase() {
         }
     }
 
+    @OptIn(ReactNativeSdkInternal::class)
+    @Test
+    fun `params are identical to the legacy params`() {
+        val packageInfos = listOf(
+            null,
+            PackageInfo().also { it.versionCode = 20 },
+            createPackageInfo(label = "Test App"),
+            createPackageInfo(label = " "),
+        )
+        val publishableKeyProviders = listOf<Provider<String>>(
+            Provider { apiKey },
+            Provider { "uk_123" },
+            Provider { throw APIException(RuntimeException()) },
+        )
+        val additionalParamsVariants = listOf(
+            emptyMap(),
+            mapOf(
+                "custom" to "value",
+                "nullable" to null,
+                AnalyticsFields.LOCALE to "overridden",
+                AnalyticsFields.EVENT to "overridden_event",
+            ),
+        )
+
+        val factoryInputs = listOf(packageManager, null).flatMap { packageManager ->
+            packageInfos.flatMap { packageInfo ->
+                publishableKeyProviders.flatMap { publishableKeyProvider ->
+                    listOf(null, "5G").flatMap { networkType ->
+                        listOf(null, "flutter").map { pluginType ->
+                            FactoryInputs(packageManager, packageInfo, publishableKeyProvider, networkType, pluginType)
+                        }
+                    }
+                }
+            }
+        }
+
+        try {
+            for (reactNative in listOf(false, true)) {
+                ReactNativeAnalytics.isNewArchitecture = true.takeIf { reactNative }
+                ReactNativeAnalytics.reactNativeVersion = "0.75.3".takeIf { reactNative }
+
+                for (inputs in factoryInputs) {
+                    for (additionalParams in additionalParamsVariants) {
+                        assertMatchesLegacyParams(inputs, additionalParams)
+                    }
+                }
+            }
+        } finally {
+            ReactNativeAnalytics.isNewArchitecture = null
+            ReactNativeAnalytics.reactNativeVersion = null
+        }
+    }
+
+    @Test
+    fun `app label is loaded once per package`() {
+        val applicationInfo = mock<ApplicationInfo>()
+        applicationInfo.packageName = "com.stripe.android.label.test"
+        whenever(applicationInfo.loadLabel(packageManager)).thenReturn("Label Test")
+        val packageInfo = PackageInfo().also {
+            it.versionCode = 1
+            it.applicationInfo = applicationInfo
+        }
+
+        repeat(2) {
+            val factory = AnalyticsRequestFactory(
+                packageManager,
+                packageInfo,
+                packageName,
+                { apiKey },
+                { "5G" },
+            )
+            repeat(3) {
+                val params = factory.createRequest(mockEvent, emptyMap()).params
+                assertThat(params[AnalyticsFields.APP_NAME]).isEqualTo("Label Test")
+            }
+        }
+
+        verify(applicationInfo, times(1)).loadLabel(packageManager)
+    }
+
+    private fun assertMatchesLegacyParams(
+        inputs: FactoryInputs,
+        additionalParams: Map<String, Any?>
+    ) {
+        val factory = AnalyticsRequestFactory(
+            inputs.packageManager,
+            inputs.packageInfo,
+            packageName,
+            inputs.publishableKeyProvider,
+            { inputs.networkType },
+            { inputs.pluginType },
+        )
+        val legacy = LegacyAnalyticsParams(
+            inputs.packageManager,
+            inputs.packageInfo,
+            packageName,
+            inputs.publishableKeyProvider,
+            { inputs.networkType },
+            { inputs.pluginType },
+        )
+
+        val actual = factory.createRequest(mockEvent, additionalParams).params.withoutTimestamp()
+        val expected = legacy.create(mockEvent, additionalParams).withoutTimestamp()
+
+        assertThat(actual.toList()).isEqualTo(expected.toList())
+        assertThat(QueryStringFactory.createFromParamsWithEmptyValues(actual))
+            .isEqualTo(QueryStringFactory.createFromParamsWithEmptyValues(expected))
+    }
+
+    private fun createPackageInfo(label: String): PackageInfo {
+        return PackageInfo().also {
+            it.versionCode = 20
+            it.packageName = packageName
+            it.applicationInfo = ApplicationInfo().also { applicationInfo ->
+                applicationInfo.nonLocalizedLabel = label
+            }
+        }
+    }
+
+    private fun Map<String, *>.withoutTimestamp(): Map<String, *> {
+        assertThat(this[AnalyticsFields.TIMESTAMP]).isInstanceOf(Double::class.javaObjectType)
+        return mapValues { (key, value) -> if (key == AnalyticsFields.TIMESTAMP) 0.0 else value }
+    }
+
     private fun createFakeAnalyticsRequestFactory(
         pluginTypeProvider: Provider<String?> = Provider { null }
     ): AnalyticsRequestFactory {
@@ -204,6 +332,14 @@ class AnalyticsRequestFactoryTest : TestCase() {
             pluginTypeProvider,
         )
     }
+
+    private data class FactoryInputs(
+        val packageManager: PackageManager?,
+        val packageInfo: PackageInfo?,
+        val publishableKeyProvider: Provider<String>,
+        val networkType: String?,
+        val pluginType: String?,
+    )
 }
 
 private fun withLocale(locale: Locale, block: () -> Unit) {
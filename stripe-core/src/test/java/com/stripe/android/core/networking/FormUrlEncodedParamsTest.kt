@@ -0,0 +1,139 @@
+package com.stripe.android.core.networking
+
+import com.google.common.truth.Truth.assertThat
+import java.io.ByteArrayOutputStream
+import java.net.URLEncoder
+import kotlin.test.Test
+
+class FormUrlEncodedParamsTest {
+
+    @Test
+    fun `values are escaped like URLEncoder`() {
+        ESCAPING_SAMPLES.forEach { value ->
+            assertThat(encode(mapOf("key" to value)))
+                .isEqualTo("key=${URLEncoder.encode(value, Charsets.UTF_8.name())}")
+        }
+    }
+
+    @Test
+    fun `keys are escaped like URLEncoder`() {
+        ESCAPING_SAMPLES.forEach { key ->
+            val encodedKey = URLEncoder.encode(key, Charsets.UTF_8.name())
+            assertThat(encode(mapOf(key to mapOf(key to listOf(key)))))
+                .isEqualTo("$encodedKey%5B$encodedKey%5D%5B%5D=$encodedKey")
+        }
+    }
+
+    @Test
+    fun `compacted params match compacting then creating the query string`() {
+        COMPACTED_SAMPLES.forEach { params ->
+            assertThat(FormUrlEncodedParams.encode(params, compact = true).toString())
+                .isEqualTo(QueryStringFactory.create(QueryStringFactory.compactParams(params)))
+        }
+    }
+
+    @Test
+    fun `nulls are only dropped from maps reachable through maps when compacting`() {
+        val params = mapOf(
+            "a" to null,
+            "b" to listOf(mapOf("c" to null), null),
+            "d" to mapOf("e" to null)
+        )
+
+        assertThat(decode(FormUrlEncodedParams.encode(params, compact = true).toString()))
+            .isEqualTo("b[0][c]=&b[1]=")
+        assertThat(decode(FormUrlEncodedParams.encode(params, compact = false).toString()))
+            .isEqualTo("a=&b[0][c]=&b[1]=&d[e]=")
+    }
+
+    @Test
+    fun `empty params are encoded as an empty body`() {
+        listOf(null, emptyMap<String, Any>(), mapOf("a" to null)).forEach { params ->
+            val encoded = FormUrlEncodedParams.encode(params, compact = true)
+
+            assertThat(encoded.isEmpty()).isTrue()
+            assertThat(encoded.toString()).isEmpty()
+        }
+    }
+
+    @Test
+    fun `writeTo writes the query string bytes`() {
+        val params = COMPACTED_SAMPLES.last()
+        val encoded = FormUrlEncodedParams.encode(params, compact = true)
+
+        val output = ByteArrayOutputStream()
+        encoded.writeTo(output)
+
+        assertThat(output.toByteArray())
+            .isEqualTo(encoded.toString().toByteArray(Charsets.UTF_8))
+    }
+
+    @Test
+    fun `large values grow the buffer`() {
+        val value = "é ".repeat(10_000)
+
+        assertThat(encode(mapOf("key" to value)))
+            .isEqualTo("key=${URLEncoder.encode(value, Charsets.UTF_8.name())}")
+    }
+
+    private fun encode(params: Map<String, *>): String {
+        return FormUrlEncodedParams.encode(params, compact = false).toString()
+    }
+
+    private fun decode(query: String): String {
+        return java.net.URLDecoder.decode(query, Charsets.UTF_8.name())
+    }
+
+    private companion object {
+        val ESCAPING_SAMPLES = listOf(
+            "",
+            "plain",
+            "AZaz09.-*_",
+            "with space",
+            "~!@#$%^&()+={}[]|\\:;\"'<>,?/`",
+            "\n\t\r\u0000\u007F",
+            "café üß",
+            "你好",
+            "😀 emoji",
+            "lone high \uD83D end",
+            "lone low \uDE00 end",
+            "reversed \uDE00\uD83D",
+            "trailing high \uD83D"
+        )
+
+        val COMPACTED_SAMPLES: List<Map<String, *>> = listOf(
+            mapOf("only" to "value"),
+            (0 until 20).associate { "key_$it" to "value_$it" },
+            mapOf(
+                "type" to "card",
+                "card" to mapOf(
+                    "number" to "4242424242424242",
+                    "exp_month" to 12,
+                    "exp_year" to 2045,
+                    "cvc" to null
+                ),
+                "billing_details" to mapOf(
+                    "address" to mapOf(
+                        "line1" to "123 Market St",
+                        "line2" to null,
+                        "city" to "San Francisco",
+                        "state" to "CA",
+                        "postal_code" to "94107",
+                        "country" to "US"
+                    ),
+                    "email" to "jenny.rosen@example.com",
+                    "name" to "Jenny Rosen",
+                    "phone" to null
+                ),
+                "metadata" to emptyMap<String, Any>(),
+                "expand" to listOf("payment_method", "latest_charge"),
+                "payment_method_types" to emptyList<String>(),
+                "items" to listOf(
+                    mapOf("amount" to 100, "description" to null),
+                    mapOf("amount" to 200, "tags" to listOf("a", 1, true, 'c'))
+                ),
+                "radar_options" to mapOf("hcaptcha_token" to "token with spaces & symbols")
+            )
+        )
+    }
+}
@@ -0,0 +1,87 @@
+package com.stripe.android.core.networking
+
+import android.content.pm.PackageInfo
+import android.content.pm.PackageManager
+import android.os.Build
+import com.stripe.android.core.BuildConfig
+import com.stripe.android.core.reactnative.ReactNativeAnalytics
+import com.stripe.android.core.version.StripeSdkVersion
+import java.util.Locale
+import javax.inject.Provider
+
+/**
+ * The params [AnalyticsRequestFactory] used to build through chained map copies, kept as the
+ * reference for golden tests and benchmarks.
+ */
+internal class LegacyAnalyticsParams(
+    private val packageManager: PackageManager?,
+    private val packageInfo: PackageInfo?,
+    private val packageName: String,
+    private val publishableKeyProvider: Provider<String>,
+    private val networkTypeProvider: Provider<String?>,
+    private val pluginTypeProvider: Provider<String?>,
+) {
+    fun create(
+        event: AnalyticsEvent,
+        additionalParams: Map<String, Any?>
+    ): Map<String, Any?> {
+        return standardParams() + appDataParams() + mapOf(AnalyticsFields.EVENT to event.eventName) +
+            additionalParams
+    }
+
+    private fun standardParams(): Map<String, Any> = mapOf(
+        AnalyticsFields.ANALYTICS_UA to AnalyticsRequestFactory.ANALYTICS_UA,
+        AnalyticsFields.PUBLISHABLE_KEY to runCatching {
+            val publishableKey = publishableKeyProvider.get()
+            if (publishableKey.startsWith("uk_")) {
+                "[REDACTED_LIVE_KEY]"
+            } else {
+                publishableKey
+            }
+        }.getOrDefault(ApiRequest.Options.UNDEFINED_PUBLISHABLE_KEY),
+        AnalyticsFields.OS_NAME to Build.VERSION.CODENAME,
+        AnalyticsFields.OS_RELEASE to Build.VERSION.RELEASE,
+        AnalyticsFields.OS_VERSION to Build.VERSION.SDK_INT,
+        AnalyticsFields.DEVICE_TYPE to "${Build.MANUFACTURER}_${Build.BRAND}_${Build.MODEL}",
+        AnalyticsFields.BINDINGS_VERSION to StripeSdkVersion.VERSION_NAME,
+        AnalyticsFields.IS_DEVELOPMENT to BuildConfig.DEBUG,
+        AnalyticsFields.SESSION_ID to AnalyticsRequestFactory.sessionId,
+        AnalyticsFields.TIMESTAMP to System.currentTimeMillis() / 1000.0,
+        AnalyticsFields.LOCALE to Locale.getDefault().toString(),
+    ) + networkType() + pluginType() + reactNativeParams()
+
+    private fun networkType(): Map<String, String> {
+        val networkType = networkTypeProvider.get() ?: return emptyMap()
+        return mapOf(AnalyticsFields.NETWORK_TYPE to networkType)
+    }
+
+    private fun pluginType(): Map<String, String> {
+        return pluginTypeProvider.get()?.let { pluginType ->
+            mapOf(AnalyticsFields.PLUGIN_TYPE to pluginType)
+        } ?: emptyMap()
+    }
+
+    private fun reactNativeParams(): Map<String, Any> {
+        val params = mutableMapOf<String, Any>()
+        ReactNativeAnalytics.isNewArchitecture?.let {
+            params[AnalyticsFields.REACT_NATIVE_IS_NEW_ARCHITECTURE] = it
+        }
+        ReactNativeAnalytics.reactNativeVersion?.let {
+            params[AnalyticsFields.REACT_NATIVE_VERSION] = it
+        }
+        return params
+    }
+
+    private fun appDataParams(): Map<String, Any> {
+        if (packageManager == null || packageInfo == null) {
+            return emptyMap()
+        }
+        val appName = packageInfo.applicationInfo?.loadLabel(packageManager).takeUnless {
+            it.isNullOrBlank()
+        } ?: packageName
+        return mapOf(
+            AnalyticsFields.APP_NAME to appName,
+            AnalyticsFields.APP_VERSION to packageInfo.versionCode
+        )
+    }
+}
@@ -0,0 +1,103 @@
+package com.stripe.android.core.networking
+
+import android.os.Build
+import android.system.Os
+import com.stripe.android.core.AppInfo
+import com.stripe.android.core.version.StripeSdkVersion
+import java.util.Locale
+
+/**
+ * The headers [RequestHeadersFactory] used to rebuild for every request, kept as the reference
+ * for golden tests and benchmarks.
+ */
+internal object LegacyRequestHeaders {
+
+    fun api(
+        options: ApiRequest.Options,
+        appInfo: AppInfo?,
+        locale: Locale,
+        apiVersion: String,
+        sdkVersion: String,
+    ): Map<String, String> {
+        val languageTag = locale.toLanguageTag()
+            .takeIf { it.isNotBlank() && it != RequestHeadersFactory.UNDETERMINED_LANGUAGE }
+        val extraHeaders = mapOf(
+            HEADER_ACCEPT to "application/json",
+            HEADER_STRIPE_VERSION to apiVersion,
+            HEADER_AUTHORIZATION to "Bearer ${options.apiKey}"
+        ).plus(
+            StripeClientUserAgentHeaderFactory().create(appInfo)
+        ).plus(
+            if (options.apiKeyIsUserKey) {
+                val isLiveMode = Os.getenv("Stripe-Livemode") != "false"
+                mapOf(HEADER_STRIPE_LIVEMODE to isLiveMode.toString())
+            } else {
+                emptyMap()
+            }
+        ).plus(
+            options.stripeAccount?.let {
+                mapOf(HEADER_STRIPE_ACCOUNT to it)
+            }.orEmpty()
+        ).plus(
+            options.idempotencyKey?.let {
+                mapOf(HEADER_IDEMPOTENCY_KEY to it)
+            }.orEmpty()
+        ).plus(
+            languageTag?.let { mapOf(HEADER_ACCEPT_LANGUAGE to it) }.orEmpty()
+        )
+
+        val userAgent = listOfNotNull(
+            RequestHeadersFactory.getUserAgent(sdkVersion),
+            appInfo?.toUserAgent()
+        ).joinToString(" ")
+
+        val xStripeUserAgentParams = defaultXStripeUserAgentMap()
+        appInfo?.let {
+            xStripeUserAgentParams.putAll(it.toParamMap())
+        }
+
+        return create(extraHeaders, userAgent, xStripeUserAgentParams)
+    }
+
+    fun fraudDetection(guid: String): Map<String, String> {
+        return create(
+            extraHeaders = mapOf(RequestHeadersFactory.FraudDetection.HEADER_COOKIE to "m=$guid"),
+            userAgent = RequestHeadersFactory.getUserAgent(StripeSdkVersion.VERSION),
+            xStripeUserAgentParams = defaultXStripeUserAgentMap()
+        )
+    }
+
+    fun analytics(): Map<String, String> {
+        return create(
+            extraHeaders = emptyMap(),
+            userAgent = RequestHeadersFactory.getUserAgent(StripeSdkVersion.VERSION),
+            xStripeUserAgentParams = defaultXStripeUserAgentMap()
+        )
+    }
+
+    private fun create(
+        extraHeaders: Map<String, String>,
+        userAgent: String,
+        xStripeUserAgentParams: Map<String, String?>,
+    ): Map<String, String> {
+        val xStripeUserAgent = "{" + xStripeUserAgentParams.map { (key, value) ->
+            "\"$key\":\"$value\""
+        }.joinToString(",") + "}"
+
+        return extraHeaders.plus(
+            mapOf(
+                HEADER_USER_AGENT to userAgent,
+                HEADER_ACCEPT_CHARSET to RequestHeadersFactory.CHARSET,
+                HEADER_X_STRIPE_USER_AGENT to xStripeUserAgent
+            )
+        )
+    }
+
+    private fun defaultXStripeUserAgentMap() = mutableMapOf<String, String?>(
+        RequestHeadersFactory.LANG to RequestHeadersFactory.KOTLIN,
+        AnalyticsFields.BINDINGS_VERSION to StripeSdkVersion.VERSION_NAME,
+        AnalyticsFields.OS_VERSION to "${Build.VERSION.SDK_INT}",
+        RequestHeadersFactory.TYPE to "${Build.MANUFACTURER}_${Build.BRAND}_${Build.MODEL}",
+        RequestHeadersFactory.MODEL to Build.MODEL
+    )
+}
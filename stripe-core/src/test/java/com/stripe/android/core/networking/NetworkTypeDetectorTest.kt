@@ -0,0 +1,115 @@
+package com.stripe.android.core.networking
+
+import android.app.Application
+import android.content.Context
+import android.net.ConnectivityManager
+import android.net.NetworkInfo
+import android.telephony.TelephonyManager
+import androidx.test.core.app.ApplicationProvider
+import com.google.common.truth.Truth.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.mockito.kotlin.any
+import org.mockito.kotlin.argumentCaptor
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.verify
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.Shadows.shadowOf
+import org.robolectric.shadows.ShadowNetwork
+import org.robolectric.shadows.ShadowNetworkInfo
+
+@Suppress("DEPRECATION")
+@RunWith(RobolectricTestRunner::class)
+class NetworkTypeDetectorTest {
+
+    private val application = ApplicationProvider.getApplicationContext<Application>()
+    private val connectivityManager =
+        application.getSystemService(Context.CONNECTIVITY_SERVICE) as ConnectivityManager
+
+    @Test
+    fun `detects the active network type`() {
+        setActiveNetwork(ConnectivityManager.TYPE_MOBILE, TelephonyManager.NETWORK_TYPE_LTE)
+
+        assertThat(NetworkTypeDetector(application)()).isEqualTo("4G")
+    }
+
+    @Test
+    fun `network type is cached until connectivity changes`() {
+        setActiveNetwork(ConnectivityManager.TYPE_WIFI)
+        val detector = NetworkTypeDetector(application)
+        assertThat(detector()).isEqualTo("Wi-Fi")
+
+        setActiveNetwork(ConnectivityManager.TYPE_MOBILE, TelephonyManager.NETWORK_TYPE_NR)
+        assertThat(detector()).isEqualTo("Wi-Fi")
+
+        notifyNetworkChanged()
+        assertThat(detector()).isEqualTo("5G")
+    }
+
+    @Test
+    fun `missing network is cached until connectivity changes`() {
+        shadowOf(connectivityManager).setActiveNetworkInfo(null)
+        val detector = NetworkTypeDetector(application)
+        assertThat(detector()).isNull()
+
+        setActiveNetwork(ConnectivityManager.TYPE_WIFI)
+        assertThat(detector()).isNull()
+
+        notifyNetworkChanged()
+        assertThat(detector()).isEqualTo("Wi-Fi")
+    }
+
+    @Test
+    fun `detectors share one connectivity callback`() {
+        setActiveNetwork(ConnectivityManager.TYPE_WIFI)
+        val first = NetworkTypeDetector(application)
+        val second = NetworkTypeDetector(application)
+
+        assertThat(first()).isEqualTo("Wi-Fi")
+        setActiveNetwork(ConnectivityManager.TYPE_MOBILE, TelephonyManager.NETWORK_TYPE_EDGE)
+        assertThat(second()).isEqualTo("Wi-Fi")
+
+        assertThat(shadowOf(connectivityManager).networkCallbacks).hasSize(1)
+    }
+
+    @Test
+    fun `callback is unregistered when the connectivity manager changes`() {
+        val firstManager = mock<ConnectivityManager>()
+        val secondManager = mock<ConnectivityManager>()
+
+        NetworkTypeDetector(contextWith(firstManager))
+        NetworkTypeDetector(contextWith(secondManager))
+
+        val callback = argumentCaptor<ConnectivityManager.NetworkCallback>()
+        verify(firstManager).registerDefaultNetworkCallback(callback.capture())
+        verify(firstManager).unregisterNetworkCallback(callback.firstValue)
+        verify(secondManager).registerDefaultNetworkCallback(any<ConnectivityManager.NetworkCallback>())
+        verify(secondManager, never()).unregisterNetworkCallback(any<ConnectivityManager.NetworkCallback>())
+    }
+
+    private fun contextWith(connectivityManager: ConnectivityManager): Context {
+        return mock<Context> { context ->
+            on { applicationContext } doReturn context
+            on { getSystemService(Context.CONNECTIVITY_SERVICE) } doReturn connectivityManager
+        }
+    }
+
+    private fun setActiveNetwork(type: Int, subType: Int = 0) {
+        shadowOf(connectivityManager).setActiveNetworkInfo(
+            ShadowNetworkInfo.newInstance(
+                NetworkInfo.DetailedState.CONNECTED,
+                type,
+                subType,
+                true,
+                NetworkInfo.State.CONNECTED
+            )
+        )
+    }
+
+    private fun notifyNetworkChanged() {
+        val network = ShadowNetwork.newInstance(1)
+        shadowOf(connectivityManager).networkCallbacks.forEach { it.onAvailable(network) }
+    }
+}
@@ -208,8 +208,88 @@ class RequestHeadersFactoriesTest {
         ).isEmpty()
     }
 
+    @Test
+    fun `api headers are identical to the legacy headers`() {
+        for (options in GOLDEN_OPTIONS) {
+            for (appInfo in listOf(null, AppInfoFixtures.DEFAULT)) {
+                for (locale in GOLDEN_LOCALES) {
+                    for (apiVersion in listOf(ApiVersion.get().code, "2020-03-02;custom_beta=v1")) {
+                        val expected = LegacyRequestHeaders.api(
+                            options = options,
+                            appInfo = appInfo,
+                            locale = locale,
+                            apiVersion = apiVersion,
+                            sdkVersion = StripeSdkVersion.VERSION
+                        )
+
+                        val api = RequestHeadersFactory.Api(options, appInfo, locale, apiVersion)
+                        val fileUpload = RequestHeadersFactory.FileUpload(
+                            options = options,
+                            appInfo = appInfo,
+                            locale = locale,
+                            apiVersion = apiVersion,
+                            boundary = BOUNDARY
+                        )
+
+                        // Twice, so that the second call is served from the cached template.
+                        repeat(2) {
+                            assertThat(api.create().toList()).isEqualTo(expected.toList())
+                            assertThat(fileUpload.create().toList()).isEqualTo(expected.toList())
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    fun `fraud detection headers are identical to the legacy headers`() {
+        val guid = UUID.randomUUID().toString()
+        val factory = RequestHeadersFactory.FraudDetection(guid)
+
+        repeat(2) {
+            assertThat(factory.create().toList())
+                .isEqualTo(LegacyRequestHeaders.fraudDetection(guid).toList())
+        }
+    }
+
+    @Test
+    fun `analytics headers are identical to the legacy headers`() {
+        repeat(2) {
+            assertThat(RequestHeadersFactory.Analytics.create().toList())
+                .isEqualTo(LegacyRequestHeaders.analytics().toList())
+        }
+    }
+
+    @Test
+    fun `headers only change with the request options`() {
+        val first = RequestHeadersFactory.Api(
+            ApiRequest.Options(ApiKeyFixtures.FAKE_PUBLISHABLE_KEY, "acct_1", "idempotency_1"),
+            locale = Locale.US
+        ).create()
+        val second = RequestHeadersFactory.Api(
+            ApiRequest.Options(ApiKeyFixtures.DEFAULT_PUBLISHABLE_KEY, "acct_2", "idempotency_2"),
+            locale = Locale.US
+        ).create()
+
+        val changed = first.keys.filter { first[it] != second[it] }
+        assertThat(changed).containsExactly(HEADER_AUTHORIZATION, HEADER_STRIPE_ACCOUNT, HEADER_IDEMPOTENCY_KEY)
+        assertThat(first[HEADER_STRIPE_ACCOUNT]).isEqualTo("acct_1")
+        assertThat(second[HEADER_IDEMPOTENCY_KEY]).isEqualTo("idempotency_2")
+    }
+
     private companion object {
         private const val BOUNDARY = "TEST_BOUNDARY"
         private val OPTIONS = ApiRequest.Options(ApiKeyFixtures.DEFAULT_PUBLISHABLE_KEY)
+
+        private val GOLDEN_OPTIONS = listOf(
+            OPTIONS,
+            ApiRequest.Options(ApiKeyFixtures.FAKE_PUBLISHABLE_KEY, "acct_123abc"),
+            ApiRequest.Options(ApiKeyFixtures.FAKE_PUBLISHABLE_KEY, "acct_123abc", "idempotency_key"),
+            ApiRequest.Options(ApiKeyFixtures.FAKE_EPHEMERAL_KEY, idempotencyKey = "idempotency_key"),
+            ApiRequest.Options("uk_test_123"),
+        )
+
+        private val GOLDEN_LOCALES = listOf(Locale.US, Locale.JAPAN, Locale.SIMPLIFIED_CHINESE, Locale.ROOT)
     }
 }
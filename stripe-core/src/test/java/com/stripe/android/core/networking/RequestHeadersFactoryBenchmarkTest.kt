@@ -0,0 +1,120 @@
+package com.stripe.android.core.networking
+
+import com.stripe.android.core.ApiKeyFixtures
+import com.stripe.android.core.ApiVersion
+import com.stripe.android.core.AppInfoFixtures
+import com.stripe.android.core.version.StripeSdkVersion
+import org.json.JSONObject
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import java.io.File
+import java.lang.management.ManagementFactory
+import java.util.Locale
+import kotlin.time.Duration
+import kotlin.time.measureTime
+
+/**
+ * Reports the cost of building the headers of API and analytics requests, compared to rebuilding
+ * every header for each request.
+ *
+ * Timings and allocations depend on the machine and JVM running the test, so they are only
+ * reported. The report is written as JSON to [REPORT_FILE_NAME] in the build's benchmark reports
+ * directory, so that it can be compared between builds.
+ *
+ * The benchmark is left out of the unit tests and only runs with
+ * `./gradlew :stripe-core:testDebugUnitTest -PrunBenchmarks --tests '*BenchmarkTest'`.
+ */
+@RunWith(RobolectricTestRunner::class)
+class RequestHeadersFactoryBenchmarkTest {
+
+    private val options = ApiRequest.Options(ApiKeyFixtures.FAKE_PUBLISHABLE_KEY, "acct_123", "idempotency_key")
+
+    @Test
+    fun `request headers benchmark`() {
+        val report = JSONObject()
+            .put("benchmark", "RequestHeadersFactory.create")
+            .put("measured_iterations", MEASURED_ITERATIONS)
+            .put("api", apiHeaders())
+            .put("analytics", analyticsHeaders())
+            .toString(2)
+
+        val reportsDir = System.getProperty(REPORTS_DIR_PROPERTY)
+            ?: error("$REPORTS_DIR_PROPERTY is set by the build when run with -PrunBenchmarks.")
+        File(reportsDir, REPORT_FILE_NAME).apply { parentFile?.mkdirs() }.writeText(report)
+    }
+
+    private fun apiHeaders(): JSONObject {
+        // A new factory per request, as ApiRequest does.
+        val templated = measure {
+            RequestHeadersFactory.Api(options, AppInfoFixtures.DEFAULT, Locale.US).create()
+        }
+        val rebuilt = measure {
+            LegacyRequestHeaders.api(
+                options = options,
+                appInfo = AppInfoFixtures.DEFAULT,
+                locale = Locale.US,
+                apiVersion = ApiVersion.get().code,
+                sdkVersion = StripeSdkVersion.VERSION
+            )
+        }
+
+        return JSONObject()
+            .put("templated", templated.toJson())
+            .put("rebuilt", rebuilt.toJson())
+    }
+
+    private fun analyticsHeaders(): JSONObject {
+        val templated = measure { RequestHeadersFactory.Analytics.create() }
+        val rebuilt = measure { LegacyRequestHeaders.analytics() }
+
+        return JSONObject()
+            .put("templated", templated.toJson())
+            .put("rebuilt", rebuilt.toJson())
+    }
+
+    private fun measure(block: () -> Map<String, String>): Result {
+        repeat(WARMUP_ITERATIONS) { block() }
+
+        val allocatedBefore = allocatedBytes()
+        val duration = measureTime {
+            repeat(MEASURED_ITERATIONS) { block() }
+        }
+        val allocatedAfter = allocatedBytes()
+
+        return Result(
+            timePerRequest = duration / MEASURED_ITERATIONS,
+            allocatedBytesPerRequest = if (allocatedBefore != null && allocatedAfter != null) {
+                (allocatedAfter - allocatedBefore) / MEASURED_ITERATIONS
+            } else {
+                null
+            }
+        )
+    }
+
+    /**
+     * The bytes allocated by the current thread, when the JVM running the test counts them.
+     */
+    private fun allocatedBytes(): Long? {
+        val threads = ManagementFactory.getThreadMXBean() as? com.sun.management.ThreadMXBean
+        return threads
+            ?.takeIf { it.isThreadAllocatedMemorySupported && it.isThreadAllocatedMemoryEnabled }
+            ?.getThreadAllocatedBytes(Thread.currentThread().id)
+    }
+
+    private data class Result(
+        val timePerRequest: Duration,
+        val allocatedBytesPerRequest: Long?
+    ) {
+        fun toJson(): JSONObject = JSONObject()
+            .put("time_per_request_ns", timePerRequest.inWholeNanoseconds)
+            .putOpt("allocated_bytes_per_request", allocatedBytesPerRequest)
+    }
+
+    private companion object {
+        const val REPORTS_DIR_PROPERTY = "stripe.benchmarkReportsDir"
+        const val REPORT_FILE_NAME = "request-headers-factory.json"
+        const val WARMUP_ITERATIONS = 2_000
+        const val MEASURED_ITERATIONS = 10_000
+    }
+}
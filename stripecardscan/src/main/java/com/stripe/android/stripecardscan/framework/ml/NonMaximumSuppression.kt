@@ -1,8 +1,12 @@
 package com.stripe.android.stripecardscan.framework.ml
 
+import com.stripe.android.stripecardscan.framework.ml.ssd.RECT_FORM_SIZE
 import com.stripe.android.stripecardscan.framework.ml.ssd.RectForm
 import com.stripe.android.stripecardscan.framework.ml.ssd.areaClamped
 import com.stripe.android.stripecardscan.framework.ml.ssd.overlapWith
+import com.stripe.android.stripecardscan.framework.util.clamp
+import kotlin.math.max
+import kotlin.math.min
 
 /**
  * In this project we implement HARD NMS and NOT Soft NMS. I highly recommend checkout SOFT NMS
@@ -25,7 +29,7 @@ internal fun hardNonMaximumSuppression(
     limit: Int?
 ): ArrayList<Int> {
     val indexArray = probabilities.indices.sortedByDescending { probabilities[it] }
-        .take(200)
+        .take(MAX_NMS_CANDIDATES)
         .toMutableList()
     val pickedIndexes = ArrayList<Int>()
 
@@ -65,3 +69,127 @@ private fun intersectionOverUnionOf(currentBox: RectForm, nextBox: RectForm): Fl
     val currentArea = currentBox.areaClamped()
     return overlapArea / (nextArea + currentArea - overlapArea + eps)
 }
+
+/**
+ * The maximum number of candidates considered by [hardNonMaximumSuppression].
+ */
+internal const val MAX_NMS_CANDIDATES = 200
+
+/**
+ * Allocation-free variant of [hardNonMaximumSuppression] that works over flattened boxes and
+ * caller-provided index buffers. It keeps exactly the same boxes, in the same order.
+ *
+ * @param boxes: Detected boxes, flattened as consecutive [RectForm]s
+ * @param probabilities: Probabilities of the given boxes, indexed by box
+ * @param candidates: Indexes of the boxes to consider, in ascending order. This buffer is
+ * reordered in place.
+ * @param candidateCount: the number of valid entries in [candidates]
+ * @param iouThreshold: intersection over union threshold.
+ * @param limit: keep this number of results. If limit <= 0, keep all the results.
+ * @param suppressed: scratch buffer of at least [MAX_NMS_CANDIDATES] entries
+ * @param picked: buffer that receives the indexes of the kept boxes
+ *
+ * @return the number of indexes written to [picked]
+ */
+internal fun hardNonMaximumSuppression(
+    boxes: FloatArray,
+    probabilities: FloatArray,
+    candidates: IntArray,
+    candidateCount: Int,
+    iouThreshold: Float,
+    limit: Int?,
+    suppressed: BooleanArray,
+    picked: IntArray
+): Int {
+    val topCount = selectTopCandidates(probabilities, candidates, candidateCount)
+    suppressed.fill(false, 0, topCount)
+
+    var pickedCount = 0
+    for (i in 0 until topCount) {
+        if (suppressed[i]) {
+            continue
+        }
+
+        val current = candidates[i]
+        picked[pickedCount++] = current
+
+        if (pickedCount == limit) {
+            return pickedCount
+        }
+
+        for (j in i + 1 until topCount) {
+            if (
+                !suppressed[j] &&
+                intersectionOverUnionOf(boxes, current, candidates[j]) >= iouThreshold
+            ) {
+                suppressed[j] = true
+            }
+        }
+    }
+
+    return pickedCount
+}
+
+/**
+ * Move the [MAX_NMS_CANDIDATES] most probable [candidates] to the front of the buffer, sorted by
+ * descending probability. Candidates of equal probability keep their original order, matching
+ * the stable sort used by [hardNonMaximumSuppression].
+ *
+ * This is an in-place bounded insertion sort: the sorted prefix never grows past the element
+ * currently being read, so no extra buffer is needed.
+ *
+ * @return the number of candidates kept at the front of the buffer
+ */
+private fun selectTopCandidates(
+    probabilities: FloatArray,
+    candidates: IntArray,
+    candidateCount: Int
+): Int {
+    var topCount = 0
+    for (i in 0 until candidateCount) {
+        val candidate = candidates[i]
+        val probability = probabilities[candidate]
+
+        var position = topCount
+        while (position > 0 && probabilities[candidates[position - 1]] < probability) {
+            position--
+        }
+
+        if (position >= MAX_NMS_CANDIDATES) {
+            continue
+        }
+
+        val end = if (topCount < MAX_NMS_CANDIDATES) topCount++ else MAX_NMS_CANDIDATES - 1
+        for (k in end downTo position + 1) {
+            candidates[k] = candidates[k - 1]
+        }
+        candidates[position] = candidate
+    }
+    return topCount
+}
+
+/**
+ * Return intersection-over-union (Jaccard index) of two boxes stored in a flattened array of
+ * [RectForm]s, computed in the same order as the [RectForm] variant.
+ */
+@Suppress("MagicNumber")
+private fun intersectionOverUnionOf(boxes: FloatArray, currentIndex: Int, nextIndex: Int): Float {
+    val eps = 0.00001f
+    val current = currentIndex * RECT_FORM_SIZE
+    val next = nextIndex * RECT_FORM_SIZE
+
+    val overlapArea = areaClamped(
+        left = max(boxes[next], boxes[current]),
+        top = max(boxes[next + 1], boxes[current + 1]),
+        right = min(boxes[next + 2], boxes[current + 2]),
+        bottom = min(boxes[next + 3], boxes[current + 3])
+    )
+    val nextArea = areaClamped(boxes[next], boxes[next + 1], boxes[next + 2], boxes[next + 3])
+    val currentArea =
+        areaClamped(boxes[current], boxes[current + 1], boxes[current + 2], boxes[current + 3])
+    return overlapArea / (nextArea + currentArea - overlapArea + eps)
+}
+
+@Suppress("MagicNumber")
+private fun areaClamped(left: Float, top: Float, right: Float, bottom: Float) =
+    clamp(right - left, 0F, 1000F) * clamp(bottom - top, 0F, 1000F)
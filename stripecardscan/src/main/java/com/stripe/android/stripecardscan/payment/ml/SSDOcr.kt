@@ -9,16 +9,11 @@ import com.stripe.android.mlcore.base.InterpreterWrapper
 import com.stripe.android.stripecardscan.framework.FetchedData
 import com.stripe.android.stripecardscan.framework.ml.TFLAnalyzerFactory
 import com.stripe.android.stripecardscan.framework.ml.TensorFlowLiteAnalyzer
-import com.stripe.android.stripecardscan.framework.ml.ssd.adjustLocations
-import com.stripe.android.stripecardscan.framework.ml.ssd.softMax
-import com.stripe.android.stripecardscan.framework.ml.ssd.toRectForm
-import com.stripe.android.stripecardscan.framework.util.reshape
 import com.stripe.android.stripecardscan.payment.card.isValidPan
 import com.stripe.android.stripecardscan.payment.ml.ssd.OcrFeatureMapSizes
+import com.stripe.android.stripecardscan.payment.ml.ssd.SSDPostProcessor
 import com.stripe.android.stripecardscan.payment.ml.ssd.combinePriors
 import com.stripe.android.stripecardscan.payment.ml.ssd.determineLayoutAndFilter
-import com.stripe.android.stripecardscan.payment.ml.ssd.extractPredictions
-import com.stripe.android.stripecardscan.payment.ml.ssd.rearrangeOCRArray
 import java.nio.ByteBuffer
 
 /**
@@ -88,6 +83,28 @@ internal class SSDOcr private constructor(interpreter: InterpreterWrapper) :
         Map<Int, Array<FloatArray>>
         >(interpreter) {
 
+    private val postProcessor = SSDPostProcessor(
+        priors = PRIORS,
+        featureMapSizes = FEATURE_MAP_SIZES,
+        numberOfPriorsPerActivation = NUM_OF_PRIORS_PER_ACTIVATION,
+        numberOfClasses = NUM_OF_CLASSES,
+        centerVariance = CENTER_VARIANCE,
+        sizeVariance = SIZE_VARIANCE,
+        probabilityThreshold = PROB_THRESHOLD,
+        intersectionOverUnionThreshold = IOU_THRESHOLD,
+        limit = LIMIT,
+        classifierToLabel = { if (it == 10) 0 else it }
+    )
+
+    /**
+     * The model output buffers are reused across frames. This analyzer only processes one frame
+     * at a time, and the output is fully consumed by [interpretMLOutput] before the next frame.
+     */
+    private val outputBuffers = mapOf(
+        0 to arrayOf(FloatArray(NUM_CLASS)),
+        1 to arrayOf(FloatArray(NUM_LOC))
+    )
+
     override suspend fun transformData(data: CardOcr.Input): Array<ByteBuffer> =
         arrayOf(data.ssdOcrImage.getData())
 
@@ -95,38 +112,13 @@ internal class SSDOcr private constructor(interpreter: InterpreterWrapper) :
         data: CardOcr.Input,
         mlOutput: Map<Int, Array<FloatArray>>
     ): CardOcr.Prediction {
-        val outputClasses = mlOutput[0] ?: arrayOf(FloatArray(NUM_CLASS))
-        val outputLocations = mlOutput[1] ?: arrayOf(FloatArray(NUM_LOC))
-
-        val boxes = rearrangeOCRArray(
-            locations = outputLocations,
-            featureMapSizes = FEATURE_MAP_SIZES,
-            numberOfPriors = NUM_OF_PRIORS_PER_ACTIVATION,
-            locationsPerPrior = NUM_OF_COORDINATES
-        ).reshape(NUM_OF_COORDINATES)
-        boxes.adjustLocations(
-            priors = PRIORS,
-            centerVariance = CENTER_VARIANCE,
-            sizeVariance = SIZE_VARIANCE
-        )
-        boxes.forEach { it.toRectForm() }
-
-        val scores = rearrangeOCRArray(
-            locations = outputClasses,
-            featureMapSizes = FEATURE_MAP_SIZES,
-            numberOfPriors = NUM_OF_PRIORS_PER_ACTIVATION,
-            locationsPerPrior = NUM_OF_CLASSES
-        ).reshape(NUM_OF_CLASSES)
-        scores.forEach { it.softMax() }
+        val outputClasses = mlOutput[0]?.get(0) ?: FloatArray(NUM_CLASS)
+        val outputLocations = mlOutput[1]?.get(0) ?: FloatArray(NUM_LOC)
 
         val detectedBoxes = determineLayoutAndFilter(
-            extractPredictions(
-                scores = scores,
-                boxes = boxes,
-                probabilityThreshold = PROB_THRESHOLD,
-                intersectionOverUnionThreshold = IOU_THRESHOLD,
-                limit = LIMIT,
-                classifierToLabel = { if (it == 10) 0 else it }
+            postProcessor.process(
+                outputClasses = outputClasses,
+                outputLocations = outputLocations
             ),
             VERTICAL_THRESHOLD
         )
@@ -149,14 +141,9 @@ internal class SSDOcr private constructor(interpreter: InterpreterWrapper) :
         tfInterpreter: InterpreterWrapper,
         data: Array<ByteBuffer>
     ): Map<Int, Array<FloatArray>> {
-        val mlOutput = mapOf(
-            0 to arrayOf(FloatArray(NUM_CLASS)),
-            1 to arrayOf(FloatArray(NUM_LOC))
-        )
-
         @Suppress("UNCHECKED_CAST")
-        tfInterpreter.runForMultipleInputsOutputs(data as Array<Any>, mlOutput)
-        return mlOutput
+        tfInterpreter.runForMultipleInputsOutputs(data as Array<Any>, outputBuffers)
+        return outputBuffers
     }
 
     /**
@@ -0,0 +1,191 @@
+package com.stripe.android.stripecardscan.payment.ml.ssd
+
+import android.graphics.RectF
+import com.stripe.android.stripecardscan.framework.ml.MAX_NMS_CANDIDATES
+import com.stripe.android.stripecardscan.framework.ml.hardNonMaximumSuppression
+import com.stripe.android.stripecardscan.framework.ml.ssd.RECT_FORM_SIZE
+import com.stripe.android.stripecardscan.framework.ml.ssd.SizeAndCenter
+import com.stripe.android.stripecardscan.framework.ml.ssd.centerX
+import com.stripe.android.stripecardscan.framework.ml.ssd.centerY
+import com.stripe.android.stripecardscan.framework.ml.ssd.height
+import com.stripe.android.stripecardscan.framework.ml.ssd.width
+import kotlin.math.exp
+
+/**
+ * Turns the raw SSD OCR model output into [DetectionBox]es.
+ *
+ * This produces the same detections as chaining [rearrangeOCRArray], box decoding against the
+ * [priors], softmax and [extractPredictions], but decodes into primitive buffers that are
+ * allocated once and reused for every frame. Only the returned [DetectionBox]es are allocated.
+ *
+ * Instances are not thread safe, and should be owned by a single analyzer.
+ */
+@Suppress("LongParameterList")
+internal class SSDPostProcessor(
+    private val priors: Array<SizeAndCenter>,
+    private val featureMapSizes: OcrFeatureMapSizes,
+    private val numberOfPriorsPerActivation: Int,
+    private val numberOfClasses: Int,
+    private val centerVariance: Float,
+    private val sizeVariance: Float,
+    private val probabilityThreshold: Float,
+    private val intersectionOverUnionThreshold: Float,
+    private val limit: Int?,
+    private val classifierToLabel: (Int) -> Int = { it }
+) {
+    private val numberOfPriors = priors.size
+
+    /**
+     * Box locations, rearranged from the model output and then decoded in place into
+     * consecutive RectForms.
+     */
+    private val boxes = FloatArray(numberOfPriors * RECT_FORM_SIZE)
+
+    /**
+     * Class scores, rearranged from the model output and then normalized in place, one row of
+     * [numberOfClasses] per prior.
+     */
+    private val scores = FloatArray(numberOfPriors * numberOfClasses)
+
+    private val classScores = FloatArray(numberOfPriors)
+    private val candidates = IntArray(numberOfPriors)
+    private val suppressed = BooleanArray(MAX_NMS_CANDIDATES)
+    private val picked = IntArray(MAX_NMS_CANDIDATES)
+
+    fun process(outputClasses: FloatArray, outputLocations: FloatArray): List<DetectionBox> {
+        rearrangeInto(outputLocations, boxes, RECT_FORM_SIZE)
+        decodeBoxes()
+
+        rearrangeInto(outputClasses, scores, numberOfClasses)
+        softMaxRows()
+
+        return extractDetections()
+    }
+
+    /**
+     * Same traversal as [rearrangeOCRArray], writing into [destination] instead of a new array.
+     * For each layer, this transposes the model output from (locations, height) to
+     * (height, locations).
+     */
+    private fun rearrangeInto(source: FloatArray, destination: FloatArray, locationsPerPrior: Int) {
+        val layerTwoOffset = rearrangeLayer(
+            source = source,
+            destination = destination,
+            offset = 0,
+            width = featureMapSizes.layerOneWidth,
+            height = featureMapSizes.layerOneHeight,
+            locationsPerPrior = locationsPerPrior
+        )
+        rearrangeLayer(
+            source = source,
+            destination = destination,
+            offset = layerTwoOffset,
+            width = featureMapSizes.layerTwoWidth,
+            height = featureMapSizes.layerTwoHeight,
+            locationsPerPrior = locationsPerPrior
+        )
+    }
+
+    @Suppress("LongParameterList")
+    private fun rearrangeLayer(
+        source: FloatArray,
+        destination: FloatArray,
+        offset: Int,
+        width: Int,
+        height: Int,
+        locationsPerPrior: Int
+    ): Int {
+        val total = height * width * numberOfPriorsPerActivation * locationsPerPrior
+        val rowLength = total / height
+        var i = offset
+        for (step in 0 until height) {
+            var j = offset + step
+            for (k in 0 until rowLength) {
+                destination[i++] = source[j]
+                j += height
+            }
+        }
+        return offset + total
+    }
+
+    /**
+     * Convert the regressional location results into RectForms, matching
+     * [com.stripe.android.stripecardscan.framework.ml.ssd.adjustLocations] followed by
+     * [com.stripe.android.stripecardscan.framework.ml.ssd.toRectForm].
+     */
+    @Suppress("MagicNumber")
+    private fun decodeBoxes() {
+        for (prior in 0 until numberOfPriors) {
+            val p = priors[prior]
+            val o = prior * RECT_FORM_SIZE
+
+            val centerX = boxes[o] * centerVariance * p.width() + p.centerX()
+            val centerY = boxes[o + 1] * centerVariance * p.height() + p.centerY()
+            val width = exp(boxes[o + 2] * sizeVariance) * p.width()
+            val height = exp(boxes[o + 3] * sizeVariance) * p.height()
+
+            boxes[o] = centerX - width / 2
+            boxes[o + 1] = centerY - height / 2
+            boxes[o + 2] = centerX + width / 2
+            boxes[o + 3] = centerY + height / 2
+        }
+    }
+
+    private fun softMaxRows() {
+        for (prior in 0 until numberOfPriors) {
+            val start = prior * numberOfClasses
+            val end = start + numberOfClasses
+
+            var rowSumExp = 0F
+            for (i in start until end) {
+                rowSumExp += exp(scores[i])
+            }
+            for (i in start until end) {
+                scores[i] = exp(scores[i]) / rowSumExp
+            }
+        }
+    }
+
+    private fun extractDetections(): List<DetectionBox> {
+        val predictions = mutableListOf<DetectionBox>()
+
+        for (classifier in 1 until numberOfClasses) { // skip background classifier (index = 0)
+            var candidateCount = 0
+            for (prior in 0 until numberOfPriors) {
+                val score = scores[prior * numberOfClasses + classifier]
+                classScores[prior] = score
+                if (score >= probabilityThreshold) {
+                    candidates[candidateCount++] = prior
+                }
+            }
+
+            if (candidateCount == 0) {
+                continue
+            }
+
+            val pickedCount = hardNonMaximumSuppression(
+                boxes = boxes,
+                probabilities = classScores,
+                candidates = candidates,
+                candidateCount = candidateCount,
+                iouThreshold = intersectionOverUnionThreshold,
+                limit = limit,
+                suppressed = suppressed,
+                picked = picked
+            )
+            for (i in 0 until pickedCount) {
+                val prior = picked[i]
+                val o = prior * RECT_FORM_SIZE
+                predictions.add(
+                    DetectionBox(
+                        rect = RectF(boxes[o], boxes[o + 1], boxes[o + 2], boxes[o + 3]),
+                        confidence = classScores[prior],
+                        label = classifierToLabel(classifier)
+                    )
+                )
+            }
+        }
+
+        return predictions
+    }
+}
@@ -0,0 +1,76 @@
+package com.stripe.android.stripecardscan.framework.ml
+
+import com.google.common.truth.Truth.assertThat
+import com.stripe.android.stripecardscan.framework.ml.ssd.RECT_FORM_SIZE
+import com.stripe.android.stripecardscan.framework.ml.ssd.rectForm
+import org.junit.Test
+import kotlin.random.Random
+
+class NonMaximumSuppressionTest {
+
+    @Test
+    fun `primitive variant keeps the same boxes as the list variant`() {
+        repeat(100) { seed ->
+            val random = Random(seed)
+            val count = 1 + random.nextInt(400)
+            val boxes = Array(count) {
+                val left = random.nextFloat()
+                val top = random.nextFloat()
+                rectForm(left, top, left + random.nextFloat() / 4, top + random.nextFloat() / 4)
+            }
+            // Quantize probabilities so that ties are common.
+            val probabilities = FloatArray(count) { random.nextInt(20) / 20F }
+            val limit = listOf(null, 0, 5, 20)[seed % 4]
+
+            assertThat(primitiveNonMaximumSuppression(boxes, probabilities, limit))
+                .isEqualTo(hardNonMaximumSuppression(boxes, probabilities, 0.5F, limit))
+        }
+    }
+
+    @Test
+    fun `primitive variant only considers the given candidates`() {
+        val boxes = arrayOf(
+            rectForm(0F, 0F, 1F, 1F),
+            rectForm(0F, 0F, 1F, 1F),
+            rectForm(2F, 2F, 3F, 3F)
+        )
+        val probabilities = floatArrayOf(0.9F, 0.8F, 0.7F)
+        val picked = IntArray(MAX_NMS_CANDIDATES)
+
+        val pickedCount = hardNonMaximumSuppression(
+            boxes = flatten(boxes),
+            probabilities = probabilities,
+            candidates = intArrayOf(1, 2),
+            candidateCount = 2,
+            iouThreshold = 0.5F,
+            limit = null,
+            suppressed = BooleanArray(MAX_NMS_CANDIDATES),
+            picked = picked
+        )
+
+        assertThat(picked.take(pickedCount)).containsExactly(1, 2).inOrder()
+    }
+
+    private fun primitiveNonMaximumSuppression(
+        boxes: Array<FloatArray>,
+        probabilities: FloatArray,
+        limit: Int?
+    ): List<Int> {
+        val picked = IntArray(MAX_NMS_CANDIDATES)
+        val pickedCount = hardNonMaximumSuppression(
+            boxes = flatten(boxes),
+            probabilities = probabilities,
+            candidates = IntArray(boxes.size) { it },
+            candidateCount = boxes.size,
+            iouThreshold = 0.5F,
+            limit = limit,
+            suppressed = BooleanArray(MAX_NMS_CANDIDATES),
+            picked = picked
+        )
+        return picked.take(pickedCount)
+    }
+
+    private fun flatten(boxes: Array<FloatArray>) = FloatArray(boxes.size * RECT_FORM_SIZE) {
+        boxes[it / RECT_FORM_SIZE][it % RECT_FORM_SIZE]
+    }
+}
@@ -0,0 +1,156 @@
+package com.stripe.android.stripecardscan.payment.ml.ssd
+
+import com.stripe.android.stripecardscan.framework.ml.ssd.adjustLocations
+import com.stripe.android.stripecardscan.framework.ml.ssd.softMax
+import com.stripe.android.stripecardscan.framework.ml.ssd.toRectForm
+import com.stripe.android.stripecardscan.framework.util.reshape
+import kotlin.random.Random
+
+/**
+ * Synthetic SSD OCR model outputs in the layout produced by the model, along with the
+ * original post-processing pipeline used by SSDOcr.
+ */
+internal object SSDFrames {
+
+    const val NUM_OF_PRIORS_PER_ACTIVATION = 3
+    const val NUM_OF_CLASSES = 11
+    const val NUM_OF_COORDINATES = 4
+    const val PROB_THRESHOLD = 0.50f
+    const val IOU_THRESHOLD = 0.50f
+    const val CENTER_VARIANCE = 0.1f
+    const val SIZE_VARIANCE = 0.2f
+    const val LIMIT = 20
+
+    val FEATURE_MAP_SIZES = OcrFeatureMapSizes(
+        layerOneWidth = 38,
+        layerOneHeight = 24,
+        layerTwoWidth = 19,
+        layerTwoHeight = 12
+    )
+
+    private val layers = listOf(
+        FEATURE_MAP_SIZES.layerOneWidth to FEATURE_MAP_SIZES.layerOneHeight,
+        FEATURE_MAP_SIZES.layerTwoWidth to FEATURE_MAP_SIZES.layerTwoHeight
+    )
+
+    val numberOfPriors = layers.sumOf { (width, height) -> width * height } *
+        NUM_OF_PRIORS_PER_ACTIVATION
+
+    class Frame(val classes: FloatArray, val locations: FloatArray)
+
+    /**
+     * Generate a frame with low background noise and [digits] runs of strongly detected digits.
+     * Each digit is detected by a cluster of neighbouring priors, so that non-maximum suppression
+     * has overlapping boxes to remove.
+     */
+    fun frame(seed: Int, digits: Int = 16, clusterSize: Int = 6): Frame {
+        val random = Random(seed)
+        val scores = FloatArray(numberOfPriors * NUM_OF_CLASSES) { random.nextFloat() * 2F - 1F }
+        val locations = FloatArray(numberOfPriors * NUM_OF_COORDINATES) {
+            random.nextFloat() * 2F - 1F
+        }
+
+        repeat(digits) {
+            val digitClass = 1 + random.nextInt(NUM_OF_CLASSES - 1)
+            val firstPrior = random.nextInt(numberOfPriors - clusterSize)
+            for (prior in firstPrior until firstPrior + clusterSize) {
+                scores[prior * NUM_OF_CLASSES + digitClass] = 6F + random.nextFloat() * 4F
+            }
+        }
+
+        return Frame(
+            classes = toModelLayout(scores, NUM_OF_CLASSES),
+            locations = toModelLayout(locations, NUM_OF_COORDINATES)
+        )
+    }
+
+    /**
+     * Generate a frame where [count] priors detect the same class with the same score, which
+     * exercises top-K selection and its tie breaking.
+     */
+    fun saturatedFrame(count: Int, logit: Float = 8F): Frame {
+        val random = Random(count)
+        val scores = FloatArray(numberOfPriors * NUM_OF_CLASSES)
+        for (prior in 0 until count) {
+            scores[prior * NUM_OF_CLASSES + 3] = logit
+        }
+        val locations = FloatArray(numberOfPriors * NUM_OF_COORDINATES) {
+            random.nextFloat() * 2F - 1F
+        }
+        return Frame(
+            classes = toModelLayout(scores, NUM_OF_CLASSES),
+            locations = toModelLayout(locations, NUM_OF_COORDINATES)
+        )
+    }
+
+    /**
+     * The original post-processing implementation of SSDOcr.
+     */
+    fun legacyPostProcess(frame: Frame): List<DetectionBox> {
+        val boxes = rearrangeOCRArray(
+            locations = arrayOf(frame.locations.copyOf()),
+            featureMapSizes = FEATURE_MAP_SIZES,
+            numberOfPriors = NUM_OF_PRIORS_PER_ACTIVATION,
+            locationsPerPrior = NUM_OF_COORDINATES
+        ).reshape(NUM_OF_COORDINATES)
+        boxes.adjustLocations(
+            priors = priors,
+            centerVariance = CENTER_VARIANCE,
+            sizeVariance = SIZE_VARIANCE
+        )
+        boxes.forEach { it.toRectForm() }
+
+        val scores = rearrangeOCRArray(
+            locations = arrayOf(frame.classes.copyOf()),
+            featureMapSizes = FEATURE_MAP_SIZES,
+            numberOfPriors = NUM_OF_PRIORS_PER_ACTIVATION,
+            locationsPerPrior = NUM_OF_CLASSES
+        ).reshape(NUM_OF_CLASSES)
+        scores.forEach { it.softMax() }
+
+        return extractPredictions(
+            scores = scores,
+            boxes = boxes,
+            probabilityThreshold = PROB_THRESHOLD,
+            intersectionOverUnionThreshold = IOU_THRESHOLD,
+            limit = LIMIT,
+            classifierToLabel = { if (it == 10) 0 else it }
+        )
+    }
+
+    fun postProcessor() = SSDPostProcessor(
+        priors = priors,
+        featureMapSizes = FEATURE_MAP_SIZES,
+        numberOfPriorsPerActivation = NUM_OF_PRIORS_PER_ACTIVATION,
+        numberOfClasses = NUM_OF_CLASSES,
+        centerVariance = CENTER_VARIANCE,
+        sizeVariance = SIZE_VARIANCE,
+        probabilityThreshold = PROB_THRESHOLD,
+        intersectionOverUnionThreshold = IOU_THRESHOLD,
+        limit = LIMIT,
+        classifierToLabel = { if (it == 10) 0 else it }
+    )
+
+    private val priors by lazy {
+        combinePriors(android.util.Size(600, 375))
+    }
+
+    /**
+     * Inverse of [rearrangeOCRArray]: lay out per-prior values the way the model outputs them.
+     */
+    private fun toModelLayout(rearranged: FloatArray, locationsPerPrior: Int): FloatArray {
+        val output = FloatArray(rearranged.size)
+        var offset = 0
+        for ((width, height) in layers) {
+            val total = width * height * NUM_OF_PRIORS_PER_ACTIVATION * locationsPerPrior
+            val rowLength = total / height
+            for (step in 0 until height) {
+                for (k in 0 until rowLength) {
+                    output[offset + k * height + step] = rearranged[offset + step * rowLength + k]
+                }
+            }
+            offset += total
+        }
+        return output
+    }
+}
@@ -0,0 +1,99 @@
+package com.stripe.android.stripecardscan.payment.ml.ssd
+
+import com.google.common.truth.Truth.assertThat
+import org.json.JSONObject
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import java.io.File
+import java.lang.management.ManagementFactory
+import kotlin.time.Duration
+import kotlin.time.measureTime
+
+/**
+ * Compares the cost per frame of the original SSD OCR post-processing and [SSDPostProcessor].
+ *
+ * Timings and allocations depend on the machine and JVM running the test, so they are only
+ * reported. The report is written as JSON to [REPORT_FILE_NAME] in the build's benchmark reports
+ * directory, so that it can be compared between builds.
+ *
+ * The benchmark is left out of the unit tests and only runs with
+ * `./gradlew :stripecardscan:testDebugUnitTest -PrunBenchmarks --tests '*BenchmarkTest'`.
+ */
+@RunWith(RobolectricTestRunner::class)
+class SSDPostProcessorBenchmarkTest {
+
+    private val frames = (0 until FRAMES).map { SSDFrames.frame(seed = it) }
+
+    @Test
+    fun `post-processing benchmark`() {
+        val postProcessor = SSDFrames.postProcessor()
+
+        frames.forEach { frame ->
+            assertThat(postProcessor.process(frame.classes, frame.locations))
+                .isEqualTo(SSDFrames.legacyPostProcess(frame))
+        }
+
+        val legacy = measure { frame -> SSDFrames.legacyPostProcess(frame) }
+        val reused = measure { frame -> postProcessor.process(frame.classes, frame.locations) }
+
+        val report = JSONObject()
+            .put("benchmark", "SSDPostProcessor.process")
+            .put("frames", FRAMES)
+            .put("measured_iterations", MEASURED_ITERATIONS)
+            .put("legacy", legacy.toJson())
+            .put("reused_buffers", reused.toJson())
+            .toString(2)
+
+        val reportsDir = System.getProperty(REPORTS_DIR_PROPERTY)
+            ?: error("$REPORTS_DIR_PROPERTY is set by the build when run with -PrunBenchmarks.")
+        File(reportsDir, REPORT_FILE_NAME).apply { parentFile?.mkdirs() }.writeText(report)
+    }
+
+    private fun measure(block: (SSDFrames.Frame) -> List<DetectionBox>): Result {
+        repeat(WARMUP_ITERATIONS) { frames.forEach { block(it) } }
+
+        val allocatedBefore = allocatedBytes()
+        val duration = measureTime {
+            repeat(MEASURED_ITERATIONS) { frames.forEach { block(it) } }
+        }
+        val allocatedAfter = allocatedBytes()
+
+        val frameCount = FRAMES * MEASURED_ITERATIONS
+        return Result(
+            timePerFrame = duration / frameCount,
+            allocatedBytesPerFrame = if (allocatedBefore != null && allocatedAfter != null) {
+                (allocatedAfter - allocatedBefore) / frameCount
+            } else {
+                null
+            }
+        )
+    }
+
+    /**
+     * The bytes allocated by the current thread, when the JVM running the test counts them.
+     */
+    private fun allocatedBytes(): Long? {
+        val threads = ManagementFactory.getThreadMXBean() as? com.sun.management.ThreadMXBean
+        return threads
+            ?.takeIf { it.isThreadAllocatedMemorySupported && it.isThreadAllocatedMemoryEnabled }
+            ?.getThreadAllocatedBytes(Thread.currentThread().id)
+    }
+
+    private data class Result(
+        val timePerFrame: Duration,
+        val allocatedBytesPerFrame: Long?
+    ) {
+        fun toJson(): JSONObject = JSONObject()
+            .put("time_per_frame_ns", timePerFrame.inWholeNanoseconds)
+            .putOpt("allocated_bytes_per_frame", allocatedBytesPerFrame)
+    }
+
+    private companion object {
+        const val REPORTS_DIR_PROPERTY = "stripe.benchmarkReportsDir"
+        const val REPORT_FILE_NAME = "ssd-post-processor.json"
+        const val FRAMES = 20
+        const val WARMUP_ITERATIONS = 5
+        const val MEASURED_ITERATIONS = 10
+    }
+}
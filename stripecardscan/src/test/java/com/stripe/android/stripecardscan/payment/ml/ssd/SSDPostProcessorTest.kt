@@ -0,0 +1,64 @@
+package com.stripe.android.stripecardscan.payment.ml.ssd
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@RunWith(RobolectricTestRunner::class)
+class SSDPostProcessorTest {
+
+    @Test
+    fun `matches the original post-processing on generated frames`() {
+        val postProcessor = SSDFrames.postProcessor()
+
+        repeat(50) { seed ->
+            val frame = SSDFrames.frame(seed)
+
+            assertThat(postProcessor.process(frame.classes, frame.locations))
+                .isEqualTo(SSDFrames.legacyPostProcess(frame))
+        }
+    }
+
+    @Test
+    fun `matches the original post-processing when buffers are reused across frames`() {
+        val postProcessor = SSDFrames.postProcessor()
+        val frames = (0 until 10).map { SSDFrames.frame(seed = it, digits = it * 2) }
+
+        val first = frames.map { postProcessor.process(it.classes, it.locations) }
+        val second = frames.reversed().map { postProcessor.process(it.classes, it.locations) }
+
+        assertThat(first).isEqualTo(frames.map { SSDFrames.legacyPostProcess(it) })
+        assertThat(second.reversed()).isEqualTo(first)
+    }
+
+    @Test
+    fun `does not modify the model output`() {
+        val frame = SSDFrames.frame(seed = 7)
+        val classes = frame.classes.copyOf()
+        val locations = frame.locations.copyOf()
+
+        SSDFrames.postProcessor().process(frame.classes, frame.locations)
+
+        assertThat(frame.classes).isEqualTo(classes)
+        assertThat(frame.locations).isEqualTo(locations)
+    }
+
+    @Test
+    fun `finds nothing in a frame without detections`() {
+        val frame = SSDFrames.frame(seed = 1, digits = 0)
+
+        assertThat(SSDFrames.postProcessor().process(frame.classes, frame.locations)).isEmpty()
+        assertThat(SSDFrames.legacyPostProcess(frame)).isEmpty()
+    }
+
+    @Test
+    fun `matches the original post-processing with more than 200 tied candidates`() {
+        val frame = SSDFrames.saturatedFrame(count = 1_000)
+
+        val detections = SSDFrames.postProcessor().process(frame.classes, frame.locations)
+
+        assertThat(detections).isNotEmpty()
+        assertThat(detections).isEqualTo(SSDFrames.legacyPostProcess(frame))
+    }
+}